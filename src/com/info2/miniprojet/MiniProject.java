@@ -1,6 +1,9 @@
 package com.info2.miniprojet;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -8,11 +11,15 @@ import java.io.FileOutputStream;
 import com.info2.miniprojet.cli.CliHandler;
 import com.info2.miniprojet.config.Configuration;
 import com.info2.miniprojet.core.Engine;
+import com.info2.miniprojet.core.FinderPlanner;
 import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.core.TokenDictionary;
 import com.info2.miniprojet.factory.StrategyFactory; // Static methods will be used
+import com.info2.miniprojet.indexing.CandidateFinder;
 import com.info2.miniprojet.preprocessing.Preprocessor;
 import com.info2.miniprojet.data.*;
 import com.info2.miniprojet.data.impl.*;
+import com.info2.miniprojet.util.IndexSnapshotStore;
 
 
 public class MiniProject {
@@ -21,6 +28,8 @@ public class MiniProject {
     private Configuration currentConfig;
     private final String configFilePath;
     private Map<String, List<Name>> dataCache;
+    private Map<String, String> fileStamps; // Cached local file -> last modified time and size when it was (re)loaded
+    private Map<String, Long> fileHashes; // Cached local file -> hash of its lines, to tell a real change from a touch
 
     public MiniProject() {
         this.configFilePath = "app_config.properties";
@@ -28,6 +37,8 @@ public class MiniProject {
         this.engine = new Engine();
         this.cliHandler = new CliHandler(engine, this);
         this.dataCache = new HashMap<>();
+        this.fileStamps = new HashMap<>();
+        this.fileHashes = new HashMap<>();
     }
 
 
@@ -42,6 +53,8 @@ public class MiniProject {
                 !this.currentConfig.getPreprocessorChoice().equals(preprocessorChoice)) {
             System.out.println("MiniProject: Preprocessor choice changed. Clearing data cache.");
             this.dataCache.clear();
+            this.fileStamps.clear();
+            this.fileHashes.clear();
         }
         this.currentConfig.setPreprocessorChoice(preprocessorChoice);
         saveConfig(); // Save after modification
@@ -78,6 +91,16 @@ public class MiniProject {
         saveConfig();
     }
 
+    public void setPersistIndexes(boolean persistIndexes) {
+        this.currentConfig.setPersistIndexes(persistIndexes);
+        saveConfig();
+    }
+
+    public void setAutoRecallFloor(double autoRecallFloor) {
+        this.currentConfig.setAutoRecallFloor(autoRecallFloor);
+        saveConfig();
+    }
+
     public Configuration getCurrentConfig() {
         return this.currentConfig;
     }
@@ -96,39 +119,58 @@ public class MiniProject {
 
         // --- Cache Check ---
         if (cacheKey != null && this.dataCache.containsKey(cacheKey)) {
-            System.out.println("MiniProject: Returning cached and preprocessed data for: " + cacheKey);
-            return this.dataCache.get(cacheKey);
+            List<Name> cachedNames = this.dataCache.get(cacheKey);
+            String fileStamp = dataProvider instanceof LocalFileProvider ? fileStamp(cacheKey) : null;
+            if (fileStamp != null && !fileStamp.equals(this.fileStamps.get(cacheKey))) {
+                List<String> rawLines = dataProvider.loadRawLines();
+                long hash = IndexSnapshotStore.hashDataset(rawLines);
+                if (!Objects.equals(hash, this.fileHashes.get(cacheKey))) {
+                    reloadChangedList(cachedNames, rawLines);
+                    this.fileHashes.put(cacheKey, hash);
+                }
+                this.fileStamps.put(cacheKey, fileStamp);
+            } else {
+                System.out.println("MiniProject: Returning cached and preprocessed data for: " + cacheKey);
+            }
+            return cachedNames;
         }
 
         String preprocessorChoice = this.currentConfig.getPreprocessorChoice();
-        Preprocessor preprocessor = StrategyFactory.createPreprocessor(preprocessorChoice);
-
+        String finderChoice = this.currentConfig.getCandidateFinderChoice();
+        String fileStamp = dataProvider instanceof LocalFileProvider ? fileStamp(cacheKey) : null; // Before reading
         List<String> rawNames = dataProvider.loadRawLines();
+        if (fileStamp != null) {
+            this.fileStamps.put(cacheKey, fileStamp);
+            this.fileHashes.put(cacheKey, IndexSnapshotStore.hashDataset(rawNames));
+        }
+
+        // --- Persisted snapshot check (local files only): skips preprocessing and index building ---
+        Path snapshotPath = null;
+        long datasetHash = 0;
+        // AUTO picks its finder from the data and the comparator at run time: there is no fixed index to store
+        if (this.currentConfig.isPersistIndexes() && dataProvider instanceof LocalFileProvider && !FinderPlanner.isAuto(finderChoice)) {
+            datasetHash = fileStamp != null ? this.fileHashes.get(cacheKey) : IndexSnapshotStore.hashDataset(rawNames);
+            snapshotPath = IndexSnapshotStore.snapshotPathFor(cacheKey, finderChoice);
+            IndexSnapshotStore.Snapshot snapshot = IndexSnapshotStore.load(snapshotPath, datasetHash, preprocessorChoice, finderChoice);
+            if (snapshot != null) {
+                this.engine.adoptCandidateFinder(finderChoice, snapshot.finder(), snapshot.names());
+                this.dataCache.put(cacheKey, snapshot.names());
+                return snapshot.names();
+            }
+        }
+
+        Preprocessor preprocessor = StrategyFactory.createPreprocessor(preprocessorChoice);
         List<Name> processedNames = new ArrayList<>(rawNames.size());
+        TokenDictionary dictionary = new TokenDictionary(); // Owned by this list, see TokenDictionary
         int lineNumber = 0;
 
         for (String line : rawNames) {
             lineNumber++;
-            if (line == null || line.isBlank()) continue;
-
-            String parsedId = null;
-            String originalNameForRecord;
-            String nameToProcess;
-            String[] parts = line.split(",", 2);
-            if (parts.length == 1) {
-                nameToProcess = parts[0].trim();
-                originalNameForRecord = nameToProcess;
-            } else {
-                String potentialId = parts[0].trim();
-                nameToProcess = parts[1].trim();
-                originalNameForRecord = nameToProcess;
-                if (!potentialId.isBlank()) parsedId = potentialId;
-            }
-            if (nameToProcess.isEmpty()) continue;
+            String[] idAndName = parseLine(line, lineNumber);
+            if (idAndName == null) continue;
 
-            String finalId = (parsedId != null && !parsedId.isBlank()) ? parsedId : "L_" + lineNumber;
-            List<String> processedTokens = preprocessor.preprocess(List.of(nameToProcess));
-            Name nameObject = new Name(finalId, originalNameForRecord, processedTokens);
+            List<String> processedTokens = preprocessor.preprocess(List.of(idAndName[1]));
+            Name nameObject = new Name(idAndName[0], idAndName[1], processedTokens, dictionary);
             processedNames.add(nameObject);
         }
 
@@ -137,9 +179,95 @@ public class MiniProject {
             this.dataCache.put(cacheKey, processedNames);
         }
 
+        // --- Build the index now and persist it with the names for the next start ---
+        if (snapshotPath != null) {
+            try {
+                CandidateFinder finder = this.engine.prepareCandidateFinder(finderChoice, processedNames);
+                IndexSnapshotStore.save(snapshotPath, datasetHash, preprocessorChoice, finderChoice, processedNames, finder);
+            } catch (IOException e) {
+                System.err.println("Warning: Could not save index snapshot " + snapshotPath + ": " + e.getMessage());
+            }
+        }
+
         return processedNames;
     }
 
+    /**
+     * @return {id, name} of a data line ("id,name" or just "name", then id "L_" + line number), null for a blank line or name.
+     */
+    private static String[] parseLine(String line, int lineNumber) {
+        if (line == null || line.isBlank()) return null;
+
+        String parsedId = null;
+        String nameToProcess;
+        String[] parts = line.split(",", 2);
+        if (parts.length == 1) {
+            nameToProcess = parts[0].trim();
+        } else {
+            String potentialId = parts[0].trim();
+            nameToProcess = parts[1].trim();
+            if (!potentialId.isBlank()) parsedId = potentialId;
+        }
+        if (nameToProcess.isEmpty()) return null;
+
+        String finalId = (parsedId != null && !parsedId.isBlank()) ? parsedId : "L_" + lineNumber;
+        return new String[]{finalId, nameToProcess};
+    }
+
+    private static String fileStamp(String filePath) {
+        try {
+            Path path = Paths.get(filePath);
+            return Files.getLastModifiedTime(path).toMillis() + ":" + Files.size(path);
+        } catch (IOException e) {
+            return null; // Let the load report the problem
+        }
+    }
+
+    /**
+     * A cached file changed on disk (e.g. the daily watchlist changes): instead of preprocessing and indexing it all
+     * again, only its added or changed entries are preprocessed, and the Engine's index over the list (if any) takes
+     * the delta (Engine.updateIndex). The cached list is then updated in place, so the next operation reuses that index.
+     */
+    private void reloadChangedList(List<Name> cachedNames, List<String> rawLines) {
+        Map<String, List<String>> oldNamesById = new HashMap<>();
+        for (Name name : cachedNames) {
+            oldNamesById.computeIfAbsent(name.id(), k -> new ArrayList<>(1)).add(name.originalName());
+        }
+        Map<String, List<String>> newNamesById = new LinkedHashMap<>();
+        int lineNumber = 0;
+        for (String line : rawLines) {
+            lineNumber++;
+            String[] idAndName = parseLine(line, lineNumber);
+            if (idAndName != null) {
+                newNamesById.computeIfAbsent(idAndName[0], k -> new ArrayList<>(1)).add(idAndName[1]);
+            }
+        }
+
+        // A changed entry is removed and added again under the same id
+        Set<String> removedIds = new HashSet<>();
+        for (Map.Entry<String, List<String>> entry : oldNamesById.entrySet()) {
+            if (!entry.getValue().equals(newNamesById.get(entry.getKey()))) {
+                removedIds.add(entry.getKey());
+            }
+        }
+        Preprocessor preprocessor = StrategyFactory.createPreprocessor(this.currentConfig.getPreprocessorChoice());
+        TokenDictionary dictionary = TokenDictionary.of(cachedNames); // Added names stay comparable by id with the others
+        if (dictionary == null) dictionary = new TokenDictionary();
+        List<Name> addedNames = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : newNamesById.entrySet()) {
+            if (entry.getValue().equals(oldNamesById.get(entry.getKey()))) continue;
+            for (String nameToProcess : entry.getValue()) {
+                addedNames.add(new Name(entry.getKey(), nameToProcess, preprocessor.preprocess(List.of(nameToProcess)), dictionary));
+            }
+        }
+
+        boolean indexUpdated = this.engine.updateIndex(cachedNames, addedNames, removedIds);
+        cachedNames.removeIf(name -> removedIds.contains(name.id()));
+        cachedNames.addAll(addedNames);
+        System.out.println("MiniProject: Reloaded changed data: " + removedIds.size() + " ids removed or changed, "
+                + addedNames.size() + " names added" + (indexUpdated ? ", index updated in place." : "."));
+    }
+
     // --- Configuration Persistence (Instance Methods) ---
 
     private Configuration loadConfig() {
@@ -156,6 +284,8 @@ public class MiniProject {
             config.setResultThreshold(Double.parseDouble(props.getProperty("resultThreshold", String.valueOf(config.getResultThreshold()))));
             config.setMaxResults(Integer.parseInt(props.getProperty("maxResults", String.valueOf(config.getMaxResults()))));
             config.setThresholdMode(Boolean.parseBoolean(props.getProperty("isThresholdMode", String.valueOf(config.isThresholdMode()))));
+            config.setPersistIndexes(Boolean.parseBoolean(props.getProperty("persistIndexes", String.valueOf(config.isPersistIndexes()))));
+            config.setAutoRecallFloor(Double.parseDouble(props.getProperty("autoRecallFloor", String.valueOf(config.getAutoRecallFloor()))));
 
         } catch (IOException e) {
             System.out.println("MiniProject: Configuration file not found or error reading. Using default configuration.");
@@ -174,6 +304,8 @@ public class MiniProject {
         props.setProperty("resultThreshold", String.valueOf(currentConfig.getResultThreshold()));
         props.setProperty("maxResults", String.valueOf(currentConfig.getMaxResults()));
         props.setProperty("isThresholdMode", String.valueOf(currentConfig.isThresholdMode()));
+        props.setProperty("persistIndexes", String.valueOf(currentConfig.isPersistIndexes()));
+        props.setProperty("autoRecallFloor", String.valueOf(currentConfig.getAutoRecallFloor()));
 
         try (FileOutputStream fos = new FileOutputStream(configFilePath)) {
             props.store(fos, "Name Matcher Configuration");
@@ -192,6 +324,8 @@ public class MiniProject {
         config.setResultThreshold(0.85);
         config.setMaxResults(20);
         config.setThresholdMode(false);
+        config.setPersistIndexes(false); // Opt-in: writes an index_cache/ directory in the working directory
+        config.setAutoRecallFloor(0.9);
         return config;
     }
     // --- MiniProject Entry Point ---
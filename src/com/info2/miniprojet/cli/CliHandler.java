@@ -2,7 +2,10 @@ package com.info2.miniprojet.cli;
 
 import com.info2.miniprojet.MiniProject;
 import com.info2.miniprojet.config.Configuration;
+import com.info2.miniprojet.core.BlockingReport;
+import com.info2.miniprojet.core.Couple;
 import com.info2.miniprojet.core.Engine;
+import com.info2.miniprojet.core.FinderPlanner;
 import com.info2.miniprojet.core.ComparisonResult;
 import com.info2.miniprojet.core.Name;
 import com.info2.miniprojet.data.DataProvider;
@@ -44,7 +47,8 @@ public class CliHandler {
                 case "2": handleCompare(); break;
                 case "3": handleDeduplicate(); break;
                 case "4": handleConfiguration(); break;
-                case "5":
+                case "5": handleFinderReport(); break;
+                case "6":
                     System.out.println("Exiting application...");
                     scanner.close();
                     System.exit(0);
@@ -60,7 +64,8 @@ public class CliHandler {
         System.out.println("2. Compare two lists");
         System.out.println("3. Deduplicate a list");
         System.out.println("4. Configuration");
-        System.out.println("5. Exit");
+        System.out.println("5. Candidate Finder Report");
+        System.out.println("6. Exit");
         System.out.print("Enter your choice: ");
     }
 
@@ -127,6 +132,31 @@ public class CliHandler {
         }
     }
 
+    private void handleFinderReport() {
+        System.out.println("\n=== Candidate Finder Report ===");
+        DataProvider listProvider = getDataProvider("Enter data source for list (File path/URL or 'MANUAL'): ");
+        if (listProvider == null) return;
+        DataProvider truthProvider = getDataProvider("Enter data source for known duplicate pairs, one 'id1,id2' per line (File path/URL or 'MANUAL'): ");
+        if (truthProvider == null) return;
+        try {
+            List<Name> namesList = app.loadAndPreprocessData(listProvider);
+            if (namesList == null) {
+                System.err.println("CLI: Failed to load or preprocess data.");
+                return;
+            }
+            List<Couple<String>> trueMatches = BlockingReport.parseTrueMatches(truthProvider.loadRawLines());
+            List<String> finderChoices = new ArrayList<>(StrategyFactory.getAvailableCandidateFinderChoices());
+            finderChoices.removeIf(s -> s.equalsIgnoreCase("UNION") || FinderPlanner.isAuto(s)); // Composite / planner, not finders themselves
+            List<BlockingReport.FinderStats> stats = BlockingReport.evaluate(namesList, trueMatches, finderChoices);
+            System.out.println(BlockingReport.format(stats, namesList.size()));
+        } catch (IOException | InterruptedException e) {
+            System.err.println("Error during report data processing: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("An unexpected error occurred during the report: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     private void handleConfiguration() {
         boolean stayInConfigMenu = true;
         while(stayInConfigMenu) {
@@ -136,7 +166,9 @@ public class CliHandler {
             System.out.println("2. Choose Candidate Finder");
             System.out.println("3. Choose Name Comparator (and its internal String Comparator if applicable)");
             System.out.println("4. Set Result Filter (Threshold/Max Count)");
-            System.out.println("5. Back to Main Menu");
+            System.out.println("5. Toggle Index Persistence (currently " + (app.getCurrentConfig().isPersistIndexes() ? "ON" : "OFF") + ")");
+            System.out.println("6. Set AUTO Finder Recall Floor (currently " + app.getCurrentConfig().getAutoRecallFloor() + ")");
+            System.out.println("7. Back to Main Menu");
             System.out.print("Enter your choice: ");
             String choice = scanner.nextLine().trim();
             switch (choice) {
@@ -144,12 +176,33 @@ public class CliHandler {
                 case "2": listAndSetStrategy("CandidateFinder", null); break;
                 case "3": listAndSetStrategy("NameComparator", "StringComparatorForNameComp"); break;
                 case "4": configureResultFilter(); break;
-                case "5": stayInConfigMenu = false; System.out.println("Returning to main menu..."); break;
+                case "5":
+                    app.setPersistIndexes(!app.getCurrentConfig().isPersistIndexes());
+                    System.out.println("Index persistence " + (app.getCurrentConfig().isPersistIndexes() ? "enabled." : "disabled."));
+                    break;
+                case "6": configureAutoRecallFloor(); break;
+                case "7": stayInConfigMenu = false; System.out.println("Returning to main menu..."); break;
                 default: System.out.println("Invalid configuration choice. Please try again.");
             }
         }
     }
 
+    private void configureAutoRecallFloor() {
+        System.out.println("\n--- Set AUTO Finder Recall Floor ---");
+        System.out.println("AUTO picks the cheapest finder keeping at least this share of the matches (0 to 1).");
+        try {
+            double recallFloor = Double.parseDouble(getInput("Enter recall floor (e.g., 0.9): "));
+            if (recallFloor < 0 || recallFloor > 1) {
+                System.err.println("Recall floor must be between 0 and 1.");
+                return;
+            }
+            app.setAutoRecallFloor(recallFloor);
+            System.out.println("AUTO recall floor set to: " + recallFloor);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number format for recall floor.");
+        }
+    }
+
     private void listAndSetStrategy(String strategyType, String secondaryStrategyType) {
         List<String> choices;
         String currentPrimaryChoice = "";
@@ -188,13 +241,21 @@ public class CliHandler {
 
                 // --- MODIFIED SECTION FOR PIPELINE ---
                 if (strategyType.equals("Preprocessor") && selectedPrimaryChoice.equalsIgnoreCase("PIPELINE")) { // Use constant
-                    String pipelineDefinition = buildPipelineFromUserInput();
+                    String pipelineDefinition = buildCompositeFromUserInput("Preprocessor Pipeline", "PIPELINE", StrategyFactory.getAvailablePreprocessorChoices());
                     if (pipelineDefinition != null && !pipelineDefinition.equals("PIPELINE:")) { // Check if stages were actually added
                         app.setPreprocessorChoice(pipelineDefinition);
                         System.out.println(strategyType + " choice set to: " + pipelineDefinition);
                     } else {
                         System.out.println("Pipeline creation cancelled or no stages selected. Preprocessor choice unchanged.");
                     }
+                } else if (strategyType.equals("CandidateFinder") && selectedPrimaryChoice.equalsIgnoreCase("UNION")) {
+                    String unionDefinition = buildCompositeFromUserInput("Candidate Finder Union", "UNION", StrategyFactory.getAvailableCandidateFinderChoices());
+                    if (unionDefinition != null) {
+                        app.setCandidateFinderChoice(unionDefinition);
+                        System.out.println(strategyType + " choice set to: " + unionDefinition);
+                    } else {
+                        System.out.println("Union creation cancelled or no finders selected. Candidate Finder choice unchanged.");
+                    }
                 } else {
                     // Existing logic for single strategy selection
                     switch (strategyType) {
@@ -221,23 +282,23 @@ public class CliHandler {
         }
     }
 
-    // --- HELPER METHOD FOR BUILDING PIPELINE DEFINITION ---
-    private String buildPipelineFromUserInput() {
-        System.out.println("\n--- Building Preprocessor Pipeline ---");
-        List<String> availableStages = new ArrayList<>(StrategyFactory.getAvailablePreprocessorChoices());
-        availableStages.removeIf(s -> s.equalsIgnoreCase("PIPELINE"));
+    // --- HELPER METHOD FOR BUILDING PIPELINE/UNION DEFINITIONS ("KEYWORD:STAGE1,STAGE2,...") ---
+    private String buildCompositeFromUserInput(String title, String keyword, List<String> choices) {
+        System.out.println("\n--- Building " + title + " ---");
+        List<String> availableStages = new ArrayList<>(choices);
+        availableStages.removeIf(s -> s.equalsIgnoreCase(keyword));
 
         if (availableStages.isEmpty()) {
-            System.out.println("No individual preprocessor stages available to build a pipeline.");
+            System.out.println("No individual stages available to build a " + title + ".");
             return null;
         }
 
-        System.out.println("Available stages for pipeline (enter numbers, comma-separated, in desired order):");
+        System.out.println("Available stages for " + title + " (enter numbers one at a time, in desired order):");
         for (int i = 0; i < availableStages.size(); i++) {
             System.out.println((i + 1) + ". " + availableStages.get(i));
         }
-        System.out.println((availableStages.size() + 1) + ". Finish and Build Pipeline (if stages selected)");
-        System.out.println((availableStages.size() + 2) + ". Cancel Pipeline Creation");
+        System.out.println((availableStages.size() + 1) + ". Finish and Build " + title + " (if stages selected)");
+        System.out.println((availableStages.size() + 2) + ". Cancel " + title + " Creation");
 
 
         List<String> selectedStageNames = new ArrayList<>();
@@ -249,11 +310,11 @@ public class CliHandler {
                 if (stageChoiceNum > 0 && stageChoiceNum <= availableStages.size()) {
                     String chosenStage = availableStages.get(stageChoiceNum - 1);
                     selectedStageNames.add(chosenStage);
-                    System.out.println("Added '" + chosenStage + "' to pipeline. Current pipeline: " + String.join(",", selectedStageNames));
+                    System.out.println("Added '" + chosenStage + "'. Current " + title + ": " + String.join(",", selectedStageNames));
                 } else if (stageChoiceNum == availableStages.size() + 1) { // Finish
                     buildingPipeline = false;
                 } else if (stageChoiceNum == availableStages.size() + 2) { // Cancel
-                    System.out.println("Pipeline creation cancelled.");
+                    System.out.println(title + " creation cancelled.");
                     return null;
                 } else {
                     System.out.println("Invalid stage number: " + stageChoiceNum);
@@ -265,9 +326,9 @@ public class CliHandler {
 
 
         if (!selectedStageNames.isEmpty()) {
-            return "PIPELINE:" + String.join(",", selectedStageNames);
+            return keyword + ":" + String.join(",", selectedStageNames);
         } else {
-            System.out.println("No stages selected for the pipeline.");
+            System.out.println("No stages selected for the " + title + ".");
             return null;
         }
     }
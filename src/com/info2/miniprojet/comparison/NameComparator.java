@@ -2,6 +2,8 @@ package com.info2.miniprojet.comparison;
 
 import com.info2.miniprojet.core.Name;
 
+import java.util.List;
+
 
 public interface NameComparator {
     /**
@@ -23,4 +25,31 @@ public interface NameComparator {
      * @return The name identifier.
      */
     String getName();
-}
\ No newline at end of file
+
+    /**
+     * Length used by the length filter: if it is not -1, the score of two names is a distance
+     * at least the difference of their bounding lengths (see StringComparator.boundingLength).
+     * @param name The name.
+     * @return Its length as this comparator compares it, or -1 if the scores have no such bound (default).
+     */
+    default int boundingLength(Name name) {
+        return -1;
+    }
+
+    /**
+     * Score for a caller that only keeps similarities of at least minScore (see StringComparator).
+     * @return The score if it is at least minScore; otherwise the score or any value below minScore (default: the score).
+     */
+    default double calculateScore(Name name1, Name name2, double minScore) {
+        return calculateScore(name1, name2);
+    }
+
+    /**
+     * Cheap bounds of the score, cheapest first, that the Engine checks against the threshold (or the top-K floor)
+     * before scoring a pair (see ScoreBound).
+     * @return The stages (default: the length difference for a distance, see boundingLength).
+     */
+    default List<ScoreBound<Name>> scoreBounds() {
+        return isScoreDistance() ? List.of(ScoreBound.lengthDifference(this::boundingLength)) : List.of();
+    }
+}
@@ -0,0 +1,49 @@
+package com.info2.miniprojet.comparison;
+
+import java.util.function.ToDoubleBiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * One stage of the prefilter cascade the Engine runs before scoring a pair (see NameComparator.scoreBounds):
+ * a cheap bound on the comparator's score, checked against the threshold or the current top-K floor.
+ * A pair whose bound can't make the cut is dropped without being scored.
+ */
+public interface ScoreBound<T> {
+
+    /**
+     * @return The best score the pair could get: an upper bound for a similarity, a lower bound for a distance.
+     *         NaN if this stage can't bound this pair.
+     */
+    double bound(T first, T second);
+
+    /**
+     * @return Label of the stage in the Engine's pruning report.
+     */
+    String getName();
+
+    static <T> ScoreBound<T> of(String name, ToDoubleBiFunction<T, T> bound) {
+        return new ScoreBound<>() {
+            @Override
+            public double bound(T first, T second) {
+                return bound.applyAsDouble(first, second);
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+
+    /**
+     * Edit distances: the score is at least the difference of the bounding lengths (-1 = no bounding length).
+     */
+    static <T> ScoreBound<T> lengthDifference(ToIntFunction<T> boundingLength) {
+        return of("LENGTH", (first, second) -> {
+            int length1 = boundingLength.applyAsInt(first);
+            if (length1 < 0) return Double.NaN;
+            int length2 = boundingLength.applyAsInt(second);
+            return length2 < 0 ? Double.NaN : Math.abs(length1 - length2);
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package com.info2.miniprojet.comparison;
+
+/**
+ * Comparators that memoize scores, so the Engine can log how well the cache did after a run.
+ */
+public interface ScoreCacheReporting {
+
+    /**
+     * @return One line of cache metrics (lookups, hit rate, evictions), or null if there is no cache.
+     */
+    String describeScoreCache();
+}
@@ -1,5 +1,7 @@
 package com.info2.miniprojet.comparison;
 
+import java.util.List;
+
 public interface StringComparator {
     /**
      * Calculates the similarity or distance score between two strings.
@@ -20,4 +22,41 @@ public interface StringComparator {
      * @return The name identifier.
      */
     String getName();
-}
\ No newline at end of file
+
+    /**
+     * Length used by the length filter. For edit distances where inserting or deleting a character costs at least 1,
+     * the score of two strings is at least the difference of their lengths: pairs whose lengths differ by more than
+     * a distance threshold can be skipped without being scored.
+     * @param string The string (may be null).
+     * @return Its length as this comparator compares it, or -1 if the scores have no such bound (default).
+     */
+    default int boundingLength(String string) {
+        return -1;
+    }
+
+    /**
+     * Score for a caller that only keeps similarities of at least minScore (threshold mode): a comparator may stop
+     * early once the score can no longer reach it. Only meaningful for similarities (isScoreDistance() false).
+     * @param minScore Lowest score the caller keeps.
+     * @return The score if it is at least minScore; otherwise the score or any value below minScore (default: the score).
+     */
+    default double calculateScore(String string1, String string2, double minScore) {
+        return calculateScore(string1, string2);
+    }
+
+    /**
+     * @return true if the scores are computed on the lowercased strings, so a caller may pass strings it has
+     *         already lowercased (see NameFeatures.lowerJoined). Default: false.
+     */
+    default boolean ignoresCase() {
+        return false;
+    }
+
+    /**
+     * Cheap bounds of the score, cheapest first, for the Engine's prefilter cascade (see ScoreBound).
+     * @return The stages (default: none).
+     */
+    default List<ScoreBound<String>> scoreBounds() {
+        return List.of();
+    }
+}
@@ -1,20 +1,24 @@
 package com.info2.miniprojet.comparison.impl;
 
 import com.info2.miniprojet.comparison.NameComparator;
+import com.info2.miniprojet.comparison.ScoreCacheReporting;
 import com.info2.miniprojet.comparison.StringComparator;
 import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.core.TokenDictionary;
 
 import java.util.List;
 import java.util.ArrayList;
 
 
-public class BagOfWordsNameComparator implements NameComparator {
+public class BagOfWordsNameComparator implements NameComparator, ScoreCacheReporting {
     private final StringComparator stringComparator;
     private final double matchThreshold; // Threshold to consider a token "matched"
+    private final boolean exactTokens; // Only equal tokens match: the greedy matching is a multiset intersection (of ids, for names sharing a dictionary)
 
     public BagOfWordsNameComparator(StringComparator stringComparator, double tokenMatchThreshold) {
         this.stringComparator = stringComparator;
         this.matchThreshold = tokenMatchThreshold;
+        this.exactTokens = stringComparator instanceof ExactMatchComparator && tokenMatchThreshold > 0 && tokenMatchThreshold <= 1;
     }
 
     @Override
@@ -28,6 +32,10 @@ public class BagOfWordsNameComparator implements NameComparator {
             return (tokens1 == null || tokens1.isEmpty()) && (tokens2 == null || tokens2.isEmpty()) ? 1.0 : 0.0;
         }
 
+        if (this.exactTokens && name1.sharesDictionaryWith(name2)) {
+            return (2.0 * sharedTokenCount(name1.tokenIds(), name2.tokenIds())) / (tokens1.size() + tokens2.size());
+        }
+
         // Use copies to mark matched tokens (simple approach)
         List<String> t1Copy = new ArrayList<>(tokens1);
         List<String> t2Copy = new ArrayList<>(tokens2);
@@ -81,6 +89,28 @@ public class BagOfWordsNameComparator implements NameComparator {
         return (2.0 * matches) / (tokens1.size() + tokens2.size());
     }
 
+    // Size of the multiset intersection of two sorted id arrays, null tokens excluded (they never match)
+    private static int sharedTokenCount(int[] ids1, int[] ids2) {
+        int shared = 0;
+        for (int i = 0, j = 0; i < ids1.length && j < ids2.length; ) {
+            if (ids1[i] < ids2[j]) {
+                i++;
+            } else if (ids1[i] > ids2[j]) {
+                j++;
+            } else {
+                if (ids1[i] != TokenDictionary.NULL_TOKEN) shared++;
+                i++;
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    @Override
+    public String describeScoreCache() {
+        return stringComparator instanceof ScoreCacheReporting cache ? cache.describeScoreCache() : null;
+    }
+
     @Override
     public boolean isScoreDistance() {
         return false; // Produces a similarity score (proportion of matches)
@@ -0,0 +1,223 @@
+package com.info2.miniprojet.comparison.impl;
+
+import com.info2.miniprojet.comparison.ScoreBound;
+import com.info2.miniprojet.comparison.ScoreCacheReporting;
+import com.info2.miniprojet.comparison.StringComparator;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoizes the scores of a StringComparator for the token-level name comparators (BagOfWords, PositionalWeighted):
+ * on a real list the same token pairs ("mohammed" / "muhammad") come back across millions of name pairs.
+ * Tokens are interned to int ids, a pair is looked up by the long (id1, id2), in order since a comparator
+ * needn't be symmetric. The cache is bounded: up to 64 independently locked segments of 4-way sets, each
+ * set evicting its least recently used entry. Once maxEntries distinct tokens are interned, pairs with a new
+ * token are scored without the cache.
+ */
+public class CachingStringComparator implements StringComparator, ScoreCacheReporting {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+    private static final int WAYS = 4;
+    private static final int MAX_SEGMENTS = 64;
+    private static final int MAX_ENTRIES = 1 << 26;
+
+    private final StringComparator delegate;
+    private final int maxTokens;
+    private final ConcurrentHashMap<String, Integer> tokenIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextTokenId = new AtomicInteger(1); // 0 marks a free cache entry
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final LongAdder bypassed = new LongAdder(); // Hits, misses and evictions are counted per segment
+
+    /**
+     * @param maxEntries Number of scores kept (rounded up to a power of two, from 64 to 2^26); also the limit on interned tokens.
+     */
+    public CachingStringComparator(StringComparator delegate, int maxEntries) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Cached StringComparator cannot be null.");
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Score cache size must be at least 1 (got " + maxEntries + ").");
+        }
+        this.delegate = delegate;
+        this.maxTokens = maxEntries;
+        int capacity = Math.max(64, Integer.highestOneBit(Math.min(maxEntries, MAX_ENTRIES) - 1) << 1);
+        int segmentCount = Math.min(MAX_SEGMENTS, capacity / WAYS);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment(capacity / segmentCount / WAYS);
+        }
+        this.segmentShift = Long.SIZE - Integer.numberOfTrailingZeros(segmentCount);
+    }
+
+    public CachingStringComparator(StringComparator delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES);
+    }
+
+    public StringComparator getDelegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public double calculateScore(String string1, String string2) {
+        if (string1 == null || string2 == null) {
+            return this.delegate.calculateScore(string1, string2); // Whatever the delegate does with nulls
+        }
+        int id1 = tokenId(string1);
+        int id2 = id1 == 0 ? 0 : tokenId(string2);
+        if (id2 == 0) {
+            this.bypassed.increment();
+            return this.delegate.calculateScore(string1, string2);
+        }
+        long key = ((long) id1 << 32) | id2;
+        long hash = mix(key);
+        Segment segment = this.segments[(int) (hash >>> this.segmentShift)];
+        int set = (int) hash & (segment.setCount - 1);
+        synchronized (segment) {
+            int entry = segment.find(set, key);
+            if (entry >= 0) {
+                segment.hits++;
+                return Double.longBitsToDouble(segment.entries[entry + 1]);
+            }
+            segment.misses++;
+        }
+        // Scored outside the lock; two threads may both score a new pair, the second store just refreshes it
+        double score = this.delegate.calculateScore(string1, string2);
+        synchronized (segment) {
+            segment.store(set, key, score);
+        }
+        return score;
+    }
+
+    // 0 once the token dictionary is full and the token isn't in it
+    private int tokenId(String token) {
+        Integer id = this.tokenIds.get(token);
+        if (id != null) {
+            return id;
+        }
+        if (this.tokenIds.size() >= this.maxTokens) {
+            return 0;
+        }
+        return this.tokenIds.computeIfAbsent(token, t -> this.nextTokenId.getAndIncrement());
+    }
+
+    @Override
+    public boolean isScoreDistance() {
+        return this.delegate.isScoreDistance();
+    }
+
+    @Override
+    public String getName() {
+        return this.delegate.getName();
+    }
+
+    @Override
+    public int boundingLength(String string) {
+        return this.delegate.boundingLength(string);
+    }
+
+    @Override
+    public boolean ignoresCase() {
+        return this.delegate.ignoresCase();
+    }
+
+    @Override
+    public List<ScoreBound<String>> scoreBounds() {
+        return this.delegate.scoreBounds();
+    }
+
+    public record Stats(long hits, long misses, long evictions, long bypassed, int internedTokens) {
+        public double hitRate() {
+            long lookups = this.hits + this.misses;
+            return lookups == 0 ? 0.0 : (double) this.hits / lookups;
+        }
+    }
+
+    public Stats getStats() {
+        long hits = 0, misses = 0, evictions = 0;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                hits += segment.hits;
+                misses += segment.misses;
+                evictions += segment.evictions;
+            }
+        }
+        return new Stats(hits, misses, evictions, this.bypassed.sum(), this.tokenIds.size());
+    }
+
+    @Override
+    public String describeScoreCache() {
+        Stats stats = getStats();
+        return String.format("%d lookups, %.1f%% hits, %d evictions, %d uncached (%d tokens interned)",
+                stats.hits() + stats.misses(), 100 * stats.hitRate(), stats.evictions(), stats.bypassed(), stats.internedTokens());
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Sets of WAYS entries, each set in one 64-byte run of the array (key, score bits, key, score bits, ...)
+     * so a lookup reads a single cache line. Entries of a set are kept most recently used first.
+     */
+    private static final class Segment {
+        final int setCount;
+        final long[] entries;
+        long hits;
+        long misses;
+        long evictions;
+
+        Segment(int setCount) {
+            this.setCount = setCount;
+            this.entries = new long[setCount * WAYS * 2];
+        }
+
+        /**
+         * @return Index of the key in entries (its score bits follow), after moving it to the front of its set; -1 if absent.
+         */
+        int find(int set, long key) {
+            int first = set * WAYS * 2;
+            for (int entry = first, end = first + WAYS * 2; entry < end; entry += 2) {
+                long entryKey = this.entries[entry];
+                if (entryKey == key) {
+                    long bits = this.entries[entry + 1];
+                    System.arraycopy(this.entries, first, this.entries, first + 2, entry - first);
+                    this.entries[first] = key;
+                    this.entries[first + 1] = bits;
+                    return first;
+                }
+                if (entryKey == 0) break; // Free entries are only at the end of a set
+            }
+            return -1;
+        }
+
+        /**
+         * Puts the key first in its set, dropping the last (least recently used) entry if the set is full.
+         */
+        void store(int set, long key, double value) {
+            int first = set * WAYS * 2;
+            int last = first + (WAYS - 1) * 2;
+            int shifted = last; // Entries before this one move down by one
+            for (int entry = first; entry < last; entry += 2) {
+                if (this.entries[entry] == key || this.entries[entry] == 0) {
+                    shifted = entry;
+                    break;
+                }
+            }
+            if (shifted == last && this.entries[last] != 0 && this.entries[last] != key) {
+                this.evictions++;
+            }
+            System.arraycopy(this.entries, first, this.entries, first + 2, shifted - first);
+            this.entries[first] = key;
+            this.entries[first + 1] = Double.doubleToRawLongBits(value);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.info2.miniprojet.comparison.impl;
+
+import java.util.Locale;
+
+/**
+ * Case-insensitive comparators work on String.toLowerCase(). Folding char by char with Character.toLowerCase
+ * gives the same chars without building new strings, outside Turkish, Azeri and Lithuanian locales and for
+ * chars below Greek other than capital I with dot (which lowercases to two chars).
+ */
+final class CaseFolding {
+
+    private CaseFolding() {
+    }
+
+    /**
+     * @return true if fold(c, true) on each char of both strings gives their toLowerCase().
+     */
+    static boolean foldsCharByChar(String s1, String s2) {
+        String language = Locale.getDefault().getLanguage();
+        if (language.equals("tr") || language.equals("az") || language.equals("lt")) {
+            return false;
+        }
+        return hasSimpleCaseOnly(s1) && hasSimpleCaseOnly(s2);
+    }
+
+    private static boolean hasSimpleCaseOnly(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '\u0370' || c == '\u0130') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Length of s.toLowerCase(), without building it when folding char by char gives the same.
+     */
+    static int foldedLength(String s) {
+        return foldsCharByChar(s, "") ? s.length() : s.toLowerCase().length();
+    }
+
+    static char fold(char c, boolean lowerCase) {
+        return lowerCase ? Character.toLowerCase(c) : c;
+    }
+}
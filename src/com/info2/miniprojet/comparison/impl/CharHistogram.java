@@ -0,0 +1,107 @@
+package com.info2.miniprojet.comparison.impl;
+
+import com.info2.miniprojet.comparison.ScoreBound;
+import com.info2.miniprojet.core.NameFeatures;
+
+/**
+ * Char counts of two strings, for lower bounds of edit distances: every char one string has in excess over
+ * the other must be deleted or substituted, every char it lacks inserted or substituted, and one edit fixes
+ * at most one of each. Counted on the lowercased strings (see CaseFolding), in 64 buckets (char & 63) of a
+ * per-thread array: merging chars into buckets only lowers the excesses, so the bounds stay valid.
+ */
+final class CharHistogram {
+
+    private static final int BUCKETS = 64;
+    private static final ThreadLocal<int[]> COUNTS = ThreadLocal.withInitial(() -> new int[BUCKETS]);
+
+    private CharHistogram() {
+    }
+
+    /**
+     * @return (chars of s1 in excess << 32) | chars of s2 in excess.
+     */
+    static long excesses(String s1, String s2) {
+        boolean lowerCase = CaseFolding.foldsCharByChar(s1, s2);
+        if (!lowerCase) {
+            s1 = s1.toLowerCase();
+            s2 = s2.toLowerCase();
+        }
+        int[] counts = COUNTS.get();
+        for (int i = 0; i < s1.length(); i++) {
+            counts[CaseFolding.fold(s1.charAt(i), lowerCase) & (BUCKETS - 1)]++;
+        }
+        for (int i = 0; i < s2.length(); i++) {
+            counts[CaseFolding.fold(s2.charAt(i), lowerCase) & (BUCKETS - 1)]--;
+        }
+        long excess1 = 0;
+        long excess2 = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            int count = counts[bucket];
+            if (count > 0) excess1 += count;
+            else excess2 -= count;
+            counts[bucket] = 0;
+        }
+        return (excess1 << 32) | excess2;
+    }
+
+    /**
+     * Same as excesses(String, String), exact (no buckets), from the sorted chars of the two lowercased strings.
+     */
+    static long excesses(char[] sortedChars1, char[] sortedChars2) {
+        long common = 0;
+        for (int i = 0, j = 0; i < sortedChars1.length && j < sortedChars2.length; ) {
+            if (sortedChars1[i] < sortedChars2[j]) {
+                i++;
+            } else if (sortedChars1[i] > sortedChars2[j]) {
+                j++;
+            } else {
+                common++;
+                i++;
+                j++;
+            }
+        }
+        return ((sortedChars1.length - common) << 32) | (sortedChars2.length - common);
+    }
+
+    static int excess1(long excesses) {
+        return (int) (excesses >>> 32);
+    }
+
+    static int excess2(long excesses) {
+        return (int) excesses;
+    }
+
+    // Bound of an edit distance from the excess chars of each string
+    interface ExcessBound {
+        double of(int excess1, int excess2);
+    }
+
+    /**
+     * The CHAR_HISTOGRAM prefilter stage of a case-insensitive edit distance. PassThroughNameComparator applies it
+     * to the names' precomputed sorted chars (NameFeatures) instead of counting the joined strings on every pair.
+     */
+    static final class Bound implements ScoreBound<String> {
+        private final ExcessBound bound;
+
+        Bound(ExcessBound bound) {
+            this.bound = bound;
+        }
+
+        @Override
+        public double bound(String s1, String s2) {
+            if (s1 == null || s2 == null) return Double.NaN;
+            long excesses = excesses(s1, s2);
+            return this.bound.of(excess1(excesses), excess2(excesses));
+        }
+
+        double bound(NameFeatures features1, NameFeatures features2) {
+            long excesses = excesses(features1.sortedLowerChars(), features2.sortedLowerChars());
+            return this.bound.of(excess1(excesses), excess2(excesses));
+        }
+
+        @Override
+        public String getName() {
+            return "CHAR_HISTOGRAM";
+        }
+    }
+}
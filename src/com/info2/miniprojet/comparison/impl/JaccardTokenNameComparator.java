@@ -1,14 +1,21 @@
 package com.info2.miniprojet.comparison.impl;
 
 import com.info2.miniprojet.comparison.NameComparator;
+import com.info2.miniprojet.comparison.ScoreBound;
 import com.info2.miniprojet.core.Name;
 
-import java.util.List;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
+/**
+ * Jaccard index of the two token sets, merged from the names' sorted token ids (no set built per comparison)
+ * when both names share a token dictionary, from sets of their tokens otherwise.
+ */
 public class JaccardTokenNameComparator implements NameComparator {
 
+    private static final List<ScoreBound<Name>> SCORE_BOUNDS = List.of(ScoreBound.of("SIZE_RATIO", JaccardTokenNameComparator::sizeRatioBound));
+
     public JaccardTokenNameComparator() {
         // No StringComparator needed
     }
@@ -30,21 +37,63 @@ public class JaccardTokenNameComparator implements NameComparator {
             return 0.0; // One empty, one not means no similarity by Jaccard
         }
 
+        if (!name1.sharesDictionaryWith(name2)) {
+            Set<String> set1 = new HashSet<>(tokens1);
+            Set<String> set2 = new HashSet<>(tokens2);
+            int union = set1.size() + set2.size();
+            set1.retainAll(set2);
+            return (double) set1.size() / (union - set1.size());
+        }
+
+        // Both id arrays are sorted, duplicates adjacent: one merge counts the distinct shared and total tokens
+        int[] ids1 = name1.tokenIds();
+        int[] ids2 = name2.tokenIds();
+        int intersection = 0;
+        int union = 0;
+        int i = 0;
+        int j = 0;
+        while (i < ids1.length || j < ids2.length) {
+            int id;
+            if (j == ids2.length || (i < ids1.length && ids1[i] < ids2[j])) {
+                id = ids1[i];
+            } else if (i == ids1.length || ids2[j] < ids1[i]) {
+                id = ids2[j];
+            } else {
+                id = ids1[i];
+                intersection++;
+            }
+            union++;
+            while (i < ids1.length && ids1[i] == id) i++;
+            while (j < ids2.length && ids2[j] == id) j++;
+        }
+        return (double) intersection / union;
+    }
 
-        Set<String> set1 = new HashSet<>(tokens1);
-        Set<String> set2 = new HashSet<>(tokens2);
+    @Override
+    public List<ScoreBound<Name>> scoreBounds() {
+        return SCORE_BOUNDS;
+    }
 
-        Set<String> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
+    // The intersection is at most the smaller set and the union at least the larger one
+    private static double sizeRatioBound(Name name1, Name name2) {
+        int size1 = distinctCount(name1, name2);
+        int size2 = distinctCount(name2, name1);
+        if (size1 == 0 || size2 == 0) return 1.0; // Empty or token-less names have their own rules
+        return (double) Math.min(size1, size2) / Math.max(size1, size2);
+    }
 
-        Set<String> union = new HashSet<>(set1);
-        union.addAll(set2);
+    private static int distinctCount(Name name, Name other) {
+        if (name.processedTokens() == null) return 0;
+        if (!name.sharesDictionaryWith(other)) return new HashSet<>(name.processedTokens()).size();
+        return distinctCount(name.tokenIds());
+    }
 
-        if (union.isEmpty()) {
-            return 1.0; // If both original lists were effectively empty leading to empty union (e.g. list of empty strings)
+    private static int distinctCount(int[] sortedIds) {
+        int count = 0;
+        for (int i = 0; i < sortedIds.length; i++) {
+            if (i == 0 || sortedIds[i] != sortedIds[i - 1]) count++;
         }
-
-        return (double) intersection.size() / union.size();
+        return count;
     }
 
     @Override
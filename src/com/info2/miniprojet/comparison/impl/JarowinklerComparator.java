@@ -1,15 +1,156 @@
 package com.info2.miniprojet.comparison.impl;
 
+import com.info2.miniprojet.comparison.ScoreBound;
 import com.info2.miniprojet.comparison.StringComparator;
 
-import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+import java.util.List;
 
+/**
+ * Jaro-Winkler similarity, same scores as commons-text's JaroWinklerSimilarity (case-sensitive, match window of
+ * half the longer length minus one, prefix boost of 0.1 per common char up to 4 when Jaro reaches 0.7).
+ * Matched chars are flagged in per-thread bitsets instead of arrays allocated per comparison. With a minimum
+ * score, the comparison stops as soon as an upper bound of the score (from the lengths, then from the chars
+ * left to match) falls under it.
+ */
 public class JarowinklerComparator implements StringComparator {
+
+    private static final double WINKLER_SCALING_FACTOR = 0.1;
+    private static final double WINKLER_BOOST_THRESHOLD = 0.7;
+    private static final int MAX_PREFIX_LENGTH = 4;
+    private static final ThreadLocal<MatchFlags> MATCH_FLAGS = ThreadLocal.withInitial(MatchFlags::new);
+    private static final List<ScoreBound<String>> SCORE_BOUNDS = List.of(ScoreBound.of("PREFIX", JarowinklerComparator::prefixBound));
+
     @Override
     public double calculateScore(String string1, String string2){
-        JaroWinklerSimilarity jaro=new JaroWinklerSimilarity();
-        return jaro.apply(string1,string2);
+        return calculateScore(string1, string2, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * @return The score, or if it is below minScore, an upper bound of it that is also below minScore.
+     */
+    @Override
+    public double calculateScore(String string1, String string2, double minScore) {
+        if (string1 == null || string2 == null) {
+            throw new IllegalArgumentException("Strings must not be null");
+        }
+        if (string1.equals(string2)) {
+            return 1.0;
+        }
+        String shorter = string1.length() > string2.length() ? string2 : string1;
+        String longer = shorter == string1 ? string2 : string1;
+        int shorterLength = shorter.length();
+        if (shorterLength == 0) {
+            return 0.0;
+        }
+        int prefix = commonPrefix(string1, string2, shorterLength);
+
+        // Every char of the shorter string matched, no transposition: the best score these lengths allow
+        double bound = upperBound(shorterLength, string1.length(), string2.length(), prefix);
+        if (bound < minScore) {
+            return bound;
+        }
+        int allowedMisses = 0;
+        while (allowedMisses < shorterLength && upperBound(shorterLength - allowedMisses - 1, string1.length(), string2.length(), prefix) >= minScore) {
+            allowedMisses++;
+        }
+
+        MatchFlags flags = MATCH_FLAGS.get();
+        int words = flags.prepare(longer.length());
+        long[] shorterMatched = flags.shorterMatched;
+        long[] longerMatched = flags.longerMatched;
+        int range = Math.max(longer.length() / 2 - 1, 0);
+        int matches = 0;
+        int misses = 0;
+        for (int i = 0; i < shorterLength; i++) {
+            char c = shorter.charAt(i);
+            boolean matched = false;
+            for (int j = Math.max(i - range, 0), end = Math.min(i + range + 1, longer.length()); j < end; j++) {
+                if ((longerMatched[j >>> 6] & (1L << j)) == 0 && c == longer.charAt(j)) {
+                    longerMatched[j >>> 6] |= 1L << j;
+                    shorterMatched[i >>> 6] |= 1L << i;
+                    matches++;
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched && ++misses > allowedMisses) {
+                flags.clear(words);
+                return upperBound(shorterLength - misses, string1.length(), string2.length(), prefix);
+            }
+        }
+        if (matches == 0) {
+            flags.clear(words);
+            return 0.0;
+        }
+
+        // Matched chars of both strings, in order: each position where they differ is half a transposition
+        int halfTranspositions = 0;
+        int j = -1;
+        for (int i = nextSetBit(shorterMatched, 0, words); i >= 0; i = nextSetBit(shorterMatched, i + 1, words)) {
+            j = nextSetBit(longerMatched, j + 1, words);
+            if (shorter.charAt(i) != longer.charAt(j)) {
+                halfTranspositions++;
+            }
+        }
+        flags.clear(words);
+
+        double m = matches;
+        double jaro = (m / string1.length() + m / string2.length() + (m - (double) halfTranspositions / 2) / m) / 3;
+        return winkler(jaro, prefix);
     }
+
+    @Override
+    public List<ScoreBound<String>> scoreBounds() {
+        return SCORE_BOUNDS;
+    }
+
+    // Prefilter stage: the bound calculateScore starts from, for the Engine to drop pairs before calling it
+    private static double prefixBound(String string1, String string2) {
+        if (string1 == null || string2 == null) return Double.NaN;
+        int shorterLength = Math.min(string1.length(), string2.length());
+        if (shorterLength == 0) {
+            return string1.length() == string2.length() ? 1.0 : 0.0;
+        }
+        return upperBound(shorterLength, string1.length(), string2.length(), commonPrefix(string1, string2, shorterLength));
+    }
+
+    private static int commonPrefix(String string1, String string2, int shorterLength) {
+        int prefix = 0;
+        while (prefix < Math.min(MAX_PREFIX_LENGTH, shorterLength) && string1.charAt(prefix) == string2.charAt(prefix)) {
+            prefix++;
+        }
+        return prefix;
+    }
+
+    // Score with this many matches and no transposition (0 without matches)
+    private static double upperBound(int matches, int length1, int length2, int prefix) {
+        if (matches <= 0) {
+            return 0.0;
+        }
+        double m = matches;
+        return winkler((m / length1 + m / length2 + 1.0) / 3, prefix);
+    }
+
+    private static double winkler(double jaro, int prefix) {
+        return jaro < WINKLER_BOOST_THRESHOLD ? jaro : jaro + WINKLER_SCALING_FACTOR * prefix * (1d - jaro);
+    }
+
+    // First set bit at or after 'from' in the first wordCount words, -1 if none
+    private static int nextSetBit(long[] words, int from, int wordCount) {
+        int wordIndex = from >>> 6;
+        if (wordIndex >= wordCount) {
+            return -1;
+        }
+        long word = words[wordIndex] & (-1L << from);
+        while (word == 0) {
+            if (++wordIndex == wordCount) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+        return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+    }
+
     @Override
     public boolean isScoreDistance(){
         return false;
@@ -18,4 +159,29 @@ public class JarowinklerComparator implements StringComparator {
     public String getName(){
         return "JARO_WINKLER";
     }
+
+    // Per-thread "matched" flags of both strings, cleared after each comparison
+    private static final class MatchFlags {
+        private long[] shorterMatched = new long[1];
+        private long[] longerMatched = new long[1];
+
+        /**
+         * @return Number of words holding the flags of strings up to this length.
+         */
+        int prepare(int longerLength) {
+            int words = (longerLength + Long.SIZE - 1) / Long.SIZE;
+            if (this.longerMatched.length < words) {
+                this.shorterMatched = new long[words];
+                this.longerMatched = new long[words];
+            }
+            return words;
+        }
+
+        void clear(int words) {
+            for (int w = 0; w < words; w++) {
+                this.shorterMatched[w] = 0L;
+                this.longerMatched[w] = 0L;
+            }
+        }
+    }
 }
@@ -1,40 +1,38 @@
 package com.info2.miniprojet.comparison.impl;
 
+import com.info2.miniprojet.comparison.ScoreBound;
 import com.info2.miniprojet.comparison.StringComparator;
-import java.util.HashMap;
-import java.util.Map;
 
+import java.util.List;
+
+/**
+ * Edit distance where substituting a neighbouring key of the keyboard costs less than another letter
+ * (typing mistakes). Substitution costs come precompiled from the layout (see KeyboardLayout) and the
+ * DP keeps two reusable rows per thread, so a comparison allocates nothing.
+ */
 public class KeyboardDistanceComparator implements StringComparator {
 
-    // Simplified QWERTY layout representation (could be more detailed)
-    // We'll represent it as a map of char -> (row, col)
-    private static final Map<Character, int[]> KEY_POSITIONS = new HashMap<>();
-
-    static {
-        // Row 0
-        KEY_POSITIONS.put('q', new int[]{0, 0}); KEY_POSITIONS.put('w', new int[]{0, 1});
-        KEY_POSITIONS.put('e', new int[]{0, 2}); KEY_POSITIONS.put('r', new int[]{0, 3});
-        KEY_POSITIONS.put('t', new int[]{0, 4}); KEY_POSITIONS.put('y', new int[]{0, 5});
-        KEY_POSITIONS.put('u', new int[]{0, 6}); KEY_POSITIONS.put('i', new int[]{0, 7});
-        KEY_POSITIONS.put('o', new int[]{0, 8}); KEY_POSITIONS.put('p', new int[]{0, 9});
-        // Row 1
-        KEY_POSITIONS.put('a', new int[]{1, 0}); KEY_POSITIONS.put('s', new int[]{1, 1});
-        KEY_POSITIONS.put('d', new int[]{1, 2}); KEY_POSITIONS.put('f', new int[]{1, 3});
-        KEY_POSITIONS.put('g', new int[]{1, 4}); KEY_POSITIONS.put('h', new int[]{1, 5});
-        KEY_POSITIONS.put('j', new int[]{1, 6}); KEY_POSITIONS.put('k', new int[]{1, 7});
-        KEY_POSITIONS.put('l', new int[]{1, 8});
-        // Row 2
-        KEY_POSITIONS.put('z', new int[]{2, 0}); KEY_POSITIONS.put('x', new int[]{2, 1});
-        KEY_POSITIONS.put('c', new int[]{2, 2}); KEY_POSITIONS.put('v', new int[]{2, 3});
-        KEY_POSITIONS.put('b', new int[]{2, 4}); KEY_POSITIONS.put('n', new int[]{2, 5});
-        KEY_POSITIONS.put('m', new int[]{2, 6});
-        // Add numbers and other symbols if desired, adjust rows/cols
-    }
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
 
-    private final double ADJACENT_HORIZONTAL_VERTICAL_COST = 0.5; // Lower cost for adjacent keys
-    private final double ADJACENT_DIAGONAL_COST = 0.75;          // Slightly higher for diagonal
-    private final double STANDARD_SUBSTITUTION_COST = 1.0;      // For non-letters or distant letters
     private final double INSERTION_DELETION_COST = 1.0;
+    private final KeyboardLayout layout;
+    private final List<ScoreBound<String>> scoreBounds = List.of(ScoreBound.lengthDifference(this::boundingLength),
+            new CharHistogram.Bound(this::histogramBound));
+
+    public KeyboardDistanceComparator() {
+        this(KeyboardLayout.QWERTY);
+    }
+
+    public KeyboardDistanceComparator(KeyboardLayout layout) {
+        if (layout == null) {
+            throw new IllegalArgumentException("Keyboard layout must not be null.");
+        }
+        this.layout = layout;
+    }
+
+    public KeyboardLayout getLayout() {
+        return this.layout;
+    }
 
     @Override
     public double calculateScore(String s1, String s2) {
@@ -42,62 +40,72 @@ public class KeyboardDistanceComparator implements StringComparator {
         if (s1 == null) return s2.length() * INSERTION_DELETION_COST;
         if (s2 == null) return s1.length() * INSERTION_DELETION_COST;
 
-        // For this comparator, it's easier to work with lowercase
-        String str1 = s1.toLowerCase();
-        String str2 = s2.toLowerCase();
+        // For this comparator, it's easier to work with lowercase (char by char when possible, see CaseFolding)
+        if (CaseFolding.foldsCharByChar(s1, s2)) {
+            return editDistance(s1, s2, true);
+        }
+        return editDistance(s1.toLowerCase(), s2.toLowerCase(), false);
+    }
 
+    private double editDistance(String str1, String str2, boolean lowerCase) {
         int m = str1.length();
         int n = str2.length();
-        double[][] dp = new double[m + 1][n + 1];
+        Workspace workspace = WORKSPACE.get();
+        workspace.ensureCapacity(n);
+        char[] chars2 = workspace.chars;
+        int[] keyClasses2 = workspace.keyClasses;
+        for (int j = 0; j < n; j++) {
+            chars2[j] = CaseFolding.fold(str2.charAt(j), lowerCase);
+            keyClasses2[j] = this.layout.keyClass(chars2[j]);
+        }
+        double[] costs = this.layout.substitutionCosts();
 
-        for (int i = 0; i <= m; i++) dp[i][0] = i * INSERTION_DELETION_COST;
-        for (int j = 0; j <= n; j++) dp[0][j] = j * INSERTION_DELETION_COST;
+        // Row i of the DP table from row i - 1 only
+        double[] previous = workspace.previousRow;
+        double[] current = workspace.currentRow;
+        for (int j = 0; j <= n; j++) previous[j] = j * INSERTION_DELETION_COST;
 
         for (int i = 1; i <= m; i++) {
+            char char1 = CaseFolding.fold(str1.charAt(i - 1), lowerCase);
+            int costRow = this.layout.costRow(char1);
+            current[0] = i * INSERTION_DELETION_COST;
             for (int j = 1; j <= n; j++) {
-                char char1 = str1.charAt(i - 1);
-                char char2 = str2.charAt(j - 1);
-                double substitutionCost;
-
-                if (char1 == char2) {
-                    substitutionCost = 0.0;
-                } else {
-                    substitutionCost = getKeyboardSubstitutionCost(char1, char2);
-                }
-
-                dp[i][j] = Math.min(
-                        dp[i - 1][j] + INSERTION_DELETION_COST,      // Deletion from s1
-                        Math.min(
-                                dp[i][j - 1] + INSERTION_DELETION_COST,    // Insertion into s1
-                                dp[i - 1][j - 1] + substitutionCost  // Substitution/Match
-                        )
-                );
+                double substitutionCost = char1 == chars2[j - 1] ? 0.0 : costs[costRow + keyClasses2[j - 1]];
+                // Costs are non-negative sums (no NaN or -0.0), a plain comparison is Math.min without its checks
+                double deletion = previous[j] + INSERTION_DELETION_COST;          // Deletion from s1
+                double insertion = current[j - 1] + INSERTION_DELETION_COST;      // Insertion into s1
+                double substitution = previous[j - 1] + substitutionCost;         // Substitution/Match
+                double best = insertion < substitution ? insertion : substitution;
+                current[j] = deletion < best ? deletion : best;
             }
+            double[] swap = previous;
+            previous = current;
+            current = swap;
         }
-        return dp[m][n];
+        return previous[n];
     }
 
-    private double getKeyboardSubstitutionCost(char c1, char c2) {
-        int[] pos1 = KEY_POSITIONS.get(c1);
-        int[] pos2 = KEY_POSITIONS.get(c2);
-
-        // If one or both characters are not on our defined keyboard layout (e.g., symbols, uppercase)
-        if (pos1 == null || pos2 == null) {
-            return STANDARD_SUBSTITUTION_COST; // Default cost
-        }
-
-        int rowDiff = Math.abs(pos1[0] - pos2[0]);
-        int colDiff = Math.abs(pos1[1] - pos2[1]);
+    @Override
+    public int boundingLength(String string) {
+        // Insertions and deletions cost INSERTION_DELETION_COST (1), on the lowercased strings
+        return string == null ? 0 : CaseFolding.foldedLength(string);
+    }
 
-        // Simple Manhattan-like distance for keyboard
-        if (rowDiff == 0 && colDiff == 1) return ADJACENT_HORIZONTAL_VERTICAL_COST; // Horizontal neighbor
-        if (rowDiff == 1 && colDiff == 0) return ADJACENT_HORIZONTAL_VERTICAL_COST; // Vertical neighbor
-        if (rowDiff == 1 && colDiff == 1) return ADJACENT_DIAGONAL_COST;        // Diagonal neighbor
-        
+    @Override
+    public List<ScoreBound<String>> scoreBounds() {
+        return this.scoreBounds;
+    }
 
-        return STANDARD_SUBSTITUTION_COST; // If not immediately adjacent by this simple rule
+    // The length difference is inserted or deleted; the other string's excess chars (see CharHistogram) are at best
+    // substituted by neighbouring keys (the cheapest substitution)
+    private double histogramBound(int excess1, int excess2) {
+        return Math.abs(excess1 - excess2) * INSERTION_DELETION_COST + Math.min(excess1, excess2) * KeyboardLayout.ADJACENT_HORIZONTAL_VERTICAL_COST;
     }
 
+    @Override
+    public boolean ignoresCase() {
+        return true;
+    }
 
     @Override
     public boolean isScoreDistance() {
@@ -108,4 +116,22 @@ public class KeyboardDistanceComparator implements StringComparator {
     public String getName() {
         return "KEYBOARD_DISTANCE";
     }
-}
\ No newline at end of file
+
+    // DP rows and the folded second string with its key classes, grown as needed
+    private static final class Workspace {
+        private double[] previousRow = new double[32];
+        private double[] currentRow = new double[32];
+        private char[] chars = new char[32];
+        private int[] keyClasses = new int[32];
+
+        void ensureCapacity(int length) {
+            if (this.chars.length < length + 1) {
+                int capacity = Math.max(length + 1, this.chars.length * 2);
+                this.previousRow = new double[capacity];
+                this.currentRow = new double[capacity];
+                this.chars = new char[capacity];
+                this.keyClasses = new int[capacity];
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.info2.miniprojet.comparison.impl;
+
+/**
+ * Letter keys of a keyboard, as rows of a grid, for KeyboardDistanceComparator.
+ * Each layout precompiles its substitution costs into a dense matrix over "key classes" (0 for a char that
+ * isn't on the layout, then one class per letter key), so a DP cell costs two array reads.
+ */
+public enum KeyboardLayout {
+    QWERTY("qwertyuiop", "asdfghjkl", "zxcvbnm"),
+    AZERTY("azertyuiop", "qsdfghjklm", "wxcvbn"),
+    QWERTZ("qwertzuiop", "asdfghjkl", "yxcvbnm");
+
+    static final double ADJACENT_HORIZONTAL_VERTICAL_COST = 0.5; // Lower cost for adjacent keys
+    static final double ADJACENT_DIAGONAL_COST = 0.75;          // Slightly higher for diagonal
+    static final double STANDARD_SUBSTITUTION_COST = 1.0;      // For non-letters or distant letters
+
+    private static final int MAPPED_CHARS = 128;
+
+    private final byte[] keyClasses = new byte[MAPPED_CHARS];
+    private final int classCount;
+    private final double[] substitutionCosts; // [class1 * classCount + class2]
+
+    KeyboardLayout(String... rows) {
+        int keyCount = 0;
+        for (String row : rows) keyCount += row.length();
+        int[] keyRows = new int[keyCount + 1];
+        int[] keyColumns = new int[keyCount + 1];
+        int keyClass = 1;
+        for (int row = 0; row < rows.length; row++) {
+            for (int column = 0; column < rows[row].length(); column++, keyClass++) {
+                this.keyClasses[rows[row].charAt(column)] = (byte) keyClass;
+                keyRows[keyClass] = row;
+                keyColumns[keyClass] = column;
+            }
+        }
+        this.classCount = keyCount + 1;
+        this.substitutionCosts = new double[this.classCount * this.classCount];
+        for (int class1 = 0; class1 < this.classCount; class1++) {
+            for (int class2 = 0; class2 < this.classCount; class2++) {
+                double cost = STANDARD_SUBSTITUTION_COST; // Also when a char is not on the layout (class 0)
+                if (class1 > 0 && class2 > 0) {
+                    int rowDiff = Math.abs(keyRows[class1] - keyRows[class2]);
+                    int colDiff = Math.abs(keyColumns[class1] - keyColumns[class2]);
+                    if (rowDiff + colDiff == 1) cost = ADJACENT_HORIZONTAL_VERTICAL_COST; // Horizontal or vertical neighbour
+                    else if (rowDiff == 1 && colDiff == 1) cost = ADJACENT_DIAGONAL_COST;  // Diagonal neighbour
+                }
+                this.substitutionCosts[class1 * this.classCount + class2] = cost;
+            }
+        }
+    }
+
+    /**
+     * @return 0 if the (lowercase) char is not a key of this layout, else its key class.
+     */
+    int keyClass(char c) {
+        return c < MAPPED_CHARS ? this.keyClasses[c] : 0;
+    }
+
+    /**
+     * @return Offset of the char's row in substitutionCosts(): the cost of replacing it by a char of key class k
+     *         is substitutionCosts()[costRow(c) + k] (for two different chars).
+     */
+    int costRow(char c) {
+        return keyClass(c) * this.classCount;
+    }
+
+    double[] substitutionCosts() {
+        return this.substitutionCosts;
+    }
+
+    /**
+     * @return Cost of replacing c1 by c2 (lowercase chars): 0 for the same char, less for neighbouring keys.
+     */
+    public double substitutionCost(char c1, char c2) {
+        return c1 == c2 ? 0.0 : this.substitutionCosts[costRow(c1) + keyClass(c2)];
+    }
+}
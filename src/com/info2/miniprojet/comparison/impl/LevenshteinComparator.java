@@ -1,9 +1,17 @@
 package com.info2.miniprojet.comparison.impl;
 
+import com.info2.miniprojet.comparison.ScoreBound;
 import com.info2.miniprojet.comparison.StringComparator;
 
+import java.util.Arrays;
+import java.util.List;
+
 public class LevenshteinComparator implements StringComparator {
 
+	// Every edit fixes at most one excess char of each string (see CharHistogram), so the larger excess is a bound
+	private final List<ScoreBound<String>> scoreBounds = List.of(ScoreBound.lengthDifference(this::boundingLength),
+			new CharHistogram.Bound((excess1, excess2) -> Math.max(excess1, excess2)));
+
 	@Override
 	public double calculateScore(String string1, String string2) {
 		// 1. Handle null inputs
@@ -23,6 +31,22 @@ public class LevenshteinComparator implements StringComparator {
 		return levenshteinDistance(string1, string2);
 	}
 
+	@Override
+	public int boundingLength(String string) {
+		// Each inserted or deleted character costs 1, on the lowercased strings
+		return string == null ? 0 : CaseFolding.foldedLength(string);
+	}
+
+	@Override
+	public List<ScoreBound<String>> scoreBounds() {
+		return this.scoreBounds;
+	}
+
+	@Override
+	public boolean ignoresCase() {
+		return true;
+	}
+
 	@Override
 	public boolean isScoreDistance() {
 		return true;
@@ -34,45 +58,208 @@ public class LevenshteinComparator implements StringComparator {
 	}
 
 	private int levenshteinDistance(String s1, String s2) {
-		// Ensure strings are not null here (handled by public method)
-		// For case-insensitivity, convert both strings to lowercase before processing
-		String str1 = s1.toLowerCase();
-		String str2 = s2.toLowerCase();
-
-		int m = str1.length();
-		int n = str2.length();
-		int[][] dp = new int[m + 1][n + 1];
-
-		// Initialize DP table
-		// Cost of deleting all chars of str1 to get an empty string
-		for (int i = 0; i <= m; i++) {
-			dp[i][0] = i;
-		}
-		// Cost of inserting all chars of str2 into an empty string
-		for (int j = 0; j <= n; j++) {
-			dp[0][j] = j;
-		}
-
-		// Fill DP table
-		for (int i = 1; i <= m; i++) {
-			for (int j = 1; j <= n; j++) {
-				int cost;
-				// Compare characters from the (now lowercased) strings
-				if (str1.charAt(i - 1) == str2.charAt(j - 1)) {
-					cost = 0; // Characters are the same, no cost
-				} else {
-					cost = 1; // Characters are different, substitution cost is 1
+		// Case-insensitive: folded char by char when that matches String.toLowerCase() (see CaseFolding)
+		if (!CaseFolding.foldsCharByChar(s1, s2)) {
+			return bitParallelDistance(s1.toLowerCase(), s2.toLowerCase(), false);
+		}
+		return bitParallelDistance(s1, s2, true);
+	}
+
+	/**
+	 * Myers' bit-vector algorithm in Hyyro's formulation for edit distance: the column of the DP table for one
+	 * char of the text is kept as bit vectors of +1/-1 vertical deltas over the pattern (the shorter string),
+	 * and advanced with a dozen word operations instead of one cell at a time. Patterns over 64 chars use
+	 * several words, the horizontal delta carried from one to the next. Same distances as the DP table.
+	 */
+	private static int bitParallelDistance(String a, String b, boolean lowerCase) {
+		// Common prefix and suffix cost nothing
+		int start = 0;
+		int endA = a.length();
+		int endB = b.length();
+		while (start < endA && start < endB && CaseFolding.fold(a.charAt(start), lowerCase) == CaseFolding.fold(b.charAt(start), lowerCase)) {
+			start++;
+		}
+		while (endA > start && endB > start && CaseFolding.fold(a.charAt(endA - 1), lowerCase) == CaseFolding.fold(b.charAt(endB - 1), lowerCase)) {
+			endA--;
+			endB--;
+		}
+		if (endA == start || endB == start) {
+			return Math.max(endA, endB) - start;
+		}
+		String pattern = a;
+		int patternEnd = endA;
+		String text = b;
+		int textEnd = endB;
+		if (endA > endB) {
+			pattern = b;
+			patternEnd = endB;
+			text = a;
+			textEnd = endA;
+		}
+
+		Workspace workspace = WORKSPACE.get();
+		int m = patternEnd - start;
+		int blocks = (m + Long.SIZE - 1) / Long.SIZE;
+		workspace.loadPattern(pattern, start, patternEnd, lowerCase, blocks);
+		int distance = blocks == 1
+				? singleWordDistance(workspace, m, text, start, textEnd, lowerCase)
+				: multiWordDistance(workspace, m, blocks, text, start, textEnd, lowerCase);
+		workspace.clearPattern(pattern, start, patternEnd, lowerCase, blocks);
+		return distance;
+	}
+
+	private static int singleWordDistance(Workspace workspace, int m, String text, int from, int to, boolean lowerCase) {
+		long lastBit = 1L << (m - 1);
+		long pv = -1L; // Vertical deltas of the column: +1 where set in pv, -1 where set in mv, else 0
+		long mv = 0L;
+		int score = m;
+		for (int j = from; j < to; j++) {
+			long eq = workspace.singleWordMask(CaseFolding.fold(text.charAt(j), lowerCase));
+			long xv = eq | mv;
+			long xh = (((eq & pv) + pv) ^ pv) | eq;
+			long ph = mv | ~(xh | pv);
+			long mh = pv & xh;
+			if ((ph & lastBit) != 0) {
+				score++;
+			} else if ((mh & lastBit) != 0) {
+				score--;
+			}
+			ph = (ph << 1) | 1L; // Row 0 of the table grows by 1 per text char
+			mh <<= 1;
+			pv = mh | ~(xv | ph);
+			mv = ph & xv;
+		}
+		return score;
+	}
+
+	private static int multiWordDistance(Workspace workspace, int m, int blocks, String text, int from, int to, boolean lowerCase) {
+		long lastBit = 1L << ((m - 1) % Long.SIZE);
+		long[] pv = workspace.pv;
+		long[] mv = workspace.mv;
+		for (int block = 0; block < blocks; block++) {
+			pv[block] = -1L;
+			mv[block] = 0L;
+		}
+		int score = m;
+		for (int j = from; j < to; j++) {
+			int row = workspace.maskRow(CaseFolding.fold(text.charAt(j), lowerCase), blocks);
+			long[] masks = row < 0 ? null : workspace.masks(row);
+			int carry = 1; // Horizontal delta entering the top of the column (row 0)
+			for (int block = 0; block < blocks; block++) {
+				long eq = masks == null ? 0L : masks[workspace.maskIndex(row, block, blocks)];
+				long xv = eq | mv[block];
+				if (carry < 0) {
+					eq |= 1L;
+				}
+				long xh = (((eq & pv[block]) + pv[block]) ^ pv[block]) | eq;
+				long ph = mv[block] | ~(xh | pv[block]);
+				long mh = pv[block] & xh;
+				long highBit = block == blocks - 1 ? lastBit : Long.MIN_VALUE;
+				int carryOut = (ph & highBit) != 0 ? 1 : (mh & highBit) != 0 ? -1 : 0;
+				ph <<= 1;
+				mh <<= 1;
+				if (carry < 0) {
+					mh |= 1L;
+				} else if (carry > 0) {
+					ph |= 1L;
 				}
+				pv[block] = mh | ~(xv | ph);
+				mv[block] = ph & xv;
+				carry = carryOut;
+			}
+			score += carry;
+		}
+		return score;
+	}
+
+	private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+	/**
+	 * Per-thread match masks of the current pattern (bit i of a char's mask: pattern char i is that char),
+	 * reused from call to call. Chars below 256 have a row in a direct table; others (rare after
+	 * preprocessing) are looked up in a short list of the pattern's distinct chars.
+	 */
+	private static final class Workspace {
+		private static final int DIRECT_CHARS = 256;
+
+		private long[] directMasks = new long[DIRECT_CHARS];
+		private char[] otherChars = new char[8];
+		private long[] otherMasks = new long[8];
+		private int otherCount;
+		private long[] pv = new long[2];
+		private long[] mv = new long[2];
+
+		void loadPattern(String pattern, int from, int to, boolean lowerCase, int blocks) {
+			if (this.directMasks.length < DIRECT_CHARS * blocks) {
+				this.directMasks = new long[DIRECT_CHARS * blocks];
+				this.pv = new long[blocks];
+				this.mv = new long[blocks];
+			}
+			this.otherCount = 0;
+			for (int i = from; i < to; i++) {
+				char c = CaseFolding.fold(pattern.charAt(i), lowerCase);
+				int row = maskRow(c, blocks);
+				if (row < 0) {
+					row = addOtherChar(c, blocks);
+				}
+				int bit = i - from;
+				masks(row)[maskIndex(row, bit / Long.SIZE, blocks)] |= 1L << bit;
+			}
+		}
+
+		void clearPattern(String pattern, int from, int to, boolean lowerCase, int blocks) {
+			for (int i = from; i < to; i++) {
+				char c = CaseFolding.fold(pattern.charAt(i), lowerCase);
+				if (c < DIRECT_CHARS && blocks == 1) {
+					this.directMasks[c] = 0L;
+				} else if (c < DIRECT_CHARS) {
+					Arrays.fill(this.directMasks, c * blocks, (c + 1) * blocks, 0L);
+				}
+			}
+			this.otherCount = 0;
+		}
+
+		/**
+		 * @return The row of the char's masks (chars below 256 always have one), or -1 if it isn't in the pattern.
+		 */
+		int maskRow(char c, int blocks) {
+			if (c < DIRECT_CHARS) {
+				return c;
+			}
+			for (int k = 0; k < this.otherCount; k++) {
+				if (this.otherChars[k] == c) {
+					return DIRECT_CHARS + k;
+				}
+			}
+			return -1;
+		}
+
+		long singleWordMask(char c) {
+			if (c < DIRECT_CHARS) {
+				return this.directMasks[c];
+			}
+			int row = maskRow(c, 1);
+			return row < 0 ? 0L : this.otherMasks[row - DIRECT_CHARS];
+		}
+
+		long[] masks(int row) {
+			return row < DIRECT_CHARS ? this.directMasks : this.otherMasks;
+		}
 
-				dp[i][j] = Math.min(
-						dp[i - 1][j] + 1,      // Deletion (cost of deleting char from str1)
-						Math.min(
-								dp[i][j - 1] + 1,    // Insertion (cost of inserting char into str1)
-								dp[i - 1][j - 1] + cost // Substitution or Match
-						)
-				);
+		int maskIndex(int row, int block, int blocks) {
+			return (row < DIRECT_CHARS ? row : row - DIRECT_CHARS) * blocks + block;
+		}
+
+		private int addOtherChar(char c, int blocks) {
+			if (this.otherCount == this.otherChars.length) {
+				this.otherChars = Arrays.copyOf(this.otherChars, this.otherCount * 2);
+			}
+			if (this.otherMasks.length < (this.otherCount + 1) * blocks) {
+				this.otherMasks = Arrays.copyOf(this.otherMasks, Math.max(this.otherMasks.length * 2, (this.otherCount + 1) * blocks));
 			}
+			this.otherChars[this.otherCount] = c;
+			Arrays.fill(this.otherMasks, this.otherCount * blocks, (this.otherCount + 1) * blocks, 0L);
+			return DIRECT_CHARS + this.otherCount++;
 		}
-		return dp[m][n]; // Return the Levenshtein distance
 	}
 }
\ No newline at end of file
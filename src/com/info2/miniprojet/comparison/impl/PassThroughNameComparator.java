@@ -1,13 +1,19 @@
 package com.info2.miniprojet.comparison.impl;
 
 import com.info2.miniprojet.comparison.NameComparator;
+import com.info2.miniprojet.comparison.ScoreBound;
 import com.info2.miniprojet.comparison.StringComparator;
 import com.info2.miniprojet.core.Name;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 public class PassThroughNameComparator implements NameComparator {
 
     private final StringComparator internalStringComparator;
+    private final boolean lowerCaseInput;
+    private final List<ScoreBound<Name>> scoreBounds;
 
     // Constructor requires a StringComparator to be injected
     public PassThroughNameComparator(StringComparator stringComparator) {
@@ -15,15 +21,49 @@ public class PassThroughNameComparator implements NameComparator {
             throw new IllegalArgumentException("Internal StringComparator cannot be null");
         }
         this.internalStringComparator = stringComparator;
+        this.lowerCaseInput = stringComparator.ignoresCase();
+        List<ScoreBound<Name>> bounds = new ArrayList<>();
+        for (ScoreBound<String> bound : stringComparator.scoreBounds()) {
+            bounds.add(onJoinedTokens(bound));
+        }
+        this.scoreBounds = List.copyOf(bounds);
+    }
+
+    // A bound of the string comparator, on the strings it is given (char histograms read from the names' features)
+    private ScoreBound<Name> onJoinedTokens(ScoreBound<String> bound) {
+        if (bound instanceof CharHistogram.Bound histogram) {
+            return ScoreBound.of(bound.getName(), (name1, name2) -> histogram.bound(name1.features(), name2.features()));
+        }
+        return ScoreBound.of(bound.getName(), (name1, name2) -> bound.bound(comparedString(name1), comparedString(name2)));
+    }
+
+    // The joined tokens, precomputed with the name (already lowercased for a case-insensitive comparator)
+    private String comparedString(Name name) {
+        return this.lowerCaseInput ? name.features().lowerJoined() : name.features().joined();
     }
 
     @Override
     public double calculateScore(Name name1, Name name2 ) {
-        // Simple lazy implementation: join tokens back into strings and compare.
+        // Compare the joined tokens as one string
         if(name1 == null || name2 == null) return 0.0;
-        String joinedTokens1= String.join(" ",name1.processedTokens());
-        String joinedTokens2= String.join(" ",name2.processedTokens());
-        return internalStringComparator.calculateScore(joinedTokens1, joinedTokens2);
+        return internalStringComparator.calculateScore(comparedString(name1), comparedString(name2));
+    }
+
+    @Override
+    public double calculateScore(Name name1, Name name2, double minScore) {
+        if(name1 == null || name2 == null) return 0.0;
+        return internalStringComparator.calculateScore(comparedString(name1), comparedString(name2), minScore);
+    }
+
+    @Override
+    public int boundingLength(Name name) {
+        if (name == null || name.processedTokens() == null) return -1;
+        return internalStringComparator.boundingLength(comparedString(name));
+    }
+
+    @Override
+    public List<ScoreBound<Name>> scoreBounds() {
+        return this.scoreBounds;
     }
 
     @Override
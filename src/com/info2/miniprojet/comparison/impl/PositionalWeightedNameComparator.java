@@ -1,12 +1,14 @@
 package com.info2.miniprojet.comparison.impl;
 
 import com.info2.miniprojet.comparison.NameComparator;
+import com.info2.miniprojet.comparison.ScoreCacheReporting;
 import com.info2.miniprojet.comparison.StringComparator;
 import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.core.NameFeatures;
 
 import java.util.List;
 
-public class PositionalWeightedNameComparator implements NameComparator {
+public class PositionalWeightedNameComparator implements NameComparator, ScoreCacheReporting {
     private final StringComparator stringComparator;
     private final double firstNameWeight;
     private final double lastNameWeight;
@@ -49,39 +51,14 @@ public class PositionalWeightedNameComparator implements NameComparator {
         // For simplicity, if structures differ significantly (1 token vs 3+), we might score low or
         // try to match the single token against both first and last of the other.
 
-        // --- Component Identification ---
-        String fn1 = "", ln1 = "", mn1_str = "";
-        String fn2 = "", ln2 = "", mn2_str = "";
-
-        // Name 1 components
-        if (!tokens1.isEmpty()) {
-            fn1 = tokens1.get(0);
-            if (tokens1.size() > 1) {
-                ln1 = tokens1.get(tokens1.size() - 1);
-                if (tokens1.size() > 2) {
-                    mn1_str = String.join(" ", tokens1.subList(1, tokens1.size() - 1)); // what's between first and last token is middle name
-                }
-            } else { // Single token, use it as both first and last for comparison logic
-                ln1 = fn1;
-            }
-        }
-
-        // Name 2 components
-        if (!tokens2.isEmpty()) {
-            fn2 = tokens2.get(0);
-            if (tokens2.size() > 1) {
-                ln2 = tokens2.get(tokens2.size() - 1);
-                if (tokens2.size() > 2) {
-                    mn2_str = String.join(" ", tokens2.subList(1, tokens2.size() - 1));
-                }
-            } else { // Single token
-                ln2 = fn2;
-            }
-        }
+        // --- Component Identification (derived once per name, see NameFeatures) ---
+        // What's between first and last token is middle name; a single token is used as both first and last
+        NameFeatures parts1 = name1.features();
+        NameFeatures parts2 = name2.features();
+        String fn1 = parts1.firstName(), ln1 = parts1.lastName(), mn1_str = parts1.middleNames();
+        String fn2 = parts2.firstName(), ln2 = parts2.lastName(), mn2_str = parts2.middleNames();
 
         // --- Component Comparison ---
-        double fnSim = getSimilarityScore(fn1, fn2);
-        double lnSim = getSimilarityScore(ln1, ln2);
         double mnSim = 0.0;
 
         // Weighted score based on number of tokens
@@ -92,7 +69,7 @@ public class PositionalWeightedNameComparator implements NameComparator {
             // If one is a single token, compare it against both first and last of the other, take best
             // Or, if both are single token, this was handled above, but as a fallback:
             if (tokens1.size() == 1 && tokens2.size() == 1) {
-                combinedScore = fnSim; // fnSim is already the comparison of the single tokens
+                combinedScore = getSimilarityScore(fn1, fn2); // The comparison of the single tokens
                 totalWeight = 1.0; // Full weight
             } else if (tokens1.size() == 1) { // name1 is single token, name2 is multi-token
                 double simToFn2 = getSimilarityScore(tokens1.get(0), fn2);
@@ -106,10 +83,10 @@ public class PositionalWeightedNameComparator implements NameComparator {
                 totalWeight = 1.0;
             }
         } else if (tokens1.size() == 2 && tokens2.size() == 2) { // Both have First and Last
-            combinedScore = (fnSim * 0.5) + (lnSim * 0.5); // 50/50 weight
+            combinedScore = (getSimilarityScore(fn1, fn2) * 0.5) + (getSimilarityScore(ln1, ln2) * 0.5); // 50/50 weight
             totalWeight = 1.0;
         } else if (tokens1.size() >= 2 && tokens2.size() >= 2) { // Both have at least First and Last
-            combinedScore = (fnSim * firstNameWeight) + (lnSim * lastNameWeight);
+            combinedScore = (getSimilarityScore(fn1, fn2) * firstNameWeight) + (getSimilarityScore(ln1, ln2) * lastNameWeight);
             totalWeight = firstNameWeight + lastNameWeight;
             if (!mn1_str.isEmpty() && !mn2_str.isEmpty()) {
                 mnSim = getSimilarityScore(mn1_str, mn2_str);
@@ -144,6 +121,12 @@ public class PositionalWeightedNameComparator implements NameComparator {
         }
         return score; // Assume it's already a similarity score
     }
+
+    @Override
+    public String describeScoreCache() {
+        return stringComparator instanceof ScoreCacheReporting cache ? cache.describeScoreCache() : null;
+    }
+
     @Override
     public boolean isScoreDistance(){
         return false;
@@ -8,6 +8,10 @@ public class Configuration {
     private double resultThreshold;
     private int maxResults;
     private boolean isThresholdMode;
+    // "persistIndexes" property, off by default: saves the preprocessed names + finder index of local files under
+    // ./index_cache/ (see IndexSnapshotStore) and reopens them on restart
+    private boolean persistIndexes;
+    private double autoRecallFloor; // "AUTO" finder: minimum share of the comparator's matches the chosen finder must keep
 
     // --- Getters ---
     public String getPreprocessorChoice() {
@@ -29,6 +33,12 @@ public class Configuration {
     public boolean isThresholdMode() {
         return isThresholdMode;
     }
+    public boolean isPersistIndexes() {
+        return persistIndexes;
+    }
+    public double getAutoRecallFloor() {
+        return autoRecallFloor;
+    }
 
     // --- Setters ---
     public void setPreprocessorChoice(String preprocessorChoice) {
@@ -52,6 +62,12 @@ public class Configuration {
     public void setThresholdMode(boolean isThresholdMode) {
         this.isThresholdMode = isThresholdMode;
     }
+    public void setPersistIndexes(boolean persistIndexes) {
+        this.persistIndexes = persistIndexes;
+    }
+    public void setAutoRecallFloor(double autoRecallFloor) {
+        this.autoRecallFloor = autoRecallFloor;
+    }
 
     @Override
     public String toString() {
@@ -63,6 +79,8 @@ public class Configuration {
                 ", threshold=" + resultThreshold +
                 ", maxResults=" + maxResults +
                 ", thresholdMode=" + isThresholdMode +
+                ", persistIndexes=" + persistIndexes +
+                ", autoRecallFloor=" + autoRecallFloor +
                 '}';
     }
 }
\ No newline at end of file
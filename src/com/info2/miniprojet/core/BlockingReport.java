@@ -0,0 +1,194 @@
+package com.info2.miniprojet.core;
+
+import com.info2.miniprojet.factory.StrategyFactory;
+import com.info2.miniprojet.indexing.CandidateFinder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Runs candidate finders in deduplication mode over a dataset whose true matches are known,
+ * to pick the cheapest finder that still reaches a recall target. For each finder it measures:
+ * pair count and reduction ratio (vs. all n(n-1)/2 pairs), pair completeness (share of true matches
+ * that made it into the candidates, i.e. blocking recall), block-size histogram and largest blocks,
+ * and build/query times.
+ */
+public class BlockingReport {
+
+    // A finder whose blocks would produce more pairs than this is not queried (the pair list alone would not fit in memory)
+    private static final long MAX_PAIRS_TO_MATERIALIZE = 20_000_000L;
+    private static final int LARGEST_BLOCKS_SHOWN = 5;
+
+    /**
+     * Measurements for one finder. pairCompleteness and pairQuality are NaN when the finder was not queried
+     * (pairsEstimated) or when there are no true matches to compare against.
+     */
+    public record FinderStats(String finderChoice, long buildMillis, long queryMillis,
+                              long pairCount, boolean pairsEstimated, double reductionRatio,
+                              long trueMatchesFound, long trueMatchCount, double pairCompleteness, double pairQuality,
+                              SortedMap<Integer, Integer> blockSizeHistogram, List<Map.Entry<String, Integer>> largestBlocks) {
+    }
+
+    private BlockingReport() {
+    }
+
+    /**
+     * Parses labelled true matches, one "id1,id2" pair per line. Blank or malformed lines are skipped.
+     */
+    public static List<Couple<String>> parseTrueMatches(List<String> lines) {
+        List<Couple<String>> trueMatches = new ArrayList<>();
+        for (String line : lines) {
+            if (line == null || line.isBlank()) continue;
+            String[] parts = line.split(",");
+            if (parts.length < 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                System.err.println("Warning: Skipping malformed true match line '" + line + "'.");
+                continue;
+            }
+            trueMatches.add(new Couple<>(parts[0].trim(), parts[1].trim()));
+        }
+        return trueMatches;
+    }
+
+    public static List<FinderStats> evaluate(List<Name> names, List<Couple<String>> trueMatchIds, List<String> finderChoices) {
+        // Work on positions: a pair is (min position, max position) packed in a long
+        Map<String, Integer> positionById = new HashMap<>();
+        Map<Name, Integer> positionByName = new IdentityHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            positionById.putIfAbsent(names.get(i).id(), i);
+            positionByName.put(names.get(i), i);
+        }
+        Set<Long> trueMatches = new HashSet<>();
+        for (Couple<String> match : trueMatchIds) {
+            Integer first = positionById.get(match.first());
+            Integer second = positionById.get(match.second());
+            if (first != null && second != null && !first.equals(second)) {
+                trueMatches.add(pairKey(first, second));
+            }
+        }
+        if (trueMatches.size() < trueMatchIds.size()) {
+            System.out.println("BlockingReport: " + (trueMatchIds.size() - trueMatches.size()) + " labelled pairs ignored (unknown ids or duplicates).");
+        }
+
+        long allPairs = (long) names.size() * (names.size() - 1) / 2;
+        List<FinderStats> results = new ArrayList<>();
+        for (String choice : finderChoices) {
+            System.out.println("BlockingReport: Evaluating " + choice + "...");
+            CandidateFinder finder = StrategyFactory.createCandidateFinder(choice);
+
+            long start = System.nanoTime();
+            finder.buildIndex(names);
+            long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+            Map<String, Integer> blockSizes = finder.getBlockSizes();
+            long estimatedPairs = 0;
+            for (int size : blockSizes.values()) {
+                estimatedPairs += (long) size * (size - 1) / 2;
+            }
+
+            long pairCount;
+            long queryMillis = 0;
+            long found = 0;
+            boolean estimated = estimatedPairs > MAX_PAIRS_TO_MATERIALIZE;
+            if (estimated) {
+                System.out.println("BlockingReport: " + choice + " would generate about " + estimatedPairs + " pairs. Skipping the query.");
+                pairCount = estimatedPairs;
+            } else {
+                start = System.nanoTime();
+                List<Couple<Name>> pairs = finder.findCandidatesForDeduplication(names);
+                queryMillis = (System.nanoTime() - start) / 1_000_000;
+                pairCount = pairs.size();
+
+                Set<Long> foundMatches = new HashSet<>();
+                for (Couple<Name> pair : pairs) {
+                    Integer first = positionByName.get(pair.first());
+                    Integer second = positionByName.get(pair.second());
+                    if (first != null && second != null) {
+                        long key = pairKey(first, second);
+                        if (trueMatches.contains(key)) foundMatches.add(key);
+                    }
+                }
+                found = foundMatches.size();
+            }
+
+            double reductionRatio = allPairs == 0 ? 0.0 : 1.0 - (double) pairCount / allPairs;
+            double completeness = (estimated || trueMatches.isEmpty()) ? Double.NaN : (double) found / trueMatches.size();
+            double quality = (estimated || pairCount == 0) ? Double.NaN : (double) found / pairCount;
+            results.add(new FinderStats(choice, buildMillis, queryMillis, pairCount, estimated, reductionRatio,
+                    found, trueMatches.size(), completeness, quality, histogram(blockSizes), largestBlocks(blockSizes)));
+        }
+        return results;
+    }
+
+    public static String format(List<FinderStats> results, int datasetSize) {
+        StringBuilder report = new StringBuilder();
+        report.append("=== Blocking Report (").append(datasetSize).append(" names, ")
+                .append((long) datasetSize * (datasetSize - 1) / 2).append(" possible pairs) ===\n");
+        for (FinderStats stats : results) {
+            report.append("\n--- ").append(stats.finderChoice()).append(" ---\n");
+            report.append(String.format("Build time: %d ms, query time: %s%n", stats.buildMillis(),
+                    stats.pairsEstimated() ? "not run" : stats.queryMillis() + " ms"));
+            report.append(String.format("Candidate pairs: %d%s, reduction ratio: %.4f%n", stats.pairCount(),
+                    stats.pairsEstimated() ? " (estimated from block sizes)" : "", stats.reductionRatio()));
+            if (Double.isNaN(stats.pairCompleteness())) {
+                report.append("Pair completeness (recall): n/a\n");
+            } else {
+                report.append(String.format("Pair completeness (recall): %.4f (%d/%d true matches), pair quality: %.4f%n",
+                        stats.pairCompleteness(), stats.trueMatchesFound(), stats.trueMatchCount(), stats.pairQuality()));
+            }
+            if (stats.blockSizeHistogram().isEmpty()) {
+                report.append("Blocks: not block based\n");
+                continue;
+            }
+            report.append("Block sizes:\n");
+            int lowerBound = 1;
+            for (Map.Entry<Integer, Integer> bucket : stats.blockSizeHistogram().entrySet()) {
+                int upperBound = bucket.getKey();
+                String label = lowerBound == upperBound ? String.valueOf(upperBound) : lowerBound + "-" + upperBound;
+                report.append(String.format("  %12s : %d blocks%n", label, bucket.getValue()));
+                lowerBound = upperBound + 1;
+            }
+            report.append("Largest blocks:\n");
+            for (Map.Entry<String, Integer> block : stats.largestBlocks()) {
+                report.append(String.format("  '%s' : %d names%n", block.getKey(), block.getValue()));
+            }
+        }
+        return report.toString();
+    }
+
+    // Power-of-two buckets keyed by their upper bound: 1, 2, 3-4, 5-8, ... (empty buckets included for readability)
+    private static SortedMap<Integer, Integer> histogram(Map<String, Integer> blockSizes) {
+        SortedMap<Integer, Integer> histogram = new TreeMap<>();
+        if (blockSizes.isEmpty()) return histogram;
+        int largest = Collections.max(blockSizes.values());
+        for (int upperBound = 1; ; upperBound <<= 1) {
+            histogram.put(upperBound, 0);
+            if (upperBound >= largest || upperBound >= (1 << 30)) break;
+        }
+        for (int size : blockSizes.values()) {
+            int upperBound = Integer.highestOneBit(Math.max(1, size));
+            if (upperBound < size) upperBound <<= 1;
+            histogram.merge(upperBound, 1, Integer::sum);
+        }
+        return histogram;
+    }
+
+    private static List<Map.Entry<String, Integer>> largestBlocks(Map<String, Integer> blockSizes) {
+        List<Map.Entry<String, Integer>> blocks = new ArrayList<>(blockSizes.entrySet());
+        blocks.sort((b1, b2) -> Integer.compare(b2.getValue(), b1.getValue()));
+        return new ArrayList<>(blocks.subList(0, Math.min(LARGEST_BLOCKS_SHOWN, blocks.size())));
+    }
+
+    private static long pairKey(int position1, int position2) {
+        int low = Math.min(position1, position2);
+        int high = Math.max(position1, position2);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+}
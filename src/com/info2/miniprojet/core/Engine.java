@@ -4,9 +4,15 @@ import com.info2.miniprojet.config.Configuration;
 import com.info2.miniprojet.factory.StrategyFactory;
 import com.info2.miniprojet.preprocessing.Preprocessor;
 import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.indexing.ResultLimitAware;
+import com.info2.miniprojet.indexing.SimilarityThresholdAware;
 import com.info2.miniprojet.comparison.NameComparator;
+import com.info2.miniprojet.comparison.ScoreBound;
+import com.info2.miniprojet.comparison.ScoreCacheReporting;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects; // For checking list equality reference
 
@@ -15,6 +21,14 @@ public class Engine {
     // --- Stateful Strategy Management for CandidateFinder ---
     private CandidateFinder currentCandidateFinder;
     private String lastCandidateFinderChoice;
+    private List<Name> indexedList; // The list the current finder was built (or restored) on, see updateIndex
+    // Last AUTO plan, reused while the list and the settings it was made for don't change
+    private FinderPlanner.Plan lastPlan;
+    private List<Name> lastPlannedList;
+    private String lastPlanSettings;
+    // Kept across runs so a TOKEN_CACHE keeps its scores while the comparator settings don't change
+    private NameComparator currentNameComparator;
+    private String lastNameComparatorChoice;
     // The CandidateFinder itself will also store a reference to the list it indexed
 
 
@@ -34,9 +48,110 @@ public class Engine {
 
         // Now, ask the current finder to build/update its index IF NECESSARY
         this.currentCandidateFinder.buildIndex(listToPotentiallyIndex);
+        this.indexedList = listToPotentiallyIndex;
     }
 
+    // --- Helper to reuse the NameComparator (and its token score cache) while its settings don't change ---
+    private NameComparator ensureNameComparator(Configuration config) {
+        String choice = config.getNameComparatorChoice() + "|" + config.getStringComparatorForNameCompChoice();
+        if (this.currentNameComparator == null || !choice.equals(this.lastNameComparatorChoice)) {
+            this.currentNameComparator = StrategyFactory.createNameComparator(config.getNameComparatorChoice(), config.getStringComparatorForNameCompChoice());
+            this.lastNameComparatorChoice = choice;
+        }
+        return this.currentNameComparator;
+    }
+
+    private void applyFinderSettings(Configuration config, NameComparator nameComparator) {
+        applyFinderSettings(this.currentCandidateFinder, config, nameComparator);
+    }
 
+    // Top-k finders only need to retrieve as many candidates as the user wants results,
+    // similarity joins only the pairs that can pass the threshold
+    static void applyFinderSettings(CandidateFinder finder, Configuration config, NameComparator nameComparator) {
+        if (finder instanceof ResultLimitAware limitAware) {
+            limitAware.setResultLimit(resultLimitFor(config));
+        }
+        if (finder instanceof SimilarityThresholdAware thresholdAware && config.isThresholdMode()) {
+            thresholdAware.setSimilarityThreshold(nameComparator, config.getResultThreshold());
+        }
+    }
+
+    static int resultLimitFor(Configuration config) {
+        return config.isThresholdMode() ? 0 : config.getMaxResults();
+    }
+
+    /**
+     * The configured finder choice, or for "AUTO" the one FinderPlanner picks for this list and comparator.
+     */
+    private String resolveCandidateFinderChoice(Configuration config, List<Name> listToIndex, NameComparator nameComparator) {
+        String choice = config.getCandidateFinderChoice();
+        if (!FinderPlanner.isAuto(choice)) {
+            return choice;
+        }
+        String settings = config.getNameComparatorChoice() + "|" + config.getStringComparatorForNameCompChoice() + "|" + config.getAutoRecallFloor()
+                + "|" + config.isThresholdMode() + "|" + config.getResultThreshold() + "|" + config.getMaxResults();
+        if (this.lastPlan == null || this.lastPlannedList != listToIndex || !settings.equals(this.lastPlanSettings)) {
+            System.out.println("Engine: Planning AUTO candidate finder for " + listToIndex.size() + " names...");
+            this.lastPlan = FinderPlanner.plan(listToIndex, nameComparator, config);
+            this.lastPlannedList = listToIndex;
+            this.lastPlanSettings = settings;
+            System.out.println("Engine: " + this.lastPlan.describe()); // Kept in the output for audit
+        } else {
+            System.out.println("Engine: Reusing AUTO plan: " + this.lastPlan.finderChoice());
+        }
+        return this.lastPlan.finderChoice();
+    }
+
+
+
+    /**
+     * Builds (or reuses) the index for the given list right away and returns the finder holding it.
+     * Used by MiniProject to persist the index next to the dataset.
+     */
+    public CandidateFinder prepareCandidateFinder(String choice, List<Name> namesToIndex) {
+        ensureCandidateFinder(choice, namesToIndex);
+        return this.currentCandidateFinder;
+    }
+
+    /**
+     * Installs a finder whose index was restored from disk, so the next operation on the same list reuses it.
+     */
+    public void adoptCandidateFinder(String choice, CandidateFinder restoredFinder, List<Name> indexedNames) {
+        System.out.println("Engine: Using restored CandidateFinder " + restoredFinder.getName() + " for choice " + choice);
+        this.currentCandidateFinder = restoredFinder;
+        this.lastCandidateFinderChoice = choice;
+        this.indexedList = indexedNames;
+    }
+
+    /**
+     * Applies a delta (e.g. the daily watchlist changes) to the current index instead of rebuilding it, if that
+     * index is over the given list. The caller then applies the same delta to the list itself, in place: the
+     * finders keep their own copy of the names from their first update on, and the next operation on the list
+     * reuses the updated index. Removals are applied before additions, so an updated entry can be passed as
+     * remove + add with the same id.
+     *
+     * @param indexedNames The list about to change.
+     * @param addedNames   Already preprocessed names to add (may be null or empty).
+     * @param removedIds   Ids of the names to remove (may be null or empty).
+     * @return true if the current index was updated, false if it is over another list (or there is none).
+     */
+    public boolean updateIndex(List<Name> indexedNames, List<Name> addedNames, Collection<String> removedIds) {
+        if (this.lastPlannedList == indexedNames) {
+            this.lastPlan = null; // The AUTO plan was made on the old content
+        }
+        if (this.currentCandidateFinder == null || indexedNames == null || this.indexedList != indexedNames) {
+            return false;
+        }
+        if (removedIds != null && !removedIds.isEmpty()) {
+            this.currentCandidateFinder.removeNames(removedIds);
+        }
+        if (addedNames != null && !addedNames.isEmpty()) {
+            this.currentCandidateFinder.addNames(addedNames);
+        }
+        System.out.println("Engine: Index updated (" + (addedNames == null ? 0 : addedNames.size()) + " added, "
+                + (removedIds == null ? 0 : removedIds.size()) + " ids removed).");
+        return true;
+    }
 
     public List<ComparisonResult> performSearch(String rawQueryName, List<Name> namesList, Configuration config) {
         System.out.println("Engine: Starting Search for '" + rawQueryName + "' with " + namesList.size() + " names.");
@@ -45,14 +160,15 @@ public class Engine {
         long startTime = System.currentTimeMillis();
 
         Preprocessor preprocessor = StrategyFactory.createPreprocessor(config.getPreprocessorChoice());
-        NameComparator nameComparator = StrategyFactory.createNameComparator(config.getNameComparatorChoice(), config.getStringComparatorForNameCompChoice());
+        NameComparator nameComparator = ensureNameComparator(config);
 
         // Ensure the right CandidateFinder is active and its index is prepared for namesList
-        ensureCandidateFinder(config.getCandidateFinderChoice(), namesList);
+        ensureCandidateFinder(resolveCandidateFinderChoice(config, namesList, nameComparator), namesList);
+        applyFinderSettings(config, nameComparator);
 
         // Preprocess the raw query string to create a Name object
         List<String> queryTokens = preprocessor.preprocess(List.of(rawQueryName)); // Wrap query
-        Name queryNameObject = new Name("QUERY_" + rawQueryName, rawQueryName, queryTokens); // ID for query
+        Name queryNameObject = Name.query("QUERY_" + rawQueryName, rawQueryName, queryTokens, TokenDictionary.of(namesList)); // ID for query, tokens not added to the list's dictionary
 
         List<Couple<Name>> candidatePairs;
         try {
@@ -63,19 +179,7 @@ public class Engine {
         }
         System.out.println("Engine: Found " + candidatePairs.size() + " candidate pairs for search.");
 
-        List<ComparisonResult> comparisonResults = new ArrayList<>();
-        for (Couple<Name> pair : candidatePairs) {
-            if (pair.first() == null || pair.second() == null) continue; // Robustness
-            double score = nameComparator.calculateScore(pair.first(), pair.second());
-            comparisonResults.add(new ComparisonResult(
-                    pair.first().id(),
-                    pair.first().originalName(),
-                    pair.second().id(),
-                    pair.second().originalName(),
-                    score,
-                    nameComparator.getName()
-            ));
-        }
+        List<ComparisonResult> comparisonResults = scorePairs(candidatePairs, nameComparator, config);
         boolean isDistance=nameComparator.isScoreDistance();
 
         comparisonResults.sort((r1, r2) -> {
@@ -96,35 +200,27 @@ public class Engine {
 
         //LOGGING statement for performance TODO: actually remove this
         long startTime = System.currentTimeMillis();
-        NameComparator nameComparator = StrategyFactory.createNameComparator(config.getNameComparatorChoice(), config.getStringComparatorForNameCompChoice());
+        NameComparator nameComparator = ensureNameComparator(config);
 
         // Ensure the right CandidateFinder is active.
         // For comparison, we choose to index list2 and iterate through list1.
-        ensureCandidateFinder(config.getCandidateFinderChoice(), list2); // Index list2
+        ensureCandidateFinder(resolveCandidateFinderChoice(config, list2, nameComparator), list2); // Index list2
+        applyFinderSettings(config, nameComparator);
+
+        // The lists were loaded apart, each with its token dictionary: list1 is compared in list2's
+        List<Name> probeList = inDictionaryOf(list1, list2);
 
         List<Couple<Name>> candidatePairs;
         try {
             // The finder's comparison method iterates list1 and uses its internal index (of list2)
-            candidatePairs = this.currentCandidateFinder.findCandidatesForComparison(list1, list2);
+            candidatePairs = this.currentCandidateFinder.findCandidatesForComparison(probeList, list2);
         } catch (IllegalStateException e) {
             System.err.println("Engine Error (Compare): " + e.getMessage() + " Did you call buildIndex on the CandidateFinder for list2?");
             return new ArrayList<>();
         }
         System.out.println("Engine: Found " + candidatePairs.size() + " candidate pairs for comparison.");
 
-        List<ComparisonResult> comparisonResults = new ArrayList<>();
-        for (Couple<Name> pair : candidatePairs) {
-            if (pair.first() == null || pair.second() == null) continue;
-            double score = nameComparator.calculateScore(pair.first(), pair.second());
-            comparisonResults.add(new ComparisonResult(
-                    pair.first().id(),
-                    pair.first().originalName(),
-                    pair.second().id(),
-                    pair.second().originalName(),
-                    score,
-                    nameComparator.getName()
-            ));
-        }
+        List<ComparisonResult> comparisonResults = scorePairs(candidatePairs, nameComparator, config);
 
         boolean isDistance=nameComparator.isScoreDistance();
 
@@ -146,10 +242,11 @@ public class Engine {
 
         //LOGGING statement for performance TODO: actually remove this
         long startTime = System.currentTimeMillis();
-        NameComparator nameComparator = StrategyFactory.createNameComparator(config.getNameComparatorChoice(), config.getStringComparatorForNameCompChoice());
+        NameComparator nameComparator = ensureNameComparator(config);
 
         // Ensure the right CandidateFinder is active and its index is prepared for namesList
-        ensureCandidateFinder(config.getCandidateFinderChoice(), namesList);
+        ensureCandidateFinder(resolveCandidateFinderChoice(config, namesList, nameComparator), namesList);
+        applyFinderSettings(config, nameComparator);
 
         List<Couple<Name>> candidatePairs;
         try {
@@ -160,19 +257,7 @@ public class Engine {
         }
         System.out.println("Engine: Found " + candidatePairs.size() + " candidate pairs for deduplication.");
 
-        List<ComparisonResult> comparisonResults = new ArrayList<>();
-        for (Couple<Name> pair : candidatePairs) {
-            if (pair.first() == null || pair.second() == null) continue;
-            double score = nameComparator.calculateScore(pair.first(), pair.second());
-            comparisonResults.add(new ComparisonResult(
-                    pair.first().id(),
-                    pair.first().originalName(),
-                    pair.second().id(),
-                    pair.second().originalName(),
-                    score,
-                    nameComparator.getName()
-            ));
-        }
+        List<ComparisonResult> comparisonResults = scorePairs(candidatePairs, nameComparator, config);
 
         boolean isDistance=nameComparator.isScoreDistance();
 
@@ -189,6 +274,72 @@ public class Engine {
         return filterAndSortResults(comparisonResults, config, nameComparator.isScoreDistance());
     }
 
+    private static List<Name> inDictionaryOf(List<Name> probeList, List<Name> indexedList) {
+        TokenDictionary dictionary = TokenDictionary.of(indexedList);
+        if (dictionary == null || TokenDictionary.of(probeList) == dictionary) return probeList;
+        List<Name> translated = new ArrayList<>(probeList.size());
+        for (Name name : probeList) {
+            translated.add(name == null ? null : name.withQueryIds(dictionary));
+        }
+        return translated;
+    }
+
+    // --- Scoring ---
+
+    /**
+     * Scores the candidate pairs. In threshold mode, or in max results mode once that many pairs are scored, the
+     * comparator's cheap score bounds (see NameComparator.scoreBounds) are checked first, cheapest first: a pair
+     * whose bound misses the threshold (or can't beat the current K-th best score) is dropped without being scored,
+     * as are scored pairs that can't make the results. With a similarity, the cutoff is also passed to the
+     * comparator, which may stop early on pairs that can't reach it.
+     */
+    private List<ComparisonResult> scorePairs(List<Couple<Name>> candidatePairs, NameComparator nameComparator, Configuration config) {
+        ScoreCutoff cutoff = ScoreCutoff.of(config, nameComparator.isScoreDistance());
+        List<ScoreBound<Name>> stages = cutoff.isActive() ? nameComparator.scoreBounds() : List.of();
+        long[] prunedByStage = new long[stages.size()];
+        List<ComparisonResult> comparisonResults = new ArrayList<>();
+        for (Couple<Name> pair : candidatePairs) {
+            if (pair.first() == null || pair.second() == null) continue; // Robustness
+            int pruningStage = pruningStage(pair, stages, cutoff);
+            if (pruningStage >= 0) {
+                prunedByStage[pruningStage]++;
+                continue;
+            }
+            double score = nameComparator.calculateScore(pair.first(), pair.second(), cutoff.minScore());
+            if (!cutoff.offer(score)) continue;
+            comparisonResults.add(new ComparisonResult(
+                    pair.first().id(),
+                    pair.first().originalName(),
+                    pair.second().id(),
+                    pair.second().originalName(),
+                    score,
+                    nameComparator.getName()
+            ));
+        }
+        long prunedPairs = Arrays.stream(prunedByStage).sum();
+        if (prunedPairs > 0) {
+            StringBuilder report = new StringBuilder();
+            for (int stage = 0; stage < stages.size(); stage++) {
+                report.append(stage == 0 ? "" : ", ").append(stages.get(stage).getName()).append(' ').append(prunedByStage[stage]);
+            }
+            System.out.println("Engine: Prefilter pruned " + prunedPairs + " of " + candidatePairs.size()
+                    + " pairs without scoring them (" + report + ").");
+        }
+        String scoreCache = nameComparator instanceof ScoreCacheReporting reporting ? reporting.describeScoreCache() : null;
+        if (scoreCache != null) {
+            System.out.println("Engine: Token score cache (since the comparator settings last changed): " + scoreCache + ".");
+        }
+        return comparisonResults;
+    }
+
+    // First stage whose bound rules the pair out, -1 if none does
+    private static int pruningStage(Couple<Name> pair, List<ScoreBound<Name>> stages, ScoreCutoff cutoff) {
+        for (int stage = 0; stage < stages.size(); stage++) {
+            if (!cutoff.canReach(stages.get(stage).bound(pair.first(), pair.second()))) return stage;
+        }
+        return -1;
+    }
+
     // --- Filtering Logic ---
     private List<ComparisonResult> filterAndSortResults(List<ComparisonResult> sortedMatches, Configuration config, boolean isDistance) {
         // This method assumes sortedMatches is ALREADY sorted appropriately
@@ -0,0 +1,264 @@
+package com.info2.miniprojet.core;
+
+import com.info2.miniprojet.comparison.NameComparator;
+import com.info2.miniprojet.config.Configuration;
+import com.info2.miniprojet.factory.StrategyFactory;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.util.HyperLogLog;
+import com.info2.miniprojet.util.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Cost-based choice of a CandidateFinder for the "AUTO" finder choice.
+ * Every available finder is run in deduplication mode on a random sample of the list and its full-size
+ * cost is extrapolated: pairs (blocking finders grow with n^2, the others with the exponent measured between
+ * half and full sample), build and query time, and comparator time (pairs x measured cost of one comparison).
+ * Recall is measured against what the configured comparator itself calls a match on the sample.
+ * The cheapest finder whose recall reaches Configuration.getAutoRecallFloor() wins, Cartesian (recall 1) otherwise.
+ */
+public final class FinderPlanner {
+
+    public static final String AUTO_CHOICE = "AUTO";
+    static final int SAMPLE_SIZE = 1000;
+    // Below this many comparator matches in the sample, the best scoring sample pairs are used as matches instead
+    private static final int MIN_SAMPLE_MATCHES = 20;
+    private static final int FALLBACK_SAMPLE_MATCHES = 50;
+    private static final long RANDOM_SEED = 42L; // Same list, same plan
+
+    // Finders whose dedup blocks are exactly the names sharing a key: the number of distinct keys in the
+    // whole list bounds their pairs from below (D keys over N names make at least D * C(N/D, 2) pairs),
+    // which catches the many small blocks a sample is too sparse to see.
+    private static final Map<String, Function<Name, String>> EXACT_KEY_FUNCTIONS = Map.of(
+            "DICTIONARY_LAST_TOKEN", name -> {
+                List<String> tokens = name.processedTokens();
+                String lastToken = tokens.get(tokens.size() - 1);
+                return lastToken == null || lastToken.isBlank() ? null : lastToken.trim();
+            },
+            "TRIE_FINDER", name -> name.features().lowerJoined(),
+            "REDBLACKTREE_FINDER", name -> name.features().lowerJoined()
+    );
+
+    /**
+     * Extrapolated cost of one finder on the whole list. recall is NaN if the finder failed on the sample.
+     */
+    public record FinderEstimate(String finderChoice, long estimatedPairs, double recall, int largestSampleBlock,
+                                 double buildMillis, double queryMillis, double compareMillis) {
+        public double totalMillis() {
+            return buildMillis + queryMillis + compareMillis;
+        }
+    }
+
+    public record Plan(String finderChoice, int datasetSize, int sampleSize, int sampleMatches, double recallFloor,
+                       double nanosPerComparison, List<FinderEstimate> estimates) {
+
+        public String describe() {
+            StringBuilder description = new StringBuilder();
+            description.append(String.format("AUTO plan for %d names (sample %d, %d sample matches, %.0f ns per comparison, recall floor %.2f):%n",
+                    datasetSize, sampleSize, sampleMatches, nanosPerComparison, recallFloor));
+            for (FinderEstimate estimate : estimates) {
+                description.append(String.format("  %s %-24s pairs~%-12d recall=%s cost~%.0f ms (build %.0f, query %.0f, compare %.0f), largest sample block %d%n",
+                        estimate.finderChoice().equals(finderChoice) ? "*" : " ", estimate.finderChoice(), estimate.estimatedPairs(),
+                        Double.isNaN(estimate.recall()) ? "n/a" : String.format("%.3f", estimate.recall()),
+                        estimate.totalMillis(), estimate.buildMillis(), estimate.queryMillis(), estimate.compareMillis(),
+                        estimate.largestSampleBlock()));
+            }
+            description.append("Chosen: ").append(finderChoice);
+            return description.toString();
+        }
+    }
+
+    private FinderPlanner() {
+    }
+
+    public static boolean isAuto(String finderChoice) {
+        return finderChoice != null && finderChoice.trim().equalsIgnoreCase(AUTO_CHOICE);
+    }
+
+    public static Plan plan(List<Name> names, NameComparator comparator, Configuration config) {
+        double recallFloor = config.getAutoRecallFloor();
+        int datasetSize = names.size();
+        if (datasetSize < 2) {
+            return new Plan("CARTESIAN_FIND_ALL", datasetSize, datasetSize, 0, recallFloor, 0, List.of());
+        }
+        List<Name> sample = sample(names, Math.min(SAMPLE_SIZE, datasetSize));
+        List<Name> halfSample = new ArrayList<>(sample.subList(0, sample.size() / 2));
+        int sampleSize = sample.size();
+
+        // Score every sample pair once: gives the cost of a comparison and the reference matches
+        long start = System.nanoTime();
+        double[] sampleScores = scoreAllPairs(sample, comparator);
+        long comparisons = sampleScores.length;
+        double nanosPerComparison = (double) (System.nanoTime() - start) / comparisons;
+        LongHashSet sampleMatches = sampleMatches(sampleScores, sampleSize, comparator.isScoreDistance(), config);
+        int matchCount = sampleMatches.size();
+
+        Map<Name, Integer> samplePositions = new IdentityHashMap<>();
+        for (int i = 0; i < sampleSize; i++) samplePositions.put(sample.get(i), i);
+
+        double allPairs = (double) datasetSize * (datasetSize - 1) / 2;
+        double sampleToFullPairs = allPairs / comparisons;
+        double sampleToFullNames = (double) datasetSize / sampleSize;
+
+        List<FinderEstimate> estimates = new ArrayList<>();
+        for (String choice : StrategyFactory.getAvailableCandidateFinderChoices()) {
+            if (isAuto(choice) || choice.equalsIgnoreCase("UNION")) continue; // Composites aren't planned
+            try {
+                CandidateFinder finder = createForSample(choice, config, comparator);
+                start = System.nanoTime();
+                finder.buildIndex(sample);
+                double buildMillis = (System.nanoTime() - start) / 1e6;
+                start = System.nanoTime();
+                List<Couple<Name>> pairs = finder.findCandidatesForDeduplication(sample);
+                double queryMillis = (System.nanoTime() - start) / 1e6;
+
+                LongHashSet foundPairs = new LongHashSet(pairs.size());
+                long found = 0;
+                for (Couple<Name> pair : pairs) {
+                    Integer first = samplePositions.get(pair.first());
+                    Integer second = samplePositions.get(pair.second());
+                    if (first == null || second == null || first.equals(second)) continue;
+                    long key = pairKey(first, second);
+                    if (foundPairs.add(key) && sampleMatches.contains(key)) found++;
+                }
+                long samplePairs = foundPairs.size();
+
+                int largestBlock = 0;
+                for (int blockSize : finder.getBlockSizes().values()) largestBlock = Math.max(largestBlock, blockSize);
+                double estimatedPairs;
+                if (largestBlock > 0) {
+                    estimatedPairs = samplePairs * sampleToFullPairs; // Blocks: pairs grow with the square of the list
+                } else {
+                    estimatedPairs = samplePairs * Math.pow(sampleToFullNames, growthExponent(choice, config, comparator, halfSample, sampleSize, samplePairs));
+                }
+                Function<Name, String> keyFunction = EXACT_KEY_FUNCTIONS.get(choice);
+                if (keyFunction != null) {
+                    estimatedPairs = Math.max(estimatedPairs, pairsLowerBound(names, keyFunction));
+                }
+                estimatedPairs = Math.min(estimatedPairs, allPairs);
+
+                double fullQueryMillis = samplePairs > 0 ? queryMillis * estimatedPairs / samplePairs : queryMillis * sampleToFullNames;
+                double recall = matchCount == 0 ? 1.0 : (double) found / matchCount;
+                estimates.add(new FinderEstimate(choice, Math.round(estimatedPairs), recall, largestBlock,
+                        buildMillis * sampleToFullNames, fullQueryMillis, estimatedPairs * nanosPerComparison / 1e6));
+            } catch (RuntimeException e) {
+                System.err.println("Warning: Planner could not evaluate " + choice + " on the sample (" + e + "). Skipping it.");
+                estimates.add(new FinderEstimate(choice, 0, Double.NaN, 0, 0, 0, 0));
+            }
+        }
+
+        estimates.sort(Comparator.comparingDouble(FinderEstimate::totalMillis));
+        String chosen = "CARTESIAN_FIND_ALL"; // Finds everything, always meets the floor
+        for (FinderEstimate estimate : estimates) {
+            if (!Double.isNaN(estimate.recall()) && estimate.recall() >= recallFloor) {
+                chosen = estimate.finderChoice();
+                break;
+            }
+        }
+        return new Plan(chosen, datasetSize, sampleSize, matchCount, recallFloor, nanosPerComparison, estimates);
+    }
+
+    private static CandidateFinder createForSample(String choice, Configuration config, NameComparator comparator) {
+        CandidateFinder finder = StrategyFactory.createCandidateFinder(choice);
+        Engine.applyFinderSettings(finder, config, comparator);
+        return finder;
+    }
+
+    // n^alpha growth of the pair count between half and full sample, alpha kept in [1, 2]
+    private static double growthExponent(String choice, Configuration config, NameComparator comparator, List<Name> halfSample, int sampleSize, long samplePairs) {
+        CandidateFinder finder = createForSample(choice, config, comparator);
+        finder.buildIndex(halfSample);
+        long halfPairs = finder.findCandidatesForDeduplication(halfSample).size();
+        if (halfPairs == 0) {
+            return samplePairs == 0 ? 1.0 : 2.0;
+        }
+        double exponent = Math.log((double) samplePairs / halfPairs) / Math.log((double) sampleSize / halfSample.size());
+        return Math.max(1.0, Math.min(2.0, exponent));
+    }
+
+    private static double pairsLowerBound(List<Name> names, Function<Name, String> keyFunction) {
+        HyperLogLog distinctKeys = new HyperLogLog();
+        long keyedNames = 0;
+        for (Name name : names) {
+            if (name == null || name.processedTokens() == null || name.processedTokens().isEmpty()) continue;
+            String key = keyFunction.apply(name);
+            if (key == null) continue;
+            distinctKeys.add(key);
+            keyedNames++;
+        }
+        double keyCount = Math.max(1, Math.min(keyedNames, distinctKeys.estimate()));
+        double namesPerKey = keyedNames / keyCount;
+        return keyCount * namesPerKey * (namesPerKey - 1) / 2;
+    }
+
+    // Deterministic partial Fisher-Yates shuffle
+    private static List<Name> sample(List<Name> names, int sampleSize) {
+        if (sampleSize >= names.size()) return new ArrayList<>(names);
+        int[] positions = new int[names.size()];
+        for (int i = 0; i < positions.length; i++) positions[i] = i;
+        Random random = new Random(RANDOM_SEED);
+        List<Name> sample = new ArrayList<>(sampleSize);
+        for (int i = 0; i < sampleSize; i++) {
+            int swap = i + random.nextInt(positions.length - i);
+            int position = positions[swap];
+            positions[swap] = positions[i];
+            positions[i] = position;
+            sample.add(names.get(position));
+        }
+        return sample;
+    }
+
+    // Scores of all pairs (i < j, row by row), negated for distances so that higher is always better
+    private static double[] scoreAllPairs(List<Name> sample, NameComparator comparator) {
+        int size = sample.size();
+        boolean isDistance = comparator.isScoreDistance();
+        double[] scores = new double[size * (size - 1) / 2];
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                double score = comparator.calculateScore(sample.get(i), sample.get(j));
+                scores[index++] = isDistance ? -score : score;
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Sample pairs the comparator accepts: those passing the threshold in threshold mode, otherwise (or if too
+     * few pass) the best scoring pairs, which are the ones a max-results query would show.
+     */
+    private static LongHashSet sampleMatches(double[] scores, int size, boolean isDistance, Configuration config) {
+        double threshold = isDistance ? -config.getResultThreshold() : config.getResultThreshold();
+        long passing = 0;
+        if (config.isThresholdMode()) {
+            for (double score : scores) if (score >= threshold) passing++;
+        }
+        if (passing < MIN_SAMPLE_MATCHES) {
+            // Score of the FALLBACK_SAMPLE_MATCHES-th best pair, pairs at the worst score overall never count
+            double[] sorted = scores.clone();
+            Arrays.sort(sorted);
+            double worst = sorted[0];
+            threshold = sorted[Math.max(0, sorted.length - FALLBACK_SAMPLE_MATCHES)];
+            if (threshold <= worst) threshold = Math.nextUp(worst);
+        }
+        LongHashSet matches = new LongHashSet(FALLBACK_SAMPLE_MATCHES);
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                if (scores[index++] >= threshold) matches.add(pairKey(i, j));
+            }
+        }
+        return matches;
+    }
+
+    private static long pairKey(int position1, int position2) {
+        return ((long) Math.min(position1, position2) << 32) | Math.max(position1, position2);
+    }
+}
@@ -1,6 +1,75 @@
 package com.info2.miniprojet.core;
 
 import java.util.List;
+import java.util.Objects;
 
-public record Name(String id, String originalName, List<String> processedTokens) {
+/**
+ * @param dictionary The dictionary of the list the name belongs to (see TokenDictionary), null for a name made
+ *                   without one: its tokenIds are then empty and comparators use its tokens.
+ * @param tokenIds   The processed tokens as ids of the dictionary, ascending with duplicates kept.
+ *                   Filled by the constructors below (or query()); read-only (not copied, for the scoring loops).
+ * @param features   What comparators derive from the tokens (joined, lowercased, parts...), also filled by the
+ *                   constructors below.
+ */
+public record Name(String id, String originalName, List<String> processedTokens, TokenDictionary dictionary, int[] tokenIds, NameFeatures features) {
+
+    private static final int[] NO_IDS = new int[0];
+
+    public Name {
+        if (tokenIds == null || features == null) {
+            throw new IllegalArgumentException("Token ids and features cannot be null (use new Name(id, originalName, processedTokens)).");
+        }
+    }
+
+    public Name(String id, String originalName, List<String> processedTokens) {
+        this(id, originalName, processedTokens, null);
+    }
+
+    /**
+     * A name of a loaded list: its tokens are added to the list's dictionary.
+     */
+    public Name(String id, String originalName, List<String> processedTokens, TokenDictionary dictionary) {
+        this(id, originalName, processedTokens, dictionary, dictionary == null ? NO_IDS : dictionary.encode(processedTokens), NameFeatures.of(processedTokens));
+    }
+
+    /**
+     * A name that is only compared with a loaded list (a search query): its tokens unknown to the list's dictionary
+     * get temporary ids instead of being added. Not to be indexed.
+     */
+    public static Name query(String id, String originalName, List<String> processedTokens, TokenDictionary dictionary) {
+        return new Name(id, originalName, processedTokens, dictionary, dictionary == null ? NO_IDS : dictionary.encodeQuery(processedTokens), NameFeatures.of(processedTokens));
+    }
+
+    /**
+     * @return This name with the ids of another dictionary (as a query, see query()), to compare it with that list.
+     */
+    public Name withQueryIds(TokenDictionary otherDictionary) {
+        if (otherDictionary == this.dictionary) return this;
+        return new Name(this.id, this.originalName, this.processedTokens, otherDictionary,
+                otherDictionary == null ? NO_IDS : otherDictionary.encodeQuery(this.processedTokens), this.features);
+    }
+
+    /**
+     * @return true if the token ids of both names can be compared (same non-null dictionary).
+     */
+    public boolean sharesDictionaryWith(Name other) {
+        return this.dictionary != null && this.dictionary == other.dictionary;
+    }
+
+    // Identity of a name is its first three components, the dictionary, ids and features are derived from the tokens
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Name name && Objects.equals(this.id, name.id)
+                && Objects.equals(this.originalName, name.originalName) && Objects.equals(this.processedTokens, name.processedTokens);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id, this.originalName, this.processedTokens);
+    }
+
+    @Override
+    public String toString() {
+        return "Name[id=" + this.id + ", originalName=" + this.originalName + ", processedTokens=" + this.processedTokens + "]";
+    }
 }
@@ -0,0 +1,44 @@
+package com.info2.miniprojet.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What the comparators and finders derive from a name's processed tokens, computed once when the Name is made
+ * instead of on every comparison. A name without a token list gets the features of an empty one.
+ *
+ * @param joined           The tokens joined by spaces (what PassThroughNameComparator compares).
+ * @param lowerJoined      joined.toLowerCase(), for case-insensitive comparators and finder keys (the same instance when
+ *                         already lowercase).
+ * @param lowerTokens      Each token lowercased, a null token rendered "null" as in joined (the finders' sorted and
+ *                         rotated keys). Unmodifiable.
+ * @param sortedLowerChars The chars of lowerJoined, ascending: its char histogram, for edit distance bounds. Read-only.
+ * @param firstName        First token ("" without tokens).
+ * @param middleNames      Tokens between the first and the last, joined by spaces ("" with fewer than three tokens).
+ * @param lastName         Last token (the first one for a single token, "" without tokens).
+ */
+public record NameFeatures(String joined, String lowerJoined, List<String> lowerTokens, char[] sortedLowerChars,
+                           String firstName, String middleNames, String lastName) {
+
+    public static NameFeatures of(List<String> tokens) {
+        if (tokens == null || tokens.isEmpty()) {
+            return new NameFeatures("", "", List.of(), new char[0], "", "", "");
+        }
+        String joined = String.join(" ", tokens);
+        String lowerJoined = joined.toLowerCase();
+        String[] lowerTokens = new String[tokens.size()];
+        for (int i = 0; i < lowerTokens.length; i++) {
+            lowerTokens[i] = String.valueOf(tokens.get(i)).toLowerCase();
+        }
+        char[] sortedLowerChars = lowerJoined.toCharArray();
+        Arrays.sort(sortedLowerChars);
+        int last = tokens.size() - 1;
+        String middleNames = "";
+        if (last == 2) {
+            middleNames = String.valueOf(tokens.get(1)); // As String.join would render a null token
+        } else if (last > 2) {
+            middleNames = String.join(" ", tokens.subList(1, last));
+        }
+        return new NameFeatures(joined, lowerJoined, List.of(lowerTokens), sortedLowerChars, tokens.get(0), middleNames, tokens.get(last));
+    }
+}
@@ -0,0 +1,74 @@
+package com.info2.miniprojet.core;
+
+import com.info2.miniprojet.config.Configuration;
+
+import java.util.PriorityQueue;
+
+/**
+ * The score a pair must reach to end up in the results, for the Engine's prefilter cascade: the threshold in
+ * threshold mode, or in max results mode the K-th best score so far once K pairs are scored (a later pair with
+ * the same score sorts after them, so it must do strictly better). Inactive when every result is shown.
+ * Scores are compared as "higher is better", distances negated.
+ */
+final class ScoreCutoff {
+
+    private final boolean distance;
+    private final double threshold; // Negated for a distance, NaN in max results mode
+    private final int maxResults; // Max results mode, 0 = inactive
+    private final PriorityQueue<Double> best; // The maxResults best scores so far (negated for a distance), worst first
+
+    private ScoreCutoff(boolean distance, double threshold, int maxResults) {
+        this.distance = distance;
+        this.threshold = threshold;
+        this.maxResults = maxResults;
+        this.best = maxResults > 0 ? new PriorityQueue<>(maxResults + 1) : null;
+    }
+
+    static ScoreCutoff of(Configuration config, boolean distance) {
+        if (config.isThresholdMode()) {
+            double threshold = config.getResultThreshold();
+            return new ScoreCutoff(distance, distance ? -threshold : threshold, 0);
+        }
+        return new ScoreCutoff(distance, Double.NaN, Math.max(0, config.getMaxResults()));
+    }
+
+    boolean isActive() {
+        return !Double.isNaN(this.threshold) || this.maxResults > 0;
+    }
+
+    /**
+     * @param bound A ScoreBound of the pair (NaN = none).
+     * @return false if a pair with this bound can't make the results.
+     */
+    boolean canReach(double bound) {
+        if (Double.isNaN(bound)) return true;
+        double value = this.distance ? -bound : bound;
+        if (!Double.isNaN(this.threshold)) return value >= this.threshold;
+        return this.best == null || this.best.size() < this.maxResults || value > this.best.peek();
+    }
+
+    /**
+     * @return What a similarity comparator may stop early under (see NameComparator.calculateScore(n1, n2, minScore)).
+     */
+    double minScore() {
+        if (this.distance) return Double.NEGATIVE_INFINITY;
+        if (!Double.isNaN(this.threshold)) return this.threshold;
+        if (this.best == null || this.best.size() < this.maxResults) return Double.NEGATIVE_INFINITY;
+        return Math.nextUp(this.best.peek()); // Equal to the floor isn't enough
+    }
+
+    /**
+     * Records a score in max results mode.
+     *
+     * @return false if the pair can't make the results (NaN scores are always kept, as the final sort ranks them).
+     */
+    boolean offer(double score) {
+        if (Double.isNaN(score)) return true;
+        if (!canReach(score)) return false;
+        if (this.best != null) {
+            this.best.add(this.distance ? -score : score);
+            if (this.best.size() > this.maxResults) this.best.poll();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,102 @@
+package com.info2.miniprojet.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Numbers processed tokens, so a Name can carry its tokens as a sorted int[] (see Name.tokenIds) and token-set
+ * comparators and finders merge arrays instead of building HashSets of Strings.
+ * One dictionary per loaded list: MiniProject makes one for each list it loads and passes it to the names, so it
+ * only holds that list's tokens and goes away with it. Names are only comparable by id when they share a
+ * dictionary (see Name.sharesDictionaryWith); query names get temporary ids (encodeQuery) instead of growing it.
+ * Ids never change once given; id 0 stands for a null token.
+ */
+public final class TokenDictionary {
+
+    public static final int NULL_TOKEN = 0;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(NULL_TOKEN + 1);
+    // Temporary ids are negative, distinct across queries: they match no dictionary token and no other query token
+    private final AtomicInteger lastTemporaryId = new AtomicInteger(NULL_TOKEN);
+
+    public TokenDictionary() {
+        // Empty, ids are given as tokens come
+    }
+
+    /**
+     * @return The dictionary of the first name of the list that has one, null if none does.
+     */
+    public static TokenDictionary of(List<Name> names) {
+        if (names == null) return null;
+        for (Name name : names) {
+            if (name != null && name.dictionary() != null) return name.dictionary();
+        }
+        return null;
+    }
+
+    /**
+     * @return The id of the token, given now if it is new.
+     */
+    public int idOf(String token) {
+        if (token == null) return NULL_TOKEN;
+        Integer id = this.ids.get(token);
+        return id != null ? id : this.ids.computeIfAbsent(token, t -> this.nextId.getAndIncrement());
+    }
+
+    /**
+     * @return The ids of the tokens, ascending, duplicates kept (empty for a null list).
+     */
+    public int[] encode(List<String> tokens) {
+        if (tokens == null || tokens.isEmpty()) return new int[0];
+        int[] tokenIds = new int[tokens.size()];
+        for (int i = 0; i < tokenIds.length; i++) {
+            tokenIds[i] = idOf(tokens.get(i));
+        }
+        Arrays.sort(tokenIds);
+        return tokenIds;
+    }
+
+    /**
+     * Like encode, but tokens not in the dictionary get a temporary negative id (the same one for a token repeated
+     * in the list) and are not added: for names that are only compared with the list, never indexed.
+     */
+    public int[] encodeQuery(List<String> tokens) {
+        if (tokens == null || tokens.isEmpty()) return new int[0];
+        int[] tokenIds = new int[tokens.size()];
+        Map<String, Integer> temporaryIds = null;
+        for (int i = 0; i < tokenIds.length; i++) {
+            String token = tokens.get(i);
+            Integer id = token == null ? Integer.valueOf(NULL_TOKEN) : this.ids.get(token);
+            if (id == null) {
+                if (temporaryIds == null) temporaryIds = new HashMap<>();
+                id = temporaryIds.computeIfAbsent(token, t -> nextTemporaryId());
+            }
+            tokenIds[i] = id;
+        }
+        Arrays.sort(tokenIds);
+        return tokenIds;
+    }
+
+    private int nextTemporaryId() {
+        return this.lastTemporaryId.updateAndGet(id -> id == Integer.MIN_VALUE ? NULL_TOKEN - 1 : id - 1);
+    }
+
+    /**
+     * @return Upper bound (exclusive) of the ids given so far, to size arrays indexed by token id.
+     */
+    public int idLimit() {
+        return this.nextId.get();
+    }
+
+    /**
+     * @return Number of tokens held.
+     */
+    public int size() {
+        return this.ids.size();
+    }
+}
@@ -17,12 +17,17 @@ import com.info2.miniprojet.comparison.impl.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class StrategyFactory {
 
     private static final String PIPELINE_PREFIX = "PIPELINE:";
     private static final String PIPELINE_SEPARATOR = ",";
+    private static final String UNION_PREFIX = "UNION:";
+    private static final String PARAMETERS_SEPARATOR = ":"; // "FINDER:KEY=VALUE;KEY=VALUE"
+    private static final String PARAMETER_SEPARATOR = ";"; // Not "," so parameterised finders can sit in a UNION
 
     // --- Lists of Available Choices for CLI ---
     public static final List<String> PREPROCESSOR_CHOICES = Collections.unmodifiableList(Arrays.asList(
@@ -39,15 +44,25 @@ public class StrategyFactory {
 
     public static final List<String> CANDIDATE_FINDER_CHOICES = Collections.unmodifiableList(Arrays.asList(
             "CARTESIAN_FIND_ALL", // Default/Lazy
-            "DICTIONARY_LAST_TOKEN",
-            "TRIE_FINDER",
-            "REDBLACKTREE_FINDER"
+            "DICTIONARY_LAST_TOKEN", // "DICTIONARY_LAST_TOKEN:MAX_BLOCK=500" splits bigger blocks when deduplicating,
+                                     // "...:BLOOM_FPP=0.01" adds a Bloom filter for comparisons where most lookups miss
+            "TRIE_FINDER", // Swapped first/last names block together with "TRIE_FINDER:KEY_ORDER=SORTED" (or ROTATIONS);
+                           // "TRIE_FINDER:COMPARE=JOIN;MAX_EDITS=1" compares lists with a (fuzzy) trie-join
+            "REDBLACKTREE_FINDER", // Same KEY_ORDER option (ORIGINAL, SORTED), MAX_BLOCK and BLOOM_FPP
+            "CANOPY_TFIDF", // Tunable: "CANOPY_TFIDF:LOOSE=0.5;TIGHT=0.8"
+            "SYMSPELL", // Names within a few typos: "SYMSPELL:MAX_EDITS=1" (0 to 2)
+            "HNSW_TRIGRAM", // Approximate nearest neighbours: "HNSW_TRIGRAM:M=16;EF_CONSTRUCTION=100;EF_SEARCH=64;TOP_M=10"
+            "WAND_TOKEN", // Top-k names by BM25 token score, k = max results
+            "LENGTH_BUCKET", // Names within k characters of length: the distance threshold in threshold mode, or "LENGTH_BUCKET:MAX_EDITS=2"
+            "PPJOIN_JACCARD", // Exact Jaccard similarity join: the threshold in threshold mode, or "PPJOIN_JACCARD:THRESHOLD=0.8"
+            "UNION", // Composite, built as "UNION:FINDER1,FINDER2,..."
+            "AUTO" // Resolved by the Engine: cheapest finder meeting the recall floor (see FinderPlanner)
     ));
 
     public static final List<String> NAME_COMPARATOR_CHOICES = Collections.unmodifiableList(Arrays.asList(
             "PASS_THROUGH_NAME", // Default, uses ExactMatchStringComparator internally
-            "POSITIONAL_WEIGHTED",
-            "BAG_OF_WORDS",
+            "POSITIONAL_WEIGHTED", // Token-level: "POSITIONAL_WEIGHTED:TOKEN_CACHE=100000" caches token pair scores
+            "BAG_OF_WORDS", // Same TOKEN_CACHE option
             "JACCARD_TOKEN_SET"
     ));
 
@@ -56,7 +71,7 @@ public class StrategyFactory {
             "EXACT_STRING",
             "LEVENSHTEIN",
             "JARO_WINKLER",
-            "KEYBOARD_DISTANCE"
+            "KEYBOARD_DISTANCE" // Other layouts: "KEYBOARD_DISTANCE:LAYOUT=AZERTY" (QWERTY, AZERTY, QWERTZ)
     ));
 
     // --- Getter Methods for Choices (used by CLI) ---
@@ -126,19 +141,208 @@ public class StrategyFactory {
         }
         String upperChoice = choice.toUpperCase().trim();
 
-        switch (upperChoice) {
+        if (upperChoice.startsWith(UNION_PREFIX)) {
+            List<CandidateFinder> members = new ArrayList<>();
+            for (String memberName : upperChoice.substring(UNION_PREFIX.length()).split(PIPELINE_SEPARATOR)) {
+                String trimmedMemberName = memberName.trim();
+                if (trimmedMemberName.isEmpty()) continue;
+                CandidateFinder member = createBaseCandidateFinder(trimmedMemberName);
+                if (member != null) {
+                    members.add(member);
+                } else {
+                    System.err.println("Warning: Unknown finder '" + memberName + "' in union definition '" + upperChoice + "' skipped.");
+                }
+            }
+            if (members.isEmpty()) {
+                System.err.println("Warning: Union '" + upperChoice + "' is empty or had all unknown finders. Using Cartesian.");
+                return new CartesianCandidateFinder();
+            }
+            return members.size() == 1 ? members.get(0) : new UnionCandidateFinder(members);
+        }
+
+        CandidateFinder finder = createBaseCandidateFinder(upperChoice);
+        if (finder == null) {
+            System.err.println("Warning: Unknown CandidateFinder choice '" + upperChoice + "', using Cartesian.");
+            return new CartesianCandidateFinder();
+        }
+        return finder;
+    }
+
+    // Single (non-composite) finders, null if the choice is unknown
+    private static CandidateFinder createBaseCandidateFinder(String upperChoice) {
+        String finderName = upperChoice;
+        Map<String, String> parameters = Collections.emptyMap();
+        int parametersStart = upperChoice.indexOf(PARAMETERS_SEPARATOR);
+        if (parametersStart >= 0) {
+            finderName = upperChoice.substring(0, parametersStart).trim();
+            parameters = parseParameters(upperChoice.substring(parametersStart + 1));
+        }
+        switch (finderName) {
             case "CARTESIAN_FIND_ALL":
                 return new CartesianCandidateFinder();
             case "DICTIONARY_LAST_TOKEN":
-                return new DictionaryCandidateFinder();
+                return new DictionaryCandidateFinder(maxBlockParameter(parameters), bloomParameter(parameters));
             case "TRIE_FINDER":
-                 return new TrieCandidateFinder();
+                KeyOrder trieKeyOrder = keyOrderParameter(parameters);
+                String compareMode = parameters.getOrDefault("COMPARE", "PROBE");
+                if (!compareMode.equals("PROBE") && !compareMode.equals("JOIN")) {
+                    System.err.println("Warning: Unknown TRIE_FINDER COMPARE mode '" + compareMode + "' (expected PROBE or JOIN), using PROBE.");
+                    compareMode = "PROBE";
+                }
+                int joinMaxEdits = intParameter(parameters, "MAX_EDITS", 0);
+                if (joinMaxEdits < 0 || joinMaxEdits > TrieCandidateFinder.MAX_SUPPORTED_JOIN_EDITS) {
+                    System.err.println("Warning: TRIE_FINDER MAX_EDITS=" + joinMaxEdits + " is out of range (0-" + TrieCandidateFinder.MAX_SUPPORTED_JOIN_EDITS + "), using 0.");
+                    joinMaxEdits = 0;
+                }
+                if (joinMaxEdits > 0 && compareMode.equals("PROBE")) {
+                    System.err.println("Warning: TRIE_FINDER MAX_EDITS needs COMPARE=JOIN, using the trie-join.");
+                    compareMode = "JOIN";
+                }
+                return new TrieCandidateFinder(trieKeyOrder, compareMode.equals("JOIN"), joinMaxEdits);
             case "REDBLACKTREE_FINDER":
-                return new RedBlackTreeCandidateFinder();
+                return new RedBlackTreeCandidateFinder(keyOrderParameter(parameters), maxBlockParameter(parameters), bloomParameter(parameters));
+            case "CANOPY_TFIDF":
+                double loose = doubleParameter(parameters, "LOOSE", CanopyCandidateFinder.DEFAULT_LOOSE_THRESHOLD);
+                double tight = doubleParameter(parameters, "TIGHT", CanopyCandidateFinder.DEFAULT_TIGHT_THRESHOLD);
+                if (loose <= 0 || loose > tight || tight > 1) {
+                    System.err.println("Warning: Invalid canopy thresholds (LOOSE=" + loose + ", TIGHT=" + tight + "), using defaults.");
+                    return new CanopyCandidateFinder();
+                }
+                return new CanopyCandidateFinder(loose, tight);
+            case "SYMSPELL":
+                int maxEdits = intParameter(parameters, "MAX_EDITS", SymSpellCandidateFinder.DEFAULT_MAX_EDITS);
+                if (maxEdits < 0 || maxEdits > SymSpellCandidateFinder.MAX_SUPPORTED_EDITS) {
+                    System.err.println("Warning: SYMSPELL MAX_EDITS=" + maxEdits + " is out of range (0-" + SymSpellCandidateFinder.MAX_SUPPORTED_EDITS + "), using "
+                            + SymSpellCandidateFinder.DEFAULT_MAX_EDITS + ".");
+                    return new SymSpellCandidateFinder();
+                }
+                return new SymSpellCandidateFinder(maxEdits);
+            case "HNSW_TRIGRAM":
+                int links = intParameter(parameters, "M", HnswCandidateFinder.DEFAULT_M);
+                int efConstruction = intParameter(parameters, "EF_CONSTRUCTION", HnswCandidateFinder.DEFAULT_EF_CONSTRUCTION);
+                int efSearch = intParameter(parameters, "EF_SEARCH", HnswCandidateFinder.DEFAULT_EF_SEARCH);
+                int topM = intParameter(parameters, "TOP_M", HnswCandidateFinder.DEFAULT_TOP_M);
+                if (links < 2 || efConstruction < 1 || efSearch < 1 || topM < 1) {
+                    System.err.println("Warning: Invalid HNSW parameters (M=" + links + ", EF_CONSTRUCTION=" + efConstruction
+                            + ", EF_SEARCH=" + efSearch + ", TOP_M=" + topM + "), using defaults.");
+                    return new HnswCandidateFinder();
+                }
+                return new HnswCandidateFinder(links, efConstruction, efSearch, topM);
+            case "WAND_TOKEN":
+                return new WandCandidateFinder();
+            case "LENGTH_BUCKET":
+                if (!parameters.containsKey("MAX_EDITS")) {
+                    return new LengthBucketCandidateFinder();
+                }
+                int maxLengthDifference = intParameter(parameters, "MAX_EDITS", LengthBucketCandidateFinder.DEFAULT_MAX_LENGTH_DIFFERENCE);
+                if (maxLengthDifference < 0) {
+                    System.err.println("Warning: LENGTH_BUCKET MAX_EDITS=" + maxLengthDifference + " is negative, using the configured threshold.");
+                    return new LengthBucketCandidateFinder();
+                }
+                return new LengthBucketCandidateFinder(maxLengthDifference);
+            case "PPJOIN_JACCARD":
+                if (!parameters.containsKey("THRESHOLD")) {
+                    return new PPJoinCandidateFinder();
+                }
+                double jaccardThreshold = doubleParameter(parameters, "THRESHOLD", PPJoinCandidateFinder.DEFAULT_THRESHOLD);
+                if (!(jaccardThreshold > 0 && jaccardThreshold <= 1)) {
+                    System.err.println("Warning: PPJOIN_JACCARD THRESHOLD=" + jaccardThreshold + " is out of range (0-1], using the configured threshold.");
+                    return new PPJoinCandidateFinder();
+                }
+                return new PPJoinCandidateFinder(jaccardThreshold);
+            case "AUTO":
+                System.err.println("Warning: AUTO is resolved by the Engine from the data, it can't be built on its own. Using Cartesian.");
+                return new CartesianCandidateFinder();
             // Add other CandidateFinder implementations here
             default:
-                System.err.println("Warning: Unknown CandidateFinder choice '" + upperChoice + "', using Cartesian.");
-                return new CartesianCandidateFinder();
+                return null;
+        }
+    }
+
+    // "KEY=VALUE;KEY=VALUE" -> {KEY: VALUE, ...}, malformed entries are skipped
+    private static Map<String, String> parseParameters(String parameterString) {
+        Map<String, String> parameters = new HashMap<>();
+        for (String parameter : parameterString.split(PARAMETER_SEPARATOR)) {
+            int equalsIndex = parameter.indexOf('=');
+            if (equalsIndex <= 0) {
+                if (!parameter.isBlank()) System.err.println("Warning: Malformed parameter '" + parameter + "' skipped (expected KEY=VALUE).");
+                continue;
+            }
+            parameters.put(parameter.substring(0, equalsIndex).trim(), parameter.substring(equalsIndex + 1).trim());
+        }
+        return parameters;
+    }
+
+    private static double doubleParameter(Map<String, String> parameters, String key, double defaultValue) {
+        String value = parameters.get(key);
+        if (value == null) return defaultValue;
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Warning: Parameter " + key + "='" + value + "' is not a number, using " + defaultValue + ".");
+            return defaultValue;
+        }
+    }
+
+    private static int maxBlockParameter(Map<String, String> parameters) {
+        int maxBlock = intParameter(parameters, "MAX_BLOCK", 0);
+        if (maxBlock < 0) {
+            System.err.println("Warning: MAX_BLOCK=" + maxBlock + " is negative, blocks won't be limited.");
+            return 0;
+        }
+        return maxBlock;
+    }
+
+    // Target false-positive rate of the optional key Bloom filter, 0 (the default) for none
+    private static double bloomParameter(Map<String, String> parameters) {
+        double falsePositiveRate = doubleParameter(parameters, "BLOOM_FPP", 0);
+        if (falsePositiveRate != 0 && !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            System.err.println("Warning: BLOOM_FPP=" + falsePositiveRate + " is out of range (0-1), no Bloom filter.");
+            return 0;
+        }
+        return falsePositiveRate;
+    }
+
+    private static KeyOrder keyOrderParameter(Map<String, String> parameters) {
+        String value = parameters.get("KEY_ORDER");
+        if (value == null) return KeyOrder.ORIGINAL;
+        try {
+            return KeyOrder.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Warning: Unknown KEY_ORDER '" + value + "' (expected one of " + Arrays.toString(KeyOrder.values()) + "), using ORIGINAL.");
+            return KeyOrder.ORIGINAL;
+        }
+    }
+
+    // TOKEN_CACHE=N memoizes up to N token pair scores. Off by default: a probe costs about as much as a native
+    // Levenshtein or Jaro-Winkler on short tokens, it pays off when the same token pairs keep coming back
+    private static StringComparator withTokenCache(StringComparator stringComparator, Map<String, String> parameters) {
+        int maxEntries = intParameter(parameters, "TOKEN_CACHE", 0);
+        if (maxEntries <= 0 || stringComparator instanceof ExactMatchComparator) {
+            return stringComparator;
+        }
+        return new CachingStringComparator(stringComparator, maxEntries);
+    }
+
+    private static KeyboardLayout keyboardLayoutParameter(Map<String, String> parameters) {
+        String value = parameters.get("LAYOUT");
+        if (value == null) return KeyboardLayout.QWERTY;
+        try {
+            return KeyboardLayout.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Warning: Unknown keyboard LAYOUT '" + value + "' (expected one of " + Arrays.toString(KeyboardLayout.values()) + "), using QWERTY.");
+            return KeyboardLayout.QWERTY;
+        }
+    }
+
+    private static int intParameter(Map<String, String> parameters, String key, int defaultValue) {
+        String value = parameters.get(key);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Warning: Parameter " + key + "='" + value + "' is not an integer, using " + defaultValue + ".");
+            return defaultValue;
         }
     }
 
@@ -147,6 +351,12 @@ public class StrategyFactory {
             choice = "EXACT_STRING"; // Default
         }
         String upperChoice = choice.toUpperCase().trim();
+        Map<String, String> parameters = Collections.emptyMap();
+        int parametersStart = upperChoice.indexOf(PARAMETERS_SEPARATOR);
+        if (parametersStart >= 0) {
+            parameters = parseParameters(upperChoice.substring(parametersStart + 1));
+            upperChoice = upperChoice.substring(0, parametersStart).trim();
+        }
 
         switch (upperChoice) {
             case "EXACT_STRING":
@@ -156,7 +366,7 @@ public class StrategyFactory {
             case "JARO_WINKLER":
                 return new JarowinklerComparator();
             case "KEYBOARD_DISTANCE":
-                return new KeyboardDistanceComparator();
+                return new KeyboardDistanceComparator(keyboardLayoutParameter(parameters));
             // Add other StringComparator implementations here
             default:
                 System.err.println("Warning: Unknown StringComparator choice '" + upperChoice + "', using ExactMatch.");
@@ -172,6 +382,12 @@ public class StrategyFactory {
             stringComparatorChoiceForInjection = "EXACT_STRING"; // Default if needed
         }
         String upperChoice = choice.toUpperCase().trim();
+        Map<String, String> parameters = Collections.emptyMap();
+        int parametersStart = upperChoice.indexOf(PARAMETERS_SEPARATOR);
+        if (parametersStart >= 0) {
+            parameters = parseParameters(upperChoice.substring(parametersStart + 1));
+            upperChoice = upperChoice.substring(0, parametersStart).trim();
+        }
         StringComparator injectedStringComp;
         switch (upperChoice) {
             case "PASS_THROUGH_NAME":
@@ -179,20 +395,26 @@ public class StrategyFactory {
                 return new PassThroughNameComparator(createStringComparator(stringComparatorChoiceForInjection));
 
             case "POSITIONAL_WEIGHTED":
-                 injectedStringComp = createStringComparator(stringComparatorChoiceForInjection);
+                 injectedStringComp = withTokenCache(createStringComparator(stringComparatorChoiceForInjection), parameters);
                  double fnWeight = 0.4; double lnWeight = 0.5; double mnWeight = 0.1;
                  return new PositionalWeightedNameComparator(injectedStringComp, fnWeight, lnWeight, mnWeight);
             case "BAG_OF_WORDS":
-                 injectedStringComp = createStringComparator(stringComparatorChoiceForInjection);
-                 switch(stringComparatorChoiceForInjection){
+                 injectedStringComp = withTokenCache(createStringComparator(stringComparatorChoiceForInjection), parameters);
+                 String stringComparatorName = stringComparatorChoiceForInjection.toUpperCase().trim();
+                 int stringParametersStart = stringComparatorName.indexOf(PARAMETERS_SEPARATOR);
+                 if (stringParametersStart >= 0) { // The threshold only depends on the base name
+                     stringComparatorName = stringComparatorName.substring(0, stringParametersStart).trim();
+                 }
+                 switch(stringComparatorName){
                      case "EXACT_STRING":
                          return new BagOfWordsNameComparator(injectedStringComp,1);
                      case "LEVENSHTEIN": //tbh 0.8 and 0.85 may as well be magic numbers here,I didn't test many different values
+                     case "KEYBOARD_DISTANCE": // Also an edit distance, normalized to a similarity the same way
                          return new BagOfWordsNameComparator(injectedStringComp,0.8);
                      case "JARO_WINKLER":
                          return new BagOfWordsNameComparator(injectedStringComp,0.85);
                      default:
-                         System.err.println("Warning: Unknown StringComparator choice '" + stringComparatorChoiceForInjection + "', using ExactMatch.");
+                         System.err.println("Warning: Unknown StringComparator choice '" + stringComparatorName + "', using ExactMatch.");
                          return new BagOfWordsNameComparator(new ExactMatchComparator(),1);
                  }
 
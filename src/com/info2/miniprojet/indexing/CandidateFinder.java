@@ -3,7 +3,10 @@ package com.info2.miniprojet.indexing; // Or your chosen package for indexing in
 import com.info2.miniprojet.core.Couple;
 import com.info2.miniprojet.core.Name;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public interface CandidateFinder {
 
@@ -61,6 +64,35 @@ public interface CandidateFinder {
      */
     List<Couple<Name>> findCandidatesForDeduplication(List<Name> originalNamesList);
 
+    /**
+     * Adds names to the current index without rebuilding it (O(number of added names)).
+     * They are appended after the already indexed names and are returned as candidates from now on,
+     * still through the same list reference the index was built with.
+     * If no index has been built yet, this builds one over namesToAdd.
+     *
+     * @param namesToAdd The (already preprocessed) names to add.
+     */
+    void addNames(List<Name> namesToAdd);
+
+    /**
+     * Removes every indexed name whose id is in idsToRemove without rebuilding the index.
+     * Removed entries are tombstoned and skipped when generating candidates; the index compacts itself
+     * (rebuilds over the live names) once tombstones make up a large share of it.
+     *
+     * @param idsToRemove Ids of the names to remove. Unknown ids are ignored.
+     */
+    void removeNames(Collection<String> idsToRemove);
+
+    /**
+     * Reports the blocks of the current index: every key that groups names together and how many (live) names it holds.
+     * Used for the blocking quality report. Finders that don't partition names into blocks return an empty map.
+     *
+     * @return Map of block key to block size (never null).
+     */
+    default Map<String, Integer> getBlockSizes() {
+        return Collections.emptyMap();
+    }
+
     /**
      * Gets a user-friendly name or identifier for this candidate finding strategy.
      *
@@ -0,0 +1,34 @@
+package com.info2.miniprojet.indexing;
+
+import com.info2.miniprojet.core.Name;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Implemented by CandidateFinders whose built index can be saved to disk and reopened
+ * without going through buildIndex again (see IndexSnapshotStore).
+ * The names themselves are stored by the snapshot, a finder only writes its own structure
+ * (keys and positions into the indexed list).
+ */
+public interface PersistableIndex {
+
+    /**
+     * Writes the current index. Requires buildIndex to have been called first.
+     *
+     * @param out The stream to write to.
+     * @throws IOException if writing fails.
+     */
+    void writeIndex(DataOutput out) throws IOException;
+
+    /**
+     * Restores an index previously written by writeIndex. Afterwards the finder behaves as if
+     * buildIndex(indexedNames) had just been called (so the same list instance is reused by later calls).
+     *
+     * @param in Buffer positioned at the start of the data written by writeIndex.
+     * @param indexedNames The list the index was built from, in the same order.
+     */
+    void readIndex(ByteBuffer in, List<Name> indexedNames);
+}
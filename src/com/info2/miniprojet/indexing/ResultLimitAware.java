@@ -0,0 +1,14 @@
+package com.info2.miniprojet.indexing;
+
+/**
+ * Implemented by candidate finders that rank their candidates and only return the best ones (top-k retrieval).
+ * The Engine passes them the number of results the user asked for, so a query only pays for k candidates
+ * instead of for the size of the list.
+ */
+public interface ResultLimitAware {
+
+    /**
+     * @param limit Maximum number of candidates to return per query name; 0 or less means no limit.
+     */
+    void setResultLimit(int limit);
+}
@@ -0,0 +1,18 @@
+package com.info2.miniprojet.indexing;
+
+import com.info2.miniprojet.comparison.NameComparator;
+
+/**
+ * Implemented by candidate finders that only return the pairs able to pass a score threshold (similarity joins,
+ * length buckets for edit distances). In threshold mode the Engine passes them the threshold the user asked for,
+ * together with the comparator it applies to: a finder only uses it if it works on that comparator's measure,
+ * otherwise it keeps its own.
+ */
+public interface SimilarityThresholdAware {
+
+    /**
+     * @param comparator The NameComparator whose scores are filtered with the threshold.
+     * @param threshold  Score a pair must reach to be kept (a minimum for similarities, a maximum for distances).
+     */
+    void setSimilarityThreshold(NameComparator comparator, double threshold);
+}
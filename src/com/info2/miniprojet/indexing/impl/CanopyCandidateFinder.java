@@ -0,0 +1,364 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.indexing.impl.TfIdfVectorSpace.SparseVector;
+import com.info2.miniprojet.util.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canopy clustering (McCallum et al.) on a cheap measure: cosine between token TF-IDF vectors.
+ * Names are taken in list order; a name still in the pool becomes a canopy center, every name with
+ * cosine >= loose joins its canopy, and those with cosine >= tight leave the pool (can't be centers anymore).
+ * Canopies overlap, and only pairs sharing a canopy are returned, so recall sits between
+ * DICTIONARY_LAST_TOKEN (one exact key) and CARTESIAN_FIND_ALL (everything).
+ * Cosines are computed through an inverted index (token -> names), so only names sharing a token are ever touched.
+ * IDF is computed once by buildIndex; names added incrementally reuse it (unseen tokens get the rarest IDF).
+ */
+public class CanopyCandidateFinder implements CandidateFinder {
+
+    public static final double DEFAULT_LOOSE_THRESHOLD = 0.5;
+    public static final double DEFAULT_TIGHT_THRESHOLD = 0.8;
+
+    private final double looseThreshold;
+    private final double tightThreshold;
+
+    private List<Name> indexedListReference;
+    private LiveNameTable nameTable;
+    private TfIdfVectorSpace vectorSpace;
+    private List<Posting> postings; // By term id
+    private List<SparseVector> vectors; // By position, null for names without tokens
+    private List<int[]> canopies; // Member positions, the center first
+    private List<Integer> canopyByCenter; // Position -> id of the canopy it is the center of, null if not a center
+    private BitSet centerPool; // Positions that can still become centers
+
+    // Scratch space for one cosine sweep
+    private float[] scores = new float[0];
+    private int[] touched = new int[0];
+
+    public CanopyCandidateFinder() {
+        this(DEFAULT_LOOSE_THRESHOLD, DEFAULT_TIGHT_THRESHOLD);
+    }
+
+    public CanopyCandidateFinder(double looseThreshold, double tightThreshold) {
+        if (looseThreshold <= 0 || looseThreshold > tightThreshold || tightThreshold > 1) {
+            throw new IllegalArgumentException("Canopy thresholds must satisfy 0 < loose <= tight <= 1 (got loose=" + looseThreshold + ", tight=" + tightThreshold + ").");
+        }
+        this.looseThreshold = looseThreshold;
+        this.tightThreshold = tightThreshold;
+        reset();
+    }
+
+    // Names containing a term, with the term's weight in each of their (normalised) vectors
+    private static final class Posting {
+        int[] positions = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        void add(int position, float weight) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            positions[size] = position;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+    @Override
+    public void buildIndex(List<Name> namesToIndex) {
+        if (namesToIndex == null || namesToIndex.isEmpty()) {
+            System.out.println("DEBUG: CanopyCandidateFinder.buildIndex called with empty or null list. Resetting.");
+            reset();
+            return;
+        }
+        if (this.indexedListReference != null && this.indexedListReference == namesToIndex) {
+            System.out.println("DEBUG: CanopyCandidateFinder.buildIndex called with the same list instance. Index reused.");
+            return;
+        }
+        reset();
+        this.indexedListReference = namesToIndex;
+        this.nameTable = new LiveNameTable(namesToIndex);
+        indexNames(namesToIndex);
+        System.out.println("DEBUG: CanopyCandidateFinder.buildIndex complete. " + this.canopies.size() + " canopies over "
+                + namesToIndex.size() + " names (" + this.vectorSpace.termCount() + " distinct tokens).");
+    }
+
+    private void indexNames(List<Name> names) {
+        this.vectorSpace = new TfIdfVectorSpace();
+        this.postings = new ArrayList<>();
+        this.vectors = new ArrayList<>(names.size());
+        this.canopies = new ArrayList<>();
+        this.canopyByCenter = new ArrayList<>(names.size());
+        this.centerPool = new BitSet();
+
+        List<List<String>> tokenLists = new ArrayList<>(names.size());
+        for (Name name : names) tokenLists.add(tokensOf(name));
+        this.vectorSpace.fit(tokenLists);
+
+        for (int position = 0; position < names.size(); position++) {
+            SparseVector vector = this.vectorSpace.vectorize(tokenLists.get(position), true);
+            this.vectors.add(vector);
+            this.canopyByCenter.add(null);
+            if (vector != null) {
+                addToPostings(position, vector);
+                this.centerPool.set(position);
+            }
+        }
+
+        for (int position = this.centerPool.nextSetBit(0); position >= 0; position = this.centerPool.nextSetBit(position + 1)) {
+            formCanopy(position);
+        }
+    }
+
+    private void formCanopy(int center) {
+        int touchedCount = accumulateCosines(this.vectors.get(center));
+        List<Integer> members = new ArrayList<>();
+        members.add(center);
+        for (int i = 0; i < touchedCount; i++) {
+            int position = this.touched[i];
+            float cosine = this.scores[position];
+            this.scores[position] = 0f;
+            if (position == center || cosine < this.looseThreshold) continue;
+            members.add(position);
+            if (cosine >= this.tightThreshold) {
+                this.centerPool.clear(position);
+            }
+        }
+        this.centerPool.clear(center);
+        this.canopyByCenter.set(center, this.canopies.size());
+        this.canopies.add(members.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Sparse dot products of the given vector with every indexed vector sharing a term with it.
+     * Results are left in scores[position] for the first (returned) count positions of touched; the caller resets them.
+     */
+    private int accumulateCosines(SparseVector vector) {
+        int size = this.vectors.size();
+        if (this.scores.length < size) {
+            this.scores = new float[Math.max(size, this.scores.length * 2)];
+            this.touched = new int[this.scores.length];
+        }
+        int touchedCount = 0;
+        for (int t = 0; t < vector.terms().length; t++) {
+            int term = vector.terms()[t];
+            if (term >= this.postings.size()) continue; // Query term unknown to the index
+            float weight = vector.weights()[t];
+            Posting posting = this.postings.get(term);
+            for (int p = 0; p < posting.size; p++) {
+                int position = posting.positions[p];
+                if (this.scores[position] == 0f) {
+                    this.touched[touchedCount++] = position;
+                }
+                this.scores[position] += weight * posting.weights[p];
+            }
+        }
+        return touchedCount;
+    }
+
+    private List<String> tokensOf(Name name) {
+        if (name == null || name.processedTokens() == null) return Collections.emptyList();
+        List<String> tokens = new ArrayList<>(name.processedTokens().size());
+        for (String token : name.processedTokens()) {
+            if (token != null && !token.isBlank()) {
+                tokens.add(token.trim().toLowerCase());
+            }
+        }
+        return tokens;
+    }
+
+    private void addToPostings(int position, SparseVector vector) {
+        while (this.postings.size() < this.vectorSpace.termCount()) {
+            this.postings.add(new Posting()); // Terms registered by this vector
+        }
+        for (int t = 0; t < vector.terms().length; t++) {
+            this.postings.get(vector.terms()[t]).add(position, vector.weights()[t]);
+        }
+    }
+
+    /**
+     * Live positions of every canopy whose center is within the loose threshold of the vector,
+     * plus the names themselves within the loose threshold (the canopy the query would form as a center).
+     */
+    private BitSet candidatePositionsFor(SparseVector vector) {
+        BitSet candidates = new BitSet();
+        if (vector == null) return candidates;
+        int touchedCount = accumulateCosines(vector);
+        for (int i = 0; i < touchedCount; i++) {
+            int position = this.touched[i];
+            float cosine = this.scores[position];
+            this.scores[position] = 0f;
+            if (cosine < this.looseThreshold) continue;
+            candidates.set(position);
+            Integer canopyId = this.canopyByCenter.get(position);
+            if (canopyId != null) {
+                for (int member : this.canopies.get(canopyId)) candidates.set(member);
+            }
+        }
+        return candidates;
+    }
+
+    @Override
+    public void addNames(List<Name> namesToAdd) {
+        if (namesToAdd == null || namesToAdd.isEmpty()) return;
+        if (this.nameTable == null) {
+            buildIndex(new ArrayList<>(namesToAdd));
+            return;
+        }
+        for (Name name : namesToAdd) {
+            int position = this.nameTable.append(name);
+            SparseVector vector = this.vectorSpace.vectorize(tokensOf(name), true);
+            this.vectors.add(vector);
+            this.canopyByCenter.add(null);
+            if (vector == null) continue;
+            addToPostings(position, vector);
+
+            // Join the canopies of nearby centers; start a new one unless one of them is tight
+            boolean covered = false;
+            int touchedCount = accumulateCosines(vector);
+            for (int i = 0; i < touchedCount; i++) {
+                int other = this.touched[i];
+                float cosine = this.scores[other];
+                this.scores[other] = 0f;
+                Integer canopyId = this.canopyByCenter.get(other);
+                if (other == position || canopyId == null || cosine < this.looseThreshold) continue;
+                int[] members = this.canopies.get(canopyId);
+                int[] grown = Arrays.copyOf(members, members.length + 1);
+                grown[members.length] = position;
+                this.canopies.set(canopyId, grown);
+                if (cosine >= this.tightThreshold) covered = true;
+            }
+            if (!covered) {
+                formCanopy(position);
+            }
+        }
+        System.out.println("DEBUG: CanopyCandidateFinder added " + namesToAdd.size() + " names incrementally (" + this.canopies.size() + " canopies).");
+    }
+
+    @Override
+    public void removeNames(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty() || this.nameTable == null) return;
+        int removedCount = this.nameTable.tombstone(idsToRemove).size(); // Stay in the canopies, skipped when pairing
+        System.out.println("DEBUG: CanopyCandidateFinder tombstoned " + removedCount + " names.");
+        if (this.nameTable.needsCompaction()) {
+            this.nameTable = this.nameTable.compact();
+            indexNames(this.nameTable.asList());
+            System.out.println("DEBUG: CanopyCandidateFinder compacted to " + this.nameTable.size() + " names.");
+        }
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForSearch(Name queryName, List<Name> originalNamesList) {
+        if (queryName == null || this.nameTable == null) {
+            if (this.nameTable == null) System.err.println("Search Error (Canopy): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (originalNamesList != this.indexedListReference) {
+            System.err.println("Warning (Search - Canopy): originalNamesList differs from indexed list. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        BitSet candidates = candidatePositionsFor(this.vectorSpace.vectorize(tokensOf(queryName), false));
+        for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1)) {
+            if (this.nameTable.isLive(position)) {
+                candidatePairs.add(new Couple<>(queryName, this.nameTable.get(position)));
+            }
+        }
+        System.out.println("DEBUG: Canopy Search: Found " + candidatePairs.size() + " candidates.");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForComparison(List<Name> listToIterate, List<Name> indexedOriginalList) {
+        if (listToIterate == null || this.nameTable == null) {
+            if (this.nameTable == null) System.err.println("Compare Error (Canopy): Index not built (for indexedOriginalList). Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (indexedOriginalList != this.indexedListReference) {
+            System.err.println("Warning (Compare - Canopy): indexedOriginalList differs from the list this finder indexed. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        for (Name nameFromIteratedList : listToIterate) {
+            BitSet candidates = candidatePositionsFor(this.vectorSpace.vectorize(tokensOf(nameFromIteratedList), false));
+            for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1)) {
+                if (this.nameTable.isLive(position)) {
+                    candidatePairs.add(new Couple<>(nameFromIteratedList, this.nameTable.get(position)));
+                }
+            }
+        }
+        System.out.println("DEBUG: Canopy Compare: Generated " + candidatePairs.size() + " candidate pairs.");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForDeduplication(List<Name> originalNamesList) {
+        if (this.nameTable == null) {
+            System.err.println("Dedupe Error (Canopy): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (originalNamesList != this.indexedListReference) {
+            System.err.println("Warning (Dedupe - Canopy): originalNamesList differs from indexed list. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        LongHashSet seenPairs = new LongHashSet(this.nameTable.size());
+        for (int[] canopy : this.canopies) {
+            for (int i = 0; i < canopy.length; i++) {
+                if (!this.nameTable.isLive(canopy[i])) continue;
+                for (int j = i + 1; j < canopy.length; j++) {
+                    if (!this.nameTable.isLive(canopy[j])) continue;
+                    int low = Math.min(canopy[i], canopy[j]);
+                    int high = Math.max(canopy[i], canopy[j]);
+                    if (seenPairs.add(((long) low << 32) | high)) { // Canopies overlap, a pair is only returned once
+                        candidatePairs.add(new Couple<>(this.nameTable.get(low), this.nameTable.get(high)));
+                    }
+                }
+            }
+        }
+        System.out.println("DEBUG: Canopy Dedupe: Generated " + candidatePairs.size() + " candidate pairs.");
+        return candidatePairs;
+    }
+
+    @Override
+    public Map<String, Integer> getBlockSizes() {
+        Map<String, Integer> blockSizes = new HashMap<>();
+        if (this.nameTable == null) return blockSizes;
+        for (int[] canopy : this.canopies) {
+            int liveCount = 0;
+            for (int position : canopy) {
+                if (this.nameTable.isLive(position)) liveCount++;
+            }
+            if (liveCount > 0) {
+                // Keyed by center, with its position since two centers can carry the same name
+                blockSizes.put(this.nameTable.get(canopy[0]).originalName() + " #" + canopy[0], liveCount);
+            }
+        }
+        return blockSizes;
+    }
+
+    @Override
+    public String getName() {
+        return "CANOPY_TFIDF";
+    }
+
+    @Override
+    public void reset() {
+        this.indexedListReference = null;
+        this.nameTable = null;
+        this.vectorSpace = null;
+        this.postings = null;
+        this.vectors = null;
+        this.canopies = null;
+        this.canopyByCenter = null;
+        this.centerPool = null;
+    }
+}
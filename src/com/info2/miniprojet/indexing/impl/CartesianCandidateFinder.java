@@ -3,15 +3,20 @@ package com.info2.miniprojet.indexing.impl;
 import com.info2.miniprojet.core.Couple;
 import com.info2.miniprojet.core.Name;
 import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.indexing.PersistableIndex;
 
+import java.io.DataOutput;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
-public class CartesianCandidateFinder implements CandidateFinder {
+public class CartesianCandidateFinder implements CandidateFinder, PersistableIndex {
 
-    // Stores the single list that was "indexed"
-    private List<Name> indexedList;
+    // Stores the single list that was "indexed" (own copy, + incremental adds/removals)
+    private LiveNameTable indexedList;
     // Optional: Store a hash or reference to check if the list passed to buildIndex is new
     private List<Name> listRefForCurrentIndex;
 
@@ -31,13 +36,13 @@ public class CartesianCandidateFinder implements CandidateFinder {
         }
 
         System.out.println("DEBUG: CartesianCandidateFinder.buildIndex called. Storing new list reference.");
-        this.indexedList = (namesToIndex == null) ? new ArrayList<>() : new ArrayList<>(namesToIndex); // Store a copy
+        this.indexedList = new LiveNameTable((namesToIndex == null) ? new ArrayList<>() : new ArrayList<>(namesToIndex), true); // Store a copy
         this.listRefForCurrentIndex = namesToIndex; // Store reference to the original list used for indexing
     }
 
     @Override
     public List<Couple<Name>> findCandidatesForSearch(Name queryName, List<Name> originalNamesList) {
-        if (queryName == null || this.indexedList == null || this.indexedList.isEmpty()) {
+        if (queryName == null || this.indexedList == null || this.indexedList.size() == 0) {
             if (this.indexedList == null) System.err.println("Search Error: Index not built. Call buildIndex() first.");
             return Collections.emptyList();
         }
@@ -48,8 +53,10 @@ public class CartesianCandidateFinder implements CandidateFinder {
         }
 
         List<Couple<Name>> candidatePairs = new ArrayList<>(this.indexedList.size());
-        for (Name candidateName : this.indexedList) {
-            candidatePairs.add(new Couple<>(queryName, candidateName));
+        for (int i = 0; i < this.indexedList.size(); i++) {
+            if (this.indexedList.isLive(i)) {
+                candidatePairs.add(new Couple<>(queryName, this.indexedList.get(i)));
+            }
         }
         System.out.println("DEBUG: CartesianCandidateFinder (Search) returning " + candidatePairs.size() + " pairs.");
         return candidatePairs;
@@ -59,7 +66,7 @@ public class CartesianCandidateFinder implements CandidateFinder {
     public List<Couple<Name>> findCandidatesForComparison(List<Name> listToIterate, List<Name> indexedOriginalList) {
         // Assumes 'indexedOriginalList' IS THE LIST that 'buildIndex' was called with.
         // 'listToIterate' is the "other" list.
-        if (listToIterate == null || this.indexedList == null || listToIterate.isEmpty() || this.indexedList.isEmpty()) {
+        if (listToIterate == null || this.indexedList == null || listToIterate.isEmpty() || this.indexedList.size() == 0) {
             if (this.indexedList == null) System.err.println("Compare Error: Index not built on the second list. Call buildIndex() first.");
             return Collections.emptyList();
         }
@@ -71,8 +78,10 @@ public class CartesianCandidateFinder implements CandidateFinder {
 
         List<Couple<Name>> candidatePairs = new ArrayList<>(listToIterate.size() * this.indexedList.size());
         for (Name nameFromIteratedList : listToIterate) {
-            for (Name nameFromIndexedList : this.indexedList) { // Compare against our "indexed" list
-                candidatePairs.add(new Couple<>(nameFromIteratedList, nameFromIndexedList));
+            for (int i = 0; i < this.indexedList.size(); i++) { // Compare against our "indexed" list
+                if (this.indexedList.isLive(i)) {
+                    candidatePairs.add(new Couple<>(nameFromIteratedList, this.indexedList.get(i)));
+                }
             }
         }
         System.out.println("DEBUG: CartesianCandidateFinder (Compare) returning " + candidatePairs.size() + " pairs (Cartesian Product).");
@@ -94,14 +103,63 @@ public class CartesianCandidateFinder implements CandidateFinder {
         List<Couple<Name>> candidatePairs = new ArrayList<>();
         int size = this.indexedList.size();
         for (int i = 0; i < size; i++) {
+            if (!this.indexedList.isLive(i)) continue;
             for (int j = i + 1; j < size; j++) {
-                candidatePairs.add(new Couple<>(this.indexedList.get(i), this.indexedList.get(j)));
+                if (this.indexedList.isLive(j)) {
+                    candidatePairs.add(new Couple<>(this.indexedList.get(i), this.indexedList.get(j)));
+                }
             }
         }
         System.out.println("DEBUG: CartesianCandidateFinder (Dedupe) returning " + candidatePairs.size() + " pairs.");
         return candidatePairs;
     }
 
+    @Override
+    public void addNames(List<Name> namesToAdd) {
+        if (namesToAdd == null || namesToAdd.isEmpty()) return;
+        if (this.indexedList == null) {
+            buildIndex(new ArrayList<>(namesToAdd));
+            return;
+        }
+        for (Name name : namesToAdd) {
+            this.indexedList.append(name);
+        }
+    }
+
+    @Override
+    public void removeNames(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty() || this.indexedList == null) return;
+        this.indexedList.tombstone(idsToRemove);
+        if (this.indexedList.needsCompaction()) {
+            this.indexedList = this.indexedList.compact();
+        }
+    }
+
+    @Override
+    public void writeIndex(DataOutput out) {
+        // Nothing beyond the name table itself, which the snapshot already stores
+        if (this.indexedList != null && this.indexedList.isModified()) {
+            throw new IllegalStateException("Index has incremental changes that are not part of the indexed list. Rebuild it before saving.");
+        }
+    }
+
+    @Override
+    public void readIndex(ByteBuffer in, List<Name> indexedNames) {
+        this.indexedList = new LiveNameTable(new ArrayList<>(indexedNames), true);
+        this.listRefForCurrentIndex = indexedNames;
+    }
+
+    // Everything is one big block
+    @Override
+    public Map<String, Integer> getBlockSizes() {
+        if (this.indexedList == null) return Collections.emptyMap();
+        int liveCount = 0;
+        for (int i = 0; i < this.indexedList.size(); i++) {
+            if (this.indexedList.isLive(i)) liveCount++;
+        }
+        return liveCount == 0 ? Collections.emptyMap() : Map.of("*", liveCount);
+    }
+
     @Override
     public String getName() {
         return "CARTESIAN_FIND_ALL";
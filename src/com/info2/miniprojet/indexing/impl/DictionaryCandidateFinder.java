@@ -3,20 +3,54 @@ package com.info2.miniprojet.indexing.impl;
 import com.info2.miniprojet.core.Couple;
 import com.info2.miniprojet.core.Name;
 import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.indexing.PersistableIndex;
+import com.info2.miniprojet.util.IndexSnapshotStore;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
-public class DictionaryCandidateFinder implements CandidateFinder {
+public class DictionaryCandidateFinder implements CandidateFinder, PersistableIndex {
 
-    private Map<String, List<Integer>> lastNameIndex; // Key: last token, Value: list of original indices
+    private static final int MIN_ADDED_BEFORE_REPACK = 4096;
+
+    private PackedKeyTable lastNameIndex; // Key: last token, Value: original indices (flat arrays, see PackedKeyTable)
+    private Map<String, List<Integer>> addedNameIndex; // Keys of names added since the table was packed
+    private int addedPostingCount;
     private List<Name> indexedListReference; // Reference to the list that was indexed
+    private LiveNameTable nameTable; // Names behind the stored indices (+ incremental adds/removals)
+    int parallelThreshold = ParallelIndexSupport.DEFAULT_PARALLEL_THRESHOLD; // package-private so tests can force the parallel path
+    private final int maxBlockSize; // Dedup splits bigger blocks (see SubBlocking), 0 = unlimited
+    private final KeyFilter keyFilter; // Optional Bloom filter answering missed lookups before the map
 
     public DictionaryCandidateFinder() {
+        this(0);
+    }
+
+    /**
+     * @param maxBlockSize Blocks above this size are split by secondary keys for deduplication (0 for no limit).
+     */
+    public DictionaryCandidateFinder(int maxBlockSize) {
+        this(maxBlockSize, 0);
+    }
 
+    /**
+     * @param bloomFalsePositiveRate Target false-positive rate of a Bloom filter over the keys, checked before the map
+     *                               (worth it when most lookups miss, e.g. comparing a big list); 0 for no filter.
+     */
+    public DictionaryCandidateFinder(int maxBlockSize, double bloomFalsePositiveRate) {
+        if (maxBlockSize < 0) {
+            throw new IllegalArgumentException("maxBlockSize must be >= 0 (got " + maxBlockSize + ").");
+        }
+        this.maxBlockSize = maxBlockSize;
+        this.keyFilter = new KeyFilter(bloomFalsePositiveRate);
         reset();
     }
 
@@ -35,32 +69,134 @@ public class DictionaryCandidateFinder implements CandidateFinder {
             System.out.println("DEBUG: DictionaryCandidateFinder.buildIndex called with empty or null list.");
             return;
         }
-        if(this.indexedListReference != null && namesToIndex==this.indexedListReference && this.lastNameIndex != null && !this.lastNameIndex.isEmpty()) {
+        if(this.indexedListReference != null && namesToIndex==this.indexedListReference && this.lastNameIndex != null && !isIndexEmpty()) {
             System.out.println("DEBUG: DictionaryCandidateFinder.buildIndex called with the same list. Index reused.");
             return;
         }
         reset();
 
         this.indexedListReference = namesToIndex; // Store direct reference
-        this.lastNameIndex = new HashMap<>();
-
-        for (int i = 0; i < namesToIndex.size(); i++) {
-            Name name = namesToIndex.get(i);
-            if (name != null && name.processedTokens() != null) {
-                String key = getKeyFromTokens(name.processedTokens());
-                if (key != null) {
-                    // If the key doesn't exist, create a new list for it
-                    // If it exists, add the current index to the existing list
-                    this.lastNameIndex.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        this.nameTable = new LiveNameTable(namesToIndex);
+        indexNames(namesToIndex);
+        this.keyFilter.rebuild(this.lastNameIndex.keys());
+        System.out.println("DEBUG: DictionaryCandidateFinder.buildIndex complete. Index size: " + this.lastNameIndex.keyCount()
+                + " unique last names (" + this.lastNameIndex.byteSize() / 1024 + " KB).");
+    }
+
+    private void indexNames(List<Name> names) {
+        // Big lists: keys are extracted on all cores, same contents as sequential
+        boolean parallel = ParallelIndexSupport.shouldParallelize(names, this.parallelThreshold);
+        String[] keys = ParallelIndexSupport.computeKeys(names, this::getKeyFromName, parallel);
+        this.lastNameIndex = PackedKeyTable.build(keys);
+        this.addedNameIndex = new HashMap<>();
+        this.addedPostingCount = 0;
+    }
+
+    private boolean isIndexEmpty() {
+        return this.lastNameIndex.keyCount() == 0 && this.addedNameIndex.isEmpty();
+    }
+
+    // Keys of the packed table, then the added keys it doesn't have
+    private List<String> allKeys() {
+        List<String> keys = new ArrayList<>(this.lastNameIndex.keys());
+        for (String key : this.addedNameIndex.keySet()) {
+            if (this.lastNameIndex.find(key) < 0) keys.add(key);
+        }
+        return keys;
+    }
+
+    // Every key with all its positions (ascending: added positions come after the packed ones)
+    private void forEachBlock(BiConsumer<String, List<Integer>> action) {
+        for (int id = 0; id < this.lastNameIndex.keyCount(); id++) {
+            String key = this.lastNameIndex.key(id);
+            List<Integer> added = this.addedNameIndex.isEmpty() ? null : this.addedNameIndex.get(key);
+            if (added == null) {
+                action.accept(key, this.lastNameIndex.positions(id));
+            } else {
+                List<Integer> positions = new ArrayList<>(this.lastNameIndex.positions(id));
+                positions.addAll(added);
+                action.accept(key, positions);
+            }
+        }
+        for (Map.Entry<String, List<Integer>> entry : this.addedNameIndex.entrySet()) {
+            if (this.lastNameIndex.find(entry.getKey()) < 0) action.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Pairs the probe with the live names indexed under the key.
+     *
+     * @return How many positions the key has (live or not), 0 if it isn't indexed.
+     */
+    private int addMatches(Name probe, String key, List<Couple<Name>> candidatePairs) {
+        int found = 0;
+        int id = this.lastNameIndex.find(key);
+        if (id >= 0) {
+            int end = this.lastNameIndex.postingEnd(id);
+            for (int i = this.lastNameIndex.postingStart(id); i < end; i++) {
+                int index = this.lastNameIndex.posting(i);
+                if (this.nameTable.isLive(index)) {
+                    candidatePairs.add(new Couple<>(probe, this.nameTable.get(index)));
+                }
+            }
+            found = end - this.lastNameIndex.postingStart(id);
+        }
+        List<Integer> added = this.addedNameIndex.isEmpty() ? null : this.addedNameIndex.get(key);
+        if (added != null) {
+            for (int index : added) {
+                if (this.nameTable.isLive(index)) {
+                    candidatePairs.add(new Couple<>(probe, this.nameTable.get(index)));
                 }
             }
+            found += added.size();
+        }
+        return found;
+    }
+
+    private String getKeyFromName(Name name) {
+        return (name != null && name.processedTokens() != null) ? getKeyFromTokens(name.processedTokens()) : null;
+    }
+
+    @Override
+    public void addNames(List<Name> namesToAdd) {
+        if (namesToAdd == null || namesToAdd.isEmpty()) return;
+        if (this.lastNameIndex == null) {
+            buildIndex(new ArrayList<>(namesToAdd));
+            return;
+        }
+        for (Name name : namesToAdd) {
+            int position = this.nameTable.append(name);
+            String key = getKeyFromName(name);
+            if (key != null) {
+                this.addedNameIndex.computeIfAbsent(key, k -> new ArrayList<>()).add(position);
+                this.addedPostingCount++;
+                this.keyFilter.add(key, this::allKeys);
+            }
+        }
+        if (this.addedPostingCount > Math.max(MIN_ADDED_BEFORE_REPACK, this.nameTable.size() / 8)) {
+            // Positions don't move (tombstoned ones included), only the added keys are folded into a new table
+            indexNames(this.nameTable.asList());
+            System.out.println("DEBUG: DictionaryCandidateFinder repacked its key table after incremental adds.");
+        }
+        System.out.println("DEBUG: DictionaryCandidateFinder added " + namesToAdd.size() + " names incrementally.");
+    }
+
+    @Override
+    public void removeNames(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty() || this.nameTable == null) return;
+        int removedCount = this.nameTable.tombstone(idsToRemove).size(); // Postings keep the positions, lookups skip them
+        System.out.println("DEBUG: DictionaryCandidateFinder tombstoned " + removedCount + " names.");
+        if (this.nameTable.needsCompaction()) {
+            this.nameTable = this.nameTable.compact();
+            indexNames(this.nameTable.asList());
+            this.keyFilter.rebuild(this.lastNameIndex.keys());
+            System.out.println("DEBUG: DictionaryCandidateFinder compacted to " + this.nameTable.size() + " names.");
         }
-        System.out.println("DEBUG: DictionaryCandidateFinder.buildIndex complete. Index size: " + this.lastNameIndex.size() + " unique last names.");
     }
 
     @Override
     public List<Couple<Name>> findCandidatesForSearch(Name queryName, List<Name> originalNamesList) {
-        if (queryName == null || this.lastNameIndex == null || this.lastNameIndex.isEmpty()) {
+        if (queryName == null || this.lastNameIndex == null || isIndexEmpty()) {
             if (this.lastNameIndex == null) System.err.println("Search Error (Dictionary): Index not built. Call buildIndex() first.");
             return Collections.emptyList();
         }
@@ -75,15 +211,9 @@ public class DictionaryCandidateFinder implements CandidateFinder {
         List<Couple<Name>> candidatePairs = new ArrayList<>();
         String queryKey = getKeyFromTokens(queryName.processedTokens());
         if (queryKey != null) {
-            List<Integer> matchingIndices = this.lastNameIndex.get(queryKey);
-            if (matchingIndices != null) {
-                System.out.println("DEBUG: Dictionary Search: Found " + matchingIndices.size() + " potential candidates for key '" + queryKey + "'.");
-                for (int index : matchingIndices) {
-                    // Ensure index is valid for the list used to build the index
-                    if (index >= 0 && index < this.indexedListReference.size()) {
-                        candidatePairs.add(new Couple<>(queryName, this.indexedListReference.get(index)));
-                    }
-                }
+            int matchingCount = this.keyFilter.mightContain(queryKey) ? addMatches(queryName, queryKey, candidatePairs) : 0;
+            if (matchingCount > 0) {
+                System.out.println("DEBUG: Dictionary Search: Found " + matchingCount + " potential candidates for key '" + queryKey + "'.");
             } else {
                 System.out.println("DEBUG: Dictionary Search: No candidates found for key '" + queryKey + "'.");
             }
@@ -97,7 +227,7 @@ public class DictionaryCandidateFinder implements CandidateFinder {
     public List<Couple<Name>> findCandidatesForComparison(List<Name> listToIterate, List<Name> indexedOriginalList) {
         // Assumes 'indexedOriginalList' is the list that 'buildIndex' was called with (and its index is in this.lastNameIndex).
         // 'listToIterate' is the "other" list whose items will be used as queries.
-        if (listToIterate == null || this.lastNameIndex == null || this.lastNameIndex.isEmpty() ) {
+        if (listToIterate == null || this.lastNameIndex == null || isIndexEmpty()) {
             if (this.lastNameIndex == null) System.err.println("Compare Error (Dictionary): Index not built on the second list. Call buildIndex() first.");
             return Collections.emptyList();
         }
@@ -105,30 +235,36 @@ public class DictionaryCandidateFinder implements CandidateFinder {
             System.err.println("Warning (Compare - Dictionary): indexedOriginalList differs from the list this finder indexed. Using internally stored list reference for candidates.");
         }
 
+        if (ParallelIndexSupport.shouldParallelize(listToIterate, this.parallelThreshold)) {
+            // Big lists: probes partitioned by key hash, on all cores (pairs grouped by partition instead of list order)
+            String[] keys = ParallelIndexSupport.computeKeys(listToIterate, this::getKeyFromName, true);
+            int filteredOut = this.keyFilter.dropAbsentKeys(keys, true);
+            List<Couple<Name>> candidatePairs = PartitionedHashJoin.join(listToIterate, keys, this.lastNameIndex, this.addedNameIndex, this.nameTable);
+            System.out.println("DEBUG: Dictionary Compare (partitioned join): Generated " + candidatePairs.size() + " candidate pairs"
+                    + (this.keyFilter.isEnabled() ? ", " + filteredOut + " keys ruled out by the Bloom filter." : "."));
+            return candidatePairs;
+        }
 
         List<Couple<Name>> candidatePairs = new ArrayList<>();
+        int filteredOut = 0;
         for (Name nameFromIteratedList : listToIterate) {
             if (nameFromIteratedList != null && nameFromIteratedList.processedTokens() != null) {
                 String key = getKeyFromTokens(nameFromIteratedList.processedTokens());
-                if (key != null) {
-                    List<Integer> matchingIndices = this.lastNameIndex.get(key);
-                    if (matchingIndices != null) {
-                        for (int index : matchingIndices) {
-                            if (index >= 0 && index < this.indexedListReference.size()) {
-                                candidatePairs.add(new Couple<>(nameFromIteratedList, this.indexedListReference.get(index)));
-                            }
-                        }
-                    }
+                if (key != null && !this.keyFilter.mightContain(key)) {
+                    filteredOut++; // Certainly not indexed, the map isn't touched
+                } else if (key != null) {
+                    addMatches(nameFromIteratedList, key, candidatePairs);
                 }
             }
         }
-        System.out.println("DEBUG: Dictionary Compare: Generated " + candidatePairs.size() + " candidate pairs.");
+        System.out.println("DEBUG: Dictionary Compare: Generated " + candidatePairs.size() + " candidate pairs"
+                + (this.keyFilter.isEnabled() ? ", " + filteredOut + " keys ruled out by the Bloom filter." : "."));
         return candidatePairs;
     }
 
     @Override
     public List<Couple<Name>> findCandidatesForDeduplication(List<Name> originalNamesList) {
-        if (this.lastNameIndex == null || this.lastNameIndex.isEmpty()) {
+        if (this.lastNameIndex == null || isIndexEmpty()) {
             if (this.lastNameIndex == null) System.err.println("Dedupe Error (Dictionary): Index not built. Call buildIndex() first.");
             return Collections.emptyList();
         }
@@ -138,26 +274,71 @@ public class DictionaryCandidateFinder implements CandidateFinder {
 
 
         List<Couple<Name>> candidatePairs = new ArrayList<>();
-        // Iterate through the index. For any key that has multiple names, form pairs.
-        for (List<Integer> indicesWithSameKey : this.lastNameIndex.values()) {
-            if (indicesWithSameKey != null && indicesWithSameKey.size() > 1) {
+        // Iterate through the index. For any key that has multiple names, form pairs (per sub-block if the block is oversized).
+        forEachBlock((key, block) -> {
+            if (block.size() < 2) return;
+            for (List<Integer> indicesWithSameKey : SubBlocking.split(key, block, this.nameTable, this.maxBlockSize).values()) {
                 for (int i = 0; i < indicesWithSameKey.size(); i++) {
                     for (int j = i + 1; j < indicesWithSameKey.size(); j++) {
-                        int index1 = indicesWithSameKey.get(i);
-                        int index2 = indicesWithSameKey.get(j);
-
-                        if (index1 >= 0 && index1 < this.indexedListReference.size() &&
-                                index2 >= 0 && index2 < this.indexedListReference.size()) {
-                            candidatePairs.add(new Couple<>(this.indexedListReference.get(index1), this.indexedListReference.get(index2)));
-                        }
+                        candidatePairs.add(new Couple<>(this.nameTable.get(indicesWithSameKey.get(i)), this.nameTable.get(indicesWithSameKey.get(j))));
                     }
                 }
             }
-        }
+        });
         System.out.println("DEBUG: Dictionary Dedupe: Generated " + candidatePairs.size() + " candidate pairs.");
         return candidatePairs;
     }
 
+    @Override
+    public void writeIndex(DataOutput out) throws IOException {
+        if (this.lastNameIndex == null) {
+            throw new IllegalStateException("Index not built. Call buildIndex() first.");
+        }
+        if (this.nameTable.isModified()) {
+            throw new IllegalStateException("Index has incremental changes that are not part of the indexed list. Rebuild it before saving.");
+        }
+        out.writeInt(this.lastNameIndex.keyCount()); // No incremental changes: everything is in the packed table
+        for (int id = 0; id < this.lastNameIndex.keyCount(); id++) {
+            IndexSnapshotStore.writeString(out, this.lastNameIndex.key(id));
+            IndexSnapshotStore.writeIntList(out, this.lastNameIndex.positions(id));
+        }
+        this.keyFilter.write(out);
+    }
+
+    @Override
+    public void readIndex(ByteBuffer in, List<Name> indexedNames) {
+        reset();
+        int keyCount = in.getInt();
+        String[] keys = new String[indexedNames.size()]; // Back to the key of each position, then packed again
+        for (int i = 0; i < keyCount; i++) {
+            String key = IndexSnapshotStore.readString(in);
+            for (int position : IndexSnapshotStore.readIntList(in)) {
+                if (position < 0 || position >= keys.length) {
+                    throw new IllegalArgumentException("Snapshot position " + position + " is outside the " + keys.length + " indexed names.");
+                }
+                keys[position] = key;
+            }
+        }
+        this.lastNameIndex = PackedKeyTable.build(keys);
+        this.addedNameIndex = new HashMap<>();
+        this.addedPostingCount = 0;
+        this.keyFilter.read(in, this.lastNameIndex.keys());
+        this.indexedListReference = indexedNames;
+        this.nameTable = new LiveNameTable(indexedNames);
+    }
+
+    @Override
+    public Map<String, Integer> getBlockSizes() {
+        Map<String, Integer> blockSizes = new HashMap<>();
+        if (this.lastNameIndex == null) return blockSizes;
+        forEachBlock((key, block) -> {
+            for (Map.Entry<String, List<Integer>> subBlock : SubBlocking.split(key, block, this.nameTable, this.maxBlockSize).entrySet()) {
+                blockSizes.put(subBlock.getKey(), subBlock.getValue().size());
+            }
+        });
+        return blockSizes;
+    }
+
     @Override
     public String getName() {
         return "DICTIONARY_LAST_TOKEN";
@@ -166,6 +347,10 @@ public class DictionaryCandidateFinder implements CandidateFinder {
     @Override
     public void reset() {
         this.lastNameIndex = null;
+        this.addedNameIndex = null;
+        this.addedPostingCount = 0;
         this.indexedListReference = null;
+        this.nameTable = null;
+        this.keyFilter.reset();
     }
 }
\ No newline at end of file
@@ -0,0 +1,406 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.indexing.impl.TfIdfVectorSpace.SparseVector;
+import com.info2.miniprojet.util.LongHashSet;
+import com.info2.miniprojet.util.LongMinHeap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Approximate nearest neighbours for fuzzy matching on large lists.
+ * Each name becomes a sparse TF-IDF vector of its character trigrams (so typos and reordered tokens stay close),
+ * and the vectors are linked in a Hierarchical Navigable Small World graph (Malkov &amp; Yashunin):
+ * a search greedily walks from the top layer down and explores the bottom layer with a beam of efSearch nodes,
+ * touching O(log n) names instead of all of them. Every query returns its topM nearest names (cosine distance).
+ * Tuning: m (links per node) and efConstruction trade build time/memory for graph quality,
+ * efSearch trades latency for recall, topM is how many candidates per query go to the NameComparator.
+ */
+public class HnswCandidateFinder implements CandidateFinder {
+
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+    public static final int DEFAULT_EF_SEARCH = 64;
+    public static final int DEFAULT_TOP_M = 10;
+    private static final long RANDOM_SEED = 42L; // Same list, same graph
+
+    private final int m;
+    private final int maxLinksLayer0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final int topM;
+    private final double levelMultiplier;
+
+    private List<Name> indexedListReference;
+    private LiveNameTable nameTable;
+    private TfIdfVectorSpace vectorSpace;
+    private List<SparseVector> vectors; // By position, null for names without tokens (not in the graph)
+    private List<int[][]> links; // By position: neighbours per layer
+    private int entryPoint;
+    private int topLayer;
+    private Random random;
+    private int[] visitedStamps = new int[0];
+    private int visitStamp;
+
+    public HnswCandidateFinder() {
+        this(DEFAULT_M, DEFAULT_EF_CONSTRUCTION, DEFAULT_EF_SEARCH, DEFAULT_TOP_M);
+    }
+
+    public HnswCandidateFinder(int m, int efConstruction, int efSearch, int topM) {
+        if (m < 2 || efConstruction < 1 || efSearch < 1 || topM < 1) {
+            throw new IllegalArgumentException("HNSW parameters must be positive and M >= 2 (got M=" + m + ", efConstruction="
+                    + efConstruction + ", efSearch=" + efSearch + ", topM=" + topM + ").");
+        }
+        this.m = m;
+        this.maxLinksLayer0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.topM = topM;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        reset();
+    }
+
+    private List<String> trigramsOf(Name name) {
+        if (name == null || name.processedTokens() == null || name.processedTokens().isEmpty()) {
+            return Collections.emptyList();
+        }
+        String key = " " + name.features().lowerJoined().trim() + " ";
+        if (key.isBlank()) return Collections.emptyList();
+        List<String> trigrams = new ArrayList<>(key.length());
+        for (int i = 0; i + 3 <= key.length(); i++) {
+            trigrams.add(key.substring(i, i + 3));
+        }
+        if (trigrams.isEmpty()) trigrams.add(key); // Single character name
+        return trigrams;
+    }
+
+    @Override
+    public void buildIndex(List<Name> namesToIndex) {
+        if (namesToIndex == null || namesToIndex.isEmpty()) {
+            System.out.println("DEBUG: HnswCandidateFinder.buildIndex called with empty or null list. Resetting.");
+            reset();
+            return;
+        }
+        if (this.indexedListReference != null && this.indexedListReference == namesToIndex) {
+            System.out.println("DEBUG: HnswCandidateFinder.buildIndex called with the same list instance. Index reused.");
+            return;
+        }
+        reset();
+        this.indexedListReference = namesToIndex;
+        this.nameTable = new LiveNameTable(namesToIndex);
+        indexNames(namesToIndex);
+        System.out.println("DEBUG: HnswCandidateFinder.buildIndex complete. " + namesToIndex.size() + " names, "
+                + this.vectorSpace.termCount() + " distinct trigrams, " + (this.topLayer + 1) + " layers.");
+    }
+
+    private void indexNames(List<Name> names) {
+        this.vectorSpace = new TfIdfVectorSpace();
+        this.vectors = new ArrayList<>(names.size());
+        this.links = new ArrayList<>(names.size());
+        this.entryPoint = -1;
+        this.topLayer = -1;
+        this.random = new Random(RANDOM_SEED);
+
+        List<List<String>> trigramLists = new ArrayList<>(names.size());
+        for (Name name : names) trigramLists.add(trigramsOf(name));
+        this.vectorSpace.fit(trigramLists);
+        for (List<String> trigrams : trigramLists) {
+            insert(this.vectorSpace.vectorize(trigrams, true));
+        }
+    }
+
+    // --- Graph construction ---
+
+    private void insert(SparseVector vector) {
+        int position = this.vectors.size();
+        this.vectors.add(vector);
+        if (vector == null) {
+            this.links.add(null);
+            return;
+        }
+        int level = (int) (-Math.log(1.0 - this.random.nextDouble()) * this.levelMultiplier);
+        int[][] nodeLinks = new int[level + 1][];
+        Arrays.fill(nodeLinks, new int[0]);
+        this.links.add(nodeLinks);
+        if (this.entryPoint < 0) {
+            this.entryPoint = position;
+            this.topLayer = level;
+            return;
+        }
+
+        int current = this.entryPoint;
+        for (int layer = this.topLayer; layer > level; layer--) {
+            current = nodeOf(searchLayer(vector, current, 1, layer)[0]);
+        }
+        for (int layer = Math.min(level, this.topLayer); layer >= 0; layer--) {
+            long[] nearest = searchLayer(vector, current, this.efConstruction, layer);
+            int[] selected = selectNeighbours(nearest, this.m);
+            nodeLinks[layer] = selected;
+            int maxLinks = layer == 0 ? this.maxLinksLayer0 : this.m;
+            boolean linkedBack = false;
+            for (int neighbour : selected) {
+                linkedBack |= connect(neighbour, position, layer, maxLinks);
+            }
+            if (!linkedBack && selected.length > 0) {
+                // Every neighbour pruned the new node (typically a name unlike all others): without an incoming link
+                // no search could ever reach it, so it takes over the last link of its closest neighbour
+                int[] closestLinks = this.links.get(selected[0])[layer];
+                closestLinks[closestLinks.length - 1] = position;
+            }
+            current = nodeOf(nearest[0]);
+        }
+        if (level > this.topLayer) {
+            this.topLayer = level;
+            this.entryPoint = position;
+        }
+    }
+
+    /**
+     * Adds a link node -> newNeighbour, pruning the node's links if it has too many.
+     *
+     * @return false if the pruning dropped newNeighbour.
+     */
+    private boolean connect(int node, int newNeighbour, int layer, int maxLinks) {
+        int[] current = this.links.get(node)[layer];
+        int[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = newNeighbour;
+        if (grown.length > maxLinks) {
+            // Too many links: keep the best spread set, as for a new node
+            SparseVector nodeVector = this.vectors.get(node);
+            long[] candidates = new long[grown.length];
+            for (int i = 0; i < grown.length; i++) {
+                candidates[i] = pack(distance(nodeVector, this.vectors.get(grown[i])), grown[i]);
+            }
+            Arrays.sort(candidates);
+            grown = selectNeighbours(candidates, maxLinks);
+        }
+        this.links.get(node)[layer] = grown;
+        for (int neighbour : grown) {
+            if (neighbour == newNeighbour) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Neighbour selection heuristic of the HNSW paper: a candidate is kept only if it is closer to the new node
+     * than to every neighbour already kept, so links point in different directions instead of into one cluster.
+     * Slots left are filled with the closest discarded candidates.
+     *
+     * @param sortedCandidates Packed (distance, node), ascending.
+     */
+    private int[] selectNeighbours(long[] sortedCandidates, int count) {
+        int[] selected = new int[Math.min(count, sortedCandidates.length)];
+        int selectedCount = 0;
+        boolean[] taken = new boolean[sortedCandidates.length];
+        for (int c = 0; c < sortedCandidates.length && selectedCount < selected.length; c++) {
+            int candidate = nodeOf(sortedCandidates[c]);
+            float candidateDistance = distanceOf(sortedCandidates[c]);
+            boolean diverse = true;
+            for (int s = 0; s < selectedCount && diverse; s++) {
+                diverse = distance(this.vectors.get(candidate), this.vectors.get(selected[s])) >= candidateDistance;
+            }
+            if (diverse) {
+                selected[selectedCount++] = candidate;
+                taken[c] = true;
+            }
+        }
+        for (int c = 0; c < sortedCandidates.length && selectedCount < selected.length; c++) {
+            if (!taken[c]) selected[selectedCount++] = nodeOf(sortedCandidates[c]);
+        }
+        return selected;
+    }
+
+    // --- Search ---
+
+    /**
+     * Beam search of one layer from the entry node.
+     *
+     * @return Up to ef nearest nodes found, packed (distance, node), ascending.
+     */
+    private long[] searchLayer(SparseVector query, int entry, int ef, int layer) {
+        if (this.visitedStamps.length < this.vectors.size()) {
+            this.visitedStamps = Arrays.copyOf(this.visitedStamps, Math.max(this.vectors.size(), this.visitedStamps.length * 2));
+        }
+        if (++this.visitStamp == Integer.MAX_VALUE) {
+            Arrays.fill(this.visitedStamps, 0);
+            this.visitStamp = 1;
+        }
+        LongMinHeap candidates = new LongMinHeap(); // Closest first
+        LongMinHeap results = new LongMinHeap(); // Furthest first (complemented keys)
+        long start = pack(distance(query, this.vectors.get(entry)), entry);
+        this.visitedStamps[entry] = this.visitStamp;
+        candidates.push(start);
+        results.push(~start);
+
+        while (!candidates.isEmpty()) {
+            long closest = candidates.pop();
+            if (distanceOf(closest) > distanceOf(~results.peek())) break; // Nothing left that could improve the results
+            int[] neighbours = this.links.get(nodeOf(closest))[layer];
+            for (int neighbour : neighbours) {
+                if (this.visitedStamps[neighbour] == this.visitStamp) continue;
+                this.visitedStamps[neighbour] = this.visitStamp;
+                float neighbourDistance = distance(query, this.vectors.get(neighbour));
+                if (results.size() < ef || neighbourDistance < distanceOf(~results.peek())) {
+                    long packed = pack(neighbourDistance, neighbour);
+                    candidates.push(packed);
+                    results.push(~packed);
+                    if (results.size() > ef) results.pop();
+                }
+            }
+        }
+        long[] nearest = new long[results.size()];
+        for (int i = nearest.length - 1; i >= 0; i--) {
+            nearest[i] = ~results.pop();
+        }
+        return nearest;
+    }
+
+    /**
+     * @return Live positions of the topM nearest names (closest first), excluding excludedPosition.
+     */
+    private List<Integer> nearestNames(SparseVector query, int excludedPosition) {
+        List<Integer> nearest = new ArrayList<>(this.topM);
+        if (query == null || this.entryPoint < 0) return nearest;
+        int current = this.entryPoint;
+        for (int layer = this.topLayer; layer > 0; layer--) {
+            current = nodeOf(searchLayer(query, current, 1, layer)[0]);
+        }
+        long[] found = searchLayer(query, current, Math.max(this.efSearch, this.topM + 1), 0);
+        for (long packed : found) {
+            int position = nodeOf(packed);
+            if (position == excludedPosition || !this.nameTable.isLive(position)) continue;
+            nearest.add(position);
+            if (nearest.size() == this.topM) break;
+        }
+        return nearest;
+    }
+
+    private static float distance(SparseVector v1, SparseVector v2) {
+        return Math.max(0f, 1f - v1.dot(v2)); // Cosine distance, rounding can push the dot slightly above 1
+    }
+
+    // Non-negative floats order like their bit patterns, so (distance, node) packs into a sortable long
+    private static long pack(float distance, int node) {
+        return ((long) Float.floatToIntBits(distance) << 32) | (node & 0xFFFFFFFFL);
+    }
+
+    private static int nodeOf(long packed) {
+        return (int) packed;
+    }
+
+    private static float distanceOf(long packed) {
+        return Float.intBitsToFloat((int) (packed >>> 32));
+    }
+
+    // --- CandidateFinder ---
+
+    @Override
+    public void addNames(List<Name> namesToAdd) {
+        if (namesToAdd == null || namesToAdd.isEmpty()) return;
+        if (this.nameTable == null) {
+            buildIndex(new ArrayList<>(namesToAdd));
+            return;
+        }
+        for (Name name : namesToAdd) {
+            this.nameTable.append(name);
+            insert(this.vectorSpace.vectorize(trigramsOf(name), true));
+        }
+        System.out.println("DEBUG: HnswCandidateFinder added " + namesToAdd.size() + " names incrementally.");
+    }
+
+    @Override
+    public void removeNames(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty() || this.nameTable == null) return;
+        int removedCount = this.nameTable.tombstone(idsToRemove).size(); // Stay in the graph for navigation, never returned
+        System.out.println("DEBUG: HnswCandidateFinder tombstoned " + removedCount + " names.");
+        if (this.nameTable.needsCompaction()) {
+            this.nameTable = this.nameTable.compact();
+            indexNames(this.nameTable.asList());
+            System.out.println("DEBUG: HnswCandidateFinder compacted to " + this.nameTable.size() + " names.");
+        }
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForSearch(Name queryName, List<Name> originalNamesList) {
+        if (queryName == null || this.nameTable == null) {
+            if (this.nameTable == null) System.err.println("Search Error (HNSW): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (originalNamesList != this.indexedListReference) {
+            System.err.println("Warning (Search - HNSW): originalNamesList differs from indexed list. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        for (int position : nearestNames(this.vectorSpace.vectorize(trigramsOf(queryName), false), -1)) {
+            candidatePairs.add(new Couple<>(queryName, this.nameTable.get(position)));
+        }
+        System.out.println("DEBUG: HNSW Search: Found " + candidatePairs.size() + " nearest candidates.");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForComparison(List<Name> listToIterate, List<Name> indexedOriginalList) {
+        if (listToIterate == null || this.nameTable == null) {
+            if (this.nameTable == null) System.err.println("Compare Error (HNSW): Index not built (for indexedOriginalList). Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (indexedOriginalList != this.indexedListReference) {
+            System.err.println("Warning (Compare - HNSW): indexedOriginalList differs from the list this finder indexed. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        for (Name nameFromIteratedList : listToIterate) {
+            for (int position : nearestNames(this.vectorSpace.vectorize(trigramsOf(nameFromIteratedList), false), -1)) {
+                candidatePairs.add(new Couple<>(nameFromIteratedList, this.nameTable.get(position)));
+            }
+        }
+        System.out.println("DEBUG: HNSW Compare: Generated " + candidatePairs.size() + " candidate pairs.");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForDeduplication(List<Name> originalNamesList) {
+        if (this.nameTable == null) {
+            System.err.println("Dedupe Error (HNSW): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (originalNamesList != this.indexedListReference) {
+            System.err.println("Warning (Dedupe - HNSW): originalNamesList differs from indexed list. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        LongHashSet seenPairs = new LongHashSet(this.vectors.size() * this.topM);
+        for (int position = 0; position < this.vectors.size(); position++) {
+            if (this.vectors.get(position) == null || !this.nameTable.isLive(position)) continue;
+            for (int neighbour : nearestNames(this.vectors.get(position), position)) {
+                int low = Math.min(position, neighbour);
+                int high = Math.max(position, neighbour);
+                if (seenPairs.add(((long) low << 32) | high)) { // a near b and b near a: one pair
+                    candidatePairs.add(new Couple<>(this.nameTable.get(low), this.nameTable.get(high)));
+                }
+            }
+        }
+        System.out.println("DEBUG: HNSW Dedupe: Generated " + candidatePairs.size() + " candidate pairs.");
+        return candidatePairs;
+    }
+
+    @Override
+    public String getName() {
+        return "HNSW_TRIGRAM";
+    }
+
+    @Override
+    public void reset() {
+        this.indexedListReference = null;
+        this.nameTable = null;
+        this.vectorSpace = null;
+        this.vectors = null;
+        this.links = null;
+        this.entryPoint = -1;
+        this.topLayer = -1;
+    }
+}
@@ -0,0 +1,108 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.util.BloomFilter;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Optional negative cache in front of the map of an exact-key finder (Dictionary, RedBlackTree).
+ * Comparing a big customer list against the PEP list, most probes miss: a Bloom filter over the indexed keys
+ * answers those "definitely absent" from a bit array, without probing the key table or walking the TreeMap.
+ * Sized for the finder's target false-positive rate, rebuilt bigger when incremental adds outgrow it, and
+ * written after the finder's index so a restored index gets it back without rehashing every key.
+ */
+final class KeyFilter {
+
+    private final double falsePositiveRate; // 0 = disabled
+    private BloomFilter filter;
+
+    /**
+     * @param falsePositiveRate Target false-positive rate in (0, 1), or 0 for no filter.
+     */
+    KeyFilter(double falsePositiveRate) {
+        if (falsePositiveRate != 0 && !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Key filter false-positive rate must be in (0, 1), or 0 to disable it (got " + falsePositiveRate + ").");
+        }
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    boolean isEnabled() {
+        return this.falsePositiveRate > 0;
+    }
+
+    void rebuild(Collection<String> keys) {
+        this.filter = isEnabled() ? BloomFilter.of(keys, this.falsePositiveRate) : null;
+    }
+
+    void reset() {
+        this.filter = null;
+    }
+
+    /**
+     * @param allKeys Every key of the index, this one included (only asked for to rebuild the filter if it is full).
+     */
+    void add(String key, Supplier<Collection<String>> allKeys) {
+        if (this.filter == null) return;
+        this.filter.put(key);
+        if (this.filter.isOverCapacity()) { // Twice the room, so a stream of adds doesn't rebuild every time
+            Collection<String> keys = allKeys.get();
+            BloomFilter bigger = new BloomFilter(2L * keys.size(), this.falsePositiveRate);
+            for (String indexedKey : keys) {
+                bigger.put(indexedKey);
+            }
+            this.filter = bigger;
+        }
+    }
+
+    /**
+     * @return false if the key is certainly not in the index (always true without a filter).
+     */
+    boolean mightContain(String key) {
+        return this.filter == null || this.filter.mightContain(key);
+    }
+
+    /**
+     * Sets to null the keys that are certainly not in the index, so a join skips them.
+     *
+     * @return How many keys were dropped.
+     */
+    int dropAbsentKeys(String[] keys, boolean parallel) {
+        if (this.filter == null) return 0;
+        IntStream range = IntStream.range(0, keys.length);
+        if (parallel) {
+            range = range.parallel();
+        }
+        BloomFilter current = this.filter;
+        return range.map(i -> {
+            if (keys[i] == null || current.mightContain(keys[i])) return 0;
+            keys[i] = null;
+            return 1;
+        }).sum();
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeBoolean(this.filter != null);
+        if (this.filter != null) {
+            this.filter.write(out);
+        }
+    }
+
+    /**
+     * Reads what write() wrote. A stored filter made for another rate (or a missing one) is rebuilt from the keys.
+     */
+    void read(ByteBuffer in, Collection<String> keys) {
+        BloomFilter stored = in.get() != 0 ? BloomFilter.read(in) : null;
+        if (!isEnabled()) {
+            this.filter = null;
+        } else if (stored != null && stored.getFalsePositiveRate() == this.falsePositiveRate) {
+            this.filter = stored;
+        } else {
+            rebuild(keys);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Name;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * How the key finders (Trie, RedBlackTree) turn the processed tokens of a name into index keys.
+ * Our lists mix "SURNAME Given" and "Given Surname": with ORIGINAL the two orders never share a key,
+ * SORTED makes every permutation of the same tokens share one key.
+ * ROTATIONS also indexes each rotation of the original order, so a prefix search on any token
+ * ("smith" -> "smith john") reaches the name. Names then get several keys, the finders dedupe the pairs.
+ */
+public enum KeyOrder {
+    ORIGINAL,
+    SORTED,
+    ROTATIONS;
+
+    /**
+     * @return The key used for exact blocking: the lowercased tokens joined in this order, or null if there are no tokens.
+     *         Read from the name's precomputed features; a null token is rendered "null" whatever the order.
+     */
+    String primaryKey(Name name) {
+        if (name == null || name.processedTokens() == null || name.processedTokens().isEmpty()) {
+            return null;
+        }
+        if (this == ORIGINAL) {
+            return name.features().lowerJoined();
+        }
+        List<String> sortedTokens = new ArrayList<>(name.features().lowerTokens());
+        Collections.sort(sortedTokens);
+        return String.join(" ", sortedTokens);
+    }
+
+    /**
+     * @return Keys under which a name is indexed besides its primary key (never contains the primary key).
+     */
+    List<String> extraIndexKeys(Name name) {
+        if (this != ROTATIONS || name == null || name.processedTokens() == null || name.processedTokens().size() < 2) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = name.features().lowerTokens();
+        String primaryKey = primaryKey(name);
+        Set<String> rotations = new LinkedHashSet<>();
+        for (int start = 0; start < tokens.size(); start++) {
+            StringBuilder rotation = new StringBuilder();
+            for (int i = 0; i < tokens.size(); i++) {
+                if (i > 0) rotation.append(' ');
+                rotation.append(tokens.get((start + i) % tokens.size()));
+            }
+            rotations.add(rotation.toString());
+        }
+        rotations.remove(primaryKey);
+        return new ArrayList<>(rotations);
+    }
+
+    /**
+     * @return Keys to look a query name up with. With ROTATIONS the query's own order is tried too,
+     *         it matches one of the indexed rotations of any name starting with its first token.
+     */
+    List<String> queryKeys(Name name) {
+        String primaryKey = primaryKey(name);
+        if (primaryKey == null) {
+            return Collections.emptyList();
+        }
+        if (this != ROTATIONS) {
+            return List.of(primaryKey);
+        }
+        String originalOrder = name.features().lowerJoined();
+        return originalOrder.equals(primaryKey) ? List.of(primaryKey) : List.of(primaryKey, originalOrder);
+    }
+
+    boolean hasExtraKeys() {
+        return this == ROTATIONS;
+    }
+}
@@ -0,0 +1,234 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.comparison.NameComparator;
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.indexing.SimilarityThresholdAware;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Partitions names by length for edit-distance workloads: with a bound of k edits, two strings whose lengths
+ * differ by more than k can never match, so only names from length buckets within +-k are paired.
+ * The length is the one the edit-distance comparators see (joined processed tokens, lowercased).
+ * k is the distance threshold when the Engine runs a length-bounded comparator (LEVENSHTEIN, KEYBOARD_DISTANCE)
+ * in threshold mode, unless one is fixed at construction ("LENGTH_BUCKET:MAX_EDITS=2").
+ * Buckets are not reported as blocks: pairs also span neighbouring buckets, block sizes would understate them.
+ */
+public class LengthBucketCandidateFinder implements CandidateFinder, SimilarityThresholdAware {
+
+    public static final int DEFAULT_MAX_LENGTH_DIFFERENCE = 2;
+    private static final Name LENGTH_PROBE = new Name("", "", List.of()); // To ask a comparator whether it has a length bound
+
+    private final boolean boundFixed;
+    private int maxLengthDifference;
+
+    private List<Name> indexedListReference;
+    private LiveNameTable nameTable;
+    private TreeMap<Integer, List<Integer>> buckets; // Length -> positions, names without a token list are not indexed
+
+    public LengthBucketCandidateFinder() {
+        this(DEFAULT_MAX_LENGTH_DIFFERENCE, false);
+    }
+
+    /**
+     * @param maxLengthDifference Largest length difference between paired names (k). Not overridden by the Engine.
+     */
+    public LengthBucketCandidateFinder(int maxLengthDifference) {
+        this(maxLengthDifference, true);
+    }
+
+    private LengthBucketCandidateFinder(int maxLengthDifference, boolean boundFixed) {
+        if (maxLengthDifference < 0) {
+            throw new IllegalArgumentException("Max length difference must not be negative (got " + maxLengthDifference + ").");
+        }
+        this.maxLengthDifference = maxLengthDifference;
+        this.boundFixed = boundFixed;
+        reset();
+    }
+
+    @Override
+    public void setSimilarityThreshold(NameComparator comparator, double threshold) {
+        if (this.boundFixed || !comparator.isScoreDistance() || comparator.boundingLength(LENGTH_PROBE) < 0) return;
+        if (threshold < 0) {
+            System.err.println("Warning: Length buckets need a non-negative distance threshold (got " + threshold + "), keeping " + this.maxLengthDifference + ".");
+            return;
+        }
+        this.maxLengthDifference = (int) Math.min(Integer.MAX_VALUE, Math.floor(threshold));
+    }
+
+    public int getMaxLengthDifference() {
+        return this.maxLengthDifference;
+    }
+
+    // -1 for names without a token list, never paired (an empty one has length 0)
+    private static int lengthOf(Name name) {
+        if (name == null || name.processedTokens() == null) {
+            return -1;
+        }
+        return name.features().lowerJoined().length();
+    }
+
+    @Override
+    public void buildIndex(List<Name> namesToIndex) {
+        if (namesToIndex == null || namesToIndex.isEmpty()) {
+            System.out.println("DEBUG: LengthBucketCandidateFinder.buildIndex called with empty or null list. Resetting.");
+            reset();
+            return;
+        }
+        if (this.indexedListReference != null && this.indexedListReference == namesToIndex) {
+            System.out.println("DEBUG: LengthBucketCandidateFinder.buildIndex called with the same list instance. Index reused.");
+            return;
+        }
+        reset();
+        this.indexedListReference = namesToIndex;
+        this.nameTable = new LiveNameTable(namesToIndex);
+        indexNames(namesToIndex);
+        System.out.println("DEBUG: LengthBucketCandidateFinder.buildIndex complete. " + this.buckets.size()
+                + " length buckets for " + namesToIndex.size() + " names.");
+    }
+
+    private void indexNames(List<Name> names) {
+        this.buckets = new TreeMap<>();
+        for (int position = 0; position < names.size(); position++) {
+            indexName(names.get(position), position);
+        }
+    }
+
+    private void indexName(Name name, int position) {
+        int length = lengthOf(name);
+        if (length >= 0) {
+            this.buckets.computeIfAbsent(length, k -> new ArrayList<>()).add(position);
+        }
+    }
+
+    @Override
+    public void addNames(List<Name> namesToAdd) {
+        if (namesToAdd == null || namesToAdd.isEmpty()) return;
+        if (this.nameTable == null) {
+            buildIndex(new ArrayList<>(namesToAdd));
+            return;
+        }
+        for (Name name : namesToAdd) {
+            indexName(name, this.nameTable.append(name));
+        }
+        System.out.println("DEBUG: LengthBucketCandidateFinder added " + namesToAdd.size() + " names incrementally.");
+    }
+
+    @Override
+    public void removeNames(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty() || this.nameTable == null) return;
+        int removedCount = this.nameTable.tombstone(idsToRemove).size();
+        System.out.println("DEBUG: LengthBucketCandidateFinder tombstoned " + removedCount + " names.");
+        if (this.nameTable.needsCompaction()) {
+            this.nameTable = this.nameTable.compact();
+            indexNames(this.nameTable.asList());
+            System.out.println("DEBUG: LengthBucketCandidateFinder compacted to " + this.nameTable.size() + " names.");
+        }
+    }
+
+    private void addBucketCandidates(Name name, List<Couple<Name>> candidatePairs) {
+        int length = lengthOf(name);
+        if (length < 0) return;
+        int lowest = (int) Math.max(0, (long) length - this.maxLengthDifference);
+        int highest = (int) Math.min(Integer.MAX_VALUE, (long) length + this.maxLengthDifference);
+        for (List<Integer> bucket : this.buckets.subMap(lowest, true, highest, true).values()) {
+            for (int position : bucket) {
+                if (this.nameTable.isLive(position)) {
+                    candidatePairs.add(new Couple<>(name, this.nameTable.get(position)));
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForSearch(Name queryName, List<Name> originalNamesList) {
+        if (queryName == null || this.nameTable == null) {
+            if (this.nameTable == null) System.err.println("Search Error (LengthBucket): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (originalNamesList != this.indexedListReference) {
+            System.err.println("Warning (Search - LengthBucket): originalNamesList differs from indexed list. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        addBucketCandidates(queryName, candidatePairs);
+        System.out.println("DEBUG: LengthBucket Search: Found " + candidatePairs.size() + " candidates within " + this.maxLengthDifference + " characters of length.");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForComparison(List<Name> listToIterate, List<Name> indexedOriginalList) {
+        if (listToIterate == null || this.nameTable == null) {
+            if (this.nameTable == null) System.err.println("Compare Error (LengthBucket): Index not built (for indexedOriginalList). Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (indexedOriginalList != this.indexedListReference) {
+            System.err.println("Warning (Compare - LengthBucket): indexedOriginalList differs from the list this finder indexed. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        for (Name nameFromIteratedList : listToIterate) {
+            addBucketCandidates(nameFromIteratedList, candidatePairs);
+        }
+        System.out.println("DEBUG: LengthBucket Compare: Generated " + candidatePairs.size() + " candidate pairs.");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForDeduplication(List<Name> originalNamesList) {
+        if (this.nameTable == null) {
+            System.err.println("Dedupe Error (LengthBucket): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (originalNamesList != this.indexedListReference) {
+            System.err.println("Warning (Dedupe - LengthBucket): originalNamesList differs from indexed list. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        // Each bucket with itself, then with the longer buckets in range: every pair once
+        for (Map.Entry<Integer, List<Integer>> bucket : this.buckets.entrySet()) {
+            List<Integer> positions = bucket.getValue();
+            for (int i = 0; i < positions.size(); i++) {
+                if (!this.nameTable.isLive(positions.get(i))) continue;
+                for (int j = i + 1; j < positions.size(); j++) {
+                    addPair(positions.get(i), positions.get(j), candidatePairs);
+                }
+            }
+            int highest = (int) Math.min(Integer.MAX_VALUE, (long) bucket.getKey() + this.maxLengthDifference);
+            for (List<Integer> longerPositions : this.buckets.subMap(bucket.getKey(), false, highest, true).values()) {
+                for (int position : positions) {
+                    if (!this.nameTable.isLive(position)) continue;
+                    for (int longerPosition : longerPositions) {
+                        addPair(position, longerPosition, candidatePairs);
+                    }
+                }
+            }
+        }
+        System.out.println("DEBUG: LengthBucket Dedupe: Generated " + candidatePairs.size() + " candidate pairs (max length difference "
+                + this.maxLengthDifference + ").");
+        return candidatePairs;
+    }
+
+    private void addPair(int position1, int position2, List<Couple<Name>> candidatePairs) {
+        if (!this.nameTable.isLive(position2)) return;
+        int first = Math.min(position1, position2);
+        int second = Math.max(position1, position2);
+        candidatePairs.add(new Couple<>(this.nameTable.get(first), this.nameTable.get(second)));
+    }
+
+    @Override
+    public String getName() {
+        return "LENGTH_BUCKET";
+    }
+
+    @Override
+    public void reset() {
+        this.indexedListReference = null;
+        this.nameTable = null;
+        this.buckets = null;
+    }
+}
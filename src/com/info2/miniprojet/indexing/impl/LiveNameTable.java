@@ -0,0 +1,139 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Name;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The names behind a finder's index, addressed by the positions stored in the index.
+ * Supports the incremental updates of CandidateFinder: added names are appended (existing positions never move)
+ * and removed names are only tombstoned, so an update costs O(delta) instead of a rebuild.
+ * Once tombstones make up too much of the table the owning finder compacts, i.e. re-indexes over compact().
+ * The list given to buildIndex is only copied the first time the table changes (append or tombstone): from then on
+ * the caller may change its own list (see Engine.updateIndex).
+ */
+final class LiveNameTable {
+
+    private static final double COMPACTION_RATIO = 0.25; // Compact once a quarter of the entries are dead
+    private static final int COMPACTION_MIN_REMOVED = 64; // ... but never for a handful of removals
+
+    private List<Name> names;
+    private boolean copied;
+    private boolean modified; // Differs from the list given to buildIndex
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+    private Map<String, List<Integer>> positionsById; // Built on first removal
+
+    LiveNameTable(List<Name> indexedNames) {
+        this(indexedNames, false);
+    }
+
+    /**
+     * @param owned true if the list already belongs to the finder (a private copy) and can be appended to directly.
+     */
+    LiveNameTable(List<Name> names, boolean owned) {
+        this.names = names;
+        this.copied = owned;
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    Name get(int position) {
+        return names.get(position);
+    }
+
+    boolean isLive(int position) {
+        return position >= 0 && position < names.size() && !removed.get(position);
+    }
+
+    boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * @return Unmodifiable view of all entries (tombstoned ones included), indexed by position.
+     */
+    List<Name> asList() {
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * @return The position of the appended name.
+     */
+    int append(Name name) {
+        if (!copied) {
+            names = new ArrayList<>(names);
+            copied = true;
+        }
+        names.add(name);
+        modified = true;
+        int position = names.size() - 1;
+        if (positionsById != null && name != null) {
+            positionsById.computeIfAbsent(name.id(), k -> new ArrayList<>(1)).add(position);
+        }
+        return position;
+    }
+
+    /**
+     * Tombstones every live name with one of the given ids.
+     *
+     * @return The positions that were removed by this call.
+     */
+    List<Integer> tombstone(Collection<String> ids) {
+        if (positionsById == null) {
+            positionsById = new HashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                Name name = names.get(i);
+                if (name != null) {
+                    positionsById.computeIfAbsent(name.id(), k -> new ArrayList<>(1)).add(i);
+                }
+            }
+        }
+        List<Integer> removedPositions = new ArrayList<>();
+        for (String id : ids) {
+            List<Integer> positions = positionsById.remove(id);
+            if (positions == null) continue;
+            if (!copied) {
+                names = new ArrayList<>(names);
+                copied = true;
+            }
+            for (int position : positions) {
+                if (!removed.get(position)) {
+                    removed.set(position);
+                    removedCount++;
+                    modified = true;
+                    removedPositions.add(position);
+                }
+            }
+        }
+        return removedPositions;
+    }
+
+    boolean needsCompaction() {
+        return removedCount >= COMPACTION_MIN_REMOVED && removedCount > names.size() * COMPACTION_RATIO;
+    }
+
+    /**
+     * @return A new table holding only the live names (renumbered from 0, in their current order).
+     *         The owning finder has to re-index over its asList().
+     */
+    LiveNameTable compact() {
+        List<Name> live = new ArrayList<>(names.size() - removedCount);
+        for (int i = 0; i < names.size(); i++) {
+            if (!removed.get(i)) {
+                live.add(names.get(i));
+            }
+        }
+        LiveNameTable compacted = new LiveNameTable(live, true);
+        compacted.modified = true;
+        return compacted;
+    }
+}
@@ -0,0 +1,483 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.comparison.NameComparator;
+import com.info2.miniprojet.comparison.impl.JaccardTokenNameComparator;
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.core.TokenDictionary;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.indexing.SimilarityThresholdAware;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Exact set-similarity join (AllPairs / PPJoin, Xiao et al.) for the JACCARD_TOKEN_SET comparator:
+ * returns exactly the pairs whose token sets have a Jaccard similarity >= threshold, no false negatives (unlike LSH)
+ * and without scoring every pair (unlike Cartesian).
+ * Tokens are ranked by increasing document frequency (from the names' token ids, no String map) and every name
+ * becomes a sorted array of token ranks. Names that don't share the indexed list's token dictionary (or a list
+ * whose names have none) are numbered by their tokens in the finder's own dictionary instead.
+ * Two sets with Jaccard >= t must share a token within their short prefixes of rare tokens (prefix filter),
+ * have compatible sizes (length filter), and can't reach the required overlap if too few tokens remain after
+ * the shared one (positional filter). Only the pairs passing all three are verified, with a merge of the two arrays.
+ * The threshold is the user's threshold when the Engine runs Jaccard in threshold mode, unless one is fixed
+ * at construction ("PPJOIN_JACCARD:THRESHOLD=0.8").
+ */
+public class PPJoinCandidateFinder implements CandidateFinder, SimilarityThresholdAware {
+
+    public static final double DEFAULT_THRESHOLD = 0.8;
+    private static final double EPSILON = 1e-9; // Keeps the size bounds on the safe side of floating point rounding
+    private static final int PRUNED = Integer.MIN_VALUE; // Overlap marker: pair ruled out by the positional filter
+
+    private final boolean thresholdFixed;
+    private double threshold;
+
+    private List<Name> indexedListReference;
+    private LiveNameTable nameTable;
+    private TokenDictionary dictionary; // The indexed names' own if they all share one, else the finder's
+    private int[] tokenRanks; // Token id (see TokenDictionary) -> rank, rarer tokens first (added tokens get the next ranks), -1 if absent
+    private int rankCount;
+    private List<int[]> tokenSets; // By position: sorted distinct token ranks, null for names without a token list
+    // Prefix index for search and comparison, built on first use for the current threshold, then extended by addNames
+    private int[][] prefixPostings;
+    private int[] prefixPostingSizes;
+    private double prefixIndexThreshold;
+    private int[] seenStamps = new int[0];
+    private int stamp;
+
+    public PPJoinCandidateFinder() {
+        this(DEFAULT_THRESHOLD, false);
+    }
+
+    /**
+     * @param threshold Jaccard similarity the returned pairs reach, in (0, 1]. Not overridden by the Engine.
+     */
+    public PPJoinCandidateFinder(double threshold) {
+        this(threshold, true);
+    }
+
+    private PPJoinCandidateFinder(double threshold, boolean thresholdFixed) {
+        if (!(threshold > 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("PPJoin threshold must be in (0, 1] (got " + threshold + ").");
+        }
+        this.threshold = threshold;
+        this.thresholdFixed = thresholdFixed;
+        reset();
+    }
+
+    @Override
+    public void setSimilarityThreshold(NameComparator comparator, double threshold) {
+        if (this.thresholdFixed || !(comparator instanceof JaccardTokenNameComparator)) return;
+        if (!(threshold > 0 && threshold <= 1)) {
+            System.err.println("Warning: PPJoin needs a Jaccard threshold in (0, 1] (got " + threshold + "), keeping " + this.threshold + ".");
+            return;
+        }
+        this.threshold = threshold;
+    }
+
+    public double getThreshold() {
+        return this.threshold;
+    }
+
+    @Override
+    public void buildIndex(List<Name> namesToIndex) {
+        if (namesToIndex == null || namesToIndex.isEmpty()) {
+            System.out.println("DEBUG: PPJoinCandidateFinder.buildIndex called with empty or null list. Resetting.");
+            reset();
+            return;
+        }
+        if (this.indexedListReference != null && this.indexedListReference == namesToIndex) {
+            System.out.println("DEBUG: PPJoinCandidateFinder.buildIndex called with the same list instance. Index reused.");
+            return;
+        }
+        reset();
+        this.indexedListReference = namesToIndex;
+        this.nameTable = new LiveNameTable(namesToIndex);
+        this.dictionary = sharedDictionary(namesToIndex);
+        indexNames(namesToIndex);
+        System.out.println("DEBUG: PPJoinCandidateFinder.buildIndex complete. " + this.rankCount
+                + " distinct tokens for " + namesToIndex.size() + " names.");
+    }
+
+    private static TokenDictionary sharedDictionary(List<Name> names) {
+        TokenDictionary shared = TokenDictionary.of(names);
+        for (Name name : names) {
+            if (name != null && name.dictionary() != shared) return new TokenDictionary();
+        }
+        return shared != null ? shared : new TokenDictionary();
+    }
+
+    // Ids of an indexed name in this.dictionary (never temporary)
+    private int[] indexedIds(Name name) {
+        int[] ids = name.tokenIds();
+        if (name.dictionary() == this.dictionary && (ids.length == 0 || ids[0] >= 0)) return ids;
+        return this.dictionary.encode(name.processedTokens());
+    }
+
+    // Global order: by document frequency, then token id, so that prefixes hold the rarest (most selective) tokens
+    private void indexNames(List<Name> names) {
+        int[] documentFrequencies = new int[this.dictionary.idLimit()];
+        int distinctCount = 0;
+        List<int[]> nameIds = new ArrayList<>(names.size());
+        for (Name name : names) {
+            int[] ids = name == null || name.processedTokens() == null ? null : indexedIds(name);
+            nameIds.add(ids);
+            if (ids == null) continue;
+            for (int i = 0; i < ids.length; i++) {
+                if (i > 0 && ids[i] == ids[i - 1]) continue;
+                if (ids[i] >= documentFrequencies.length) { // Name made after the array was sized
+                    documentFrequencies = Arrays.copyOf(documentFrequencies, Math.max(ids[i] + 1, documentFrequencies.length * 2));
+                }
+                if (documentFrequencies[ids[i]]++ == 0) distinctCount++;
+            }
+        }
+        long[] order = new long[distinctCount]; // (frequency << 32 | token id)
+        int next = 0;
+        for (int id = 0; id < documentFrequencies.length; id++) {
+            if (documentFrequencies[id] > 0) order[next++] = ((long) documentFrequencies[id] << 32) | id;
+        }
+        Arrays.sort(order);
+        this.tokenRanks = new int[documentFrequencies.length];
+        Arrays.fill(this.tokenRanks, -1);
+        for (int rank = 0; rank < order.length; rank++) {
+            this.tokenRanks[(int) order[rank]] = rank;
+        }
+        this.rankCount = order.length;
+        this.tokenSets = new ArrayList<>(names.size());
+        for (int[] ids : nameIds) {
+            this.tokenSets.add(indexedTokenSet(ids));
+        }
+        this.prefixPostings = null;
+    }
+
+    // The comparator's view of a name: the set of its processed tokens, compared as is (case included)
+    private int[] indexedTokenSet(int[] ids) {
+        if (ids == null) return null;
+        int[] ranks = new int[ids.length];
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0 && ids[i] == ids[i - 1]) continue;
+            int id = ids[i];
+            if (id >= this.tokenRanks.length) {
+                int oldLength = this.tokenRanks.length;
+                this.tokenRanks = Arrays.copyOf(this.tokenRanks, Math.max(id + 1, oldLength * 2));
+                Arrays.fill(this.tokenRanks, oldLength, this.tokenRanks.length, -1);
+            }
+            if (this.tokenRanks[id] < 0) { // Token first seen in an added name
+                this.tokenRanks[id] = this.rankCount++;
+            }
+            ranks[count++] = this.tokenRanks[id];
+        }
+        ranks = Arrays.copyOf(ranks, count);
+        Arrays.sort(ranks);
+        return ranks;
+    }
+
+    // Tokens the index has never seen can't match anything: they get distinct negative ranks, i.e. come first
+    private int[] queryTokenSet(Name name) {
+        if (name.processedTokens() == null) return null;
+        int[] ids = name.dictionary() == this.dictionary ? name.tokenIds() : this.dictionary.encodeQuery(name.processedTokens());
+        int[] ranks = new int[ids.length];
+        int count = 0;
+        int unknownRank = -1;
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0 && ids[i] == ids[i - 1]) continue;
+            int rank = ids[i] >= 0 && ids[i] < this.tokenRanks.length ? this.tokenRanks[ids[i]] : -1; // Temporary query ids are negative
+            ranks[count++] = rank >= 0 ? rank : unknownRank--;
+        }
+        ranks = Arrays.copyOf(ranks, count);
+        Arrays.sort(ranks);
+        return ranks;
+    }
+
+    @Override
+    public void addNames(List<Name> namesToAdd) {
+        if (namesToAdd == null || namesToAdd.isEmpty()) return;
+        if (this.nameTable == null) {
+            buildIndex(new ArrayList<>(namesToAdd));
+            return;
+        }
+        for (Name name : namesToAdd) {
+            int position = this.nameTable.append(name);
+            int[] set = indexedTokenSet(name == null || name.processedTokens() == null ? null : indexedIds(name));
+            this.tokenSets.add(set);
+            if (this.prefixPostings != null) {
+                addPrefixPostings(position, set); // The ranks of known tokens never change, so the other postings stay valid
+            }
+        }
+        System.out.println("DEBUG: PPJoinCandidateFinder added " + namesToAdd.size() + " names incrementally.");
+    }
+
+    @Override
+    public void removeNames(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty() || this.nameTable == null) return;
+        int removedCount = this.nameTable.tombstone(idsToRemove).size();
+        System.out.println("DEBUG: PPJoinCandidateFinder tombstoned " + removedCount + " names.");
+        if (this.nameTable.needsCompaction()) {
+            this.nameTable = this.nameTable.compact();
+            indexNames(this.nameTable.asList());
+            System.out.println("DEBUG: PPJoinCandidateFinder compacted to " + this.nameTable.size() + " names.");
+        }
+    }
+
+    // --- Bounds (t = threshold): J(x, y) >= t implies |x intersection y| >= t * max(|x|, |y|) and t/(1+t) * (|x| + |y|) ---
+
+    private int minOverlap(double factor, int size) {
+        return (int) Math.ceil(factor * size - EPSILON);
+    }
+
+    // Prefix of x that must share a token with the prefix of any y with J(x, y) >= t
+    private int probePrefixLength(int size) {
+        return size - minOverlap(this.threshold, size) + 1;
+    }
+
+    private boolean reachesThreshold(int[] set1, int[] set2) {
+        int overlap = overlap(set1, set2);
+        return (double) overlap / (set1.length + set2.length - overlap) >= this.threshold;
+    }
+
+    private static int overlap(int[] set1, int[] set2) {
+        int overlap = 0;
+        for (int i = 0, j = 0; i < set1.length && j < set2.length; ) {
+            if (set1[i] == set2[j]) {
+                overlap++;
+                i++;
+                j++;
+            } else if (set1[i] < set2[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return overlap;
+    }
+
+    // --- Search and comparison: probe an index of the prefixes of the indexed names ---
+
+    private void ensurePrefixIndex() {
+        if (this.prefixPostings != null && this.prefixIndexThreshold == this.threshold) return;
+        this.prefixPostings = new int[this.rankCount][];
+        this.prefixPostingSizes = new int[this.rankCount];
+        for (int position = 0; position < this.tokenSets.size(); position++) {
+            if (this.nameTable.isLive(position)) {
+                addPrefixPostings(position, this.tokenSets.get(position));
+            }
+        }
+        this.prefixIndexThreshold = this.threshold;
+    }
+
+    // Indexes the probe prefix of one name (tokens added since the index was sized get their posting slots here)
+    private void addPrefixPostings(int position, int[] set) {
+        if (set == null) return;
+        if (this.rankCount > this.prefixPostings.length) {
+            int length = Math.max(this.rankCount, this.prefixPostings.length * 2);
+            this.prefixPostings = Arrays.copyOf(this.prefixPostings, length);
+            this.prefixPostingSizes = Arrays.copyOf(this.prefixPostingSizes, length);
+        }
+        int prefixLength = probePrefixLength(set.length);
+        for (int i = 0; i < prefixLength && i < set.length; i++) {
+            addPosting(this.prefixPostings, this.prefixPostingSizes, set[i], position);
+        }
+    }
+
+    private static void addPosting(int[][] postings, int[] sizes, int rank, int value) {
+        int[] posting = postings[rank];
+        if (posting == null) {
+            posting = postings[rank] = new int[4];
+        } else if (sizes[rank] == posting.length) {
+            posting = postings[rank] = Arrays.copyOf(posting, posting.length * 2);
+        }
+        posting[sizes[rank]++] = value;
+    }
+
+    /**
+     * Live positions whose token set has a Jaccard similarity >= threshold with the query's.
+     */
+    private List<Integer> lookup(Name query) {
+        List<Integer> matches = new ArrayList<>();
+        if (query == null) return matches;
+        int[] querySet = queryTokenSet(query);
+        if (querySet == null || querySet.length == 0) { // Only equal to the other empty (or token-less) names
+            for (int position = 0; position < this.tokenSets.size(); position++) {
+                int[] set = this.tokenSets.get(position);
+                boolean sameKind = querySet == null ? set == null : set != null && set.length == 0;
+                if (sameKind && this.nameTable.isLive(position)) matches.add(position);
+            }
+            return matches;
+        }
+        ensurePrefixIndex();
+        if (this.seenStamps.length < this.tokenSets.size()) {
+            this.seenStamps = Arrays.copyOf(this.seenStamps, Math.max(this.tokenSets.size(), this.seenStamps.length * 2));
+        }
+        if (++this.stamp == Integer.MAX_VALUE) { // Wrapped around, start over
+            Arrays.fill(this.seenStamps, 0);
+            this.stamp = 1;
+        }
+        int minSize = minOverlap(this.threshold, querySet.length);
+        double maxSize = querySet.length / this.threshold + EPSILON;
+        int prefixLength = probePrefixLength(querySet.length);
+        for (int i = 0; i < prefixLength; i++) {
+            int rank = querySet[i];
+            if (rank < 0 || rank >= this.prefixPostings.length || this.prefixPostings[rank] == null) continue;
+            int[] posting = this.prefixPostings[rank];
+            for (int k = 0; k < this.prefixPostingSizes[rank]; k++) {
+                int position = posting[k];
+                if (this.seenStamps[position] == this.stamp) continue;
+                this.seenStamps[position] = this.stamp;
+                int[] set = this.tokenSets.get(position);
+                if (set.length < minSize || set.length > maxSize || !this.nameTable.isLive(position)) continue;
+                if (reachesThreshold(querySet, set)) matches.add(position);
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForSearch(Name queryName, List<Name> originalNamesList) {
+        if (queryName == null || this.nameTable == null) {
+            if (this.nameTable == null) System.err.println("Search Error (PPJoin): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (originalNamesList != this.indexedListReference) {
+            System.err.println("Warning (Search - PPJoin): originalNamesList differs from indexed list. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        for (int position : lookup(queryName)) {
+            candidatePairs.add(new Couple<>(queryName, this.nameTable.get(position)));
+        }
+        System.out.println("DEBUG: PPJoin Search: Found " + candidatePairs.size() + " names with Jaccard >= " + this.threshold + ".");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForComparison(List<Name> listToIterate, List<Name> indexedOriginalList) {
+        if (listToIterate == null || this.nameTable == null) {
+            if (this.nameTable == null) System.err.println("Compare Error (PPJoin): Index not built (for indexedOriginalList). Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (indexedOriginalList != this.indexedListReference) {
+            System.err.println("Warning (Compare - PPJoin): indexedOriginalList differs from the list this finder indexed. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        for (Name nameFromIteratedList : listToIterate) {
+            for (int position : lookup(nameFromIteratedList)) {
+                candidatePairs.add(new Couple<>(nameFromIteratedList, this.nameTable.get(position)));
+            }
+        }
+        System.out.println("DEBUG: PPJoin Compare: Generated " + candidatePairs.size() + " pairs with Jaccard >= " + this.threshold + ".");
+        return candidatePairs;
+    }
+
+    // --- Deduplication: PPJoin self-join, names visited by increasing size and indexed as they are visited ---
+
+    @Override
+    public List<Couple<Name>> findCandidatesForDeduplication(List<Name> originalNamesList) {
+        if (this.nameTable == null) {
+            System.err.println("Dedupe Error (PPJoin): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (originalNamesList != this.indexedListReference) {
+            System.err.println("Warning (Dedupe - PPJoin): originalNamesList differs from indexed list. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        List<Integer> tokenless = new ArrayList<>();
+        List<Integer> empty = new ArrayList<>();
+        List<Integer> order = new ArrayList<>();
+        for (int position = 0; position < this.tokenSets.size(); position++) {
+            if (!this.nameTable.isLive(position)) continue;
+            int[] set = this.tokenSets.get(position);
+            if (set == null) tokenless.add(position);
+            else if (set.length == 0) empty.add(position);
+            else order.add(position);
+        }
+        // The comparator scores two token-less (or two empty) names 1.0: every such pair qualifies
+        addAllPairs(tokenless, candidatePairs);
+        addAllPairs(empty, candidatePairs);
+        order.sort(Comparator.comparingInt((Integer position) -> this.tokenSets.get(position).length).thenComparingInt(position -> position));
+
+        long[][] postings = new long[this.rankCount][]; // (position << 32 | index of the token in its set)
+        int[] postingSizes = new int[this.rankCount];
+        int[] overlaps = new int[this.tokenSets.size()];
+        int[] touched = new int[this.tokenSets.size()];
+        double indexFactor = 2 * this.threshold / (1 + this.threshold);
+        double pairFactor = this.threshold / (1 + this.threshold);
+        long verified = 0;
+        for (int position : order) {
+            int[] set = this.tokenSets.get(position);
+            int size = set.length;
+            int minSize = minOverlap(this.threshold, size);
+            int touchedCount = 0;
+            for (int i = 0, prefixLength = probePrefixLength(size); i < prefixLength; i++) {
+                int rank = set[i];
+                long[] posting = postings[rank];
+                if (posting == null) continue;
+                for (int k = 0; k < postingSizes[rank]; k++) {
+                    int other = (int) (posting[k] >>> 32);
+                    int otherIndex = (int) posting[k];
+                    int otherSize = this.tokenSets.get(other).length;
+                    if (otherSize < minSize || overlaps[other] == PRUNED) continue; // Length filter
+                    int requiredOverlap = minOverlap(pairFactor, size + otherSize);
+                    int remaining = Math.min(size - i, otherSize - otherIndex); // Positional filter: best case from here on
+                    if (overlaps[other] == 0) touched[touchedCount++] = other;
+                    overlaps[other] = overlaps[other] + remaining >= requiredOverlap ? overlaps[other] + 1 : PRUNED;
+                }
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                if (overlaps[other] != PRUNED) {
+                    verified++;
+                    if (reachesThreshold(set, this.tokenSets.get(other))) {
+                        int first = Math.min(position, other);
+                        int second = Math.max(position, other);
+                        candidatePairs.add(new Couple<>(this.nameTable.get(first), this.nameTable.get(second)));
+                    }
+                }
+                overlaps[other] = 0;
+            }
+            // Later (not smaller) names only need this shorter prefix of it to be found
+            for (int i = 0, indexPrefixLength = size - minOverlap(indexFactor, size) + 1; i < indexPrefixLength; i++) {
+                int rank = set[i];
+                long[] posting = postings[rank];
+                if (posting == null) {
+                    posting = postings[rank] = new long[4];
+                } else if (postingSizes[rank] == posting.length) {
+                    posting = postings[rank] = Arrays.copyOf(posting, posting.length * 2);
+                }
+                posting[postingSizes[rank]++] = ((long) position << 32) | i;
+            }
+        }
+        System.out.println("DEBUG: PPJoin Dedupe: Verified " + verified + " pairs, " + candidatePairs.size()
+                + " with Jaccard >= " + this.threshold + ".");
+        return candidatePairs;
+    }
+
+    private void addAllPairs(List<Integer> positions, List<Couple<Name>> candidatePairs) {
+        for (int i = 0; i < positions.size(); i++) {
+            for (int j = i + 1; j < positions.size(); j++) {
+                candidatePairs.add(new Couple<>(this.nameTable.get(positions.get(i)), this.nameTable.get(positions.get(j))));
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "PPJOIN_JACCARD";
+    }
+
+    @Override
+    public void reset() {
+        this.indexedListReference = null;
+        this.nameTable = null;
+        this.dictionary = null;
+        this.tokenRanks = null;
+        this.rankCount = 0;
+        this.tokenSets = null;
+        this.prefixPostings = null;
+        this.prefixPostingSizes = null;
+    }
+}
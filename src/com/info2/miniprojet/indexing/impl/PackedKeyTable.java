@@ -0,0 +1,288 @@
+package com.info2.miniprojet.indexing.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only map from string keys to ascending int postings, for exact-key indexes of millions of names.
+ * A HashMap costs a node, a String and an ArrayList of boxed Integers per key (well over 100 bytes);
+ * here everything sits in a few flat arrays, about 40 bytes per key plus 4 per posting:
+ * <ul>
+ *   <li>keys are packed back to back in one byte arena, Latin-1 (or UTF-8 for keys with other chars),</li>
+ *   <li>open-addressing slots hold a 32-bit hash fingerprint and the key id in one long, so a probe
+ *       compares key bytes only when the fingerprint matches,</li>
+ *   <li>the postings of all keys share one int array, key i owning [postingStarts[i], postingStarts[i + 1]).</li>
+ * </ul>
+ * Slots are chosen by the top bits of the key hash and keys are numbered in hash order, so the slots, bytes
+ * and postings of one hash range are contiguous: probes grouped by those bits (see PartitionedHashJoin)
+ * read the table sequentially.
+ */
+final class PackedKeyTable {
+
+    private static final double MAX_LOAD = 0.6;
+    private static final int MIN_SLOT_BITS = 3;
+
+    private final long[] slots; // (fingerprint << 32) | (key id + 1), 0 = free
+    private final int slotBits;
+    private final byte[] keyBytes;
+    private final int[] keyStarts; // Key i is keyBytes[keyStarts[i], keyStarts[i + 1])
+    private final BitSet utf8Keys; // Keys with a char above 0xFF, stored as UTF-8
+    private final int[] postingStarts;
+    private final int[] postings;
+
+    private PackedKeyTable(long[] slots, int slotBits, byte[] keyBytes, int[] keyStarts, BitSet utf8Keys, int[] postingStarts, int[] postings) {
+        this.slots = slots;
+        this.slotBits = slotBits;
+        this.keyBytes = keyBytes;
+        this.keyStarts = keyStarts;
+        this.utf8Keys = utf8Keys;
+        this.postingStarts = postingStarts;
+        this.postings = postings;
+    }
+
+    /**
+     * @param keys Key of each position (null = position not indexed).
+     * @return A table mapping each distinct key to its positions, ascending.
+     */
+    static PackedKeyTable build(String[] keys) {
+        // Distinct keys, in a provisional table sized for the worst case (all keys distinct)
+        int present = 0;
+        for (String key : keys) {
+            if (key != null) present++;
+        }
+        int provisionalBits = slotBitsFor(present);
+        int[] provisionalSlots = new int[1 << provisionalBits]; // Provisional id + 1, 0 = free
+        int provisionalMask = provisionalSlots.length - 1;
+        String[] distinctKeys = new String[present];
+        long[] distinctHashes = new long[present];
+        int[] counts = new int[present];
+        int[] keyIds = new int[keys.length];
+        int distinct = 0;
+        for (int position = 0; position < keys.length; position++) {
+            String key = keys[position];
+            if (key == null) {
+                keyIds[position] = -1;
+                continue;
+            }
+            long hash = hashOf(key);
+            int slot = homeSlot(hash, provisionalBits);
+            int id;
+            while (true) {
+                id = provisionalSlots[slot] - 1;
+                if (id < 0) {
+                    id = distinct++;
+                    provisionalSlots[slot] = id + 1;
+                    distinctKeys[id] = key;
+                    distinctHashes[id] = hash;
+                    break;
+                }
+                if (distinctHashes[id] == hash && distinctKeys[id].equals(key)) break;
+                slot = (slot + 1) & provisionalMask;
+            }
+            counts[id]++;
+            keyIds[position] = id;
+        }
+
+        // Final ids in hash order: sort (top hash bits | provisional id), unsigned
+        int idBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, distinct));
+        long idMask = (1L << idBits) - 1;
+        long[] order = new long[distinct];
+        for (int id = 0; id < distinct; id++) {
+            order[id] = ((distinctHashes[id] & ~idMask) | id) ^ Long.MIN_VALUE;
+        }
+        Arrays.sort(order);
+        int[] finalIds = new int[distinct];
+        for (int rank = 0; rank < distinct; rank++) {
+            finalIds[(int) (order[rank] & idMask)] = rank;
+        }
+
+        // Slots, key arena and posting offsets, filled in final id order
+        int slotBits = slotBitsFor(distinct);
+        long[] slots = new long[1 << slotBits];
+        int mask = slots.length - 1;
+        byte[][] encodedKeys = new byte[distinct][];
+        BitSet utf8Keys = new BitSet();
+        int[] keyStarts = new int[distinct + 1];
+        int[] postingStarts = new int[distinct + 1];
+        for (int rank = 0; rank < distinct; rank++) {
+            int id = (int) (order[rank] & idMask);
+            long hash = distinctHashes[id];
+            int slot = homeSlot(hash, slotBits);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = (hash << 32) | (rank + 1);
+            String key = distinctKeys[id];
+            boolean latin1 = isLatin1(key);
+            encodedKeys[rank] = key.getBytes(latin1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            if (!latin1) utf8Keys.set(rank);
+            keyStarts[rank + 1] = keyStarts[rank] + encodedKeys[rank].length;
+            postingStarts[rank + 1] = postingStarts[rank] + counts[id];
+        }
+        byte[] keyBytes = new byte[keyStarts[distinct]];
+        for (int rank = 0; rank < distinct; rank++) {
+            System.arraycopy(encodedKeys[rank], 0, keyBytes, keyStarts[rank], encodedKeys[rank].length);
+        }
+
+        // Postings, scanned by position so each key's list is ascending
+        int[] postings = new int[postingStarts[distinct]];
+        int[] next = Arrays.copyOf(postingStarts, distinct);
+        for (int position = 0; position < keys.length; position++) {
+            if (keyIds[position] >= 0) {
+                postings[next[finalIds[keyIds[position]]]++] = position;
+            }
+        }
+        return new PackedKeyTable(slots, slotBits, keyBytes, keyStarts, utf8Keys, postingStarts, postings);
+    }
+
+    /**
+     * @return The id of the key (0 to keyCount() - 1), or -1 if absent.
+     */
+    int find(String key) {
+        return find(key, hashOf(key));
+    }
+
+    /**
+     * @param hash hashOf(key), when the caller already has it.
+     */
+    int find(String key, long hash) {
+        int mask = this.slots.length - 1;
+        int fingerprint = (int) hash;
+        for (int slot = homeSlot(hash, this.slotBits); ; slot = (slot + 1) & mask) {
+            long entry = this.slots[slot];
+            if (entry == 0) return -1;
+            if ((int) (entry >>> 32) == fingerprint) {
+                int id = (int) entry - 1;
+                if (keyEquals(id, key)) return id;
+            }
+        }
+    }
+
+    private boolean keyEquals(int id, String key) {
+        int start = this.keyStarts[id];
+        int end = this.keyStarts[id + 1];
+        if (this.utf8Keys.get(id)) {
+            byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+            return Arrays.equals(this.keyBytes, start, end, encoded, 0, encoded.length);
+        }
+        if (end - start != key.length()) return false;
+        for (int i = 0; i < key.length(); i++) {
+            if ((this.keyBytes[start + i] & 0xFF) != key.charAt(i)) return false; // A char above 0xFF never matches
+        }
+        return true;
+    }
+
+    int keyCount() {
+        return this.keyStarts.length - 1;
+    }
+
+    String key(int id) {
+        int start = this.keyStarts[id];
+        return new String(this.keyBytes, start, this.keyStarts[id + 1] - start,
+                this.utf8Keys.get(id) ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Postings of key id are posting(i) for postingStart(id) <= i < postingEnd(id).
+     */
+    int postingStart(int id) {
+        return this.postingStarts[id];
+    }
+
+    int postingEnd(int id) {
+        return this.postingStarts[id + 1];
+    }
+
+    int posting(int index) {
+        return this.postings[index];
+    }
+
+    /**
+     * @return The postings of key id as an unmodifiable list view (boxes on access, for the non-critical paths).
+     */
+    List<Integer> positions(int id) {
+        return new PostingList(this.postings, this.postingStarts[id], this.postingStarts[id + 1]);
+    }
+
+    /**
+     * @return The keys, decoded on access.
+     */
+    List<String> keys() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int id) {
+                return key(id);
+            }
+
+            @Override
+            public int size() {
+                return keyCount();
+            }
+        };
+    }
+
+    /**
+     * @return Approximate heap footprint of the arrays, in bytes.
+     */
+    long byteSize() {
+        return 8L * this.slots.length + this.keyBytes.length + 4L * this.keyStarts.length
+                + 4L * this.postingStarts.length + 4L * this.postings.length + this.utf8Keys.size() / 8;
+    }
+
+    // String.hashCode (cached, and computed with vector instructions) spread to 64 bits by the MurmurHash3 finalizer:
+    // the top bits pick the slot, the low 32 are the fingerprint
+    static long hashOf(String key) {
+        long hash = key.hashCode() * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static int homeSlot(long hash, int slotBits) {
+        return (int) (hash >>> (64 - slotBits));
+    }
+
+    private static int slotBitsFor(int keyCount) {
+        long wanted = (long) Math.ceil(keyCount / MAX_LOAD) + 1;
+        return Math.max(MIN_SLOT_BITS, Math.min(30, 64 - Long.numberOfLeadingZeros(wanted - 1)));
+    }
+
+    private static boolean isLatin1(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) > 0xFF) return false;
+        }
+        return true;
+    }
+
+    private static final class PostingList extends AbstractList<Integer> implements RandomAccess {
+        private final int[] postings;
+        private final int from;
+        private final int to;
+
+        PostingList(int[] postings, int from, int to) {
+            this.postings = postings;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= this.to - this.from) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + (this.to - this.from));
+            }
+            return this.postings[this.from + index];
+        }
+
+        @Override
+        public int size() {
+            return this.to - this.from;
+        }
+    }
+}
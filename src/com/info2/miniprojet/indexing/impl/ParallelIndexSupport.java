@@ -0,0 +1,234 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Name;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Helpers shared by the finders to build their indexes on all cores.
+ * Extracting the key (joining/lowercasing tokens) is what dominates buildIndex on big lists,
+ * so that part runs in parallel. Grouping is then done in one HashMap per contiguous shard of the list,
+ * and the shards are merged in order, so every posting list ends up in ascending index order,
+ * exactly like the sequential build.
+ */
+final class ParallelIndexSupport {
+
+    // Below this size the fork/join overhead costs more than it saves
+    static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+
+    private ParallelIndexSupport() {
+    }
+
+    static boolean shouldParallelize(List<Name> names, int threshold) {
+        return names != null && names.size() >= threshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Computes the index key of every name (null entries mean "not indexed").
+     */
+    static String[] computeKeys(List<Name> names, Function<Name, String> keyFunction, boolean parallel) {
+        String[] keys = new String[names.size()];
+        IntStream range = IntStream.range(0, keys.length);
+        if (parallel) {
+            range = range.parallel();
+        }
+        range.forEach(i -> keys[i] = keyFunction.apply(names.get(i)));
+        return keys;
+    }
+
+    /**
+     * Groups indices by key. Posting lists are in ascending index order whichever path is taken.
+     */
+    static Map<String, List<Integer>> groupByKey(String[] keys, boolean parallel) {
+        if (!parallel) {
+            return groupRange(keys, 0, keys.length);
+        }
+        int shardCount = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        int shardSize = (keys.length + shardCount - 1) / shardCount;
+        // collect() keeps encounter order, so shard s always comes after shard s-1
+        List<Map<String, List<Integer>>> shards = IntStream.range(0, shardCount)
+                .parallel()
+                .mapToObj(s -> groupRange(keys, Math.min(keys.length, s * shardSize), Math.min(keys.length, (s + 1) * shardSize)))
+                .collect(Collectors.toList());
+
+        Map<String, List<Integer>> merged = shards.get(0);
+        for (int s = 1; s < shards.size(); s++) {
+            for (Map.Entry<String, List<Integer>> entry : shards.get(s).entrySet()) {
+                merged.merge(entry.getKey(), entry.getValue(), (existing, later) -> {
+                    existing.addAll(later);
+                    return existing;
+                });
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Groups indices by key like groupByKey, as a map sorted by key, so that new TreeMap<>(result) builds the
+     * tree in linear time (TreeMap's bulk build from a SortedMap) instead of one balanced insert per key.
+     * In parallel, each shard is grouped on its own, the distinct keys are parallel-sorted, and each key's
+     * posting list is concatenated from the shards in order, keys spread over all cores.
+     */
+    static SortedMap<String, List<Integer>> groupByKeySorted(String[] keys, boolean parallel) {
+        List<Map<String, List<Integer>>> shards;
+        if (parallel) {
+            int shardCount = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+            int shardSize = (keys.length + shardCount - 1) / shardCount;
+            shards = IntStream.range(0, shardCount)
+                    .parallel()
+                    .mapToObj(s -> groupRange(keys, Math.min(keys.length, s * shardSize), Math.min(keys.length, (s + 1) * shardSize)))
+                    .collect(Collectors.toList());
+        } else {
+            shards = List.of(groupRange(keys, 0, keys.length));
+        }
+
+        int keyCount = 0;
+        for (Map<String, List<Integer>> shard : shards) {
+            keyCount += shard.size();
+        }
+        String[] sortedKeys = new String[keyCount];
+        int next = 0;
+        for (Map<String, List<Integer>> shard : shards) {
+            for (String key : shard.keySet()) {
+                sortedKeys[next++] = key;
+            }
+        }
+        if (parallel) {
+            Arrays.parallelSort(sortedKeys);
+        } else {
+            Arrays.sort(sortedKeys);
+        }
+        int distinctCount = 0; // A key found in several shards is listed once per shard
+        for (int i = 0; i < sortedKeys.length; i++) {
+            if (i == 0 || !sortedKeys[i].equals(sortedKeys[distinctCount - 1])) {
+                sortedKeys[distinctCount++] = sortedKeys[i];
+            }
+        }
+        String[] distinctKeys = Arrays.copyOf(sortedKeys, distinctCount);
+
+        // Filled by index only (set() makes no structural change, safe from several threads)
+        List<List<Integer>> postings = new ArrayList<>(Collections.nCopies(distinctCount, null));
+        if (shards.size() == 1) {
+            Map<String, List<Integer>> shard = shards.get(0);
+            for (int k = 0; k < distinctCount; k++) {
+                postings.set(k, shard.get(distinctKeys[k]));
+            }
+        } else {
+            IntStream.range(0, distinctCount).parallel().forEach(k -> {
+                List<Integer> posting = null;
+                for (Map<String, List<Integer>> shard : shards) { // Shard order = ascending indices
+                    List<Integer> part = shard.get(distinctKeys[k]);
+                    if (part == null) continue;
+                    if (posting == null) {
+                        posting = part;
+                    } else {
+                        posting.addAll(part);
+                    }
+                }
+                postings.set(k, posting);
+            });
+        }
+        return new SortedArrayMap(distinctKeys, postings);
+    }
+
+    private static Map<String, List<Integer>> groupRange(String[] keys, int from, int to) {
+        Map<String, List<Integer>> groups = new HashMap<>();
+        for (int i = from; i < to; i++) {
+            if (keys[i] != null) {
+                groups.computeIfAbsent(keys[i], k -> new ArrayList<>()).add(i);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Read-only sorted view over parallel arrays of distinct ascending keys and their posting lists: just what
+     * the TreeMap(SortedMap) constructor reads (comparator, size, entries in order) for its bulk build.
+     */
+    private static final class SortedArrayMap extends AbstractMap<String, List<Integer>> implements SortedMap<String, List<Integer>> {
+        private final String[] keys;
+        private final List<List<Integer>> values;
+
+        SortedArrayMap(String[] keys, List<List<Integer>> values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        @Override
+        public Set<Entry<String, List<Integer>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, List<Integer>>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return this.next < keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, List<Integer>> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            int i = this.next++;
+                            return new SimpleImmutableEntry<>(keys[i], values.get(i));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+
+        @Override
+        public Comparator<? super String> comparator() {
+            return null; // Natural order
+        }
+
+        @Override
+        public String firstKey() {
+            if (this.keys.length == 0) throw new NoSuchElementException();
+            return this.keys[0];
+        }
+
+        @Override
+        public String lastKey() {
+            if (this.keys.length == 0) throw new NoSuchElementException();
+            return this.keys[this.keys.length - 1];
+        }
+
+        @Override
+        public SortedMap<String, List<Integer>> subMap(String fromKey, String toKey) {
+            throw new UnsupportedOperationException("Only meant to be copied into a TreeMap.");
+        }
+
+        @Override
+        public SortedMap<String, List<Integer>> headMap(String toKey) {
+            throw new UnsupportedOperationException("Only meant to be copied into a TreeMap.");
+        }
+
+        @Override
+        public SortedMap<String, List<Integer>> tailMap(String fromKey) {
+            throw new UnsupportedOperationException("Only meant to be copied into a TreeMap.");
+        }
+    }
+}
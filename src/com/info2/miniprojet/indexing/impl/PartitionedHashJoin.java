@@ -0,0 +1,177 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Radix-partitioned hash join for exact-key comparison of two big lists.
+ * Both sides (the keys of the index and the keys of the names to compare) are split into partitions by the
+ * top bits of the key hash, so that each partition's hash table stays small enough to be cache resident,
+ * then the partitions are joined independently on all cores. Probing one global map with millions of
+ * keys instead misses the cache on nearly every lookup and uses a single core.
+ * Pairs come out partition by partition (in name order within a partition), not in the order of the probed list.
+ */
+final class PartitionedHashJoin {
+
+    // Distinct index keys per partition: a few hundred KB of table, fits in L2
+    private static final int TARGET_KEYS_PER_PARTITION = 4096;
+    private static final int MAX_PARTITION_BITS = 14;
+
+    private PartitionedHashJoin() {
+    }
+
+    /**
+     * @param probeNames Names to look up (comparison's listToIterate).
+     * @param probeKeys  Their keys, computed by the finder (null = no key, never matched).
+     * @param index      The finder's index: key to positions in nameTable.
+     * @return (probe name, live indexed name) for every pair sharing a key.
+     */
+    static List<Couple<Name>> join(List<Name> probeNames, String[] probeKeys, Map<String, List<Integer>> index, LiveNameTable nameTable) {
+        int partitionBits = partitionBits(index.size());
+        int partitionCount = 1 << partitionBits;
+
+        // Build side: the index entries, grouped by partition
+        List<Map.Entry<String, List<Integer>>> entries = new ArrayList<>(index.entrySet());
+        int[] entryPartitions = new int[entries.size()];
+        IntStream.range(0, entries.size()).parallel().forEach(i -> entryPartitions[i] = partitionOf(entries.get(i).getKey(), partitionBits));
+        int[] entryOffsets = new int[partitionCount + 1];
+        int[] entryOrder = scatter(entryPartitions, entryOffsets);
+
+        // Probe side: positions in probeNames, grouped by partition (ascending within each)
+        int[] probePartitions = new int[probeKeys.length];
+        IntStream.range(0, probeKeys.length).parallel().forEach(i -> probePartitions[i] = probeKeys[i] == null ? -1 : partitionOf(probeKeys[i], partitionBits));
+        int[] probeOffsets = new int[partitionCount + 1];
+        int[] probeOrder = scatter(probePartitions, probeOffsets);
+
+        return joinPartitions(partitionCount, partition -> {
+            List<Couple<Name>> pairs = new ArrayList<>();
+            int probeStart = probeOffsets[partition];
+            int probeEnd = probeOffsets[partition + 1];
+            if (probeStart == probeEnd) return pairs;
+            int entryStart = entryOffsets[partition];
+            int entryEnd = entryOffsets[partition + 1];
+            Map<String, List<Integer>> table = new HashMap<>(Math.max(16, (int) ((entryEnd - entryStart) / 0.75f) + 1));
+            for (int e = entryStart; e < entryEnd; e++) {
+                Map.Entry<String, List<Integer>> entry = entries.get(entryOrder[e]);
+                table.put(entry.getKey(), entry.getValue());
+            }
+            for (int p = probeStart; p < probeEnd; p++) {
+                int probe = probeOrder[p];
+                List<Integer> positions = table.get(probeKeys[probe]);
+                if (positions == null) continue;
+                for (int position : positions) {
+                    if (nameTable.isLive(position)) {
+                        pairs.add(new Couple<>(probeNames.get(probe), nameTable.get(position)));
+                    }
+                }
+            }
+            return pairs;
+        });
+    }
+
+    /**
+     * Same join against a PackedKeyTable. Its keys are already laid out by the top bits of their hash, so only
+     * the probes are partitioned (by the same bits): each partition reads one contiguous stretch of the table.
+     *
+     * @param addedIndex Keys added since the table was built, to positions in nameTable (may be empty).
+     */
+    static List<Couple<Name>> join(List<Name> probeNames, String[] probeKeys, PackedKeyTable index, Map<String, List<Integer>> addedIndex,
+                                   LiveNameTable nameTable) {
+        int partitionBits = partitionBits(index.keyCount() + addedIndex.size());
+        int partitionCount = 1 << partitionBits;
+
+        long[] probeHashes = new long[probeKeys.length];
+        int[] probePartitions = new int[probeKeys.length];
+        IntStream.range(0, probeKeys.length).parallel().forEach(i -> {
+            if (probeKeys[i] == null) {
+                probePartitions[i] = -1;
+            } else {
+                probeHashes[i] = PackedKeyTable.hashOf(probeKeys[i]);
+                probePartitions[i] = partitionBits == 0 ? 0 : (int) (probeHashes[i] >>> (64 - partitionBits));
+            }
+        });
+        int[] probeOffsets = new int[partitionCount + 1];
+        int[] probeOrder = scatter(probePartitions, probeOffsets);
+
+        return joinPartitions(partitionCount, partition -> {
+            List<Couple<Name>> pairs = new ArrayList<>();
+            for (int p = probeOffsets[partition]; p < probeOffsets[partition + 1]; p++) {
+                int probe = probeOrder[p];
+                Name probeName = probeNames.get(probe);
+                int id = index.find(probeKeys[probe], probeHashes[probe]);
+                if (id >= 0) {
+                    for (int i = index.postingStart(id), end = index.postingEnd(id); i < end; i++) {
+                        int position = index.posting(i);
+                        if (nameTable.isLive(position)) {
+                            pairs.add(new Couple<>(probeName, nameTable.get(position)));
+                        }
+                    }
+                }
+                List<Integer> added = addedIndex.isEmpty() ? null : addedIndex.get(probeKeys[probe]);
+                if (added == null) continue;
+                for (int position : added) {
+                    if (nameTable.isLive(position)) {
+                        pairs.add(new Couple<>(probeName, nameTable.get(position)));
+                    }
+                }
+            }
+            return pairs;
+        });
+    }
+
+    // Runs the partitions on all cores; collect() keeps partition order, the output is the same on every run
+    private static List<Couple<Name>> joinPartitions(int partitionCount, IntFunction<List<Couple<Name>>> joinPartition) {
+        List<List<Couple<Name>>> partitionPairs = IntStream.range(0, partitionCount).parallel()
+                .mapToObj(joinPartition)
+                .collect(Collectors.toList());
+
+        int total = 0;
+        for (List<Couple<Name>> pairs : partitionPairs) total += pairs.size();
+        List<Couple<Name>> candidatePairs = new ArrayList<>(total);
+        for (List<Couple<Name>> pairs : partitionPairs) candidatePairs.addAll(pairs);
+        return candidatePairs;
+    }
+
+    private static int partitionBits(int keyCount) {
+        int bits = 0;
+        while (bits < MAX_PARTITION_BITS && ((long) TARGET_KEYS_PER_PARTITION << bits) < keyCount) bits++;
+        // At least a few partitions per core so the work balances
+        int minimumBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, ForkJoinPool.getCommonPoolParallelism() * 4 - 1));
+        return Math.min(MAX_PARTITION_BITS, Math.max(bits, minimumBits));
+    }
+
+    // Top bits of the (re-mixed) String hash: String.hashCode alone has poor high bits for short keys
+    private static int partitionOf(String key, int partitionBits) {
+        if (partitionBits == 0) return 0;
+        int hash = key.hashCode() * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        return hash >>> (32 - partitionBits);
+    }
+
+    /**
+     * Counting sort of element indices by partition (-1 = dropped). Fills offsets (partition p is
+     * [offsets[p], offsets[p + 1]) in the result) and returns the indices grouped by partition, ascending in each.
+     */
+    private static int[] scatter(int[] partitions, int[] offsets) {
+        for (int partition : partitions) {
+            if (partition >= 0) offsets[partition + 1]++;
+        }
+        for (int p = 1; p < offsets.length; p++) offsets[p] += offsets[p - 1];
+        int[] order = new int[offsets[offsets.length - 1]];
+        int[] next = offsets.clone();
+        for (int i = 0; i < partitions.length; i++) {
+            if (partitions[i] >= 0) order[next[partitions[i]]++] = i;
+        }
+        return order;
+    }
+}
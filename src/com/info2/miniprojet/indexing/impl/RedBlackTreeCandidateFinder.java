@@ -3,29 +3,73 @@ package com.info2.miniprojet.indexing.impl;
 import com.info2.miniprojet.core.Couple;
 import com.info2.miniprojet.core.Name;
 import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.indexing.PersistableIndex;
+import com.info2.miniprojet.util.IndexSnapshotStore;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap; // Red-Black Tree implementation
 
-public class RedBlackTreeCandidateFinder implements CandidateFinder {
+public class RedBlackTreeCandidateFinder implements CandidateFinder, PersistableIndex {
 
+    private final KeyOrder keyOrder;
+    private final int maxBlockSize; // Dedup splits bigger blocks (see SubBlocking), 0 = unlimited
+    private final KeyFilter keyFilter; // Optional Bloom filter answering missed lookups before the tree
     private TreeMap<String, List<Integer>> indexMap; // Key: Processed name string, Value: list of original indices
     private List<Name> indexedListReference;
+    private LiveNameTable nameTable; // Names behind the stored indices (+ incremental adds/removals)
+    int parallelThreshold = ParallelIndexSupport.DEFAULT_PARALLEL_THRESHOLD; // package-private so tests can force the parallel path
 
     public RedBlackTreeCandidateFinder() {
+        this(KeyOrder.ORIGINAL);
+    }
+
+    /**
+     * @param keyOrder How tokens are ordered in the keys. Lookups here are exact, so ROTATIONS blocks
+     *                 exactly like SORTED (a rotation only ever equals a key of the same sorted tokens).
+     */
+    public RedBlackTreeCandidateFinder(KeyOrder keyOrder) {
+        this(keyOrder, 0);
+    }
+
+    /**
+     * @param maxBlockSize Blocks above this size are split for deduplication (0 for no limit). Names here share
+     *                     their whole key, so in practice they are cut into chunks of consecutive names (see SubBlocking).
+     */
+    public RedBlackTreeCandidateFinder(KeyOrder keyOrder, int maxBlockSize) {
+        this(keyOrder, maxBlockSize, 0);
+    }
+
+    /**
+     * @param bloomFalsePositiveRate Target false-positive rate of a Bloom filter over the keys, checked before the tree
+     *                               (worth it when most lookups miss, e.g. comparing a big list); 0 for no filter.
+     */
+    public RedBlackTreeCandidateFinder(KeyOrder keyOrder, int maxBlockSize, double bloomFalsePositiveRate) {
+        if (keyOrder == null) {
+            throw new IllegalArgumentException("keyOrder must not be null.");
+        }
+        if (maxBlockSize < 0) {
+            throw new IllegalArgumentException("maxBlockSize must be >= 0 (got " + maxBlockSize + ").");
+        }
+        this.keyOrder = keyOrder == KeyOrder.ROTATIONS ? KeyOrder.SORTED : keyOrder;
+        this.maxBlockSize = maxBlockSize;
+        this.keyFilter = new KeyFilter(bloomFalsePositiveRate);
         reset();
     }
 
     // Helper to get the key for the TreeMap
     private String getIndexKeyFromName(Name name) {
-        if (name == null || name.processedTokens() == null || name.processedTokens().isEmpty()) {
+        if (name == null) {
             return null;
         }
-        // Join all processed tokens and lowercase to form the key
-        return String.join(" ", name.processedTokens()).toLowerCase();
+        // Join all processed tokens (in the order given by keyOrder) and lowercase to form the key
+        return this.keyOrder.primaryKey(name);
     }
 
     @Override
@@ -44,16 +88,49 @@ public class RedBlackTreeCandidateFinder implements CandidateFinder {
         System.out.println("DEBUG: RedBlackTreeCandidateFinder.buildIndex: New or different list. Building TreeMap index for " + namesToIndex.size() + " names.");
         reset();
         this.indexedListReference = namesToIndex;
-        this.indexMap = new TreeMap<>(); // Initialize the TreeMap
+        this.nameTable = new LiveNameTable(namesToIndex);
+        this.indexMap = indexNames(namesToIndex);
+        this.keyFilter.rebuild(this.indexMap.keySet());
+        System.out.println("DEBUG: RedBlackTreeCandidateFinder.buildIndex complete. Index size: " + this.indexMap.size() + " unique keys.");
+    }
+
+    // Grouped (on all cores for big lists) into a map sorted by key, which TreeMap copies with its linear
+    // bulk build: no per-key insert nor rebalancing
+    private TreeMap<String, List<Integer>> indexNames(List<Name> names) {
+        boolean parallel = ParallelIndexSupport.shouldParallelize(names, this.parallelThreshold);
+        String[] keys = ParallelIndexSupport.computeKeys(names, this::getIndexKeyFromName, parallel);
+        return new TreeMap<>(ParallelIndexSupport.groupByKeySorted(keys, parallel));
+    }
 
-        for (int i = 0; i < namesToIndex.size(); i++) {
-            Name name = namesToIndex.get(i);
+    @Override
+    public void addNames(List<Name> namesToAdd) {
+        if (namesToAdd == null || namesToAdd.isEmpty()) return;
+        if (this.nameTable == null) {
+            buildIndex(new ArrayList<>(namesToAdd));
+            return;
+        }
+        for (Name name : namesToAdd) {
+            int position = this.nameTable.append(name);
             String key = getIndexKeyFromName(name);
             if (key != null) {
-                this.indexMap.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+                this.indexMap.computeIfAbsent(key, k -> new ArrayList<>()).add(position); // O(log N) per name
+                this.keyFilter.add(key, this.indexMap::keySet);
             }
         }
-        System.out.println("DEBUG: RedBlackTreeCandidateFinder.buildIndex complete. Index size: " + this.indexMap.size() + " unique keys.");
+        System.out.println("DEBUG: RedBlackTreeCandidateFinder added " + namesToAdd.size() + " names incrementally.");
+    }
+
+    @Override
+    public void removeNames(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty() || this.nameTable == null) return;
+        int removedCount = this.nameTable.tombstone(idsToRemove).size();
+        System.out.println("DEBUG: RedBlackTreeCandidateFinder tombstoned " + removedCount + " names.");
+        if (this.nameTable.needsCompaction()) {
+            this.nameTable = this.nameTable.compact();
+            this.indexMap = indexNames(this.nameTable.asList());
+            this.keyFilter.rebuild(this.indexMap.keySet());
+            System.out.println("DEBUG: RedBlackTreeCandidateFinder compacted to " + this.nameTable.size() + " names.");
+        }
     }
 
     @Override
@@ -70,12 +147,12 @@ public class RedBlackTreeCandidateFinder implements CandidateFinder {
         String queryKey = getIndexKeyFromName(queryName);
 
         if (queryKey != null) {
-            List<Integer> matchingIndices = this.indexMap.get(queryKey); // O(log N) lookup
+            List<Integer> matchingIndices = this.keyFilter.mightContain(queryKey) ? this.indexMap.get(queryKey) : null; // O(log N) lookup
             if (matchingIndices != null) {
                 System.out.println("DEBUG: RBTree Search: Found " + matchingIndices.size() + " candidates for key '" + queryKey + "'.");
                 for (int index : matchingIndices) {
-                    if (index >= 0 && index < this.indexedListReference.size()) {
-                        candidatePairs.add(new Couple<>(queryName, this.indexedListReference.get(index)));
+                    if (this.nameTable.isLive(index)) {
+                        candidatePairs.add(new Couple<>(queryName, this.nameTable.get(index)));
                     }
                 }
             } else {
@@ -97,21 +174,35 @@ public class RedBlackTreeCandidateFinder implements CandidateFinder {
             System.err.println("Warning (Compare - RBTree): indexedOriginalList differs from the list this finder indexed. Using internally stored list ref.");
         }
 
+        if (ParallelIndexSupport.shouldParallelize(listToIterate, this.parallelThreshold)) {
+            // Big lists: exact keys don't need the tree order, a partitioned hash join on all cores is much faster
+            String[] keys = ParallelIndexSupport.computeKeys(listToIterate, this::getIndexKeyFromName, true);
+            int filteredOut = this.keyFilter.dropAbsentKeys(keys, true);
+            List<Couple<Name>> candidatePairs = PartitionedHashJoin.join(listToIterate, keys, this.indexMap, this.nameTable);
+            System.out.println("DEBUG: RBTree Compare (partitioned join): Generated " + candidatePairs.size() + " candidate pairs"
+                    + (this.keyFilter.isEnabled() ? ", " + filteredOut + " keys ruled out by the Bloom filter." : "."));
+            return candidatePairs;
+        }
+
         List<Couple<Name>> candidatePairs = new ArrayList<>();
+        int filteredOut = 0;
         for (Name nameFromIteratedList : listToIterate) {
             String key = getIndexKeyFromName(nameFromIteratedList);
-            if (key != null) {
+            if (key != null && !this.keyFilter.mightContain(key)) {
+                filteredOut++; // Certainly not indexed, the tree isn't walked
+            } else if (key != null) {
                 List<Integer> matchingIndices = this.indexMap.get(key); // O(log N) lookup in index built from indexedOriginalList
                 if (matchingIndices != null) {
                     for (int index : matchingIndices) {
-                        if (index >= 0 && index < this.indexedListReference.size()) {
-                            candidatePairs.add(new Couple<>(nameFromIteratedList, this.indexedListReference.get(index)));
+                        if (this.nameTable.isLive(index)) {
+                            candidatePairs.add(new Couple<>(nameFromIteratedList, this.nameTable.get(index)));
                         }
                     }
                 }
             }
         }
-        System.out.println("DEBUG: RBTree Compare: Generated " + candidatePairs.size() + " candidate pairs.");
+        System.out.println("DEBUG: RBTree Compare: Generated " + candidatePairs.size() + " candidate pairs"
+                + (this.keyFilter.isEnabled() ? ", " + filteredOut + " keys ruled out by the Bloom filter." : "."));
         return candidatePairs;
     }
 
@@ -128,17 +219,11 @@ public class RedBlackTreeCandidateFinder implements CandidateFinder {
         List<Couple<Name>> candidatePairs = new ArrayList<>();
         // Iterate through the index. For any key that has multiple names (list of indices > 1), form pairs.
         for (Map.Entry<String, List<Integer>> entry : this.indexMap.entrySet()) {
-            List<Integer> indicesWithSameKey = entry.getValue();
-            if (indicesWithSameKey != null && indicesWithSameKey.size() > 1) {
+            if (entry.getValue() == null || entry.getValue().size() < 2) continue;
+            for (List<Integer> indicesWithSameKey : SubBlocking.split(entry.getKey(), entry.getValue(), this.nameTable, this.maxBlockSize).values()) {
                 for (int i = 0; i < indicesWithSameKey.size(); i++) {
                     for (int j = i + 1; j < indicesWithSameKey.size(); j++) {
-                        int index1 = indicesWithSameKey.get(i);
-                        int index2 = indicesWithSameKey.get(j);
-
-                        if (index1 >= 0 && index1 < this.indexedListReference.size() &&
-                                index2 >= 0 && index2 < this.indexedListReference.size()) {
-                            candidatePairs.add(new Couple<>(this.indexedListReference.get(index1), this.indexedListReference.get(index2)));
-                        }
+                        candidatePairs.add(new Couple<>(this.nameTable.get(indicesWithSameKey.get(i)), this.nameTable.get(indicesWithSameKey.get(j))));
                     }
                 }
             }
@@ -147,6 +232,53 @@ public class RedBlackTreeCandidateFinder implements CandidateFinder {
         return candidatePairs;
     }
 
+    @Override
+    public void writeIndex(DataOutput out) throws IOException {
+        if (this.nameTable == null) {
+            throw new IllegalStateException("Index not built. Call buildIndex() first.");
+        }
+        if (this.nameTable.isModified()) {
+            throw new IllegalStateException("Index has incremental changes that are not part of the indexed list. Rebuild it before saving.");
+        }
+        out.writeInt(this.indexMap.size());
+        for (Map.Entry<String, List<Integer>> entry : this.indexMap.entrySet()) { // Written in key order
+            IndexSnapshotStore.writeString(out, entry.getKey());
+            IndexSnapshotStore.writeIntList(out, entry.getValue());
+        }
+        this.keyFilter.write(out);
+    }
+
+    @Override
+    public void readIndex(ByteBuffer in, List<Name> indexedNames) {
+        reset();
+        int keyCount = in.getInt();
+        for (int i = 0; i < keyCount; i++) {
+            String key = IndexSnapshotStore.readString(in);
+            List<Integer> positions = IndexSnapshotStore.readIntList(in);
+            for (int position : positions) {
+                if (position < 0 || position >= indexedNames.size()) {
+                    throw new IllegalArgumentException("Snapshot position " + position + " is outside the " + indexedNames.size() + " indexed names.");
+                }
+            }
+            this.indexMap.put(key, positions); // Keys arrive sorted, so always appended on the right
+        }
+        this.keyFilter.read(in, this.indexMap.keySet());
+        this.indexedListReference = indexedNames;
+        this.nameTable = new LiveNameTable(indexedNames);
+    }
+
+    @Override
+    public Map<String, Integer> getBlockSizes() {
+        Map<String, Integer> blockSizes = new TreeMap<>();
+        if (this.nameTable == null) return blockSizes;
+        for (Map.Entry<String, List<Integer>> entry : this.indexMap.entrySet()) {
+            for (Map.Entry<String, List<Integer>> subBlock : SubBlocking.split(entry.getKey(), entry.getValue(), this.nameTable, this.maxBlockSize).entrySet()) {
+                blockSizes.put(subBlock.getKey(), subBlock.getValue().size());
+            }
+        }
+        return blockSizes;
+    }
+
     @Override
     public String getName() {
         return "REDBLACKTREE_FINDER";
@@ -156,5 +288,7 @@ public class RedBlackTreeCandidateFinder implements CandidateFinder {
     public void reset() {
         this.indexMap = new TreeMap<>(); // Initialize new empty TreeMap
         this.indexedListReference = null;
+        this.nameTable = null;
+        this.keyFilter.reset();
     }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.encoding.Encoder;
+import com.info2.miniprojet.encoding.impl.SoundexEncoder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits blocks above a size limit so that a few very common keys can't dominate deduplication
+ * (a block of b names costs b^2/2 pairs). An oversized block is split by a secondary key, and each part
+ * still too big by the next one: initial of the first token, Soundex of the first token, length bucket
+ * of the whole name. What is still too big after that (names too alike to tell apart with those keys)
+ * is cut into consecutive chunks of the limit, in name order so that close names stay together.
+ * Every sub-block ends up with at most maxBlockSize names, so dedup costs at most n * maxBlockSize / 2 pairs.
+ */
+final class SubBlocking {
+
+    private static final int SECONDARY_KEY_COUNT = 3;
+    private static final int LENGTH_BUCKET_WIDTH = 4;
+    private static final Encoder PHONETIC_ENCODER = new SoundexEncoder();
+
+    private SubBlocking() {
+    }
+
+    /**
+     * @param key           Key of the block, used as the prefix of the sub-block keys ("key/j/J520/#1").
+     * @param block         Positions of the block in the name table.
+     * @param maxBlockSize  Size limit, 0 or less for no limit.
+     * @return The live positions of the block grouped into sub-blocks of at most maxBlockSize names
+     *         (a single entry under 'key' if the block is small enough).
+     */
+    static Map<String, List<Integer>> split(String key, List<Integer> block, LiveNameTable nameTable, int maxBlockSize) {
+        List<Integer> livePositions = new ArrayList<>(block.size());
+        for (int position : block) {
+            if (nameTable.isLive(position)) livePositions.add(position);
+        }
+        Map<String, List<Integer>> subBlocks = new LinkedHashMap<>();
+        split(key, livePositions, nameTable, maxBlockSize, 0, subBlocks);
+        return subBlocks;
+    }
+
+    private static void split(String key, List<Integer> positions, LiveNameTable nameTable, int maxBlockSize, int level,
+                              Map<String, List<Integer>> subBlocks) {
+        if (maxBlockSize <= 0 || positions.size() <= maxBlockSize) {
+            if (!positions.isEmpty()) subBlocks.put(key, positions);
+            return;
+        }
+        if (level == SECONDARY_KEY_COUNT) {
+            positions.sort(Comparator.comparing((Integer position) -> joinedName(nameTable.get(position))).thenComparingInt(position -> position));
+            for (int start = 0, chunk = 1; start < positions.size(); start += maxBlockSize, chunk++) {
+                subBlocks.put(key + "/#" + chunk, new ArrayList<>(positions.subList(start, Math.min(start + maxBlockSize, positions.size()))));
+            }
+            return;
+        }
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int position : positions) {
+            groups.computeIfAbsent(secondaryKey(nameTable.get(position), level), k -> new ArrayList<>()).add(position);
+        }
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            split(key + "/" + group.getKey(), group.getValue(), nameTable, maxBlockSize, level + 1, subBlocks);
+        }
+    }
+
+    private static String secondaryKey(Name name, int level) {
+        List<String> tokens = name.processedTokens();
+        String firstToken = (tokens == null || tokens.isEmpty() || tokens.get(0) == null) ? "" : tokens.get(0).trim().toLowerCase();
+        switch (level) {
+            case 0:
+                return firstToken.isEmpty() ? "" : firstToken.substring(0, 1);
+            case 1:
+                return phoneticCode(firstToken);
+            default:
+                return "L" + joinedName(name).length() / LENGTH_BUCKET_WIDTH;
+        }
+    }
+
+    private static String phoneticCode(String token) {
+        if (token.isEmpty()) return "";
+        try {
+            return PHONETIC_ENCODER.encode(token);
+        } catch (IllegalArgumentException e) { // Characters Soundex can't map (non-latin scripts...)
+            return token;
+        }
+    }
+
+    private static String joinedName(Name name) {
+        return name.features().lowerJoined(); // "" without a token list
+    }
+}
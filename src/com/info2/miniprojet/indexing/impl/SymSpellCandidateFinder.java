@@ -0,0 +1,292 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.util.LongIntMultiMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Symmetric-delete index (as in SymSpell) for names at most maxEdits typos apart.
+ * Every deletion variant (0..maxEdits deleted characters) of each name's key, the joined processed tokens,
+ * is indexed. Two keys within maxEdits edits always share a variant, so a lookup only has to generate the
+ * query's own variants and fetch their postings, no scan. Postings are then verified with a bounded
+ * (optimal string alignment) edit distance, so only names really within maxEdits are returned.
+ * Variants are stored as 64-bit hashes in a primitive multimap; a collision only costs one extra verification.
+ */
+public class SymSpellCandidateFinder implements CandidateFinder {
+
+    public static final int DEFAULT_MAX_EDITS = 1;
+    public static final int MAX_SUPPORTED_EDITS = 2; // Variants grow as length^edits
+
+    private final int maxEdits;
+
+    private List<Name> indexedListReference;
+    private LiveNameTable nameTable;
+    private List<String> keys; // By position, null for names without tokens
+    private LongIntMultiMap deleteIndex; // Hash of a deletion variant -> positions
+    private int[] seenStamps = new int[0]; // Per position, last lookup that returned it
+    private int stamp;
+
+    public SymSpellCandidateFinder() {
+        this(DEFAULT_MAX_EDITS);
+    }
+
+    public SymSpellCandidateFinder(int maxEdits) {
+        if (maxEdits < 0 || maxEdits > MAX_SUPPORTED_EDITS) {
+            throw new IllegalArgumentException("SymSpell max edits must be between 0 and " + MAX_SUPPORTED_EDITS + " (got " + maxEdits + ").");
+        }
+        this.maxEdits = maxEdits;
+        reset();
+    }
+
+    private String getKeyFromName(Name name) {
+        if (name == null || name.processedTokens() == null || name.processedTokens().isEmpty()) {
+            return null;
+        }
+        String key = name.features().lowerJoined();
+        return key.isBlank() ? null : key;
+    }
+
+    @Override
+    public void buildIndex(List<Name> namesToIndex) {
+        if (namesToIndex == null || namesToIndex.isEmpty()) {
+            System.out.println("DEBUG: SymSpellCandidateFinder.buildIndex called with empty or null list. Resetting.");
+            reset();
+            return;
+        }
+        if (this.indexedListReference != null && this.indexedListReference == namesToIndex) {
+            System.out.println("DEBUG: SymSpellCandidateFinder.buildIndex called with the same list instance. Index reused.");
+            return;
+        }
+        reset();
+        this.indexedListReference = namesToIndex;
+        this.nameTable = new LiveNameTable(namesToIndex);
+        indexNames(namesToIndex);
+        System.out.println("DEBUG: SymSpellCandidateFinder.buildIndex complete. " + this.deleteIndex.keyCount()
+                + " deletion variants (max " + this.maxEdits + " edits) for " + namesToIndex.size() + " names.");
+    }
+
+    private void indexNames(List<Name> names) {
+        this.keys = new ArrayList<>(names.size());
+        this.deleteIndex = new LongIntMultiMap(names.size() * (this.maxEdits == 0 ? 1 : 8 * this.maxEdits));
+        for (Name name : names) {
+            indexName(name);
+        }
+    }
+
+    private void indexName(Name name) {
+        int position = this.keys.size();
+        String key = getKeyFromName(name);
+        this.keys.add(key);
+        if (key == null) return;
+        for (String variant : deletionVariants(key)) {
+            this.deleteIndex.put(hash(variant), position);
+        }
+    }
+
+    /**
+     * The key itself and every string obtained by deleting 1..maxEdits of its characters.
+     */
+    private Set<String> deletionVariants(String key) {
+        Set<String> variants = new HashSet<>();
+        variants.add(key);
+        List<String> frontier = List.of(key);
+        for (int edits = 0; edits < this.maxEdits; edits++) {
+            List<String> nextFrontier = new ArrayList<>();
+            for (String word : frontier) {
+                for (int i = 0; i < word.length(); i++) {
+                    String deleted = word.substring(0, i) + word.substring(i + 1);
+                    if (variants.add(deleted)) {
+                        nextFrontier.add(deleted);
+                    }
+                }
+            }
+            frontier = nextFrontier;
+        }
+        return variants;
+    }
+
+    // 64-bit FNV-1a
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Live positions whose key is within maxEdits of the given key (each returned once).
+     *
+     * @param minPosition Only positions above this one are returned (used by deduplication to emit each pair once).
+     */
+    private List<Integer> lookup(String key, int minPosition) {
+        List<Integer> matches = new ArrayList<>();
+        if (key == null) return matches;
+        if (this.seenStamps.length < this.keys.size()) {
+            this.seenStamps = Arrays.copyOf(this.seenStamps, Math.max(this.keys.size(), this.seenStamps.length * 2));
+        }
+        if (++this.stamp == Integer.MAX_VALUE) { // Wrapped around, start over
+            Arrays.fill(this.seenStamps, 0);
+            this.stamp = 1;
+        }
+        for (String variant : deletionVariants(key)) {
+            for (int entry = this.deleteIndex.first(hash(variant)); entry >= 0; entry = this.deleteIndex.next(entry)) {
+                int position = this.deleteIndex.valueAt(entry);
+                if (position <= minPosition || this.seenStamps[position] == this.stamp) continue;
+                this.seenStamps[position] = this.stamp;
+                if (this.nameTable.isLive(position) && withinEdits(key, this.keys.get(position), this.maxEdits)) {
+                    matches.add(position);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein + adjacent transpositions) <= maxDistance,
+     * giving up as soon as a whole row exceeds the bound.
+     */
+    static boolean withinEdits(String s1, String s2, int maxDistance) {
+        if (s2 == null) return false;
+        if (Math.abs(s1.length() - s2.length()) > maxDistance) return false;
+        if (s1.equals(s2)) return true;
+        int n = s1.length();
+        int m = s2.length();
+        int[] previousPrevious = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) previous[j] = j;
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMinimum = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && s1.charAt(i - 1) == s2.charAt(j - 2) && s1.charAt(i - 2) == s2.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (rowMinimum > maxDistance) return false;
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m] <= maxDistance;
+    }
+
+    @Override
+    public void addNames(List<Name> namesToAdd) {
+        if (namesToAdd == null || namesToAdd.isEmpty()) return;
+        if (this.nameTable == null) {
+            buildIndex(new ArrayList<>(namesToAdd));
+            return;
+        }
+        for (Name name : namesToAdd) {
+            this.nameTable.append(name);
+            indexName(name);
+        }
+        System.out.println("DEBUG: SymSpellCandidateFinder added " + namesToAdd.size() + " names incrementally.");
+    }
+
+    @Override
+    public void removeNames(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty() || this.nameTable == null) return;
+        List<Integer> removedPositions = this.nameTable.tombstone(idsToRemove);
+        for (int position : removedPositions) { // Unindexed right away, so lookups no longer verify them
+            String key = this.keys.get(position);
+            if (key == null) continue;
+            for (String variant : deletionVariants(key)) {
+                this.deleteIndex.remove(hash(variant), position);
+            }
+            this.keys.set(position, null);
+        }
+        System.out.println("DEBUG: SymSpellCandidateFinder removed " + removedPositions.size() + " names.");
+        if (this.nameTable.needsCompaction()) {
+            this.nameTable = this.nameTable.compact();
+            indexNames(this.nameTable.asList());
+            System.out.println("DEBUG: SymSpellCandidateFinder compacted to " + this.nameTable.size() + " names.");
+        }
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForSearch(Name queryName, List<Name> originalNamesList) {
+        if (queryName == null || this.nameTable == null) {
+            if (this.nameTable == null) System.err.println("Search Error (SymSpell): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (originalNamesList != this.indexedListReference) {
+            System.err.println("Warning (Search - SymSpell): originalNamesList differs from indexed list. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        for (int position : lookup(getKeyFromName(queryName), -1)) {
+            candidatePairs.add(new Couple<>(queryName, this.nameTable.get(position)));
+        }
+        System.out.println("DEBUG: SymSpell Search: Found " + candidatePairs.size() + " candidates within " + this.maxEdits + " edits.");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForComparison(List<Name> listToIterate, List<Name> indexedOriginalList) {
+        if (listToIterate == null || this.nameTable == null) {
+            if (this.nameTable == null) System.err.println("Compare Error (SymSpell): Index not built (for indexedOriginalList). Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (indexedOriginalList != this.indexedListReference) {
+            System.err.println("Warning (Compare - SymSpell): indexedOriginalList differs from the list this finder indexed. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        for (Name nameFromIteratedList : listToIterate) {
+            for (int position : lookup(getKeyFromName(nameFromIteratedList), -1)) {
+                candidatePairs.add(new Couple<>(nameFromIteratedList, this.nameTable.get(position)));
+            }
+        }
+        System.out.println("DEBUG: SymSpell Compare: Generated " + candidatePairs.size() + " candidate pairs.");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForDeduplication(List<Name> originalNamesList) {
+        if (this.nameTable == null) {
+            System.err.println("Dedupe Error (SymSpell): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (originalNamesList != this.indexedListReference) {
+            System.err.println("Warning (Dedupe - SymSpell): originalNamesList differs from indexed list. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        for (int position = 0; position < this.keys.size(); position++) {
+            if (!this.nameTable.isLive(position)) continue;
+            for (int match : lookup(this.keys.get(position), position)) { // Only later positions: each pair once
+                candidatePairs.add(new Couple<>(this.nameTable.get(position), this.nameTable.get(match)));
+            }
+        }
+        System.out.println("DEBUG: SymSpell Dedupe: Generated " + candidatePairs.size() + " candidate pairs.");
+        return candidatePairs;
+    }
+
+    @Override
+    public String getName() {
+        return "SYMSPELL";
+    }
+
+    @Override
+    public void reset() {
+        this.indexedListReference = null;
+        this.nameTable = null;
+        this.keys = null;
+        this.deleteIndex = null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.info2.miniprojet.indexing.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TF-IDF weighting over a vocabulary of string terms (tokens, character n-grams, ...), shared by the
+ * similarity based finders. IDF is fixed by fit(); terms first seen later are registered with the IDF of
+ * a term seen once, so incrementally added names don't shift the weights of already indexed ones.
+ */
+final class TfIdfVectorSpace {
+
+    /**
+     * L2-normalised sparse vector, terms in ascending id order.
+     */
+    record SparseVector(int[] terms, float[] weights) {
+
+        float dot(SparseVector other) {
+            float sum = 0f;
+            int i = 0;
+            int j = 0;
+            while (i < terms.length && j < other.terms.length) {
+                if (terms[i] == other.terms[j]) {
+                    sum += weights[i++] * other.weights[j++];
+                } else if (terms[i] < other.terms[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return sum;
+        }
+    }
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<Double> idfs = new ArrayList<>(); // By term id
+    private double unseenTermIdf;
+
+    /**
+     * Computes the IDF of every term over the given documents (a term counts once per document).
+     */
+    void fit(Iterable<List<String>> documents) {
+        this.termIds.clear();
+        this.idfs.clear();
+        List<Integer> documentFrequencies = new ArrayList<>();
+        int documentCount = 0;
+        for (List<String> terms : documents) {
+            if (terms.isEmpty()) continue;
+            documentCount++;
+            for (String term : new HashSet<>(terms)) {
+                Integer termId = this.termIds.get(term);
+                if (termId == null) {
+                    this.termIds.put(term, this.termIds.size());
+                    documentFrequencies.add(1);
+                } else {
+                    documentFrequencies.set(termId, documentFrequencies.get(termId) + 1);
+                }
+            }
+        }
+        for (int documentFrequency : documentFrequencies) {
+            this.idfs.add(Math.log((double) (documentCount + 1) / documentFrequency));
+        }
+        this.unseenTermIdf = Math.log(documentCount + 1.0);
+    }
+
+    int termCount() {
+        return this.termIds.size();
+    }
+
+    /**
+     * @param registerNewTerms true for names being indexed (unknown terms join the vocabulary); false for queries,
+     *                         whose unknown terms get ids >= termCount() (one per distinct term, so a repeated
+     *                         one adds up like a known term) and only weigh in the norm.
+     * @return The vector, or null if there are no terms.
+     */
+    SparseVector vectorize(List<String> terms, boolean registerNewTerms) {
+        if (terms.isEmpty()) return null;
+        Map<Integer, Double> weights = new HashMap<>();
+        Map<String, Integer> unknownTermIds = null;
+        for (String term : terms) {
+            Integer termId = this.termIds.get(term);
+            if (termId == null) {
+                if (registerNewTerms) {
+                    termId = this.termIds.size();
+                    this.termIds.put(term, termId);
+                    this.idfs.add(this.unseenTermIdf);
+                } else {
+                    if (unknownTermIds == null) unknownTermIds = new HashMap<>();
+                    termId = unknownTermIds.get(term);
+                    if (termId == null) {
+                        termId = this.termIds.size() + unknownTermIds.size();
+                        unknownTermIds.put(term, termId);
+                    }
+                }
+            }
+            double idf = termId < this.idfs.size() ? this.idfs.get(termId) : this.unseenTermIdf;
+            weights.merge(termId, idf, Double::sum); // tf * idf
+        }
+        double norm = 0;
+        for (double weight : weights.values()) norm += weight * weight;
+        norm = Math.sqrt(norm);
+        if (norm == 0) return null; // Only terms present in every document
+
+        int[] sortedTerms = new int[weights.size()];
+        int i = 0;
+        for (int termId : weights.keySet()) sortedTerms[i++] = termId;
+        Arrays.sort(sortedTerms);
+        float[] normalised = new float[sortedTerms.length];
+        for (i = 0; i < sortedTerms.length; i++) {
+            normalised[i] = (float) (weights.get(sortedTerms[i]) / norm);
+        }
+        return new SparseVector(sortedTerms, normalised);
+    }
+}
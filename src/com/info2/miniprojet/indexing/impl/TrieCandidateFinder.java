@@ -3,39 +3,109 @@ package com.info2.miniprojet.indexing.impl;
 import com.info2.miniprojet.core.Couple;
 import com.info2.miniprojet.core.Name;
 import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.indexing.PersistableIndex;
+import com.info2.miniprojet.util.LongHashSet;
 import com.info2.miniprojet.util.TrieNode;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
-public class TrieCandidateFinder implements CandidateFinder {
+public class TrieCandidateFinder implements CandidateFinder, PersistableIndex {
 
+    public static final int MAX_SUPPORTED_JOIN_EDITS = 2;
+
+    private final KeyOrder keyOrder;
+    private final boolean trieJoin; // Comparison mode: traverse a trie of the other list with the index trie instead of probing it name by name
+    private final int joinMaxEdits; // Trie-join only: a key also matches indexed words having a prefix within this many edits of it
     private TrieNode root;
     private List<Name> indexedListReference; // Reference to the list used to build the index
+    private LiveNameTable nameTable; // Names behind the stored indices (+ incremental adds/removals)
+    int parallelThreshold = ParallelIndexSupport.DEFAULT_PARALLEL_THRESHOLD; // package-private so tests can force the parallel path
 
     public TrieCandidateFinder() {
+        this(KeyOrder.ORIGINAL);
+    }
+
+    /**
+     * @param keyOrder How tokens are ordered in the keys (SORTED/ROTATIONS let swapped first/last names block together).
+     */
+    public TrieCandidateFinder(KeyOrder keyOrder) {
+        this(keyOrder, false, 0);
+    }
+
+    /**
+     * @param trieJoin     Compare lists with a trie-join (each common prefix visited once) rather than one probe per name.
+     * @param joinMaxEdits With trieJoin, edits allowed between a key and the prefix of an indexed word (0 to MAX_SUPPORTED_JOIN_EDITS).
+     */
+    public TrieCandidateFinder(KeyOrder keyOrder, boolean trieJoin, int joinMaxEdits) {
+        if (keyOrder == null) {
+            throw new IllegalArgumentException("keyOrder must not be null.");
+        }
+        if (joinMaxEdits < 0 || joinMaxEdits > MAX_SUPPORTED_JOIN_EDITS) {
+            throw new IllegalArgumentException("joinMaxEdits must be between 0 and " + MAX_SUPPORTED_JOIN_EDITS + " (got " + joinMaxEdits + ").");
+        }
+        if (joinMaxEdits > 0 && !trieJoin) {
+            throw new IllegalArgumentException("An edit bound is only supported by the trie-join comparison mode.");
+        }
+        this.keyOrder = keyOrder;
+        this.trieJoin = trieJoin;
+        this.joinMaxEdits = joinMaxEdits;
         reset();
     }
 
     // --- Helper method to get the string key for the Trie from a Name object ---
-    // For simplicity, we'll join all processed tokens.
+    // All processed tokens joined (in the order given by keyOrder) and lowercased.
     // Potentially, we could also choose to index only the first token, last token, etc.
     private String getIndexKeyFromName(Name name) {
-        if (name == null || name.processedTokens() == null || name.processedTokens().isEmpty()) {
+        if (name == null) {
             return null;
         }
-        return String.join(" ", name.processedTokens()).toLowerCase(); // Join and lowercase
+        return this.keyOrder.primaryKey(name);
+    }
+
+    // Rotations (KeyOrder.ROTATIONS) go in after the primary keys, positions stay the same
+    private void insertExtraKeys(Name name, int position) {
+        if (name == null) return;
+        for (String key : this.keyOrder.extraIndexKeys(name)) {
+            insertInTrie(key, position);
+        }
+    }
+
+    // Union of the prefix matches of every query key
+    private Set<Integer> searchQueryKeys(Name queryName) {
+        if (queryName == null) return Collections.emptySet();
+        List<String> queryKeys = this.keyOrder.queryKeys(queryName);
+        if (queryKeys.size() == 1) return searchPrefixInTrie(queryKeys.get(0));
+        Set<Integer> matchingIndices = new HashSet<>();
+        for (String queryKey : queryKeys) {
+            matchingIndices.addAll(searchPrefixInTrie(queryKey));
+        }
+        return matchingIndices;
     }
 
     // --- Helper method to insert a word and its original index into the Trie ---
     private void insertInTrie(String word, int originalIndex) {
-        if (word == null || word.isEmpty()) return;
-        TrieNode current = root;
-        for (char ch : word.toCharArray()) {
-            current = current.children.computeIfAbsent(ch, c -> new TrieNode());
+        insertInTrie(this.root, word, 0, originalIndex);
+    }
+
+    // Inserts word.substring(fromChar) below 'start' (lets parallel builds fill independent subtrees)
+    private static void insertInTrie(TrieNode start, String word, int fromChar, int originalIndex) {
+        if (word == null || word.length() <= fromChar) return;
+        TrieNode current = start;
+        for (int i = fromChar; i < word.length(); i++) {
+            current = current.children.computeIfAbsent(word.charAt(i), c -> new TrieNode());
         }
         current.isEndOfWord = true;
         current.originalIndices.add(originalIndex);
@@ -58,15 +128,86 @@ public class TrieCandidateFinder implements CandidateFinder {
         System.out.println("DEBUG: TrieCandidateFinder.buildIndex: New or different list. Building Trie index for " + namesToIndex.size() + " names.");
         reset(); // Reset for a new index
         this.indexedListReference = namesToIndex;
+        this.nameTable = new LiveNameTable(namesToIndex);
+        indexNames(namesToIndex);
+        System.out.println("DEBUG: TrieCandidateFinder.buildIndex complete.");
+    }
+
+    // Fills this.root (expected to be empty) with the keys of the given names
+    private void indexNames(List<Name> names) {
+        boolean parallel = ParallelIndexSupport.shouldParallelize(names, this.parallelThreshold);
+        String[] keys = ParallelIndexSupport.computeKeys(names, this::getIndexKeyFromName, parallel);
+        if (parallel) {
+            buildSubtriesInParallel(keys);
+        } else {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) {
+                    insertInTrie(keys[i], i);
+                }
+            }
+        }
+        if (this.keyOrder.hasExtraKeys()) {
+            for (int i = 0; i < names.size(); i++) {
+                insertExtraKeys(names.get(i), i);
+            }
+        }
+    }
 
-        for (int i = 0; i < namesToIndex.size(); i++) {
-            Name name = namesToIndex.get(i);
+    @Override
+    public void addNames(List<Name> namesToAdd) {
+        if (namesToAdd == null || namesToAdd.isEmpty()) return;
+        if (this.nameTable == null) {
+            buildIndex(new ArrayList<>(namesToAdd));
+            return;
+        }
+        for (Name name : namesToAdd) {
+            int position = this.nameTable.append(name);
             String key = getIndexKeyFromName(name);
             if (key != null) {
-                insertInTrie(key, i);
+                insertInTrie(key, position); // O(key length) per name
+                insertExtraKeys(name, position);
             }
         }
-        System.out.println("DEBUG: TrieCandidateFinder.buildIndex complete.");
+        System.out.println("DEBUG: TrieCandidateFinder added " + namesToAdd.size() + " names incrementally.");
+    }
+
+    @Override
+    public void removeNames(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty() || this.nameTable == null) return;
+        int removedCount = this.nameTable.tombstone(idsToRemove).size();
+        System.out.println("DEBUG: TrieCandidateFinder tombstoned " + removedCount + " names.");
+        if (this.nameTable.needsCompaction()) {
+            this.nameTable = this.nameTable.compact();
+            this.root = new TrieNode();
+            indexNames(this.nameTable.asList());
+            System.out.println("DEBUG: TrieCandidateFinder compacted to " + this.nameTable.size() + " names.");
+        }
+    }
+
+    // Words starting with different characters never share a node, so each root child is built on its own
+    // and attached at the end. Gives exactly the same trie as inserting the keys one by one.
+    private void buildSubtriesInParallel(String[] keys) {
+        Map<Character, List<Integer>> indicesByFirstChar = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null && !keys[i].isEmpty()) {
+                indicesByFirstChar.computeIfAbsent(keys[i].charAt(0), c -> new ArrayList<>()).add(i);
+            }
+        }
+        Map<Character, TrieNode> subtries = indicesByFirstChar.entrySet().parallelStream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> {
+                    TrieNode subRoot = new TrieNode();
+                    for (int index : entry.getValue()) {
+                        String key = keys[index];
+                        if (key.length() == 1) {
+                            subRoot.isEndOfWord = true;
+                            subRoot.originalIndices.add(index);
+                        } else {
+                            insertInTrie(subRoot, key, 1, index);
+                        }
+                    }
+                    return subRoot;
+                }));
+        this.root.children.putAll(subtries);
     }
 
     // Helper to search the Trie for a prefix/word and get all indices
@@ -117,12 +258,12 @@ public class TrieCandidateFinder implements CandidateFinder {
 
         List<Couple<Name>> candidatePairs = new ArrayList<>();
         String queryKey = getIndexKeyFromName(queryName);
-        Set<Integer> matchingIndices = searchPrefixInTrie(queryKey); // Find matches based on prefix
+        Set<Integer> matchingIndices = searchQueryKeys(queryName); // Find matches based on prefix
 
         System.out.println("DEBUG: Trie Search: Found " + matchingIndices.size() + " potential candidate indices for key '" + queryKey + "'.");
         for (int index : matchingIndices) {
-            if (index >= 0 && index < this.indexedListReference.size()) {
-                candidatePairs.add(new Couple<>(queryName, this.indexedListReference.get(index)));
+            if (this.nameTable.isLive(index)) {
+                candidatePairs.add(new Couple<>(queryName, this.nameTable.get(index)));
             }
         }
         return candidatePairs;
@@ -140,13 +281,18 @@ public class TrieCandidateFinder implements CandidateFinder {
             System.err.println("Warning (Compare - Trie): indexedOriginalList differs from the list this finder indexed. Results might be inconsistent.");
         }
 
+        if (this.trieJoin) {
+            List<Couple<Name>> candidatePairs = trieJoin(listToIterate);
+            System.out.println("DEBUG: Trie Compare (trie-join, max edits " + this.joinMaxEdits + "): Generated " + candidatePairs.size() + " candidate pairs.");
+            return candidatePairs;
+        }
+
         List<Couple<Name>> candidatePairs = new ArrayList<>();
         for (Name nameFromIteratedList : listToIterate) {
-            String key = getIndexKeyFromName(nameFromIteratedList);
-            Set<Integer> matchingIndices = searchPrefixInTrie(key); // Search the Trie (built from indexedOriginalList)
+            Set<Integer> matchingIndices = searchQueryKeys(nameFromIteratedList); // Search the Trie (built from indexedOriginalList)
             for (int index : matchingIndices) {
-                if (index >= 0 && index < this.indexedListReference.size()) {
-                    candidatePairs.add(new Couple<>(nameFromIteratedList, this.indexedListReference.get(index)));
+                if (this.nameTable.isLive(index)) {
+                    candidatePairs.add(new Couple<>(nameFromIteratedList, this.nameTable.get(index)));
                 }
             }
         }
@@ -154,6 +300,127 @@ public class TrieCandidateFinder implements CandidateFinder {
         return candidatePairs;
     }
 
+    // --- Trie-join: same matches as probing (indexed words starting with the key), each shared prefix walked once ---
+
+    private List<Couple<Name>> trieJoin(List<Name> listToIterate) {
+        TrieNode probeRoot = new TrieNode();
+        for (int i = 0; i < listToIterate.size(); i++) {
+            Name name = listToIterate.get(i);
+            if (name == null) continue;
+            for (String key : this.keyOrder.queryKeys(name)) {
+                insertInTrie(probeRoot, key, 0, i);
+            }
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        // With several keys per name (rotations) a pair can be reached through more than one key
+        LongHashSet seenPairs = this.keyOrder.hasExtraKeys() ? new LongHashSet() : null;
+        if (this.joinMaxEdits == 0) {
+            joinExact(probeRoot, this.root, new ArrayList<>(), listToIterate, candidatePairs, seenPairs);
+        } else {
+            Map<TrieNode, Integer> active = new IdentityHashMap<>();
+            active.put(this.root, 0);
+            addInsertions(active);
+            joinWithinEdits(probeRoot, active, listToIterate, candidatePairs, seenPairs);
+        }
+        return candidatePairs;
+    }
+
+    // Walks the index trie once. activeProbes holds the probe names whose key ended on the current path:
+    // every indexed word below starts with their key. The probe trie just follows along while it can.
+    private void joinExact(TrieNode probeNode, TrieNode indexNode, List<Integer> activeProbes, List<Name> probes,
+                           List<Couple<Name>> pairs, LongHashSet seenPairs) {
+        int activeBefore = activeProbes.size();
+        if (probeNode != null && probeNode.isEndOfWord) {
+            activeProbes.addAll(probeNode.originalIndices);
+        }
+        if (indexNode.isEndOfWord && !activeProbes.isEmpty()) {
+            for (int position : indexNode.originalIndices) {
+                if (!this.nameTable.isLive(position)) continue;
+                for (int probe : activeProbes) {
+                    addJoinPair(probe, position, probes, pairs, seenPairs);
+                }
+            }
+        }
+        for (Map.Entry<Character, TrieNode> child : indexNode.children.entrySet()) {
+            TrieNode probeChild = probeNode == null ? null : probeNode.children.get(child.getKey());
+            if (probeChild == null && activeProbes.isEmpty()) continue; // No key is a prefix of anything below
+            joinExact(probeChild, child.getValue(), activeProbes, probes, pairs, seenPairs);
+        }
+        activeProbes.subList(activeBefore, activeProbes.size()).clear();
+    }
+
+    // Walks the probe trie once. 'active' maps every index trie node whose path is within joinMaxEdits of the
+    // current probe path to that edit distance (the Levenshtein DP, restricted to the cells <= joinMaxEdits).
+    private void joinWithinEdits(TrieNode probeNode, Map<TrieNode, Integer> active, List<Name> probes,
+                                 List<Couple<Name>> pairs, LongHashSet seenPairs) {
+        if (probeNode.isEndOfWord) {
+            Set<TrieNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<Integer> positions = new ArrayList<>();
+            for (TrieNode node : active.keySet()) {
+                collectLiveIndices(node, visited, positions); // Nested active nodes are only walked once
+            }
+            for (int probe : probeNode.originalIndices) {
+                for (int position : positions) {
+                    addJoinPair(probe, position, probes, pairs, seenPairs);
+                }
+            }
+        }
+        for (Map.Entry<Character, TrieNode> child : probeNode.children.entrySet()) {
+            char ch = child.getKey();
+            Map<TrieNode, Integer> next = new IdentityHashMap<>();
+            for (Map.Entry<TrieNode, Integer> entry : active.entrySet()) {
+                int distance = entry.getValue();
+                if (distance < this.joinMaxEdits) {
+                    next.merge(entry.getKey(), distance + 1, Math::min); // Probe character deleted
+                }
+                for (Map.Entry<Character, TrieNode> indexChild : entry.getKey().children.entrySet()) {
+                    int cost = distance + (indexChild.getKey() == ch ? 0 : 1); // Match or substitution
+                    if (cost <= this.joinMaxEdits) {
+                        next.merge(indexChild.getValue(), cost, Math::min);
+                    }
+                }
+            }
+            if (next.isEmpty()) continue; // Distances only grow: nothing below this probe prefix can match
+            addInsertions(next);
+            joinWithinEdits(child.getValue(), next, probes, pairs, seenPairs);
+        }
+    }
+
+    // Indexed characters missing from the probe: a node at distance d makes its children reachable at d + 1
+    private void addInsertions(Map<TrieNode, Integer> active) {
+        ArrayDeque<TrieNode> pending = new ArrayDeque<>(active.keySet());
+        while (!pending.isEmpty()) {
+            TrieNode node = pending.poll();
+            int distance = active.get(node);
+            if (distance >= this.joinMaxEdits) continue;
+            for (TrieNode child : node.children.values()) {
+                Integer current = active.get(child);
+                if (current == null || current > distance + 1) {
+                    active.put(child, distance + 1);
+                    pending.add(child);
+                }
+            }
+        }
+    }
+
+    private void collectLiveIndices(TrieNode node, Set<TrieNode> visited, List<Integer> positions) {
+        if (!visited.add(node)) return; // Its whole subtree is already collected
+        if (node.isEndOfWord) {
+            for (int position : node.originalIndices) {
+                if (this.nameTable.isLive(position)) positions.add(position);
+            }
+        }
+        for (TrieNode child : node.children.values()) {
+            collectLiveIndices(child, visited, positions);
+        }
+    }
+
+    private void addJoinPair(int probe, int position, List<Name> probes, List<Couple<Name>> pairs, LongHashSet seenPairs) {
+        if (seenPairs == null || seenPairs.add(((long) probe << 32) | position)) {
+            pairs.add(new Couple<>(probes.get(probe), this.nameTable.get(position)));
+        }
+    }
+
     @Override
     public List<Couple<Name>> findCandidatesForDeduplication(List<Name> originalNamesList) {
         if (this.root.children.isEmpty() || this.indexedListReference == null) {
@@ -168,14 +435,16 @@ public class TrieCandidateFinder implements CandidateFinder {
         // To find duplicates using a Trie: iterate all words in the Trie.
         // If a word (TrieNode marked as isEndOfWord) has multiple originalIndices,
         // then those original names are candidates for being duplicates (as they map to the same Trie path).
-        collectDuplicateCandidatesFromTrie(this.root, candidatePairs, this.indexedListReference);
+        // With several keys per name (rotations) the same pair can share more than one word
+        LongHashSet seenPairs = this.keyOrder.hasExtraKeys() ? new LongHashSet(this.nameTable.size()) : null;
+        collectDuplicateCandidatesFromTrie(this.root, candidatePairs, this.nameTable, seenPairs);
 
         System.out.println("DEBUG: Trie Dedupe: Generated " + candidatePairs.size() + " candidate pairs.");
         return candidatePairs;
     }
 
     // Recursive helper for deduplication
-    private void collectDuplicateCandidatesFromTrie(TrieNode node, List<Couple<Name>> pairs, List<Name> originalList) {
+    private void collectDuplicateCandidatesFromTrie(TrieNode node, List<Couple<Name>> pairs, LiveNameTable originalList, LongHashSet seenPairs) {
         if (node == null) return;
 
         if (node.isEndOfWord && node.originalIndices.size() > 1) {
@@ -185,8 +454,8 @@ public class TrieCandidateFinder implements CandidateFinder {
                 for (int j = i + 1; j < indices.size(); j++) {
                     int index1 = indices.get(i);
                     int index2 = indices.get(j);
-                    if (index1 >= 0 && index1 < originalList.size() &&
-                            index2 >= 0 && index2 < originalList.size()) {
+                    if (originalList.isLive(index1) && originalList.isLive(index2)
+                            && (seenPairs == null || seenPairs.add(((long) Math.min(index1, index2) << 32) | Math.max(index1, index2)))) {
                         pairs.add(new Couple<>(originalList.get(index1), originalList.get(index2)));
                     }
                 }
@@ -194,11 +463,88 @@ public class TrieCandidateFinder implements CandidateFinder {
         }
 
         for (TrieNode child : node.children.values()) {
-            collectDuplicateCandidatesFromTrie(child, pairs, originalList);
+            collectDuplicateCandidatesFromTrie(child, pairs, originalList, seenPairs);
         }
     }
 
 
+    @Override
+    public void writeIndex(DataOutput out) throws IOException {
+        if (this.nameTable == null) {
+            throw new IllegalStateException("Index not built. Call buildIndex() first.");
+        }
+        if (this.nameTable.isModified()) {
+            throw new IllegalStateException("Index has incremental changes that are not part of the indexed list. Rebuild it before saving.");
+        }
+        writeNode(this.root, out);
+    }
+
+    @Override
+    public void readIndex(ByteBuffer in, List<Name> indexedNames) {
+        reset();
+        this.root = readNode(in, indexedNames.size());
+        this.indexedListReference = indexedNames;
+        this.nameTable = new LiveNameTable(indexedNames);
+    }
+
+    // Pre-order: end flag, indices, then each (char, child) pair
+    private static void writeNode(TrieNode node, DataOutput out) throws IOException {
+        out.writeBoolean(node.isEndOfWord);
+        out.writeInt(node.originalIndices.size());
+        for (int index : node.originalIndices) {
+            out.writeInt(index);
+        }
+        out.writeInt(node.children.size());
+        for (Map.Entry<Character, TrieNode> child : node.children.entrySet()) {
+            out.writeChar(child.getKey());
+            writeNode(child.getValue(), out);
+        }
+    }
+
+    private static TrieNode readNode(ByteBuffer in, int nameCount) {
+        TrieNode node = new TrieNode();
+        node.isEndOfWord = in.get() != 0;
+        int indexCount = in.getInt();
+        for (int i = 0; i < indexCount; i++) {
+            int position = in.getInt();
+            if (position < 0 || position >= nameCount) {
+                throw new IllegalArgumentException("Snapshot position " + position + " is outside the " + nameCount + " indexed names.");
+            }
+            node.originalIndices.add(position);
+        }
+        int childCount = in.getInt();
+        for (int i = 0; i < childCount; i++) {
+            char ch = in.getChar();
+            node.children.put(ch, readNode(in, nameCount));
+        }
+        return node;
+    }
+
+    // A block is a complete word (end node): names sharing it are the ones paired for deduplication
+    @Override
+    public Map<String, Integer> getBlockSizes() {
+        Map<String, Integer> blockSizes = new HashMap<>();
+        if (this.nameTable != null) {
+            collectBlockSizes(this.root, new StringBuilder(), blockSizes);
+        }
+        return blockSizes;
+    }
+
+    private void collectBlockSizes(TrieNode node, StringBuilder path, Map<String, Integer> blockSizes) {
+        if (node.isEndOfWord) {
+            int liveCount = 0;
+            for (int position : node.originalIndices) {
+                if (this.nameTable.isLive(position)) liveCount++;
+            }
+            if (liveCount > 0) blockSizes.put(path.toString(), liveCount);
+        }
+        for (Map.Entry<Character, TrieNode> child : node.children.entrySet()) {
+            path.append(child.getKey());
+            collectBlockSizes(child.getValue(), path, blockSizes);
+            path.setLength(path.length() - 1);
+        }
+    }
+
     @Override
     public String getName() {
         return "TRIE_FINDER";
@@ -208,5 +554,6 @@ public class TrieCandidateFinder implements CandidateFinder {
     public void reset() {
         this.root = new TrieNode(); // Create a new empty Trie root
         this.indexedListReference = null;
+        this.nameTable = null;
     }
 }
\ No newline at end of file
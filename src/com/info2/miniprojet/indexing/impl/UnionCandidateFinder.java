@@ -0,0 +1,201 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.comparison.NameComparator;
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.indexing.ResultLimitAware;
+import com.info2.miniprojet.indexing.SimilarityThresholdAware;
+import com.info2.miniprojet.util.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Wraps several finders and returns the union of their candidates, e.g. UNION:DICTIONARY_LAST_TOKEN,TRIE_FINDER.
+ * A pair found by more than one member is only returned (and so only scored) once: pairs are keyed on the
+ * positions of their names, packed in a long and deduplicated through a LongHashSet.
+ * Names are matched by identity (Name is a record, two distinct entries can be equal).
+ */
+public class UnionCandidateFinder implements CandidateFinder, ResultLimitAware, SimilarityThresholdAware {
+
+    private final List<CandidateFinder> members;
+    private List<Name> indexedListReference;
+    private Map<Name, Integer> indexedPositions; // Position of every name the members indexed (incremental adds included)
+    private int nextPosition;
+
+    public UnionCandidateFinder(List<CandidateFinder> members) {
+        if (members == null || members.isEmpty()) {
+            throw new IllegalArgumentException("A union needs at least one candidate finder.");
+        }
+        this.members = new ArrayList<>(members);
+        reset();
+    }
+
+    @Override
+    public void buildIndex(List<Name> namesToIndex) {
+        if (namesToIndex == null || namesToIndex.isEmpty()) {
+            System.out.println("DEBUG: UnionCandidateFinder.buildIndex called with empty or null list. Resetting.");
+            reset();
+            return;
+        }
+        if (this.indexedListReference == namesToIndex) {
+            System.out.println("DEBUG: UnionCandidateFinder.buildIndex called with the same list instance. Index reused.");
+            return;
+        }
+        this.indexedListReference = namesToIndex;
+        this.indexedPositions = positionsOf(namesToIndex);
+        this.nextPosition = this.indexedPositions.size();
+        for (CandidateFinder member : this.members) {
+            member.buildIndex(namesToIndex);
+        }
+        System.out.println("DEBUG: UnionCandidateFinder.buildIndex complete for " + this.members.size() + " finders.");
+    }
+
+    @Override
+    public void addNames(List<Name> namesToAdd) {
+        if (namesToAdd == null || namesToAdd.isEmpty()) return;
+        if (this.indexedListReference == null) {
+            buildIndex(new ArrayList<>(namesToAdd));
+            return;
+        }
+        for (Name name : namesToAdd) {
+            positionOf(name);
+        }
+        for (CandidateFinder member : this.members) {
+            member.addNames(namesToAdd);
+        }
+    }
+
+    @Override
+    public void removeNames(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty()) return;
+        // Removed names are no longer returned by the members, their stale positions are harmless
+        for (CandidateFinder member : this.members) {
+            member.removeNames(idsToRemove);
+        }
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForSearch(Name queryName, List<Name> originalNamesList) {
+        if (queryName == null || this.indexedListReference == null) {
+            if (this.indexedListReference == null) System.err.println("Search Error (Union): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        LongHashSet seenPairs = new LongHashSet();
+        for (CandidateFinder member : this.members) {
+            for (Couple<Name> pair : member.findCandidatesForSearch(queryName, originalNamesList)) {
+                if (seenPairs.add(positionOf(pair.second()))) {
+                    candidatePairs.add(pair);
+                }
+            }
+        }
+        System.out.println("DEBUG: Union Search: " + candidatePairs.size() + " distinct candidates.");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForComparison(List<Name> listToIterate, List<Name> indexedOriginalList) {
+        if (listToIterate == null || this.indexedListReference == null) {
+            if (this.indexedListReference == null) System.err.println("Compare Error (Union): Index not built (for indexedOriginalList). Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        Map<Name, Integer> iteratedPositions = positionsOf(listToIterate);
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        LongHashSet seenPairs = new LongHashSet(listToIterate.size());
+        for (CandidateFinder member : this.members) {
+            for (Couple<Name> pair : member.findCandidatesForComparison(listToIterate, indexedOriginalList)) {
+                long first = iteratedPositions.computeIfAbsent(pair.first(), k -> iteratedPositions.size());
+                if (seenPairs.add(packPair(first, positionOf(pair.second())))) {
+                    candidatePairs.add(pair);
+                }
+            }
+        }
+        System.out.println("DEBUG: Union Compare: " + candidatePairs.size() + " distinct candidate pairs.");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForDeduplication(List<Name> originalNamesList) {
+        if (this.indexedListReference == null) {
+            System.err.println("Dedupe Error (Union): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        LongHashSet seenPairs = new LongHashSet(this.nextPosition);
+        for (CandidateFinder member : this.members) {
+            for (Couple<Name> pair : member.findCandidatesForDeduplication(originalNamesList)) {
+                long position1 = positionOf(pair.first());
+                long position2 = positionOf(pair.second());
+                // Members may return a pair in either order
+                if (seenPairs.add(packPair(Math.min(position1, position2), Math.max(position1, position2)))) {
+                    candidatePairs.add(pair);
+                }
+            }
+        }
+        System.out.println("DEBUG: Union Dedupe: " + candidatePairs.size() + " distinct candidate pairs.");
+        return candidatePairs;
+    }
+
+    @Override
+    public void setResultLimit(int limit) {
+        for (CandidateFinder member : this.members) {
+            if (member instanceof ResultLimitAware limitAware) limitAware.setResultLimit(limit);
+        }
+    }
+
+    @Override
+    public void setSimilarityThreshold(NameComparator comparator, double threshold) {
+        for (CandidateFinder member : this.members) {
+            if (member instanceof SimilarityThresholdAware thresholdAware) thresholdAware.setSimilarityThreshold(comparator, threshold);
+        }
+    }
+
+    @Override
+    public String getName() {
+        StringJoiner memberNames = new StringJoiner(",", "UNION(", ")");
+        for (CandidateFinder member : this.members) {
+            memberNames.add(member.getName());
+        }
+        return memberNames.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (CandidateFinder member : this.members) {
+            member.reset();
+        }
+        this.indexedListReference = null;
+        this.indexedPositions = new IdentityHashMap<>();
+        this.nextPosition = 0;
+    }
+
+    // Dense positions (0..size-1) over the distinct instances, so size() is always the next free position
+    private static Map<Name, Integer> positionsOf(List<Name> names) {
+        Map<Name, Integer> positions = new IdentityHashMap<>(names.size() * 2);
+        for (Name name : names) {
+            positions.putIfAbsent(name, positions.size());
+        }
+        return positions;
+    }
+
+    // Names the members return always come from the indexed side, an unknown one is registered so it still gets a stable key
+    private long positionOf(Name name) {
+        Integer position = this.indexedPositions.get(name);
+        if (position == null) {
+            position = this.nextPosition++;
+            this.indexedPositions.put(name, position);
+        }
+        return position;
+    }
+
+    private static long packPair(long position1, long position2) {
+        return (position1 << 32) | (position2 & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,363 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.indexing.ResultLimitAware;
+import com.info2.miniprojet.util.LongHashSet;
+import com.info2.miniprojet.util.LongMinHeap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Top-k retrieval over a token inverted index with WAND dynamic pruning (Broder et al.).
+ * Names are scored against the query with BM25 over their processed tokens; each posting list stores the
+ * precomputed BM25 impact of its token and its maximum (the token's upper bound).
+ * Cursors over the query's posting lists advance in name order and a name is only fully scored when the
+ * upper bounds of the lists positioned on or before it could beat the k-th best score so far; the other
+ * lists skip ahead. Once k good names are found most postings are jumped over, so a search costs
+ * about O(k) evaluations instead of one per name sharing a token with the query.
+ * k is the result limit set by the Engine (Configuration.getMaxResults()), DEFAULT_RESULT_LIMIT otherwise.
+ * BM25 only ranks candidates: the NameComparator still scores the returned pairs.
+ * addNames doesn't recompute the collection statistics: added names are weighted with the IDFs and average
+ * length of the last full build (a new token gets the IDF of a single-name token), so rankings drift as the
+ * collection grows until the next buildIndex or compaction refreshes them. The upper bounds stay exact
+ * (each list's maximum covers the impacts it actually stores), so the pruning never drops a better name.
+ */
+public class WandCandidateFinder implements CandidateFinder, ResultLimitAware {
+
+    public static final int DEFAULT_RESULT_LIMIT = 20;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private int resultLimit = DEFAULT_RESULT_LIMIT;
+
+    private List<Name> indexedListReference;
+    private LiveNameTable nameTable;
+    private Map<String, Integer> termIds;
+    private List<Posting> postings; // By term id
+    private int documentCount;
+    private float averageLength;
+
+    public WandCandidateFinder() {
+        reset();
+    }
+
+    // Names containing a token, in ascending position, with the token's BM25 impact in each
+    private static final class Posting {
+        int[] positions = new int[4];
+        float[] impacts = new float[4];
+        int size;
+        int documentFrequency;
+        float idf;
+        float maxImpact;
+
+        void add(int position, float impact) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                impacts = Arrays.copyOf(impacts, size * 2);
+            }
+            positions[size] = position;
+            impacts[size] = impact;
+            size++;
+            maxImpact = Math.max(maxImpact, impact);
+        }
+
+        // First index >= from whose position is >= target (galloping, then binary search)
+        int seek(int from, int target) {
+            int bound = 1;
+            while (from + bound < size && positions[from + bound] < target) bound <<= 1;
+            int low = from + (bound >> 1);
+            int high = Math.min(from + bound, size);
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (positions[middle] < target) low = middle + 1;
+                else high = middle;
+            }
+            return low;
+        }
+    }
+
+    @Override
+    public void setResultLimit(int limit) {
+        this.resultLimit = limit;
+    }
+
+    private List<String> tokensOf(Name name) {
+        if (name == null || name.processedTokens() == null) return Collections.emptyList();
+        List<String> tokens = new ArrayList<>(name.processedTokens().size());
+        for (String token : name.processedTokens()) {
+            if (token != null && !token.isBlank()) tokens.add(token.trim().toLowerCase());
+        }
+        return tokens;
+    }
+
+    @Override
+    public void buildIndex(List<Name> namesToIndex) {
+        if (namesToIndex == null || namesToIndex.isEmpty()) {
+            System.out.println("DEBUG: WandCandidateFinder.buildIndex called with empty or null list. Resetting.");
+            reset();
+            return;
+        }
+        if (this.indexedListReference != null && this.indexedListReference == namesToIndex) {
+            System.out.println("DEBUG: WandCandidateFinder.buildIndex called with the same list instance. Index reused.");
+            return;
+        }
+        reset();
+        this.indexedListReference = namesToIndex;
+        this.nameTable = new LiveNameTable(namesToIndex);
+        indexNames(namesToIndex);
+        System.out.println("DEBUG: WandCandidateFinder.buildIndex complete. " + this.termIds.size() + " distinct tokens for " + namesToIndex.size() + " names.");
+    }
+
+    private void indexNames(List<Name> names) {
+        this.termIds = new HashMap<>();
+        this.postings = new ArrayList<>();
+        // Collection statistics first: BM25 impacts depend on document frequencies and the average length
+        List<List<String>> tokenLists = new ArrayList<>(names.size());
+        long totalLength = 0;
+        this.documentCount = 0;
+        for (Name name : names) {
+            List<String> tokens = tokensOf(name);
+            tokenLists.add(tokens);
+            if (tokens.isEmpty()) continue;
+            this.documentCount++;
+            totalLength += tokens.size();
+            for (String token : new LinkedHashSet<>(tokens)) {
+                postingFor(token, true).documentFrequency++;
+            }
+        }
+        this.averageLength = this.documentCount == 0 ? 1f : (float) totalLength / this.documentCount;
+        for (Posting posting : this.postings) {
+            posting.idf = idf(posting.documentFrequency);
+        }
+        for (int position = 0; position < tokenLists.size(); position++) {
+            addToPostings(position, tokenLists.get(position));
+        }
+    }
+
+    private Posting postingFor(String token, boolean create) {
+        Integer termId = this.termIds.get(token);
+        if (termId == null) {
+            if (!create) return null;
+            termId = this.postings.size();
+            this.termIds.put(token, termId);
+            Posting posting = new Posting();
+            posting.idf = idf(1); // Replaced after the collection pass in indexNames; kept for incremental adds
+            this.postings.add(posting);
+        }
+        return this.postings.get(termId);
+    }
+
+    private float idf(int documentFrequency) {
+        return (float) Math.log(1.0 + (this.documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private void addToPostings(int position, List<String> tokens) {
+        if (tokens.isEmpty()) return;
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        for (String token : tokens) termFrequencies.merge(token, 1, Integer::sum);
+        float lengthNorm = K1 * (1 - B + B * tokens.size() / this.averageLength);
+        for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+            Posting posting = postingFor(entry.getKey(), true);
+            int tf = entry.getValue();
+            posting.add(position, posting.idf * tf * (K1 + 1) / (tf + lengthNorm));
+        }
+    }
+
+    /**
+     * WAND top-k over the posting lists of the query tokens.
+     *
+     * @return Live positions of the k best scoring names, best first (excludedPosition never included).
+     */
+    private List<Integer> topK(List<String> queryTokens, int excludedPosition) {
+        Set<String> distinctTokens = new LinkedHashSet<>(queryTokens);
+        List<Posting> lists = new ArrayList<>(distinctTokens.size());
+        for (String token : distinctTokens) {
+            Posting posting = postingFor(token, false);
+            if (posting != null && posting.size > 0) lists.add(posting);
+        }
+        int listCount = lists.size();
+        int k = this.resultLimit > 0 ? this.resultLimit : Integer.MAX_VALUE;
+        if (listCount == 0) return Collections.emptyList();
+
+        int[] cursors = new int[listCount];
+        Integer[] order = new Integer[listCount];
+        for (int i = 0; i < listCount; i++) order[i] = i;
+        LongMinHeap best = new LongMinHeap(Math.min(k, 1024) + 1); // Packed (score, position), worst on top
+        float threshold = 0f;
+
+        while (true) {
+            // Lists by current position, exhausted ones last
+            Arrays.sort(order, (l1, l2) -> Integer.compare(currentPosition(lists.get(l1), cursors[l1]), currentPosition(lists.get(l2), cursors[l2])));
+
+            // Pivot: first list where the accumulated upper bounds could beat the threshold
+            float upperBound = 0f;
+            int pivot = -1;
+            for (int i = 0; i < listCount; i++) {
+                if (currentPosition(lists.get(order[i]), cursors[order[i]]) == Integer.MAX_VALUE) break;
+                upperBound += lists.get(order[i]).maxImpact;
+                if (upperBound > threshold) {
+                    pivot = i;
+                    break;
+                }
+            }
+            if (pivot < 0) break; // No remaining name can make it into the top k
+            int pivotPosition = currentPosition(lists.get(order[pivot]), cursors[order[pivot]]);
+
+            if (currentPosition(lists.get(order[0]), cursors[order[0]]) == pivotPosition) {
+                // All lists before the pivot are on it: score it fully
+                float score = 0f;
+                for (int i = 0; i < listCount; i++) {
+                    int list = order[i];
+                    Posting posting = lists.get(list);
+                    if (currentPosition(posting, cursors[list]) != pivotPosition) break;
+                    score += posting.impacts[cursors[list]];
+                    cursors[list]++;
+                }
+                if (pivotPosition != excludedPosition && this.nameTable.isLive(pivotPosition)) {
+                    if (best.size() < k) {
+                        best.push(pack(score, pivotPosition));
+                    } else if (score > scoreOf(best.peek())) {
+                        best.pop();
+                        best.push(pack(score, pivotPosition));
+                    }
+                    if (best.size() >= k) threshold = scoreOf(best.peek());
+                }
+            } else {
+                // Names before the pivot can't reach the threshold: skip the first list up to it
+                int list = order[0];
+                cursors[list] = lists.get(list).seek(cursors[list], pivotPosition);
+            }
+        }
+
+        Integer[] ranked = new Integer[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = (int) best.pop(); // Popped worst first
+        }
+        return Arrays.asList(ranked);
+    }
+
+    private static int currentPosition(Posting posting, int cursor) {
+        return cursor < posting.size ? posting.positions[cursor] : Integer.MAX_VALUE;
+    }
+
+    // Positive floats order like their bit patterns, so (score, position) packs into a sortable long
+    private static long pack(float score, int position) {
+        return ((long) Float.floatToIntBits(score) << 32) | (position & 0xFFFFFFFFL);
+    }
+
+    private static float scoreOf(long packed) {
+        return Float.intBitsToFloat((int) (packed >>> 32));
+    }
+
+    @Override
+    public void addNames(List<Name> namesToAdd) {
+        if (namesToAdd == null || namesToAdd.isEmpty()) return;
+        if (this.nameTable == null) {
+            buildIndex(new ArrayList<>(namesToAdd));
+            return;
+        }
+        for (Name name : namesToAdd) {
+            int position = this.nameTable.append(name); // Appended positions keep the posting lists sorted
+            addToPostings(position, tokensOf(name)); // With the statistics of the last build (see the class comment)
+        }
+        System.out.println("DEBUG: WandCandidateFinder added " + namesToAdd.size() + " names incrementally.");
+    }
+
+    @Override
+    public void removeNames(Collection<String> idsToRemove) {
+        if (idsToRemove == null || idsToRemove.isEmpty() || this.nameTable == null) return;
+        int removedCount = this.nameTable.tombstone(idsToRemove).size(); // Postings keep them, never offered to the top k
+        System.out.println("DEBUG: WandCandidateFinder tombstoned " + removedCount + " names.");
+        if (this.nameTable.needsCompaction()) {
+            this.nameTable = this.nameTable.compact();
+            indexNames(this.nameTable.asList());
+            System.out.println("DEBUG: WandCandidateFinder compacted to " + this.nameTable.size() + " names.");
+        }
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForSearch(Name queryName, List<Name> originalNamesList) {
+        if (queryName == null || this.nameTable == null) {
+            if (this.nameTable == null) System.err.println("Search Error (WAND): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (originalNamesList != this.indexedListReference) {
+            System.err.println("Warning (Search - WAND): originalNamesList differs from indexed list. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        for (int position : topK(tokensOf(queryName), -1)) {
+            candidatePairs.add(new Couple<>(queryName, this.nameTable.get(position)));
+        }
+        System.out.println("DEBUG: WAND Search: Found " + candidatePairs.size() + " top candidates (k=" + this.resultLimit + ").");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForComparison(List<Name> listToIterate, List<Name> indexedOriginalList) {
+        if (listToIterate == null || this.nameTable == null) {
+            if (this.nameTable == null) System.err.println("Compare Error (WAND): Index not built (for indexedOriginalList). Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (indexedOriginalList != this.indexedListReference) {
+            System.err.println("Warning (Compare - WAND): indexedOriginalList differs from the list this finder indexed. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        for (Name nameFromIteratedList : listToIterate) {
+            for (int position : topK(tokensOf(nameFromIteratedList), -1)) {
+                candidatePairs.add(new Couple<>(nameFromIteratedList, this.nameTable.get(position)));
+            }
+        }
+        System.out.println("DEBUG: WAND Compare: Generated " + candidatePairs.size() + " candidate pairs (k=" + this.resultLimit + " per name).");
+        return candidatePairs;
+    }
+
+    @Override
+    public List<Couple<Name>> findCandidatesForDeduplication(List<Name> originalNamesList) {
+        if (this.nameTable == null) {
+            System.err.println("Dedupe Error (WAND): Index not built. Call buildIndex() first.");
+            return Collections.emptyList();
+        }
+        if (originalNamesList != this.indexedListReference) {
+            System.err.println("Warning (Dedupe - WAND): originalNamesList differs from indexed list. Using internally stored list ref.");
+        }
+        List<Couple<Name>> candidatePairs = new ArrayList<>();
+        LongHashSet seenPairs = new LongHashSet(this.nameTable.size());
+        for (int position = 0; position < this.nameTable.size(); position++) {
+            if (!this.nameTable.isLive(position)) continue;
+            for (int match : topK(tokensOf(this.nameTable.get(position)), position)) {
+                int low = Math.min(position, match);
+                int high = Math.max(position, match);
+                if (seenPairs.add(((long) low << 32) | high)) {
+                    candidatePairs.add(new Couple<>(this.nameTable.get(low), this.nameTable.get(high)));
+                }
+            }
+        }
+        System.out.println("DEBUG: WAND Dedupe: Generated " + candidatePairs.size() + " candidate pairs (k=" + this.resultLimit + " per name).");
+        return candidatePairs;
+    }
+
+    @Override
+    public String getName() {
+        return "WAND_TOKEN";
+    }
+
+    @Override
+    public void reset() {
+        this.indexedListReference = null;
+        this.nameTable = null;
+        this.termIds = null;
+        this.postings = null;
+        this.documentCount = 0;
+        this.averageLength = 1f;
+    }
+}
@@ -0,0 +1,158 @@
+package com.info2.miniprojet.util;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * Set of strings that answers "definitely absent" or "maybe present" from a bit array, without touching the
+ * strings themselves (Bloom, with the double hashing of Kirsch and Mitzenmacher for the k bit positions).
+ * Sized from the expected number of values and a target false-positive rate: about 9.6 bits per value and
+ * 7 hash functions for 1%. A lookup for an absent value usually stops at its first or second bit.
+ * Values can't be removed; adding more than expected raises the false-positive rate (see isOverCapacity).
+ */
+public final class BloomFilter {
+
+    private static final int MAX_HASH_FUNCTIONS = 16;
+    private static final long MAX_BIT_COUNT = (long) Integer.MAX_VALUE * Long.SIZE;
+
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final int hashFunctions;
+    private final long bitCount;
+    private final long[] words;
+    private long insertions;
+
+    /**
+     * @param expectedInsertions Number of values the filter is sized for (at least 1 is assumed).
+     * @param falsePositiveRate  Target rate of "maybe present" answers for absent values, in (0, 1).
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Bloom filter false-positive rate must be in (0, 1) (got " + falsePositiveRate + ").");
+        }
+        this.expectedInsertions = Math.max(1, expectedInsertions);
+        this.falsePositiveRate = falsePositiveRate;
+        double optimalBits = -this.expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long bits = Math.max(Long.SIZE, Math.min(MAX_BIT_COUNT, (long) Math.ceil(optimalBits)));
+        this.words = new long[(int) ((bits + Long.SIZE - 1) / Long.SIZE)];
+        this.bitCount = (long) this.words.length * Long.SIZE;
+        this.hashFunctions = (int) Math.max(1, Math.min(MAX_HASH_FUNCTIONS, Math.round((double) this.bitCount / this.expectedInsertions * Math.log(2))));
+    }
+
+    private BloomFilter(long expectedInsertions, double falsePositiveRate, int hashFunctions, long[] words, long insertions) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.hashFunctions = hashFunctions;
+        this.words = words;
+        this.bitCount = (long) words.length * Long.SIZE;
+        this.insertions = insertions;
+    }
+
+    /**
+     * @return A filter sized for and holding the given values.
+     */
+    public static BloomFilter of(Collection<String> values, double falsePositiveRate) {
+        BloomFilter filter = new BloomFilter(values.size(), falsePositiveRate);
+        for (String value : values) {
+            filter.put(value);
+        }
+        return filter;
+    }
+
+    public void put(String value) {
+        long hash = hash(value);
+        long increment = secondHash(hash);
+        for (int i = 0; i < this.hashFunctions; i++, hash += increment) {
+            long bit = (hash & Long.MAX_VALUE) % this.bitCount;
+            this.words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        this.insertions++;
+    }
+
+    /**
+     * @return false if the value was never added; true if it was, or (at about the target rate) if it wasn't.
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        long increment = secondHash(hash);
+        for (int i = 0; i < this.hashFunctions; i++, hash += increment) {
+            long bit = (hash & Long.MAX_VALUE) % this.bitCount;
+            if ((this.words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true once more values were added than the filter was sized for (the owner should rebuild it bigger).
+     */
+    public boolean isOverCapacity() {
+        return this.insertions > this.expectedInsertions;
+    }
+
+    public double getFalsePositiveRate() {
+        return this.falsePositiveRate;
+    }
+
+    public int getHashFunctions() {
+        return this.hashFunctions;
+    }
+
+    public long getBitCount() {
+        return this.bitCount;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(this.expectedInsertions);
+        out.writeDouble(this.falsePositiveRate);
+        out.writeInt(this.hashFunctions);
+        out.writeLong(this.insertions);
+        out.writeInt(this.words.length);
+        for (long word : this.words) {
+            out.writeLong(word);
+        }
+    }
+
+    public static BloomFilter read(ByteBuffer in) {
+        long expectedInsertions = in.getLong();
+        double falsePositiveRate = in.getDouble();
+        int hashFunctions = in.getInt();
+        long insertions = in.getLong();
+        long[] words = new long[IndexSnapshotStore.readCount(in, Long.BYTES)];
+        in.asLongBuffer().get(words);
+        in.position(in.position() + words.length * Long.BYTES);
+        if (words.length == 0 || hashFunctions < 1 || hashFunctions > MAX_HASH_FUNCTIONS) {
+            throw new IllegalArgumentException("Corrupted Bloom filter (" + words.length + " words, " + hashFunctions + " hash functions).");
+        }
+        return new BloomFilter(expectedInsertions, falsePositiveRate, hashFunctions, words, insertions);
+    }
+
+    // 64-bit FNV-1a over the chars, then the MurmurHash3 finalizer so every bit is well mixed
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        }
+        return mix(hash);
+    }
+
+    // Odd, so that the k positions differ
+    private static long secondHash(long hash) {
+        return mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
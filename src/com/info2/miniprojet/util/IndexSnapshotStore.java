@@ -0,0 +1,225 @@
+package com.info2.miniprojet.util;
+
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.core.TokenDictionary;
+import com.info2.miniprojet.factory.StrategyFactory;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import com.info2.miniprojet.indexing.PersistableIndex;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves a preprocessed dataset (the Name table) together with the index of the chosen CandidateFinder,
+ * so the next start can skip both preprocessing and buildIndex.
+ * File layout (big-endian):
+ *   magic, format version, dataset hash, preprocessor spec, finder spec,
+ *   name table, then a flag followed by the finder's own payload if it implements PersistableIndex.
+ * load() reads the whole file in one go and closes it before decoding, so a later save can replace it; what a
+ * restart saves is the preprocessing and buildIndex, the names are still decoded one by one. Anything that doesn't
+ * match (version, dataset hash, preprocessor or finder spec) makes load() return null so the caller rebuilds.
+ */
+public class IndexSnapshotStore {
+
+    private static final int MAGIC = 0x4E4D4958; // "NMIX"
+    private static final int FORMAT_VERSION = 2; // 2: exact-key finders append their (optional) Bloom filter
+    private static final String SNAPSHOT_DIRECTORY = "index_cache";
+
+    /**
+     * What load() returns: the restored names and the finder (already indexed on exactly that list).
+     */
+    public record Snapshot(List<Name> names, CandidateFinder finder) {
+    }
+
+    private IndexSnapshotStore() {
+    }
+
+    /**
+     * 64-bit FNV-1a over the raw lines. Cheap compared to preprocessing, and any edit to the file changes it.
+     */
+    public static long hashDataset(List<String> rawLines) {
+        long hash = 0xcbf29ce484222325L;
+        for (String line : rawLines) {
+            if (line != null) {
+                for (int i = 0; i < line.length(); i++) {
+                    hash ^= line.charAt(i);
+                    hash *= 0x100000001b3L;
+                }
+            }
+            hash ^= '\n';
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public static Path snapshotPathFor(String dataFilePath, String finderChoice) {
+        String fileName = Paths.get(dataFilePath).getFileName().toString();
+        String pathTag = Integer.toHexString(Paths.get(dataFilePath).toAbsolutePath().normalize().toString().hashCode());
+        String safeFinder = normalizeSpec(finderChoice).replaceAll("[^A-Za-z0-9_]", "_");
+        return Paths.get(SNAPSHOT_DIRECTORY, fileName + "-" + pathTag + "." + safeFinder + ".idx");
+    }
+
+    public static void save(Path path, long datasetHash, String preprocessorSpec, String finderChoice,
+                            List<Name> names, CandidateFinder finder) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        // Write next to the target and move it in place, a half-written snapshot must never be picked up
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(datasetHash);
+            writeString(out, normalizeSpec(preprocessorSpec));
+            writeString(out, normalizeSpec(finderChoice));
+
+            out.writeInt(names.size());
+            for (Name name : names) {
+                writeString(out, name.id());
+                writeString(out, name.originalName());
+                List<String> tokens = name.processedTokens();
+                out.writeInt(tokens == null ? -1 : tokens.size());
+                if (tokens != null) {
+                    for (String token : tokens) {
+                        writeString(out, token);
+                    }
+                }
+            }
+
+            if (finder instanceof PersistableIndex persistable) {
+                out.writeBoolean(true);
+                persistable.writeIndex(out);
+            } else {
+                out.writeBoolean(false);
+            }
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        System.out.println("IndexSnapshotStore: Saved " + names.size() + " names and " + finder.getName() + " index to " + path);
+    }
+
+    /**
+     * @return The restored snapshot, or null if there is none or it is stale/corrupted.
+     */
+    public static Snapshot load(Path path, long datasetHash, String preprocessorSpec, String finderChoice) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                System.out.println("IndexSnapshotStore: " + path + " has an unknown format. Rebuilding.");
+                return null;
+            }
+            if (in.getLong() != datasetHash
+                    || !normalizeSpec(preprocessorSpec).equals(readString(in))
+                    || !normalizeSpec(finderChoice).equals(readString(in))) {
+                System.out.println("IndexSnapshotStore: " + path + " is stale (dataset or configuration changed). Rebuilding.");
+                return null;
+            }
+
+            int nameCount = readCount(in, 3 * Integer.BYTES); // id, original name, token count
+            List<Name> names = new ArrayList<>(nameCount);
+            TokenDictionary dictionary = new TokenDictionary(); // As for a list read from its file
+            for (int i = 0; i < nameCount; i++) {
+                String id = readString(in);
+                String originalName = readString(in);
+                int tokenCount = in.getInt();
+                List<String> tokens = null;
+                if (tokenCount != -1) { // -1 = no token list
+                    checkCount(in, tokenCount, Integer.BYTES);
+                    tokens = new ArrayList<>(tokenCount);
+                    for (int t = 0; t < tokenCount; t++) {
+                        tokens.add(readString(in));
+                    }
+                }
+                names.add(new Name(id, originalName, tokens, dictionary));
+            }
+
+            CandidateFinder finder = StrategyFactory.createCandidateFinder(finderChoice);
+            boolean hasIndex = in.get() != 0;
+            if (hasIndex && finder instanceof PersistableIndex persistable) {
+                persistable.readIndex(in, names);
+            } else {
+                finder.buildIndex(names); // Only the name table was stored for this finder
+            }
+            System.out.println("IndexSnapshotStore: Restored " + names.size() + " names and " + finder.getName() + " index from " + path);
+            return new Snapshot(names, finder);
+        } catch (IOException | RuntimeException e) { // Truncated or corrupted file: just rebuild
+            System.err.println("Warning: Could not read index snapshot " + path + " (" + e + "). Rebuilding.");
+            return null;
+        }
+    }
+
+    // --- Encoding helpers, also used by the finders' writeIndex/readIndex ---
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == -1) {
+            return null;
+        }
+        checkCount(in, length, 1);
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeIntList(DataOutput out, List<Integer> values) throws IOException {
+        out.writeInt(values.size());
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    public static List<Integer> readIntList(ByteBuffer in) {
+        int size = readCount(in, Integer.BYTES);
+        List<Integer> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(in.getInt());
+        }
+        return values;
+    }
+
+    /**
+     * Reads the count of the items that follow, each at least bytesPerItem long. A corrupted count (negative, or
+     * more items than bytes left) is rejected before anything is allocated from it.
+     */
+    public static int readCount(ByteBuffer in, int bytesPerItem) {
+        int count = in.getInt();
+        checkCount(in, count, bytesPerItem);
+        return count;
+    }
+
+    public static void checkCount(ByteBuffer in, int count, int bytesPerItem) {
+        if (count < 0 || (long) count * bytesPerItem > in.remaining()) {
+            throw new IllegalArgumentException("Corrupted snapshot: " + count + " items announced, " + in.remaining() + " bytes left.");
+        }
+    }
+
+    private static String normalizeSpec(String spec) {
+        return spec == null ? "" : spec.toUpperCase().trim();
+    }
+}
@@ -0,0 +1,98 @@
+package com.info2.miniprojet.util;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive longs (open addressing, linear probing), used to deduplicate candidate pairs
+ * packed as (position1 << 32 | position2) without boxing every pair into a Long.
+ * 0 marks an empty slot, so the key 0 itself is tracked with a separate flag.
+ */
+public final class LongHashSet {
+
+    private static final double MAX_LOAD = 0.5;
+
+    private long[] slots;
+    private int mask;
+    private int size; // Keys stored in slots (the 0 key excluded)
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, (int) Math.min(1 << 30, (long) (expectedSize / MAX_LOAD) + 1)) - 1) << 1;
+        this.slots = new long[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return true if the key was not in the set yet.
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) return false;
+            containsZero = true;
+            return true;
+        }
+        int slot = indexFor(key);
+        while (slots[slot] != 0) {
+            if (slots[slot] == key) return false;
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = key;
+        if (++size > slots.length * MAX_LOAD) {
+            grow();
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) return containsZero;
+        int slot = indexFor(key);
+        while (slots[slot] != 0) {
+            if (slots[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size + (containsZero ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0L);
+        size = 0;
+        containsZero = false;
+    }
+
+    private void grow() {
+        long[] oldSlots = slots;
+        slots = new long[oldSlots.length << 1];
+        mask = slots.length - 1;
+        for (long key : oldSlots) {
+            if (key != 0) {
+                int slot = indexFor(key);
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = key;
+            }
+        }
+    }
+
+    // Packed pairs are far from random in their low bits, so spread them first (murmur3 finalizer)
+    private int indexFor(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+}
@@ -0,0 +1,144 @@
+package com.info2.miniprojet.util;
+
+import java.util.Arrays;
+
+/**
+ * Multimap from long keys to int values without boxing: an open-addressing table of keys, each pointing to
+ * the head of a singly linked list of values kept in two flat int arrays. Meant for large indexes of hashed
+ * keys to positions (a few bytes per entry instead of a HashMap entry and a List per key).
+ * Values of a key are iterated from the most recently added:
+ * <pre>
+ *   for (int e = map.first(key); e >= 0; e = map.next(e)) { int value = map.valueAt(e); ... }
+ * </pre>
+ * Removing a value unlinks its entry (the entry's space is not reclaimed); a key left without values keeps
+ * its slot, so the probe sequences of the other keys stay intact.
+ */
+public final class LongIntMultiMap {
+
+    private static final double MAX_LOAD = 0.5;
+    private static final int NO_ENTRY = -1;
+    private static final int EMPTIED = -2; // Head of a key whose values were all removed
+
+    private long[] keys;
+    private int[] heads; // NO_ENTRY marks a free slot
+    private int mask;
+    private int keyCount;
+
+    private int[] entryValues;
+    private int[] entryNext;
+    private int entryCount;
+    private int valueCount; // entryCount minus the removed entries
+
+    public LongIntMultiMap() {
+        this(16);
+    }
+
+    public LongIntMultiMap(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(8, (int) Math.min(1 << 30, (long) (expectedKeys / MAX_LOAD) + 1)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.heads = new int[capacity];
+        Arrays.fill(this.heads, NO_ENTRY);
+        this.mask = capacity - 1;
+        this.entryValues = new int[Math.max(16, expectedKeys)];
+        this.entryNext = new int[this.entryValues.length];
+    }
+
+    public void put(long key, int value) {
+        if (entryCount == entryValues.length) {
+            entryValues = Arrays.copyOf(entryValues, entryCount * 2);
+            entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+        }
+        int slot = slotFor(key);
+        if (heads[slot] == NO_ENTRY) {
+            keys[slot] = key;
+            keyCount++;
+        }
+        entryValues[entryCount] = value;
+        entryNext[entryCount] = heads[slot];
+        heads[slot] = entryCount++;
+        valueCount++;
+        if (keyCount > keys.length * MAX_LOAD) {
+            grow();
+        }
+    }
+
+    /**
+     * Removes one occurrence of the value from the values of the key.
+     *
+     * @return false if the key doesn't have this value.
+     */
+    public boolean remove(long key, int value) {
+        int slot = slotFor(key);
+        int previous = NO_ENTRY;
+        for (int entry = heads[slot]; entry >= 0; previous = entry, entry = entryNext[entry]) {
+            if (entryValues[entry] == value) {
+                int next = entryNext[entry];
+                if (previous >= 0) {
+                    entryNext[previous] = next;
+                } else {
+                    heads[slot] = next >= 0 ? next : EMPTIED;
+                }
+                valueCount--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The first entry of the key, or a negative value if the key is absent or has no values left.
+     */
+    public int first(long key) {
+        return heads[slotFor(key)];
+    }
+
+    public int next(int entry) {
+        return entryNext[entry];
+    }
+
+    public int valueAt(int entry) {
+        return entryValues[entry];
+    }
+
+    // Keys ever added, including the ones whose values were all removed
+    public int keyCount() {
+        return keyCount;
+    }
+
+    // Values currently stored
+    public int size() {
+        return valueCount;
+    }
+
+    // Slot holding the key, or the free slot where it would go
+    private int slotFor(long key) {
+        int slot = spread(key) & mask;
+        while (heads[slot] != NO_ENTRY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        keys = new long[oldKeys.length << 1];
+        heads = new int[oldHeads.length << 1];
+        Arrays.fill(heads, NO_ENTRY);
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHeads[i] != NO_ENTRY) {
+                int slot = slotFor(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+            }
+        }
+    }
+
+    private static int spread(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
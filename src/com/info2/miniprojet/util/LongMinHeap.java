@@ -0,0 +1,61 @@
+package com.info2.miniprojet.util;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of primitive longs, for best-first searches over packed (score, position) keys
+ * (see the finders' pack helpers). A max-heap is obtained by pushing complemented keys (~key).
+ */
+public final class LongMinHeap {
+
+    private long[] heap;
+    private int size;
+
+    public LongMinHeap() {
+        this(64);
+    }
+
+    public LongMinHeap(int initialCapacity) {
+        this.heap = new long[Math.max(4, initialCapacity)];
+    }
+
+    public void push(long value) {
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    public long pop() {
+        long top = heap[0];
+        long last = heap[--size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= last) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    public long peek() {
+        return heap[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.info2.miniprojet.comparison.impl;
+
+import com.info2.miniprojet.comparison.NameComparator;
+import com.info2.miniprojet.comparison.ScoreCacheReporting;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.factory.StrategyFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingStringComparatorTest {
+
+    @Test
+    void cachedScoresShouldMatchTheDelegate() {
+        JarowinklerComparator jaroWinkler = new JarowinklerComparator();
+        CachingStringComparator cached = new CachingStringComparator(jaroWinkler, 1000);
+        String[] tokens = {"mohammed", "muhammad", "mohamed", "ali", "alia", ""};
+        for (int round = 0; round < 2; round++) {
+            for (String token1 : tokens) {
+                for (String token2 : tokens) {
+                    assertEquals(jaroWinkler.calculateScore(token1, token2), cached.calculateScore(token1, token2));
+                }
+            }
+        }
+        CachingStringComparator.Stats stats = cached.getStats();
+        assertEquals(36, stats.misses()); // Ordered pairs: the delegate needn't be symmetric
+        assertEquals(36, stats.hits());
+        assertEquals(6, stats.internedTokens());
+        assertEquals(0.5, stats.hitRate(), 1e-9);
+        assertFalse(cached.isScoreDistance());
+        assertEquals("JARO_WINKLER", cached.getName());
+    }
+
+    @Test
+    void smallCacheShouldEvictAndStopInterningWhenFull() {
+        LevenshteinComparator levenshtein = new LevenshteinComparator();
+        CachingStringComparator cached = new CachingStringComparator(levenshtein, 4);
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < 20; j++) {
+                assertEquals(levenshtein.calculateScore("token" + i, "name" + j), cached.calculateScore("token" + i, "name" + j));
+            }
+        }
+        CachingStringComparator.Stats stats = cached.getStats();
+        assertEquals(4, stats.internedTokens());
+        assertTrue(stats.bypassed() > 0);
+        assertEquals(400, stats.hits() + stats.misses() + stats.bypassed());
+        assertThrows(IllegalArgumentException.class, () -> new CachingStringComparator(levenshtein, 0));
+    }
+
+    @Test
+    void factoryShouldWrapTokenComparatorsOnlyWhenAsked() {
+        Name name1 = new Name("1", "mohammed ali", List.of("mohammed", "ali"));
+        Name name2 = new Name("2", "muhammad ali", List.of("muhammad", "ali"));
+        NameComparator plain = StrategyFactory.createNameComparator("BAG_OF_WORDS", "JARO_WINKLER");
+        NameComparator cached = StrategyFactory.createNameComparator("BAG_OF_WORDS:TOKEN_CACHE=1000", "JARO_WINKLER");
+        assertNull(((ScoreCacheReporting) plain).describeScoreCache());
+        assertEquals(plain.calculateScore(name1, name2), cached.calculateScore(name1, name2));
+        assertEquals(plain.calculateScore(name1, name2), cached.calculateScore(name1, name2));
+        assertTrue(((ScoreCacheReporting) cached).describeScoreCache().contains("hits"));
+    }
+}
@@ -94,4 +94,21 @@ class JaccardTokenNameComparatorTest {
         assertEquals(0.0, comparator.calculateScore(name1, null), 0.0001);
         assertEquals(0.0, comparator.calculateScore(null, null), 0.0001); // Or 1.0, consistent with both empty
     }
-}
\ No newline at end of file
+
+    @Test
+    void duplicateAndNullTokensShouldCountOnceInTheSets() {
+        Name name1 = new Name("id1", "anna anna maria", Arrays.asList("anna", "anna", "maria", null)); // Set: {anna, maria, null}
+        Name name2 = new Name("id2", "anna", Arrays.asList(null, "anna"));                          // Set: {anna, null}
+        assertEquals(2.0 / 3.0, comparator.calculateScore(name1, name2), 0.0001);
+        assertEquals(2.0 / 3.0, comparator.calculateScore(name2, name1), 0.0001);
+        assertEquals(name1, new Name("id1", "anna anna maria", Arrays.asList("anna", "anna", "maria", null)));
+    }
+
+    @Test
+    void exactBagOfWordsShouldMatchEqualTokensOnceEach() {
+        NameComparator bagOfWords = new BagOfWordsNameComparator(new ExactMatchComparator(), 1);
+        Name name1 = new Name("id1", "anna anna maria", Arrays.asList("anna", "anna", "maria", null));
+        Name name2 = new Name("id2", "anna maria", Arrays.asList("maria", "anna", null));
+        assertEquals(2.0 * 2 / 7, bagOfWords.calculateScore(name1, name2), 0.0001); // Null tokens never match
+    }
+}
@@ -61,4 +61,31 @@ class JaroWinklerComparatorTest {
         // assertEquals(0.0, comparator.calculateScore(null, "text"), 0.0001);
         // assertEquals(0.0, comparator.calculateScore(null, null), 0.0001); // Or 1.0 if defined as such
     }
-}
\ No newline at end of file
+
+    @Test
+    void calculateScoreShouldHandleStringsLongerThanOneWordOfFlags() {
+        String base = "abcdefghij".repeat(10);
+        String swapped = "bacdefghij" + "abcdefghij".repeat(9);
+        // 100 matches, one transposition (2 half-transpositions), no common prefix
+        double jaro = (1.0 + 1.0 + (100 - 1.0) / 100) / 3;
+        assertEquals(jaro, comparator.calculateScore(base, swapped), 1e-12);
+        assertEquals(1.0, comparator.calculateScore(base, new String(base)), 0.0001);
+    }
+
+    @Test
+    void calculateScoreWithMinScoreShouldOnlyDifferBelowTheMinimum() {
+        String[][] pairs = {{"MARTHA", "MARHTA"}, {"DWAYNE", "DUANE"}, {"DIXON", "DICKSONX"}, {"apple", "apply"},
+                {"jean dupont", "marie curie"}, {"a", "abcdefghijklmnop"}, {"durand", "dupond"}};
+        for (String[] pair : pairs) {
+            double score = comparator.calculateScore(pair[0], pair[1]);
+            for (double minScore : new double[]{0.0, 0.5, 0.8, 0.85, 0.95, 1.0}) {
+                double bounded = comparator.calculateScore(pair[0], pair[1], minScore);
+                if (score >= minScore) {
+                    assertEquals(score, bounded, 0.0, "Scores reaching the minimum must be exact");
+                } else {
+                    assertTrue(bounded < minScore && bounded >= score, "Below the minimum: an upper bound that is still below it");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.info2.miniprojet.comparison.impl;
+
+import com.info2.miniprojet.comparison.NameComparator;
+import com.info2.miniprojet.comparison.StringComparator;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.factory.StrategyFactory;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+class KeyboardDistanceComparatorTest {
+
+    private final StringComparator comparator = new KeyboardDistanceComparator();
+
+    @Test
+    void neighbouringKeysShouldCostLessThanOtherSubstitutions() {
+        assertEquals(0.0, comparator.calculateScore("Martin", "martin"), 0.001);
+        assertEquals(0.5, comparator.calculateScore("martin", "nartin"), 0.001);  // m-n, same row
+        assertEquals(0.5, comparator.calculateScore("dupont", "eupont"), 0.001);  // d-e, row above
+        assertEquals(0.75, comparator.calculateScore("dupont", "rupont"), 0.001); // d-r, diagonal
+        assertEquals(1.0, comparator.calculateScore("dupont", "pupont"), 0.001);
+        assertEquals(1.0, comparator.calculateScore("dupont", "d-pont"), 0.001);  // Not a letter key
+        assertEquals(2.0, comparator.calculateScore("dupont", "dupontel"), 0.001);
+        assertEquals(6.0, comparator.calculateScore(null, "dupont"), 0.001);
+    }
+
+    @Test
+    void layoutShouldChangeWhichKeysAreNeighbours() {
+        KeyboardDistanceComparator azerty = new KeyboardDistanceComparator(KeyboardLayout.AZERTY);
+        KeyboardDistanceComparator qwertz = new KeyboardDistanceComparator(KeyboardLayout.QWERTZ);
+        assertEquals(1.0, comparator.calculateScore("lm", "ll"), 0.001);
+        assertEquals(0.5, azerty.calculateScore("lm", "ll"), 0.001);
+        assertEquals(0.5, comparator.calculateScore("yu", "uu"), 0.001);
+        assertEquals(1.0, qwertz.calculateScore("yu", "uu"), 0.001);
+        assertEquals(0.5, KeyboardLayout.QWERTZ.substitutionCost('z', 'u'));
+    }
+
+    @Test
+    void factoryShouldReadTheLayoutParameter() {
+        StringComparator created = StrategyFactory.createStringComparator("KEYBOARD_DISTANCE:LAYOUT=AZERTY");
+        assertEquals(KeyboardLayout.AZERTY, ((KeyboardDistanceComparator) created).getLayout());
+        created = StrategyFactory.createStringComparator("KEYBOARD_DISTANCE:LAYOUT=DVORAK");
+        assertEquals(KeyboardLayout.QWERTY, ((KeyboardDistanceComparator) created).getLayout());
+    }
+
+    @Test
+    void bagOfWordsShouldUseTheKeyboardDistanceWithLayoutParameter() {
+        Name name1 = new Name("1", "john smith", List.of("john", "smith"));
+        Name name2 = new Name("2", "john smoth", List.of("john", "smoth")); // i and o are neighbours on both layouts
+        NameComparator exact = StrategyFactory.createNameComparator("BAG_OF_WORDS", "EXACT_STRING");
+        NameComparator keyboard = StrategyFactory.createNameComparator("BAG_OF_WORDS", "keyboard_distance:layout=azerty");
+        assertTrue(keyboard.calculateScore(name1, name2) > exact.calculateScore(name1, name2),
+                "The parameterized spec shouldn't fall back to ExactMatch");
+    }
+}
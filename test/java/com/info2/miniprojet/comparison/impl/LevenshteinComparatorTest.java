@@ -1,9 +1,12 @@
 package com.info2.miniprojet.comparison.impl;
 
+import com.info2.miniprojet.comparison.ScoreBound;
 import com.info2.miniprojet.comparison.StringComparator;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.List;
+
 class LevenshteinComparatorTest {
 
     private final StringComparator comparator = new LevenshteinComparator();
@@ -59,4 +62,42 @@ class LevenshteinComparatorTest {
         assertEquals(5.0, comparator.calculateScore("hello", null), 0.001);
         assertEquals(5.0, comparator.calculateScore(null, "world"), 0.001);
     }
-}
\ No newline at end of file
+
+    @Test
+    void distanceShouldBeAtLeastTheBoundingLengthDifference() {
+        String[][] pairs = {{"martin", "martinez"}, {"Anne", "anne-marie"}, {"", "bob"}, {"durand", "dupont"}};
+        for (String[] pair : pairs) {
+            int lengthDifference = Math.abs(comparator.boundingLength(pair[0]) - comparator.boundingLength(pair[1]));
+            assertTrue(comparator.calculateScore(pair[0], pair[1]) >= lengthDifference);
+        }
+        assertEquals(0, comparator.boundingLength(null));
+    }
+
+    @Test
+    void calculateScoreForStringsLongerThanOneMachineWord() {
+        String a = "a".repeat(70);
+        assertEquals(70.0, comparator.calculateScore(a, "b".repeat(70)), 0.001);
+        assertEquals(1.0, comparator.calculateScore(a + "x" + a, a + a), 0.001);
+        assertEquals(2.0, comparator.calculateScore("x" + "ab".repeat(100) + "y", "ab".repeat(100)), 0.001);
+        assertEquals(3.0, comparator.calculateScore("q" + "abc".repeat(50) + "z", "ABC".repeat(25) + "abd" + "abc".repeat(24)), 0.001);
+    }
+
+    @Test
+    void calculateScoreShouldFoldCaseLikeStringToLowerCase() {
+        assertEquals(1.0, comparator.calculateScore("ÉLOÏSE", "eloïse"), 0.001);
+        assertEquals(0.0, comparator.calculateScore("ЖУКОВ", "жуков"), 0.001);
+        // Capital I with dot lowercases to two chars (i + combining dot)
+        assertEquals("İ".toLowerCase().length() - 1.0, comparator.calculateScore("İstanbul", "istanbul"), 0.001);
+    }
+
+    @Test
+    void scoreBoundsShouldNeverExceedTheDistance() {
+        List<ScoreBound<String>> bounds = comparator.scoreBounds();
+        assertEquals("LENGTH", bounds.get(0).getName());
+        assertEquals(2.0, bounds.get(0).bound("martin", "MARTINEZ"), 0.001);
+        assertEquals(3.0, bounds.get(1).bound("abc", "xyz"), 0.001); // Same lengths, no char in common
+        assertEquals(0.0, bounds.get(1).bound("Dupont", "dupotn"), 0.001); // Same chars: only the DP sees the transposition
+        assertEquals(2.0, comparator.calculateScore("Dupont", "dupotn"), 0.001);
+        assertTrue(Double.isNaN(bounds.get(1).bound(null, "abc")));
+    }
+}
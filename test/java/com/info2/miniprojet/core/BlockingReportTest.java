@@ -0,0 +1,71 @@
+package com.info2.miniprojet.core;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+class BlockingReportTest {
+
+    private final List<Name> names = Arrays.asList(
+            new Name("id1", "John Smith", Arrays.asList("john", "smith")),
+            new Name("id2", "Jon Smith", Arrays.asList("jon", "smith")),
+            new Name("id3", "Peter Jones", Arrays.asList("peter", "jones")),
+            new Name("id4", "Pete Jones", Arrays.asList("pete", "jones")),
+            new Name("id5", "Sue Davis", Arrays.asList("sue", "davis")),
+            new Name("id6", "Susan Davies", Arrays.asList("susan", "davies")));
+    // The Davis/Davies match has different last tokens; the unknown id and the self-pair are ignored
+    private final List<Couple<String>> trueMatches = BlockingReport.parseTrueMatches(
+            List.of("id1,id2", "id4, id3", "id5,id6", "id1,unknown", "id2,id2", "", "malformed"));
+
+    @Test
+    void parseTrueMatchesShouldSkipBlankAndMalformedLines() {
+        assertEquals(5, trueMatches.size());
+        assertEquals(new Couple<>("id4", "id3"), trueMatches.get(1));
+    }
+
+    @Test
+    void evaluateShouldMeasureCompletenessAndReduction() {
+        List<BlockingReport.FinderStats> results = BlockingReport.evaluate(names, trueMatches, List.of("DICTIONARY_LAST_TOKEN", "CARTESIAN_FIND_ALL"));
+        assertEquals(2, results.size());
+
+        BlockingReport.FinderStats dictionary = results.get(0);
+        assertFalse(dictionary.pairsEstimated());
+        assertEquals(2, dictionary.pairCount(), "smith and jones blocks");
+        assertEquals(3, dictionary.trueMatchCount());
+        assertEquals(2, dictionary.trueMatchesFound());
+        assertEquals(2.0 / 3, dictionary.pairCompleteness(), 1e-9);
+        assertEquals(1.0, dictionary.pairQuality(), 1e-9);
+        assertEquals(1.0 - 2.0 / 15, dictionary.reductionRatio(), 1e-9, "2 of the 15 possible pairs");
+        assertEquals(new TreeMap<>(Map.of(1, 2, 2, 2)), dictionary.blockSizeHistogram());
+
+        BlockingReport.FinderStats cartesian = results.get(1);
+        assertEquals(15, cartesian.pairCount());
+        assertEquals(1.0, cartesian.pairCompleteness(), 1e-9);
+        assertEquals(0.0, cartesian.reductionRatio(), 1e-9);
+    }
+
+    @Test
+    void finderAboveThePairCapShouldBeEstimatedFromBlockSizes() {
+        int count = 6400; // 20,476,800 pairs, just above the 20M cap
+        List<Name> manyNames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            manyNames.add(new Name("id" + i, "Name " + i, Arrays.asList("first" + i, "last" + i)));
+        }
+        List<BlockingReport.FinderStats> results = BlockingReport.evaluate(manyNames, List.of(new Couple<>("id1", "id2")),
+                List.of("CARTESIAN_FIND_ALL"));
+
+        BlockingReport.FinderStats cartesian = results.get(0);
+        assertTrue(cartesian.pairsEstimated(), "The single '*' block is not queried");
+        assertEquals((long) count * (count - 1) / 2, cartesian.pairCount());
+        assertEquals(0.0, cartesian.reductionRatio(), 1e-9);
+        assertTrue(Double.isNaN(cartesian.pairCompleteness()));
+        assertTrue(Double.isNaN(cartesian.pairQuality()));
+        assertEquals(Map.entry("*", count), cartesian.largestBlocks().get(0));
+        assertTrue(BlockingReport.format(results, count).contains("(estimated from block sizes)"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.info2.miniprojet.core;
+
+import com.info2.miniprojet.config.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+class EngineUpdateIndexTest {
+
+    private Engine engine;
+    private Configuration config;
+    private List<Name> names;
+
+    @BeforeEach
+    void setUp() {
+        engine = new Engine();
+        config = new Configuration();
+        config.setPreprocessorChoice("TOKENIZE");
+        config.setCandidateFinderChoice("TRIE_FINDER");
+        config.setNameComparatorChoice("JACCARD_TOKEN_SET");
+        config.setThresholdMode(true);
+        config.setResultThreshold(0.99);
+        config.setMaxResults(10);
+        names = new ArrayList<>(Arrays.asList(
+                new Name("1", "john smith", Arrays.asList("john", "smith")),
+                new Name("2", "jane doe", Arrays.asList("jane", "doe"))));
+    }
+
+    private List<String> idsFound(String query) {
+        return engine.performSearch(query, names, config).stream().map(ComparisonResult::id2).toList();
+    }
+
+    @Test
+    void updateIndexShouldApplyTheDeltaToTheIndexOfTheSameList() {
+        assertEquals(List.of("1"), idsFound("john smith")); // Builds the index over names
+
+        List<Name> added = List.of(new Name("3", "peter pan", Arrays.asList("peter", "pan")));
+        assertTrue(engine.updateIndex(names, added, Set.of("1")));
+        names.removeIf(name -> name.id().equals("1"));
+        names.addAll(added);
+
+        assertEquals(List.of(), idsFound("john smith"));
+        assertEquals(List.of("3"), idsFound("peter pan"));
+        assertEquals(List.of("2"), idsFound("jane doe"));
+    }
+
+    @Test
+    void updateIndexShouldLeaveAnIndexOverAnotherListAlone() {
+        idsFound("john smith");
+        List<Name> otherList = new ArrayList<>(names);
+        assertFalse(engine.updateIndex(otherList, List.of(), Set.of("1")));
+        assertEquals(List.of("1"), idsFound("john smith"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.info2.miniprojet.core;
+
+import com.info2.miniprojet.config.Configuration;
+import com.info2.miniprojet.factory.StrategyFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class FinderPlannerTest {
+
+    private List<Name> sampleNames;
+    private Configuration config;
+
+    @BeforeEach
+    void setUp() {
+        sampleNames = new ArrayList<>();
+        String[] firstNames = {"john", "jane", "peter", "sue", "alan", "maria", "omar", "li", "anna", "karl"};
+        String[] lastNames = {"smith", "jones", "davis", "garcia", "haddad", "wang", "novak", "muller"};
+        int id = 0;
+        for (String lastName : lastNames) {
+            for (String firstName : firstNames) {
+                sampleNames.add(new Name("id" + id++, firstName + " " + lastName, Arrays.asList(firstName, lastName)));
+                sampleNames.add(new Name("id" + id++, firstName + " " + lastName, Arrays.asList(firstName, lastName))); // Exact duplicate
+            }
+        }
+        config = new Configuration();
+        config.setNameComparatorChoice("JACCARD_TOKEN_SET");
+        config.setResultThreshold(0.99);
+        config.setThresholdMode(true);
+        config.setMaxResults(20);
+    }
+
+    private FinderPlanner.Plan plan(double recallFloor) {
+        config.setAutoRecallFloor(recallFloor);
+        return FinderPlanner.plan(sampleNames, StrategyFactory.createNameComparator("JACCARD_TOKEN_SET", null), config);
+    }
+
+    @Test
+    void isAutoShouldIgnoreCaseAndSpaces() {
+        assertTrue(FinderPlanner.isAuto(" auto "));
+        assertFalse(FinderPlanner.isAuto("CARTESIAN_FIND_ALL"));
+        assertFalse(FinderPlanner.isAuto(null));
+    }
+
+    @Test
+    void planShouldPickACheaperFinderThanCartesianWhenItFindsAllMatches() {
+        FinderPlanner.Plan plan = plan(1.0);
+        assertNotEquals("CARTESIAN_FIND_ALL", plan.finderChoice());
+        assertEquals(80, plan.sampleMatches(), "Each name has exactly one identical twin");
+
+        FinderPlanner.FinderEstimate chosen = plan.estimates().stream()
+                .filter(e -> e.finderChoice().equals(plan.finderChoice())).findFirst().orElseThrow();
+        assertEquals(1.0, chosen.recall(), 1e-9);
+    }
+
+    @Test
+    void unreachableRecallFloorShouldFallBackToCartesian() {
+        assertEquals("CARTESIAN_FIND_ALL", plan(1.1).finderChoice());
+    }
+
+    @Test
+    void cartesianEstimateShouldBeAllPairs() {
+        FinderPlanner.FinderEstimate cartesian = plan(0.9).estimates().stream()
+                .filter(e -> e.finderChoice().equals("CARTESIAN_FIND_ALL")).findFirst().orElseThrow();
+        assertEquals(160L * 159 / 2, cartesian.estimatedPairs());
+    }
+}
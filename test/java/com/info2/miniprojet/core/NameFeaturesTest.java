@@ -0,0 +1,43 @@
+package com.info2.miniprojet.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameFeaturesTest {
+
+    @Test
+    void shouldSplitTheTokensIntoFirstMiddleAndLastNames() {
+        NameFeatures features = new Name("1", "Jean Paul Marie Dupont", List.of("Jean", "Paul", "Marie", "Dupont")).features();
+        assertEquals("Jean Paul Marie Dupont", features.joined());
+        assertEquals("jean paul marie dupont", features.lowerJoined());
+        assertEquals(List.of("jean", "paul", "marie", "dupont"), features.lowerTokens());
+        assertEquals("Jean", features.firstName());
+        assertEquals("Paul Marie", features.middleNames());
+        assertEquals("Dupont", features.lastName());
+
+        NameFeatures single = NameFeatures.of(List.of("Dupont"));
+        assertEquals("Dupont", single.firstName());
+        assertEquals("", single.middleNames());
+        assertEquals("Dupont", single.lastName()); // A single token is both first and last name
+    }
+
+    @Test
+    void shouldKeepTheLowercasedCharsSorted() {
+        assertEquals(" abb", new String(NameFeatures.of(List.of("Ba", "b")).sortedLowerChars()));
+    }
+
+    @Test
+    void namesWithoutTokensShouldHaveEmptyFeatures() {
+        for (NameFeatures features : List.of(NameFeatures.of(null), NameFeatures.of(List.of()))) {
+            assertEquals("", features.joined());
+            assertEquals("", features.lowerJoined());
+            assertTrue(features.lowerTokens().isEmpty());
+            assertEquals(0, features.sortedLowerChars().length);
+            assertEquals("", features.firstName());
+            assertEquals("", features.lastName());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.info2.miniprojet.core;
+
+import com.info2.miniprojet.config.Configuration;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreCutoffTest {
+
+    private static Configuration config(boolean thresholdMode, double threshold, int maxResults) {
+        Configuration config = new Configuration();
+        config.setThresholdMode(thresholdMode);
+        config.setResultThreshold(threshold);
+        config.setMaxResults(maxResults);
+        return config;
+    }
+
+    @Test
+    void thresholdModeShouldCompareBoundsInTheScoreDirection() {
+        ScoreCutoff similarity = ScoreCutoff.of(config(true, 0.8, 0), false);
+        assertTrue(similarity.canReach(0.8));
+        assertFalse(similarity.canReach(0.79));
+        assertTrue(similarity.canReach(Double.NaN)); // No bound
+        assertEquals(0.8, similarity.minScore());
+
+        ScoreCutoff distance = ScoreCutoff.of(config(true, 2, 0), true);
+        assertTrue(distance.canReach(2));
+        assertFalse(distance.canReach(3));
+        assertFalse(distance.offer(2.5));
+        assertEquals(Double.NEGATIVE_INFINITY, distance.minScore());
+    }
+
+    @Test
+    void maxResultsModeShouldRaiseTheFloorAsScoresComeIn() {
+        ScoreCutoff cutoff = ScoreCutoff.of(config(false, 0, 2), false);
+        assertTrue(cutoff.offer(0.5));
+        assertTrue(cutoff.canReach(0.1)); // Fewer than 2 scores yet
+        assertTrue(cutoff.offer(0.7));
+        assertFalse(cutoff.canReach(0.5)); // Ties sort after the earlier pairs
+        assertTrue(cutoff.canReach(0.6));
+        assertTrue(cutoff.offer(0.9));
+        assertFalse(cutoff.offer(0.6)); // The floor is now 0.7
+        assertTrue(cutoff.minScore() > 0.7);
+    }
+
+    @Test
+    void showingAllResultsShouldDisableTheCutoff() {
+        ScoreCutoff cutoff = ScoreCutoff.of(config(false, 0, 0), true);
+        assertFalse(cutoff.isActive());
+        assertTrue(cutoff.offer(1e9));
+        assertTrue(cutoff.canReach(1e9));
+    }
+}
@@ -0,0 +1,71 @@
+package com.info2.miniprojet.core;
+
+import com.info2.miniprojet.comparison.NameComparator;
+import com.info2.miniprojet.comparison.impl.BagOfWordsNameComparator;
+import com.info2.miniprojet.comparison.impl.ExactMatchComparator;
+import com.info2.miniprojet.comparison.impl.JaccardTokenNameComparator;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+class TokenDictionaryTest {
+
+    private final List<NameComparator> comparators = List.of(new JaccardTokenNameComparator(), new BagOfWordsNameComparator(new ExactMatchComparator(), 1));
+
+    @Test
+    void queryTokensShouldGetTemporaryIdsWithoutGrowingTheDictionary() {
+        TokenDictionary dictionary = new TokenDictionary();
+        Name indexed = new Name("id1", "jean martin", Arrays.asList("jean", "martin"), dictionary);
+        assertEquals(2, dictionary.size());
+        int idLimit = dictionary.idLimit();
+
+        Name query = Name.query("q1", "jean zola zola", Arrays.asList("jean", "zola", "zola"), dictionary);
+        assertEquals(2, dictionary.size(), "Query tokens are not added");
+        assertEquals(idLimit, dictionary.idLimit());
+        int[] ids = query.tokenIds();
+        assertTrue(ids[0] < 0 && ids[0] == ids[1], "The repeated unknown token has one temporary id");
+        assertEquals(dictionary.idOf("jean"), ids[2]);
+        assertEquals(indexed.tokenIds()[0], ids[2]);
+
+        Name otherQuery = Name.query("q2", "hugo", List.of("hugo"), dictionary);
+        assertNotEquals(ids[0], otherQuery.tokenIds()[0], "Temporary ids of different queries don't match either");
+    }
+
+    @Test
+    void eachListShouldHaveItsOwnDictionary() {
+        TokenDictionary list1 = new TokenDictionary();
+        TokenDictionary list2 = new TokenDictionary();
+        Name name1 = new Name("id1", "anne petit", Arrays.asList("anne", "petit"), list1);
+        Name name2 = new Name("id2", "petit", List.of("petit"), list2);
+        assertEquals(2, list1.size());
+        assertEquals(1, list2.size(), "Tokens of another list are not added");
+        assertFalse(name1.sharesDictionaryWith(name2));
+        assertSame(list1, TokenDictionary.of(Arrays.asList(null, name1)));
+        assertNull(TokenDictionary.of(List.of(new Name("id3", "x", List.of("x")))));
+
+        Name translated = name1.withQueryIds(list2);
+        assertTrue(translated.sharesDictionaryWith(name2));
+        assertEquals(name1, translated);
+        assertEquals(1, list2.size());
+    }
+
+    @Test
+    void comparatorsShouldScoreTheSameWithOrWithoutASharedDictionary() {
+        TokenDictionary dictionary = new TokenDictionary();
+        List<String> indexedTokens = Arrays.asList("jean", "paul", "martin", null);
+        List<String> queryTokens = Arrays.asList("jean", "martin", "unknown", "unknown", null);
+        Name indexed = new Name("id1", "jean paul martin", indexedTokens, dictionary);
+        Name query = Name.query("q", "query", queryTokens, dictionary);
+        Name plainIndexed = new Name("id1", "jean paul martin", indexedTokens);
+        Name plainQuery = new Name("q", "query", queryTokens);
+        Name otherList = new Name("q", "query", queryTokens, new TokenDictionary());
+        for (NameComparator comparator : this.comparators) {
+            double expected = comparator.calculateScore(plainQuery, plainIndexed);
+            assertEquals(expected, comparator.calculateScore(query, indexed), 1e-12, comparator.getName());
+            assertEquals(expected, comparator.calculateScore(otherList, indexed), 1e-12, comparator.getName());
+            assertEquals(comparator.calculateScore(plainQuery, plainQuery), comparator.calculateScore(query, query), 1e-12, comparator.getName());
+        }
+    }
+}
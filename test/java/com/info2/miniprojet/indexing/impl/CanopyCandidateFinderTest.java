@@ -0,0 +1,87 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+class CanopyCandidateFinderTest {
+
+    private CandidateFinder finder;
+    private List<Name> sampleNames;
+
+    @BeforeEach
+    void setUp() {
+        finder = new CanopyCandidateFinder(0.4, 0.8);
+        sampleNames = Arrays.asList(
+                new Name("id1", "John Smith", Arrays.asList("john", "smith")),
+                new Name("id2", "John Paul Smith", Arrays.asList("john", "paul", "smith")),
+                new Name("id3", "Peter Jones", Arrays.asList("peter", "jones")),
+                new Name("id4", "Peter Alan Jones", Arrays.asList("peter", "alan", "jones")),
+                new Name("id5", "Sue Davis", Arrays.asList("sue", "davis"))
+        );
+    }
+
+    private Set<String> pairIds(List<Couple<Name>> pairs) {
+        Set<String> ids = new HashSet<>();
+        for (Couple<Name> pair : pairs) {
+            String id1 = pair.first().id();
+            String id2 = pair.second().id();
+            ids.add(id1.compareTo(id2) < 0 ? id1 + "-" + id2 : id2 + "-" + id1);
+        }
+        return ids;
+    }
+
+    @Test
+    void getNameShouldReturnCorrectName() {
+        assertEquals("CANOPY_TFIDF", finder.getName());
+    }
+
+    @Test
+    void constructorShouldRejectInvalidThresholds() {
+        assertThrows(IllegalArgumentException.class, () -> new CanopyCandidateFinder(0.9, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new CanopyCandidateFinder(0.0, 0.5));
+    }
+
+    @Test
+    void deduplicationShouldPairNamesWithMiddleNameVariants() {
+        finder.buildIndex(sampleNames);
+        List<Couple<Name>> pairs = finder.findCandidatesForDeduplication(sampleNames);
+
+        // A middle name breaks exact full-name keys, the shared (rare) tokens still put them in one canopy
+        assertEquals(Set.of("id1-id2", "id3-id4"), pairIds(pairs));
+        assertEquals(pairs.size(), pairIds(pairs).size(), "Overlapping canopies must not repeat pairs");
+    }
+
+    @Test
+    void searchShouldReturnNamesInNearbyCanopies() {
+        finder.buildIndex(sampleNames);
+        Name query = new Name("q1", "John Smith", Arrays.asList("john", "smith"));
+        Set<String> candidateIds = new HashSet<>();
+        for (Couple<Name> pair : finder.findCandidatesForSearch(query, sampleNames)) {
+            candidateIds.add(pair.second().id());
+        }
+        assertTrue(candidateIds.contains("id1"));
+        assertTrue(candidateIds.contains("id2"));
+        assertFalse(candidateIds.contains("id5"));
+    }
+
+    @Test
+    void addAndRemoveNamesShouldUpdateCanopies() {
+        finder.buildIndex(sampleNames);
+        finder.addNames(List.of(new Name("id6", "Sue Ann Davis", Arrays.asList("sue", "ann", "davis"))));
+        assertTrue(pairIds(finder.findCandidatesForDeduplication(sampleNames)).contains("id5-id6"));
+
+        finder.removeNames(List.of("id2"));
+        Set<String> ids = pairIds(finder.findCandidatesForDeduplication(sampleNames));
+        assertFalse(ids.contains("id1-id2"));
+        assertTrue(ids.contains("id3-id4"));
+    }
+}
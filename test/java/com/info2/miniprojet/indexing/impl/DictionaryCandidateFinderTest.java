@@ -7,6 +7,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Arrays;
 import java.util.Collections;
@@ -167,6 +171,73 @@ class DictionaryCandidateFinderTest {
     }
 
 
+    @Test
+    void parallelBuildShouldGiveSameCandidatesAsSequentialBuild() {
+        List<Name> manyNames = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            manyNames.add(new Name("id" + i, "Name " + i, Arrays.asList("first" + i, "last" + (i % 37))));
+        }
+        DictionaryCandidateFinder sequential = new DictionaryCandidateFinder();
+        sequential.parallelThreshold = Integer.MAX_VALUE;
+        DictionaryCandidateFinder parallel = new DictionaryCandidateFinder();
+        parallel.parallelThreshold = 0; // Force the sharded build even on a small list
+
+        sequential.buildIndex(manyNames);
+        parallel.buildIndex(manyNames);
+
+        assertEquals(new HashSet<>(sequential.findCandidatesForDeduplication(manyNames)),
+                new HashSet<>(parallel.findCandidatesForDeduplication(manyNames)));
+        Name query = new Name("q", "Query Last5", Arrays.asList("query", "last5"));
+        assertEquals(sequential.findCandidatesForSearch(query, manyNames), parallel.findCandidatesForSearch(query, manyNames),
+                "Posting lists should keep the same (ascending) order");
+    }
+
+    @Test
+    void addNamesShouldMakeNewNamesCandidatesWithoutRebuild() {
+        finder.buildIndex(sampleNames);
+        Name nameAnnaSmith = new Name("id6", "Anna Smith", Arrays.asList("anna", "smith"));
+        finder.addNames(List.of(nameAnnaSmith));
+
+        Name querySmith = new Name("q_smith", "Query Smith", Arrays.asList("query", "smith"));
+        List<Couple<Name>> results = finder.findCandidatesForSearch(querySmith, sampleNames);
+        assertEquals(3, results.size());
+        assertTrue(results.contains(new Couple<>(querySmith, nameAnnaSmith)));
+        assertEquals(3, finder.findCandidatesForDeduplication(sampleNames).size(), "Three Smiths give three pairs");
+    }
+
+    @Test
+    void removeNamesShouldDropThemFromCandidates() {
+        finder.buildIndex(sampleNames);
+        finder.removeNames(List.of("id2", "unknown-id"));
+
+        Name querySmith = new Name("q_smith", "Query Smith", Arrays.asList("query", "smith"));
+        List<Couple<Name>> results = finder.findCandidatesForSearch(querySmith, sampleNames);
+        assertEquals(1, results.size());
+        assertTrue(results.contains(new Couple<>(querySmith, nameJohnSmith)));
+        assertTrue(finder.findCandidatesForDeduplication(sampleNames).isEmpty());
+    }
+
+    @Test
+    void removeNamesShouldCompactAndKeepRemainingCandidates() {
+        List<Name> manyNames = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            manyNames.add(new Name("id" + i, "Name " + i, Arrays.asList("first" + i, "last" + (i % 4))));
+        }
+        finder.buildIndex(manyNames);
+        List<String> idsToRemove = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            idsToRemove.add("id" + i);
+        }
+        finder.removeNames(idsToRemove); // Well above the compaction ratio
+
+        Name query = new Name("q", "Query Last1", Arrays.asList("query", "last1"));
+        List<Couple<Name>> results = finder.findCandidatesForSearch(query, manyNames);
+        assertEquals(25, results.size(), "Ids 301, 305, ..., 397 are left in the 'last1' block");
+        for (Couple<Name> pair : results) {
+            assertTrue(Integer.parseInt(pair.second().id().substring(2)) >= 300);
+        }
+    }
+
     @Test
     void findCandidatesForSearchWithEmptyIndexedList() {
         finder.buildIndex(Collections.emptyList());
@@ -174,4 +245,62 @@ class DictionaryCandidateFinderTest {
         List<Couple<Name>> results = finder.findCandidatesForSearch(query, Collections.emptyList());
         assertTrue(results.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void oversizedBlocksShouldBeSplitBelowTheLimitForDeduplication() {
+        List<Name> manyNames = new ArrayList<>();
+        String[] firstNames = {"john", "jon", "jane", "peter", "paul", "maria", "mario", "omar"};
+        for (int i = 0; i < 200; i++) {
+            manyNames.add(new Name("id" + i, "Name " + i, Arrays.asList(firstNames[i % firstNames.length] + (i / firstNames.length), "smith")));
+        }
+        DictionaryCandidateFinder limited = new DictionaryCandidateFinder(10);
+        limited.buildIndex(manyNames);
+
+        for (int blockSize : limited.getBlockSizes().values()) {
+            assertTrue(blockSize <= 10, "Block of " + blockSize + " names above the limit");
+        }
+        assertEquals(200, limited.getBlockSizes().values().stream().mapToInt(Integer::intValue).sum(), "Every name stays in exactly one sub-block");
+        List<Couple<Name>> pairs = limited.findCandidatesForDeduplication(manyNames);
+        assertTrue(pairs.size() <= 200 * 9 / 2);
+        assertTrue(pairs.size() > 0);
+    }
+
+    @Test
+    void smallBlocksShouldBeLeftWhole() {
+        DictionaryCandidateFinder limited = new DictionaryCandidateFinder(2);
+        limited.buildIndex(sampleNames);
+        List<Couple<Name>> pairs = limited.findCandidatesForDeduplication(sampleNames);
+        assertEquals(1, pairs.size(), "Only the two smiths, their block is within the limit");
+    }
+
+    @Test
+    void negativeBlockLimitShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new DictionaryCandidateFinder(-1));
+    }
+
+    @Test
+    void bloomFilterShouldKeepEveryMatchAndSurviveWriteAndRead() throws Exception {
+        List<Name> probes = new ArrayList<>(sampleNames);
+        for (int i = 0; i < 500; i++) {
+            probes.add(new Name("p" + i, "Probe " + i, Arrays.asList("probe", "missing" + i)));
+        }
+        DictionaryCandidateFinder plain = new DictionaryCandidateFinder();
+        plain.buildIndex(sampleNames);
+        DictionaryCandidateFinder filtered = new DictionaryCandidateFinder(0, 0.01);
+        filtered.buildIndex(sampleNames);
+        List<Couple<Name>> expected = plain.findCandidatesForComparison(probes, sampleNames);
+        assertEquals(expected, filtered.findCandidatesForComparison(probes, sampleNames));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        filtered.writeIndex(new DataOutputStream(bytes));
+        DictionaryCandidateFinder restored = new DictionaryCandidateFinder(0, 0.01);
+        restored.readIndex(ByteBuffer.wrap(bytes.toByteArray()), sampleNames);
+        assertEquals(expected, restored.findCandidatesForComparison(probes, sampleNames));
+
+        // Keys added after the build must pass the filter too
+        Name added = new Name("id6", "Ann Probe", Arrays.asList("ann", "missing7"));
+        filtered.addNames(List.of(added));
+        assertTrue(filtered.findCandidatesForSearch(probes.get(sampleNames.size() + 7), sampleNames).stream()
+                .anyMatch(pair -> pair.second() == added));
+    }
+}
@@ -0,0 +1,79 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class HnswCandidateFinderTest {
+
+    private CandidateFinder finder;
+    private List<Name> sampleNames;
+
+    @BeforeEach
+    void setUp() {
+        finder = new HnswCandidateFinder(4, 20, 20, 2);
+        sampleNames = new ArrayList<>();
+        String[] firstNames = {"john", "jane", "peter", "sue", "alan", "maria", "omar", "li", "anna", "karl"};
+        String[] lastNames = {"smith", "jones", "davis", "garcia", "haddad", "wang", "novak", "muller"};
+        int id = 0;
+        for (String lastName : lastNames) {
+            for (String firstName : firstNames) {
+                sampleNames.add(new Name("id" + id++, firstName + " " + lastName, Arrays.asList(firstName, lastName)));
+            }
+        }
+    }
+
+    @Test
+    void getNameShouldReturnCorrectName() {
+        assertEquals("HNSW_TRIGRAM", finder.getName());
+    }
+
+    @Test
+    void constructorShouldRejectInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new HnswCandidateFinder(1, 10, 10, 5));
+        assertThrows(IllegalArgumentException.class, () -> new HnswCandidateFinder(8, 10, 10, 0));
+    }
+
+    @Test
+    void searchShouldReturnTopMNearestNamesWithTheTypoedNameFirst() {
+        finder.buildIndex(sampleNames);
+        Name query = new Name("q1", "Omar Hadad", Arrays.asList("omar", "hadad"));
+        List<Couple<Name>> pairs = finder.findCandidatesForSearch(query, sampleNames);
+
+        assertEquals(2, pairs.size(), "Exactly topM candidates expected");
+        assertEquals("omar haddad", pairs.get(0).second().originalName());
+    }
+
+    @Test
+    void removedNamesShouldNotBeReturned() {
+        finder.buildIndex(sampleNames);
+        Name omarHaddad = sampleNames.stream().filter(n -> n.originalName().equals("omar haddad")).findFirst().orElseThrow();
+        finder.removeNames(List.of(omarHaddad.id()));
+
+        Name query = new Name("q1", "Omar Haddad", Arrays.asList("omar", "haddad"));
+        for (Couple<Name> pair : finder.findCandidatesForSearch(query, sampleNames)) {
+            assertNotEquals(omarHaddad.id(), pair.second().id());
+        }
+    }
+
+    @Test
+    void deduplicationShouldPairAddedDuplicateWithOriginal() {
+        finder.buildIndex(sampleNames);
+        Name duplicate = new Name("dup", "Peter Novack", Arrays.asList("peter", "novack"));
+        finder.addNames(List.of(duplicate));
+
+        boolean found = false;
+        for (Couple<Name> pair : finder.findCandidatesForDeduplication(sampleNames)) {
+            found |= (pair.first() == duplicate && pair.second().originalName().equals("peter novak"))
+                    || (pair.second() == duplicate && pair.first().originalName().equals("peter novak"));
+        }
+        assertTrue(found);
+    }
+}
@@ -0,0 +1,67 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+class KeyOrderTest {
+
+    private final Name johnSmith = new Name("id1", "John Smith", Arrays.asList("john", "smith"));
+    private final Name smithJohn = new Name("id2", "SMITH John", Arrays.asList("SMITH", "John"));
+    private final Name janeDoe = new Name("id3", "Jane Doe", Arrays.asList("jane", "doe"));
+    private final List<Name> names = Arrays.asList(johnSmith, smithJohn, janeDoe);
+
+    @Test
+    void sortedKeyShouldIgnoreTokenOrderAndCase() {
+        assertEquals(KeyOrder.SORTED.primaryKey(johnSmith), KeyOrder.SORTED.primaryKey(smithJohn));
+        assertNotEquals(KeyOrder.ORIGINAL.primaryKey(johnSmith), KeyOrder.ORIGINAL.primaryKey(smithJohn));
+        assertEquals("john smith", KeyOrder.SORTED.primaryKey(smithJohn));
+        assertEquals("smith john", KeyOrder.ORIGINAL.primaryKey(smithJohn));
+    }
+
+    @Test
+    void everyOrderShouldRenderANullTokenTheSameWay() {
+        Name withNullToken = new Name("id4", "Doe ?", Arrays.asList("Doe", null));
+        assertEquals("doe null", KeyOrder.ORIGINAL.primaryKey(withNullToken));
+        assertEquals("doe null", KeyOrder.SORTED.primaryKey(withNullToken));
+        assertEquals(List.of("null doe"), KeyOrder.ROTATIONS.extraIndexKeys(withNullToken));
+        assertNull(KeyOrder.SORTED.primaryKey(new Name("id5", "", null)));
+    }
+
+    @Test
+    void rotationsShouldAddEveryOtherRotationOnce() {
+        Name abc = new Name("id4", "A B C", Arrays.asList("A", "b", "c"));
+        assertEquals(List.of("b c a", "c a b"), KeyOrder.ROTATIONS.extraIndexKeys(abc));
+        assertTrue(KeyOrder.SORTED.extraIndexKeys(abc).isEmpty());
+    }
+
+    @Test
+    void swappedNamesShouldBlockTogetherOnlyWithSortedKeys() {
+        RedBlackTreeCandidateFinder original = new RedBlackTreeCandidateFinder();
+        original.buildIndex(names);
+        assertTrue(original.findCandidatesForDeduplication(names).isEmpty());
+
+        RedBlackTreeCandidateFinder sorted = new RedBlackTreeCandidateFinder(KeyOrder.SORTED);
+        sorted.buildIndex(names);
+        List<Couple<Name>> pairs = sorted.findCandidatesForDeduplication(names);
+        assertEquals(1, pairs.size());
+        assertEquals(johnSmith, pairs.get(0).first());
+        assertEquals(smithJohn, pairs.get(0).second());
+    }
+
+    @Test
+    void trieWithRotationsShouldFindNameByPrefixOfAnyTokenAndPairItOnce() {
+        TrieCandidateFinder trie = new TrieCandidateFinder(KeyOrder.ROTATIONS);
+        trie.buildIndex(names);
+
+        Name query = new Name("q1", "Smi", List.of("smi"));
+        List<Couple<Name>> candidates = trie.findCandidatesForSearch(query, names);
+        assertEquals(2, candidates.size(), "Both john smith and smith john expected");
+
+        assertEquals(1, trie.findCandidatesForDeduplication(names).size());
+    }
+}
@@ -0,0 +1,56 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.comparison.impl.JaccardTokenNameComparator;
+import com.info2.miniprojet.comparison.impl.LevenshteinComparator;
+import com.info2.miniprojet.comparison.impl.PassThroughNameComparator;
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+class LengthBucketCandidateFinderTest {
+
+    private final List<Name> names = Arrays.asList(
+            new Name("id1", "Jean Martin", Arrays.asList("jean", "martin")),     // 11
+            new Name("id2", "Jean Martins", Arrays.asList("jean", "martins")),   // 12
+            new Name("id3", "Jeanne Martin", Arrays.asList("jeanne", "martin")), // 13
+            new Name("id4", "Al", List.of("al")),                                 // 2
+            new Name("id5", "", List.of()),                                       // 0
+            new Name("id6", "", List.of()));                                      // 0
+
+    @Test
+    void deduplicationShouldOnlyPairNamesWithinTheLengthBound() {
+        LengthBucketCandidateFinder finder = new LengthBucketCandidateFinder(1);
+        finder.buildIndex(names);
+        List<Couple<Name>> pairs = finder.findCandidatesForDeduplication(names);
+        // id1-id2, id2-id3, id5-id6
+        assertEquals(3, pairs.size());
+        for (Couple<Name> pair : pairs) {
+            assertTrue(names.indexOf(pair.first()) < names.indexOf(pair.second()));
+        }
+    }
+
+    @Test
+    void searchShouldCoverLengthsOnBothSides() {
+        LengthBucketCandidateFinder finder = new LengthBucketCandidateFinder(2);
+        finder.buildIndex(names);
+        Name query = new Name("q", "Jean Martine", Arrays.asList("jean", "martine")); // 12
+        assertEquals(3, finder.findCandidatesForSearch(query, names).size());
+    }
+
+    @Test
+    void engineThresholdShouldOnlyApplyToLengthBoundedDistances() {
+        LengthBucketCandidateFinder finder = new LengthBucketCandidateFinder();
+        finder.setSimilarityThreshold(new JaccardTokenNameComparator(), 0.8);
+        assertEquals(LengthBucketCandidateFinder.DEFAULT_MAX_LENGTH_DIFFERENCE, finder.getMaxLengthDifference());
+        finder.setSimilarityThreshold(new PassThroughNameComparator(new LevenshteinComparator()), 3.5);
+        assertEquals(3, finder.getMaxLengthDifference());
+
+        LengthBucketCandidateFinder fixed = new LengthBucketCandidateFinder(1);
+        fixed.setSimilarityThreshold(new PassThroughNameComparator(new LevenshteinComparator()), 4);
+        assertEquals(1, fixed.getMaxLengthDifference());
+    }
+}
@@ -0,0 +1,168 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.comparison.impl.JaccardTokenNameComparator;
+import com.info2.miniprojet.comparison.impl.PassThroughNameComparator;
+import com.info2.miniprojet.comparison.impl.ExactMatchComparator;
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.core.TokenDictionary;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+class PPJoinCandidateFinderTest {
+
+    private final JaccardTokenNameComparator jaccard = new JaccardTokenNameComparator();
+
+    @Test
+    void deduplicationShouldReturnExactlyThePairsReachingTheThreshold() {
+        String[] vocabulary = {"jean", "paul", "marie", "martin", "durand", "anne", "louis", "petit", "bernard", "claude"};
+        Random random = new Random(7);
+        List<Name> names = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            List<String> tokens = new ArrayList<>();
+            for (int t = random.nextInt(5); t >= 0; t--) tokens.add(vocabulary[random.nextInt(vocabulary.length)]);
+            names.add(new Name("id" + i, String.join(" ", tokens), tokens));
+        }
+        names.add(new Name("empty1", "", List.of()));
+        names.add(new Name("empty2", "", List.of()));
+
+        for (double threshold : new double[]{0.4, 0.7, 1.0}) {
+            PPJoinCandidateFinder finder = new PPJoinCandidateFinder(threshold);
+            finder.buildIndex(names);
+            List<Couple<Name>> pairs = finder.findCandidatesForDeduplication(names);
+            int expected = 0;
+            for (int i = 0; i < names.size(); i++) {
+                for (int j = i + 1; j < names.size(); j++) {
+                    if (jaccard.calculateScore(names.get(i), names.get(j)) >= threshold) expected++;
+                }
+            }
+            assertEquals(expected, pairs.size(), "threshold " + threshold);
+            for (Couple<Name> pair : pairs) {
+                assertTrue(jaccard.calculateScore(pair.first(), pair.second()) >= threshold);
+            }
+        }
+    }
+
+    @Test
+    void searchShouldHandleTokensUnknownToTheIndex() {
+        List<Name> names = Arrays.asList(
+                new Name("id1", "jean paul martin", Arrays.asList("jean", "paul", "martin")),
+                new Name("id2", "jean martin", Arrays.asList("jean", "martin")),
+                new Name("id3", "anne petit", Arrays.asList("anne", "petit")));
+        PPJoinCandidateFinder finder = new PPJoinCandidateFinder(0.5);
+        finder.buildIndex(names);
+
+        Name query = new Name("q", "jean martin zola", Arrays.asList("jean", "martin", "zola"));
+        List<Couple<Name>> candidates = finder.findCandidatesForSearch(query, names);
+        // 2/4 with id1, 2/3 with id2, nothing shared with id3
+        assertEquals(2, candidates.size());
+    }
+
+    @Test
+    void searchShouldHandleQueryNamesWithTemporaryTokenIds() {
+        TokenDictionary dictionary = new TokenDictionary();
+        List<Name> names = Arrays.asList(
+                new Name("id1", "jean paul martin", Arrays.asList("jean", "paul", "martin"), dictionary),
+                new Name("id2", "jean martin", Arrays.asList("jean", "martin"), dictionary),
+                new Name("id3", "anne petit", Arrays.asList("anne", "petit"), dictionary));
+        PPJoinCandidateFinder finder = new PPJoinCandidateFinder(0.5);
+        finder.buildIndex(names);
+
+        Name query = Name.query("q", "jean martin zolaq", Arrays.asList("jean", "martin", "zolaq_unknown"), dictionary);
+        assertTrue(query.tokenIds()[0] < 0, "Unknown token, temporary id");
+        assertEquals(2, finder.findCandidatesForSearch(query, names).size());
+    }
+
+    @Test
+    void engineThresholdShouldOnlyApplyToJaccardUnlessFixed() {
+        PPJoinCandidateFinder finder = new PPJoinCandidateFinder();
+        finder.setSimilarityThreshold(new PassThroughNameComparator(new ExactMatchComparator()), 0.3);
+        assertEquals(PPJoinCandidateFinder.DEFAULT_THRESHOLD, finder.getThreshold());
+        finder.setSimilarityThreshold(jaccard, 0.3);
+        assertEquals(0.3, finder.getThreshold());
+
+        PPJoinCandidateFinder fixed = new PPJoinCandidateFinder(0.9);
+        fixed.setSimilarityThreshold(jaccard, 0.3);
+        assertEquals(0.9, fixed.getThreshold());
+        assertThrows(IllegalArgumentException.class, () -> new PPJoinCandidateFinder(0));
+    }
+
+    private static List<Name> randomNames(String prefix, int count, String[] vocabulary, Random random) {
+        List<Name> names = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            List<String> tokens = new ArrayList<>();
+            for (int t = random.nextInt(4); t >= 0; t--) tokens.add(vocabulary[random.nextInt(vocabulary.length)]);
+            names.add(new Name(prefix + i, String.join(" ", tokens), tokens));
+        }
+        return names;
+    }
+
+    // Ids of the live names a query should get, by scoring it against all of them
+    private Set<String> expectedIds(Name query, List<Name> liveNames, double threshold) {
+        Set<String> ids = new HashSet<>();
+        for (Name name : liveNames) {
+            if (jaccard.calculateScore(query, name) >= threshold) ids.add(name.id());
+        }
+        return ids;
+    }
+
+    private static Set<String> candidateIds(List<Couple<Name>> pairs) {
+        Set<String> ids = new HashSet<>();
+        for (Couple<Name> pair : pairs) ids.add(pair.second().id());
+        return ids;
+    }
+
+    @Test
+    void addedNamesShouldBeFoundByLaterSearches() {
+        String[] vocabulary = {"jean", "paul", "marie", "martin", "durand", "anne"};
+        Random random = new Random(11);
+        List<Name> names = randomNames("id", 200, vocabulary, random);
+        PPJoinCandidateFinder finder = new PPJoinCandidateFinder(0.5);
+        finder.buildIndex(names);
+        List<Name> queries = randomNames("q", 50, vocabulary, random);
+        finder.findCandidatesForComparison(queries, names); // The prefix index now exists and is extended below
+
+        // Some added names bring tokens the index has never seen
+        List<Name> added = randomNames("added", 100, new String[]{"jean", "anne", "zoe", "yves"}, random);
+        finder.addNames(added);
+        List<Name> liveNames = new ArrayList<>(names);
+        liveNames.addAll(added);
+        queries.add(new Name("q_new", "zoe yves", Arrays.asList("zoe", "yves")));
+        for (Name query : queries) {
+            assertEquals(expectedIds(query, liveNames, 0.5), candidateIds(finder.findCandidatesForSearch(query, names)), query.originalName());
+        }
+    }
+
+    @Test
+    void removedNamesShouldBeDroppedBeforeAndAfterCompaction() {
+        String[] vocabulary = {"jean", "paul", "marie", "martin", "durand", "anne"};
+        Random random = new Random(13);
+        List<Name> names = randomNames("id", 400, vocabulary, random);
+        PPJoinCandidateFinder finder = new PPJoinCandidateFinder(0.5);
+        finder.buildIndex(names);
+        Name query = new Name("q", "jean martin", Arrays.asList("jean", "martin"));
+
+        finder.removeNames(List.of("id0", "id1", "id2"));
+        assertEquals(expectedIds(query, names.subList(3, names.size()), 0.5), candidateIds(finder.findCandidatesForSearch(query, names)));
+
+        List<String> idsToRemove = new ArrayList<>();
+        for (int i = 3; i < 300; i++) idsToRemove.add("id" + i);
+        finder.removeNames(idsToRemove); // Well above the compaction ratio
+        List<Name> survivors = names.subList(300, names.size());
+        assertEquals(expectedIds(query, survivors, 0.5), candidateIds(finder.findCandidatesForSearch(query, names)));
+        int expectedPairs = 0;
+        for (int i = 0; i < survivors.size(); i++) {
+            for (int j = i + 1; j < survivors.size(); j++) {
+                if (jaccard.calculateScore(survivors.get(i), survivors.get(j)) >= 0.5) expectedPairs++;
+            }
+        }
+        assertEquals(expectedPairs, finder.findCandidatesForDeduplication(names).size());
+    }
+}
@@ -0,0 +1,76 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+class PackedKeyTableTest {
+
+    @Test
+    void tableShouldMapEachKeyToItsAscendingPositions() {
+        String[] keys = new String[5000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i % 11 == 0 ? null : (i % 3 == 0 ? "müller" : i % 3 == 1 ? "Шевченко" + (i % 50) : "smith" + (i % 700));
+        }
+        PackedKeyTable table = PackedKeyTable.build(keys);
+        Map<String, List<Integer>> expected = ParallelIndexSupport.groupByKey(keys, false);
+
+        assertEquals(expected.size(), table.keyCount());
+        for (Map.Entry<String, List<Integer>> entry : expected.entrySet()) {
+            int id = table.find(entry.getKey());
+            assertTrue(id >= 0, "Key should be found: " + entry.getKey());
+            assertEquals(entry.getKey(), table.key(id), "Latin-1 and UTF-8 keys should decode back");
+            assertEquals(entry.getValue(), table.positions(id));
+        }
+        assertEquals(-1, table.find("muller"));
+        assertEquals(-1, table.find("Шевченко"));
+        assertEquals(-1, table.find(""));
+    }
+
+    @Test
+    void emptyTableShouldFindNothing() {
+        PackedKeyTable table = PackedKeyTable.build(new String[]{null, null});
+        assertEquals(0, table.keyCount());
+        assertEquals(-1, table.find("smith"));
+        assertTrue(table.keys().isEmpty());
+    }
+
+    @Test
+    void joinOnTableShouldMatchJoinOnMapIncludingAddedKeys() {
+        List<Name> indexed = new ArrayList<>();
+        List<Name> probes = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            indexed.add(new Name("i" + i, "Name " + i, Arrays.asList("first" + i, "last" + (i % 5000))));
+            probes.add(new Name("p" + i, "Name " + i, Arrays.asList("other" + i, "last" + (i % 7000))));
+        }
+        String[] indexedKeys = ParallelIndexSupport.computeKeys(indexed, name -> name.processedTokens().get(1), false);
+        PackedKeyTable table = PackedKeyTable.build(indexedKeys);
+        LiveNameTable nameTable = new LiveNameTable(indexed);
+        Map<String, List<Integer>> added = new HashMap<>();
+        added.put("last6000", new ArrayList<>(List.of(nameTable.append(new Name("a0", "Added", Arrays.asList("added", "last6000"))))));
+        added.put("last1", new ArrayList<>(List.of(nameTable.append(new Name("a1", "Added", Arrays.asList("added", "last1"))))));
+        nameTable.tombstone(List.of("i0"));
+
+        Map<String, List<Integer>> index = new HashMap<>(ParallelIndexSupport.groupByKey(indexedKeys, false));
+        added.forEach((key, positions) -> index.merge(key, positions, (old, extra) -> {
+            List<Integer> merged = new ArrayList<>(old);
+            merged.addAll(extra);
+            return merged;
+        }));
+        String[] probeKeys = ParallelIndexSupport.computeKeys(probes, name -> name.processedTokens().get(1), false);
+        List<Couple<Name>> expected = PartitionedHashJoin.join(probes, probeKeys, index, nameTable);
+        List<Couple<Name>> joined = PartitionedHashJoin.join(probes, probeKeys, table, added, nameTable);
+
+        assertEquals(expected.size(), joined.size());
+        assertEquals(new HashSet<>(expected), new HashSet<>(joined));
+        assertTrue(joined.stream().anyMatch(pair -> pair.second().id().equals("a0")), "Keys added after the build should be joined");
+    }
+}
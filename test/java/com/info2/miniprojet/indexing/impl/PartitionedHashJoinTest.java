@@ -0,0 +1,52 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+class PartitionedHashJoinTest {
+
+    private static String lastToken(Name name) {
+        return name == null ? null : name.processedTokens().get(name.processedTokens().size() - 1);
+    }
+
+    @Test
+    void joinShouldFindExactlyThePairsSharingAKey() {
+        List<Name> indexed = new ArrayList<>();
+        List<Name> probes = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            indexed.add(new Name("i" + i, "Name " + i, Arrays.asList("first" + i, "last" + (i % 5000))));
+            probes.add(new Name("p" + i, "Name " + i, Arrays.asList("other" + i, "last" + (i % 7000))));
+        }
+        probes.add(null);
+        String[] indexedKeys = ParallelIndexSupport.computeKeys(indexed, PartitionedHashJoinTest::lastToken, false);
+        Map<String, List<Integer>> index = ParallelIndexSupport.groupByKey(indexedKeys, false);
+        LiveNameTable nameTable = new LiveNameTable(indexed);
+        nameTable.tombstone(List.of("i0"));
+
+        String[] probeKeys = ParallelIndexSupport.computeKeys(probes, PartitionedHashJoinTest::lastToken, false);
+        List<Couple<Name>> joined = PartitionedHashJoin.join(probes, probeKeys, index, nameTable);
+
+        List<Couple<Name>> expected = new ArrayList<>();
+        for (Name probe : probes) {
+            if (probe == null) continue;
+            List<Integer> positions = index.get(lastToken(probe));
+            if (positions == null) continue;
+            for (int position : positions) {
+                if (nameTable.isLive(position)) expected.add(new Couple<>(probe, indexed.get(position)));
+            }
+        }
+        assertEquals(expected.size(), joined.size());
+        assertEquals(new HashSet<>(expected), new HashSet<>(joined));
+        for (Couple<Name> pair : joined) {
+            assertNotEquals("i0", pair.second().id(), "Removed names must not be joined");
+        }
+    }
+}
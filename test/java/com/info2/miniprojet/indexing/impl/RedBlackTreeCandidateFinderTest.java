@@ -0,0 +1,92 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+class RedBlackTreeCandidateFinderTest {
+
+    @Test
+    void parallelBuildShouldGiveSameCandidatesAsSequentialBuild() {
+        List<Name> names = TrieCandidateFinderTest.manyNames(3000);
+        for (KeyOrder keyOrder : KeyOrder.values()) {
+            RedBlackTreeCandidateFinder sequential = new RedBlackTreeCandidateFinder(keyOrder);
+            sequential.parallelThreshold = Integer.MAX_VALUE;
+            RedBlackTreeCandidateFinder parallel = new RedBlackTreeCandidateFinder(keyOrder);
+            parallel.parallelThreshold = 0; // Sharded grouping and sorted inserts
+            sequential.buildIndex(names);
+            parallel.buildIndex(names);
+
+            assertEquals(sequential.getBlockSizes(), parallel.getBlockSizes(), keyOrder.name());
+            assertEquals(sequential.findCandidatesForDeduplication(names), parallel.findCandidatesForDeduplication(names),
+                    keyOrder.name() + ": posting lists should keep the same (ascending) order");
+            Name query = new Name("q", "Marcel N3", Arrays.asList("marcel", "n3"));
+            assertEquals(sequential.findCandidatesForSearch(query, names), parallel.findCandidatesForSearch(query, names), keyOrder.name());
+            // The parallel finder also joins the probes on all cores, pairs come out partition by partition
+            List<Name> probes = TrieCandidateFinderTest.manyNames(500);
+            assertEquals(new HashSet<>(sequential.findCandidatesForComparison(probes, names)),
+                    new HashSet<>(parallel.findCandidatesForComparison(probes, names)), keyOrder.name());
+        }
+    }
+
+    @Test
+    void sortedGroupingShouldMatchHashGroupingOnBothPaths() {
+        List<Name> names = TrieCandidateFinderTest.manyNames(3000);
+        String[] keys = ParallelIndexSupport.computeKeys(names, KeyOrder.ORIGINAL::primaryKey, false);
+        Map<String, List<Integer>> expected = new TreeMap<>(ParallelIndexSupport.groupByKey(keys, false));
+        for (boolean parallel : new boolean[]{false, true}) {
+            SortedMap<String, List<Integer>> sorted = ParallelIndexSupport.groupByKeySorted(keys, parallel);
+            assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(sorted.keySet()), "Keys in order, parallel " + parallel);
+            assertEquals(expected, new TreeMap<>(sorted), "Ascending posting lists, parallel " + parallel);
+        }
+    }
+
+    @Test
+    void addedNamesShouldBeFoundAndRemovedNamesDropped() {
+        List<Name> names = Arrays.asList(
+                new Name("a1", "John Smith", Arrays.asList("john", "smith")),
+                new Name("a2", "Jane Doe", Arrays.asList("jane", "doe")));
+        RedBlackTreeCandidateFinder finder = new RedBlackTreeCandidateFinder();
+        finder.buildIndex(names);
+        Name added = new Name("a3", "John Smith", Arrays.asList("john", "smith"));
+        finder.addNames(List.of(added));
+
+        Name query = new Name("q", "JOHN SMITH", Arrays.asList("JOHN", "SMITH"));
+        List<Couple<Name>> pairs = finder.findCandidatesForSearch(query, names);
+        assertEquals(2, pairs.size());
+        assertTrue(pairs.contains(new Couple<>(query, added)));
+        assertEquals(1, finder.findCandidatesForDeduplication(names).size(), "a1 and the added a3 share their key");
+
+        finder.removeNames(List.of("a1"));
+        assertEquals(List.of(new Couple<>(query, added)), finder.findCandidatesForSearch(query, names));
+        assertTrue(finder.findCandidatesForDeduplication(names).isEmpty());
+    }
+
+    @Test
+    void removingMostNamesShouldCompactAndKeepTheRest() {
+        List<Name> names = TrieCandidateFinderTest.manyNames(400);
+        RedBlackTreeCandidateFinder finder = new RedBlackTreeCandidateFinder();
+        finder.buildIndex(names);
+        List<String> idsToRemove = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            idsToRemove.add("id" + i);
+        }
+        finder.removeNames(idsToRemove); // Well above the compaction ratio
+
+        // Keys repeat every 410 names (10 first names x 41 last tokens): each of these 400 keys is unique
+        assertTrue(finder.findCandidatesForSearch(names.get(7), names).isEmpty(), "id7 was removed");
+        Name kept = names.get(335);
+        List<Couple<Name>> pairs = finder.findCandidatesForSearch(kept, names);
+        assertEquals(List.of(new Couple<>(kept, kept)), pairs);
+        assertEquals(99, finder.getBlockSizes().values().stream().mapToInt(Integer::intValue).sum(), "The 100 names left, but id388 has no tokens");
+    }
+}
@@ -0,0 +1,140 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class SymSpellCandidateFinderTest {
+
+    private final List<Name> indexed = Arrays.asList(
+            new Name("a1", "John Smith", Arrays.asList("john", "smith")),
+            new Name("a2", "Jon Smith", Arrays.asList("jon", "smith")),     // One deletion
+            new Name("a3", "Jhon Smith", Arrays.asList("jhon", "smith")),   // One transposition
+            new Name("a4", "Joan Smyth", Arrays.asList("joan", "smyth")),   // Two substitutions
+            new Name("a5", "Peter Jones", Arrays.asList("peter", "jones")),
+            new Name("a6", "No Tokens", List.of()));
+    private final Name query = new Name("q", "JOHN SMITH", Arrays.asList("JOHN", "SMITH"));
+
+    private static Set<String> candidateIds(List<Couple<Name>> pairs) {
+        return pairs.stream().map(pair -> pair.second().id()).collect(Collectors.toSet());
+    }
+
+    @Test
+    void searchShouldFindKeysWithinOneEdit() {
+        SymSpellCandidateFinder finder = new SymSpellCandidateFinder(1);
+        finder.buildIndex(indexed);
+        assertEquals(Set.of("a1", "a2", "a3"), candidateIds(finder.findCandidatesForSearch(query, indexed)));
+    }
+
+    @Test
+    void searchShouldFindKeysWithinTwoEdits() {
+        SymSpellCandidateFinder finder = new SymSpellCandidateFinder(2);
+        finder.buildIndex(indexed);
+        assertEquals(Set.of("a1", "a2", "a3", "a4"), candidateIds(finder.findCandidatesForSearch(query, indexed)));
+    }
+
+    @Test
+    void zeroEditsShouldOnlyMatchEqualKeys() {
+        SymSpellCandidateFinder finder = new SymSpellCandidateFinder(0);
+        finder.buildIndex(indexed);
+        assertEquals(Set.of("a1"), candidateIds(finder.findCandidatesForSearch(query, indexed)));
+    }
+
+    @Test
+    void deduplicationShouldEmitEachPairOnceWithoutSelfPairs() {
+        List<Name> names = new ArrayList<>(indexed);
+        names.add(new Name("a7", "John Smith", Arrays.asList("john", "smith"))); // Same key as a1
+        SymSpellCandidateFinder finder = new SymSpellCandidateFinder(1);
+        finder.buildIndex(names);
+
+        List<Couple<Name>> pairs = finder.findCandidatesForDeduplication(names);
+        Set<Set<String>> distinctPairs = new HashSet<>();
+        for (Couple<Name> pair : pairs) {
+            assertNotEquals(pair.first().id(), pair.second().id(), "Self pair " + pair);
+            assertTrue(distinctPairs.add(Set.of(pair.first().id(), pair.second().id())), "Pair emitted twice: " + pair);
+        }
+        // john smith (a1, a7), jon smith and jhon smith are all within one edit of each other
+        assertEquals(Set.of(Set.of("a1", "a7"), Set.of("a1", "a2"), Set.of("a1", "a3"), Set.of("a7", "a2"), Set.of("a7", "a3"),
+                Set.of("a2", "a3")), distinctPairs);
+    }
+
+    @Test
+    void deduplicationShouldMatchBruteForceVerification() {
+        Random random = new Random(42);
+        List<Name> names = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int c = 1 + random.nextInt(6); c > 0; c--) {
+                key.append("abcd".charAt(random.nextInt(4)));
+            }
+            names.add(new Name("id" + i, key.toString(), List.of(key.toString())));
+        }
+        for (int maxEdits = 1; maxEdits <= SymSpellCandidateFinder.MAX_SUPPORTED_EDITS; maxEdits++) {
+            SymSpellCandidateFinder finder = new SymSpellCandidateFinder(maxEdits);
+            finder.buildIndex(names);
+            Set<Set<String>> expected = new HashSet<>();
+            for (int i = 0; i < names.size(); i++) {
+                for (int j = i + 1; j < names.size(); j++) {
+                    if (SymSpellCandidateFinder.withinEdits(names.get(i).originalName(), names.get(j).originalName(), maxEdits)) {
+                        expected.add(Set.of(names.get(i).id(), names.get(j).id()));
+                    }
+                }
+            }
+            List<Couple<Name>> pairs = finder.findCandidatesForDeduplication(names);
+            Set<Set<String>> found = pairs.stream().map(pair -> Set.of(pair.first().id(), pair.second().id())).collect(Collectors.toSet());
+            assertEquals(expected.size(), pairs.size(), "Each pair once, max edits " + maxEdits);
+            assertEquals(expected, found, "Max edits " + maxEdits);
+        }
+    }
+
+    @Test
+    void addedNamesShouldBeFoundAndRemovedNamesDropped() {
+        SymSpellCandidateFinder finder = new SymSpellCandidateFinder(1);
+        finder.buildIndex(indexed);
+        finder.addNames(List.of(new Name("a8", "Johnn Smith", Arrays.asList("johnn", "smith"))));
+        assertEquals(Set.of("a1", "a2", "a3", "a8"), candidateIds(finder.findCandidatesForSearch(query, indexed)));
+
+        finder.removeNames(List.of("a2", "a8", "unknown-id"));
+        assertEquals(Set.of("a1", "a3"), candidateIds(finder.findCandidatesForSearch(query, indexed)));
+        assertEquals(1, finder.findCandidatesForDeduplication(indexed).size(), "Only a1 and a3 are left within one edit");
+    }
+
+    @Test
+    void removingMostNamesShouldCompactAndKeepTheRest() {
+        List<Name> names = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            names.add(new Name("id" + i, "Name " + i, List.of("name" + i)));
+        }
+        SymSpellCandidateFinder finder = new SymSpellCandidateFinder(1);
+        finder.buildIndex(names);
+        List<String> idsToRemove = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            idsToRemove.add("id" + i);
+        }
+        finder.removeNames(idsToRemove);
+
+        Name nameQuery = new Name("q", "Name 35", List.of("name35"));
+        // name35 is one edit from name3 and name5 (removed), name350..name359 and name305..name395 (kept)
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i <= 9; i++) {
+            expected.add("id35" + i);
+            expected.add("id3" + i + "5");
+        }
+        assertEquals(expected, candidateIds(finder.findCandidatesForSearch(nameQuery, names)));
+    }
+
+    @Test
+    void maxEditsShouldStayInRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SymSpellCandidateFinder(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SymSpellCandidateFinder(SymSpellCandidateFinder.MAX_SUPPORTED_EDITS + 1));
+    }
+}
@@ -0,0 +1,25 @@
+package com.info2.miniprojet.indexing.impl;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+class TfIdfVectorSpaceTest {
+
+    @Test
+    void repeatedUnknownQueryTermShouldWeighLikeARepeatedKnownTerm() {
+        TfIdfVectorSpace space = new TfIdfVectorSpace();
+        space.fit(List.of(List.of("john", "smith"), List.of("peter", "jones"), List.of("sue")));
+        double johnIdf = Math.log(4.0 / 1);
+        double unseenIdf = Math.log(4.0);
+
+        TfIdfVectorSpace.SparseVector john = space.vectorize(List.of("john"), false);
+        TfIdfVectorSpace.SparseVector query = space.vectorize(List.of("john", "zola", "zola"), false);
+        assertEquals(2, query.terms().length, "One id for the repeated unknown term");
+        assertEquals(space.termCount(), query.terms()[1]);
+        double expected = johnIdf / Math.sqrt(johnIdf * johnIdf + 4 * unseenIdf * unseenIdf); // tf 2 for zola
+        assertEquals(expected, query.dot(john), 1e-6);
+        assertEquals(5, space.termCount(), "Query terms are not registered");
+    }
+}
@@ -0,0 +1,160 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+class TrieCandidateFinderTest {
+
+    private final List<Name> indexed = Arrays.asList(
+            new Name("a1", "John Smith", Arrays.asList("john", "smith")),
+            new Name("a2", "Johnny Smith", Arrays.asList("johnny", "smith")),
+            new Name("a3", "Jane Doe", Arrays.asList("jane", "doe")),
+            new Name("a4", "Joan Smith", Arrays.asList("joan", "smith")));
+    private final List<Name> queries = Arrays.asList(
+            new Name("q1", "John", List.of("john")),
+            new Name("q2", "Jane Doe", Arrays.asList("jane", "doe")),
+            new Name("q3", "Joh", List.of("joh")),
+            new Name("q4", "Smith", List.of("smith")));
+
+    @Test
+    void exactTrieJoinShouldFindSamePairsAsProbing() {
+        TrieCandidateFinder probe = new TrieCandidateFinder();
+        probe.buildIndex(indexed);
+        TrieCandidateFinder join = new TrieCandidateFinder(KeyOrder.ORIGINAL, true, 0);
+        join.buildIndex(indexed);
+
+        List<Couple<Name>> probePairs = probe.findCandidatesForComparison(queries, indexed);
+        List<Couple<Name>> joinPairs = join.findCandidatesForComparison(queries, indexed);
+        assertEquals(5, probePairs.size(), "john, joh -> john smith, johnny smith; jane doe -> jane doe");
+        assertEquals(new HashSet<>(probePairs), new HashSet<>(joinPairs));
+    }
+
+    @Test
+    void fuzzyTrieJoinShouldMatchPrefixesWithinEditBound() {
+        TrieCandidateFinder join = new TrieCandidateFinder(KeyOrder.ORIGINAL, true, 1);
+        join.buildIndex(indexed);
+
+        List<Couple<Name>> pairs = join.findCandidatesForComparison(List.of(queries.get(2)), indexed);
+        // "joh" is a prefix of "john" and "johnny" and one edit from "joa"(n); every prefix of "jane doe" is two edits away
+        assertEquals(3, pairs.size());
+        assertTrue(pairs.stream().noneMatch(pair -> pair.second().id().equals("a3")));
+    }
+
+    @Test
+    void removedNamesShouldNotBeJoined() {
+        TrieCandidateFinder join = new TrieCandidateFinder(KeyOrder.ORIGINAL, true, 0);
+        join.buildIndex(indexed);
+        join.removeNames(List.of("a1"));
+
+        List<Couple<Name>> pairs = join.findCandidatesForComparison(List.of(queries.get(0)), indexed);
+        assertEquals(1, pairs.size());
+        assertEquals("a2", pairs.get(0).second().id());
+    }
+
+    @Test
+    void editBoundShouldRequireJoinAndStayInRange() {
+        assertThrows(IllegalArgumentException.class, () -> new TrieCandidateFinder(KeyOrder.ORIGINAL, false, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TrieCandidateFinder(KeyOrder.ORIGINAL, true, TrieCandidateFinder.MAX_SUPPORTED_JOIN_EDITS + 1));
+        assertThrows(IllegalArgumentException.class, () -> new TrieCandidateFinder(null, true, 0));
+    }
+
+    // Keys over many first characters, with shared prefixes, one-character keys and names without tokens
+    static List<Name> manyNames(int count) {
+        String[] firstNames = {"jean", "jeanne", "j", "marc", "marcel", "zoe", "adam", "a", "eve", "yann"};
+        List<Name> names = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (i % 97 == 0) {
+                names.add(new Name("id" + i, "", Collections.emptyList()));
+            } else {
+                names.add(new Name("id" + i, "Name " + i, Arrays.asList(firstNames[i % firstNames.length], "n" + (i % 41))));
+            }
+        }
+        return names;
+    }
+
+    @Test
+    void parallelBuildShouldGiveSameCandidatesAsSequentialBuild() {
+        List<Name> names = manyNames(3000);
+        for (KeyOrder keyOrder : KeyOrder.values()) {
+            TrieCandidateFinder sequential = new TrieCandidateFinder(keyOrder);
+            sequential.parallelThreshold = Integer.MAX_VALUE;
+            TrieCandidateFinder parallel = new TrieCandidateFinder(keyOrder);
+            parallel.parallelThreshold = 0; // Subtries per first character, merged at the root
+            sequential.buildIndex(names);
+            parallel.buildIndex(names);
+
+            assertEquals(sequential.getBlockSizes(), parallel.getBlockSizes(), keyOrder.name());
+            assertEquals(new HashSet<>(sequential.findCandidatesForDeduplication(names)),
+                    new HashSet<>(parallel.findCandidatesForDeduplication(names)), keyOrder.name());
+            for (String prefix : List.of("j", "jean", "a", "marcel n3", "zoe n")) {
+                Name query = new Name("q", prefix, Arrays.asList(prefix.split(" ")));
+                assertEquals(new HashSet<>(sequential.findCandidatesForSearch(query, names)),
+                        new HashSet<>(parallel.findCandidatesForSearch(query, names)), keyOrder.name() + " " + prefix);
+            }
+            List<Name> probes = manyNames(500);
+            assertEquals(new HashSet<>(sequential.findCandidatesForComparison(probes, names)),
+                    new HashSet<>(parallel.findCandidatesForComparison(probes, names)), keyOrder.name());
+        }
+    }
+
+    @Test
+    void parallelRebuildAfterCompactionShouldGiveSameCandidatesAsSequential() {
+        List<Name> names = manyNames(3000);
+        TrieCandidateFinder sequential = new TrieCandidateFinder();
+        sequential.parallelThreshold = Integer.MAX_VALUE;
+        TrieCandidateFinder parallel = new TrieCandidateFinder();
+        parallel.parallelThreshold = 0;
+        sequential.buildIndex(names);
+        parallel.buildIndex(names);
+        List<String> idsToRemove = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            idsToRemove.add("id" + i);
+        }
+        sequential.removeNames(idsToRemove); // Compacts, the trie is rebuilt from the survivors
+        parallel.removeNames(idsToRemove);
+
+        assertEquals(sequential.getBlockSizes(), parallel.getBlockSizes());
+        assertEquals(new HashSet<>(sequential.findCandidatesForDeduplication(names)), new HashSet<>(parallel.findCandidatesForDeduplication(names)));
+    }
+
+    @Test
+    void addedNamesShouldBeFoundByPrefix() {
+        TrieCandidateFinder finder = new TrieCandidateFinder();
+        finder.buildIndex(indexed);
+        Name added = new Name("a5", "Johanna Doe", Arrays.asList("johanna", "doe"));
+        finder.addNames(List.of(added));
+
+        List<Couple<Name>> pairs = finder.findCandidatesForSearch(queries.get(2), indexed); // "joh"
+        assertEquals(3, pairs.size(), "john smith, johnny smith and the added johanna doe");
+        assertTrue(pairs.contains(new Couple<>(queries.get(2), added)));
+    }
+
+    @Test
+    void removingMostNamesShouldCompactAndKeepTheRest() {
+        List<Name> names = manyNames(400);
+        TrieCandidateFinder finder = new TrieCandidateFinder();
+        finder.buildIndex(names);
+        List<String> idsToRemove = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            idsToRemove.add("id" + i);
+        }
+        finder.removeNames(idsToRemove); // Well above the compaction ratio
+
+        Name query = new Name("q", "Zoe", List.of("zoe"));
+        List<Couple<Name>> pairs = finder.findCandidatesForSearch(query, names);
+        assertEquals(10, pairs.size(), "zoe is every tenth name, 305 to 395 are left");
+        for (Couple<Name> pair : pairs) {
+            assertTrue(Integer.parseInt(pair.second().id().substring(2)) >= 300);
+        }
+        int liveCount = finder.getBlockSizes().values().stream().mapToInt(Integer::intValue).sum();
+        assertEquals(99, liveCount, "The 100 names left, but id388 has no tokens");
+    }
+}
@@ -0,0 +1,112 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.factory.StrategyFactory;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+class UnionCandidateFinderTest {
+
+    private CandidateFinder finder;
+    private List<Name> sampleNames;
+    private Name nameJohnSmith;
+    private Name nameJaneSmith;
+    private Name nameJohnSmithDuplicate;
+    private Name namePeterJones;
+
+    @BeforeEach
+    void setUp() {
+        // Last token groups the Smiths, full key groups the two John Smiths
+        finder = new UnionCandidateFinder(Arrays.asList(new DictionaryCandidateFinder(), new RedBlackTreeCandidateFinder()));
+
+        nameJohnSmith = new Name("id1", "John Smith", Arrays.asList("john", "smith"));
+        nameJaneSmith = new Name("id2", "Jane Smith", Arrays.asList("jane", "smith"));
+        nameJohnSmithDuplicate = new Name("id3", "John Smith", Arrays.asList("john", "smith"));
+        namePeterJones = new Name("id4", "Peter Jones", Arrays.asList("peter", "jones"));
+
+        sampleNames = Arrays.asList(nameJohnSmith, nameJaneSmith, nameJohnSmithDuplicate, namePeterJones);
+    }
+
+    private Set<String> pairIds(List<Couple<Name>> pairs) {
+        Set<String> ids = new HashSet<>();
+        for (Couple<Name> pair : pairs) {
+            String id1 = pair.first().id();
+            String id2 = pair.second().id();
+            ids.add(id1.compareTo(id2) < 0 ? id1 + "-" + id2 : id2 + "-" + id1);
+        }
+        return ids;
+    }
+
+    @Test
+    void deduplicationShouldReturnEachPairOnlyOnce() {
+        finder.buildIndex(sampleNames);
+        List<Couple<Name>> pairs = finder.findCandidatesForDeduplication(sampleNames);
+
+        // Both members find id1-id3, the dictionary alone adds id1-id2 and id2-id3
+        assertEquals(3, pairs.size(), "Pairs found by several members must not be repeated");
+        assertEquals(Set.of("id1-id2", "id1-id3", "id2-id3"), pairIds(pairs));
+    }
+
+    @Test
+    void equalButDistinctNamesShouldStillBePaired() {
+        // Name is a record: the duplicate entry is equal() to the original but is a different entry
+        assertEquals(nameJohnSmith.originalName(), nameJohnSmithDuplicate.originalName());
+        finder.buildIndex(sampleNames);
+        assertTrue(pairIds(finder.findCandidatesForDeduplication(sampleNames)).contains("id1-id3"));
+    }
+
+    @Test
+    void searchShouldReturnEachCandidateOnlyOnce() {
+        finder.buildIndex(sampleNames);
+        Name query = new Name("q1", "John Smith", Arrays.asList("john", "smith"));
+        List<Couple<Name>> pairs = finder.findCandidatesForSearch(query, sampleNames);
+
+        assertEquals(3, pairs.size());
+        Set<String> candidateIds = new HashSet<>();
+        for (Couple<Name> pair : pairs) {
+            assertSame(query, pair.first());
+            candidateIds.add(pair.second().id());
+        }
+        assertEquals(Set.of("id1", "id2", "id3"), candidateIds);
+    }
+
+    @Test
+    void comparisonShouldReturnEachPairOnlyOnce() {
+        finder.buildIndex(sampleNames);
+        Name otherJohnSmith = new Name("x1", "John Smith", Arrays.asList("john", "smith"));
+        Name otherPeterJones = new Name("x2", "Peter Jones", Arrays.asList("peter", "jones"));
+        List<Couple<Name>> pairs = finder.findCandidatesForComparison(Arrays.asList(otherJohnSmith, otherPeterJones), sampleNames);
+
+        assertEquals(4, pairs.size()); // x1 with the three Smiths, x2 with id4
+        assertEquals(Set.of("id1-x1", "id2-x1", "id3-x1", "id4-x2"), pairIds(pairs));
+    }
+
+    @Test
+    void addedNamesShouldBeReturnedByAllMembers() {
+        finder.buildIndex(sampleNames);
+        Name newJones = new Name("id5", "Peter Jones", Arrays.asList("peter", "jones"));
+        finder.addNames(List.of(newJones));
+
+        Set<String> ids = pairIds(finder.findCandidatesForDeduplication(sampleNames));
+        assertTrue(ids.contains("id4-id5"));
+        assertEquals(4, ids.size());
+    }
+
+    @Test
+    void factoryShouldBuildUnionFromSpec() {
+        CandidateFinder union = StrategyFactory.createCandidateFinder("union:DICTIONARY_LAST_TOKEN, REDBLACKTREE_FINDER");
+        assertInstanceOf(UnionCandidateFinder.class, union);
+        assertEquals("UNION(DICTIONARY_LAST_TOKEN,REDBLACKTREE_FINDER)", union.getName());
+
+        // Unknown members are skipped, a single remaining member is used as is
+        assertInstanceOf(TrieCandidateFinder.class, StrategyFactory.createCandidateFinder("UNION:TRIE_FINDER,NOT_A_FINDER"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.info2.miniprojet.indexing.impl;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class WandCandidateFinderTest {
+
+    private WandCandidateFinder finder;
+    private List<Name> sampleNames;
+
+    @BeforeEach
+    void setUp() {
+        finder = new WandCandidateFinder();
+        sampleNames = new ArrayList<>();
+        String[] firstNames = {"john", "jane", "peter", "sue", "alan", "maria", "omar", "li", "anna", "karl"};
+        String[] lastNames = {"smith", "jones", "davis", "garcia", "haddad", "wang", "novak", "muller"};
+        int id = 0;
+        for (String lastName : lastNames) {
+            for (String firstName : firstNames) {
+                sampleNames.add(new Name("id" + id++, firstName + " " + lastName, Arrays.asList(firstName, lastName)));
+            }
+        }
+    }
+
+    @Test
+    void getNameShouldReturnCorrectName() {
+        assertEquals("WAND_TOKEN", finder.getName());
+    }
+
+    @Test
+    void searchShouldReturnAtMostTheResultLimitWithTheExactNameFirst() {
+        finder.setResultLimit(3);
+        finder.buildIndex(sampleNames);
+        Name query = new Name("q1", "Omar Haddad", Arrays.asList("omar", "haddad"));
+        List<Couple<Name>> pairs = finder.findCandidatesForSearch(query, sampleNames);
+
+        assertEquals(3, pairs.size());
+        assertEquals("omar haddad", pairs.get(0).second().originalName());
+    }
+
+    @Test
+    void noResultLimitShouldReturnEveryNameSharingAToken() {
+        finder.setResultLimit(0);
+        finder.buildIndex(sampleNames);
+        Name query = new Name("q1", "Omar Haddad", Arrays.asList("omar", "haddad"));
+
+        // 10 haddads + 8 omars, omar haddad counted once
+        assertEquals(17, finder.findCandidatesForSearch(query, sampleNames).size());
+    }
+
+    @Test
+    void removedNamesShouldNotBeReturned() {
+        finder.buildIndex(sampleNames);
+        Name omarHaddad = sampleNames.stream().filter(n -> n.originalName().equals("omar haddad")).findFirst().orElseThrow();
+        finder.removeNames(List.of(omarHaddad.id()));
+
+        Name query = new Name("q1", "Omar Haddad", Arrays.asList("omar", "haddad"));
+        for (Couple<Name> pair : finder.findCandidatesForSearch(query, sampleNames)) {
+            assertNotEquals(omarHaddad.id(), pair.second().id());
+        }
+    }
+
+    @Test
+    void deduplicationShouldPairAddedDuplicateWithOriginal() {
+        finder.setResultLimit(2);
+        finder.buildIndex(sampleNames);
+        Name duplicate = new Name("dup", "Peter Novak", Arrays.asList("peter", "novak"));
+        finder.addNames(List.of(duplicate));
+
+        boolean found = false;
+        for (Couple<Name> pair : finder.findCandidatesForDeduplication(sampleNames)) {
+            assertNotSame(pair.first(), pair.second());
+            found |= (pair.first() == duplicate && pair.second().originalName().equals("peter novak"))
+                    || (pair.second() == duplicate && pair.first().originalName().equals("peter novak"));
+        }
+        assertTrue(found);
+    }
+}
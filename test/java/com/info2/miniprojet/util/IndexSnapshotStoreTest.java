@@ -0,0 +1,102 @@
+package com.info2.miniprojet.util;
+
+import com.info2.miniprojet.core.Couple;
+import com.info2.miniprojet.core.Name;
+import com.info2.miniprojet.factory.StrategyFactory;
+import com.info2.miniprojet.indexing.CandidateFinder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+class IndexSnapshotStoreTest {
+
+    private static final long DATASET_HASH = IndexSnapshotStore.hashDataset(List.of("id1,John Smith", "id2,Jane Smith"));
+    private static final String PREPROCESSOR = "TOKENIZE";
+
+    @TempDir
+    Path directory;
+
+    private final List<Name> names = Arrays.asList(
+            new Name("id1", "John Smith", Arrays.asList("john", "smith")),
+            new Name("id2", "Jane Smith", Arrays.asList("jane", "smith")),
+            new Name("id3", "Peter Jones", Arrays.asList("peter", "jones")),
+            new Name("id4", "John Smithson", Arrays.asList("john", "smithson")),
+            new Name("id5", "No Tokens", null));
+    private final Name query = new Name("q", "Query Smith", Arrays.asList("john", "smith"));
+
+    private Path saveIndexed(String finderChoice) throws Exception {
+        CandidateFinder finder = StrategyFactory.createCandidateFinder(finderChoice);
+        finder.buildIndex(names);
+        Path path = directory.resolve(finderChoice + ".idx");
+        IndexSnapshotStore.save(path, DATASET_HASH, PREPROCESSOR, finderChoice, names, finder);
+        return path;
+    }
+
+    @Test
+    void restoredFinderShouldReturnTheSameCandidates() throws Exception {
+        for (String finderChoice : List.of("DICTIONARY_LAST_TOKEN", "TRIE_FINDER", "REDBLACKTREE_FINDER", "CARTESIAN_FIND_ALL", "WAND_TOKEN")) {
+            CandidateFinder built = StrategyFactory.createCandidateFinder(finderChoice);
+            built.buildIndex(names);
+            Path path = saveIndexed(finderChoice);
+
+            IndexSnapshotStore.Snapshot snapshot = IndexSnapshotStore.load(path, DATASET_HASH, PREPROCESSOR, finderChoice);
+            assertNotNull(snapshot, finderChoice);
+            assertEquals(names, snapshot.names(), finderChoice);
+            assertNull(snapshot.names().get(4).processedTokens(), "A missing token list stays missing");
+            assertEquals(new HashSet<>(built.findCandidatesForDeduplication(names)),
+                    new HashSet<>(snapshot.finder().findCandidatesForDeduplication(snapshot.names())), finderChoice);
+            List<Couple<Name>> expected = built.findCandidatesForSearch(query, names);
+            assertFalse(expected.isEmpty(), finderChoice);
+            assertEquals(new HashSet<>(expected), new HashSet<>(snapshot.finder().findCandidatesForSearch(query, snapshot.names())), finderChoice);
+        }
+    }
+
+    @Test
+    void staleSnapshotShouldBeIgnored() throws Exception {
+        Path path = saveIndexed("DICTIONARY_LAST_TOKEN");
+        assertNull(IndexSnapshotStore.load(path, DATASET_HASH + 1, PREPROCESSOR, "DICTIONARY_LAST_TOKEN"), "Dataset changed");
+        assertNull(IndexSnapshotStore.load(path, DATASET_HASH, "PIPELINE:TOKENIZE,LOWERCASE", "DICTIONARY_LAST_TOKEN"), "Preprocessor changed");
+        assertNull(IndexSnapshotStore.load(path, DATASET_HASH, PREPROCESSOR, "TRIE_FINDER"), "Finder changed");
+        assertNotNull(IndexSnapshotStore.load(path, DATASET_HASH, PREPROCESSOR.toLowerCase(), "dictionary_last_token"), "Specs are case-insensitive");
+    }
+
+    @Test
+    void missingSnapshotShouldBeIgnored() {
+        assertNull(IndexSnapshotStore.load(directory.resolve("none.idx"), DATASET_HASH, PREPROCESSOR, "TRIE_FINDER"));
+    }
+
+    @Test
+    void truncatedSnapshotShouldBeIgnoredWithoutThrowing() throws Exception {
+        for (String finderChoice : List.of("DICTIONARY_LAST_TOKEN", "TRIE_FINDER", "REDBLACKTREE_FINDER")) {
+            Path path = saveIndexed(finderChoice);
+            byte[] bytes = Files.readAllBytes(path);
+            for (int length = 0; length < bytes.length; length++) {
+                Files.write(path, Arrays.copyOf(bytes, length));
+                assertNull(IndexSnapshotStore.load(path, DATASET_HASH, PREPROCESSOR, finderChoice), finderChoice + " cut at " + length);
+            }
+        }
+    }
+
+    @Test
+    void corruptedSnapshotShouldNeverThrow() throws Exception {
+        for (String finderChoice : List.of("DICTIONARY_LAST_TOKEN", "TRIE_FINDER", "REDBLACKTREE_FINDER")) {
+            Path path = saveIndexed(finderChoice);
+            byte[] bytes = Files.readAllBytes(path);
+            // Every field overwritten in turn with a huge count/length, then with a negative one
+            for (byte filler : new byte[]{0x7F, (byte) 0xFE}) {
+                for (int offset = 0; offset + 4 <= bytes.length; offset++) {
+                    byte[] corrupted = bytes.clone();
+                    Arrays.fill(corrupted, offset, offset + 4, filler);
+                    Files.write(path, corrupted);
+                    assertDoesNotThrow(() -> IndexSnapshotStore.load(path, DATASET_HASH, PREPROCESSOR, finderChoice));
+                }
+            }
+        }
+    }
+}
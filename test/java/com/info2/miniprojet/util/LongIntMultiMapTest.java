@@ -0,0 +1,84 @@
+package com.info2.miniprojet.util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class LongIntMultiMapTest {
+
+    private static List<Integer> valuesOf(LongIntMultiMap map, long key) {
+        List<Integer> values = new ArrayList<>();
+        for (int entry = map.first(key); entry >= 0; entry = map.next(entry)) {
+            values.add(map.valueAt(entry));
+        }
+        return values;
+    }
+
+    @Test
+    void duplicateKeysShouldKeepEveryValueMostRecentFirst() {
+        LongIntMultiMap map = new LongIntMultiMap();
+        map.put(7L, 1);
+        map.put(7L, 2);
+        map.put(7L, 2); // Duplicate values are kept too
+        map.put(-7L, 3);
+
+        assertEquals(List.of(2, 2, 1), valuesOf(map, 7L));
+        assertEquals(List.of(3), valuesOf(map, -7L));
+        assertTrue(map.first(8L) < 0, "Absent key");
+        assertEquals(2, map.keyCount());
+        assertEquals(4, map.size());
+    }
+
+    @Test
+    void growingShouldKeepAllKeysAndValues() {
+        LongIntMultiMap map = new LongIntMultiMap(4); // Grows many times
+        Map<Long, List<Integer>> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(5_000) * 0x9E3779B97F4A7C15L; // Spread-out keys, many repeated
+            map.put(key, i);
+            expected.computeIfAbsent(key, k -> new ArrayList<>()).add(0, i);
+        }
+        assertEquals(expected.size(), map.keyCount());
+        assertEquals(20_000, map.size());
+        for (Map.Entry<Long, List<Integer>> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), valuesOf(map, entry.getKey()));
+        }
+    }
+
+    @Test
+    void removeShouldUnlinkOneValueAndKeepOtherKeysReachable() {
+        LongIntMultiMap map = new LongIntMultiMap(4);
+        for (long key = 0; key < 100; key++) {
+            map.put(key, 1);
+            map.put(key, 2);
+            map.put(key, 3);
+        }
+        assertTrue(map.remove(5L, 2)); // Middle of the list
+        assertTrue(map.remove(6L, 3)); // Head
+        assertTrue(map.remove(7L, 1)); // Tail
+        assertFalse(map.remove(5L, 2), "Already removed");
+        assertFalse(map.remove(1000L, 1), "Absent key");
+        assertEquals(List.of(3, 1), valuesOf(map, 5L));
+        assertEquals(List.of(2, 1), valuesOf(map, 6L));
+        assertEquals(List.of(3, 2), valuesOf(map, 7L));
+        assertEquals(297, map.size());
+
+        // A key emptied of its values is absent, but the keys probed past it are still found
+        for (int value = 1; value <= 3; value++) {
+            assertTrue(map.remove(10L, value));
+        }
+        assertTrue(map.first(10L) < 0);
+        for (long key = 0; key < 100; key++) {
+            if (key != 10L) assertFalse(valuesOf(map, key).isEmpty(), "Key " + key);
+        }
+        map.put(10L, 4); // Reuses its slot
+        assertEquals(List.of(4), valuesOf(map, 10L));
+        assertEquals(100, map.keyCount());
+    }
+}